@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.etl.mock.common.MockEmitter;
+import io.cdap.cdap.etl.mock.transform.MockTransformContext;
+import io.cdap.plugin.benchmark.SyntheticData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmarks {@link CSVParser#transform(StructuredRecord, io.cdap.cdap.etl.api.Emitter)} on records with a single
+ * CSV line each. Scores are lines per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CSVParserBenchmark {
+  private static final int NUM_RECORDS = 10000;
+  private static final Schema INPUT_SCHEMA = Schema.recordOf("csv",
+                                                             Schema.Field.of("body", Schema.of(Schema.Type.STRING)));
+
+  @Param({"5", "100"})
+  public int numFields;
+
+  @Param({"false", "true"})
+  public boolean nullable;
+
+  private CSVParser parser;
+  private List<StructuredRecord> lines;
+  private MockEmitter<StructuredRecord> emitter;
+
+  @Setup
+  public void setup() throws Exception {
+    Schema schema = SyntheticData.schema(numFields, nullable);
+    lines = SyntheticData.records(schema, NUM_RECORDS, NUM_RECORDS, 0.2d).stream()
+      .map(record -> StructuredRecord.builder(INPUT_SCHEMA).set("body", SyntheticData.toDelimited(record, ","))
+        .build())
+      .collect(Collectors.toList());
+    parser = new CSVParser(new CSVParser.Config("DEFAULT", null, "body", schema.toString()));
+    parser.initialize(new MockTransformContext());
+    emitter = new MockEmitter<>();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_RECORDS)
+  public void transform(Blackhole blackhole) throws Exception {
+    emitter.clear();
+    for (StructuredRecord line : lines) {
+      parser.transform(line, emitter);
+    }
+    blackhole.consume(emitter.getEmitted());
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.etl.mock.common.MockEmitter;
+import io.cdap.cdap.etl.mock.transform.MockTransformContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link XMLMultiParser#transform(StructuredRecord, io.cdap.cdap.etl.api.Emitter)} on a document with
+ * many elements, with DOM and streaming evaluation of the XPath. Scores are output records per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class XMLMultiParserBenchmark {
+  private static final int NUM_ELEMENTS = 100000;
+  private static final Schema INPUT_SCHEMA = Schema.recordOf("xml",
+                                                             Schema.Field.of("body", Schema.of(Schema.Type.STRING)));
+  private static final Schema SCHEMA = Schema.recordOf(
+    "item",
+    Schema.Field.of("id", Schema.of(Schema.Type.LONG)),
+    Schema.Field.of("name", Schema.of(Schema.Type.STRING)),
+    Schema.Field.of("price", Schema.of(Schema.Type.DOUBLE)),
+    Schema.Field.of("desc", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+
+  @Param({"dom", "streaming"})
+  public String xPathEvaluation;
+
+  private XMLMultiParser parser;
+  private StructuredRecord document;
+  private MockEmitter<StructuredRecord> emitter;
+
+  @Setup
+  public void setup() throws Exception {
+    // roughly 10MB, with elements that are not selected and children that are not in the schema
+    StringBuilder xml = new StringBuilder("<rss><channel><title>benchmark</title>");
+    for (int i = 0; i < NUM_ELEMENTS; i++) {
+      xml.append("<item><id>").append(i).append("</id><name>name ").append(i).append("</name><price>")
+        .append(i % 100).append(".99</price>");
+      if (i % 5 != 0) {
+        xml.append("<desc>description of item ").append(i).append("</desc>");
+      }
+      xml.append("<category>category ").append(i % 10).append("</category></item>");
+    }
+    xml.append("</channel></rss>");
+    document = StructuredRecord.builder(INPUT_SCHEMA).set("body", xml.toString()).build();
+    parser = new XMLMultiParser(new XMLMultiParser.Config("body", "UTF-8", "/rss/channel/item", SCHEMA.toString(),
+                                                          false, false, false, false, xPathEvaluation));
+    parser.initialize(new MockTransformContext());
+    emitter = new MockEmitter<>();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_ELEMENTS)
+  public void transform(Blackhole blackhole) throws Exception {
+    emitter.clear();
+    parser.transform(document, emitter);
+    blackhole.consume(emitter.getEmitted());
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.etl.api.batch.BatchRuntimeContext;
+import io.cdap.cdap.etl.mock.common.MockEmitter;
+import io.cdap.plugin.benchmark.SyntheticData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the per record path of the {@link GroupByAggregator}. Scores are records per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class GroupByAggregatorBenchmark {
+  private static final int NUM_RECORDS = 10000;
+  private static final String AGGREGATES = "largest:max(f1),total:sum(f2),average:avg(f3),longest:longeststring(f4)," +
+    "records:count(*),distinctValues:countdistinct(f1)";
+
+  @Param({"5", "100"})
+  public int numFields;
+
+  @Param({"false", "true"})
+  public boolean nullable;
+
+  @Param({"10", "10000"})
+  public int cardinality;
+
+  private GroupByAggregator aggregator;
+  private List<StructuredRecord> records;
+  private MockEmitter<StructuredRecord> emitter;
+
+  @Setup
+  public void setup() throws Exception {
+    Schema schema = SyntheticData.schema(numFields, nullable);
+    records = SyntheticData.records(schema, NUM_RECORDS, cardinality, 0.2d);
+    aggregator = new GroupByAggregator(new GroupByConfig(SyntheticData.KEY_FIELD, AGGREGATES));
+    aggregator.initialize(runtimeContext(schema));
+    emitter = new MockEmitter<>();
+  }
+
+  /**
+   * Combines the records the way the engine does before the shuffle: compute the group key of every record, then
+   * either create a new aggregate value for the group or merge the record into the existing one.
+   */
+  @Benchmark
+  @OperationsPerInvocation(NUM_RECORDS)
+  public void combine(Blackhole blackhole) throws Exception {
+    Map<StructuredRecord, AggregateResult> groups = new HashMap<>();
+    for (StructuredRecord record : records) {
+      emitter.clear();
+      aggregator.groupBy(record, emitter);
+      StructuredRecord groupKey = emitter.getEmitted().get(0);
+      AggregateResult aggregate = groups.get(groupKey);
+      if (aggregate == null) {
+        groups.put(groupKey, aggregator.initializeAggregateValue(record));
+      } else {
+        aggregator.mergeValues(aggregate, record);
+      }
+    }
+    blackhole.consume(groups);
+  }
+
+  /**
+   * Merges all the records into a single aggregate value, which isolates the cost of the aggregate functions.
+   */
+  @Benchmark
+  @OperationsPerInvocation(NUM_RECORDS)
+  public void mergeValues(Blackhole blackhole) {
+    AggregateResult aggregate = aggregator.initializeAggregateValue(records.get(0));
+    for (int i = 1; i < NUM_RECORDS; i++) {
+      aggregate = aggregator.mergeValues(aggregate, records.get(i));
+    }
+    blackhole.consume(aggregate);
+  }
+
+  /**
+   * @return a runtime context that only knows about the input schema, which is all the aggregator needs
+   */
+  private static BatchRuntimeContext runtimeContext(Schema inputSchema) {
+    return (BatchRuntimeContext) Proxy.newProxyInstance(
+      BatchRuntimeContext.class.getClassLoader(), new Class<?>[] { BatchRuntimeContext.class },
+      (proxy, method, args) -> "getInputSchema".equals(method.getName()) ? inputSchema : null);
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.benchmark.SyntheticData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares merging numeric aggregates record by record with merging them through {@link NumericBatchFunction}.
+ * Scores are input records per second, including the records with a null value when the fields are nullable. The
+ * batch benchmarks only merge the non-null values of the same records, as nulls are skipped either way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class NumericFunctionBenchmark {
+  private static final int NUM_RECORDS = 10000;
+  private static final String LONG_FIELD = SyntheticData.fieldName(2);
+  private static final String DOUBLE_FIELD = SyntheticData.fieldName(3);
+
+  @Param({"false", "true"})
+  public boolean nullable;
+
+  private List<StructuredRecord> records;
+  private Schema longSchema;
+  private Schema doubleSchema;
+  private long[] longValues;
+  private double[] doubleValues;
+
+  @Setup
+  public void setup() {
+    Schema schema = SyntheticData.schema(SyntheticData.NARROW, nullable);
+    longSchema = schema.getField(LONG_FIELD).getSchema();
+    doubleSchema = schema.getField(DOUBLE_FIELD).getSchema();
+    records = SyntheticData.records(schema, NUM_RECORDS, 1, 0.2d);
+    // nulls are skipped by the functions, so the batches only contain the non-null values
+    longValues = records.stream().map(record -> record.<Long>get(LONG_FIELD))
+      .filter(value -> value != null).mapToLong(Long::longValue).toArray();
+    doubleValues = records.stream().map(record -> record.<Double>get(DOUBLE_FIELD))
+      .filter(value -> value != null).mapToDouble(Double::doubleValue).toArray();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_RECORDS)
+  public Number sumRecords() {
+    Sum sum = new Sum(LONG_FIELD, longSchema);
+    sum.initialize();
+    for (StructuredRecord record : records) {
+      sum.mergeValue(record);
+    }
+    return sum.getAggregate();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_RECORDS)
+  public Number sumBatch() {
+    Sum sum = new Sum(LONG_FIELD, longSchema);
+    sum.initialize();
+    sum.mergeValues(longValues, 0, longValues.length);
+    return sum.getAggregate();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_RECORDS)
+  public Double avgRecords() {
+    Avg avg = new Avg(DOUBLE_FIELD, doubleSchema);
+    avg.initialize();
+    for (StructuredRecord record : records) {
+      avg.mergeValue(record);
+    }
+    return avg.getAggregate();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_RECORDS)
+  public Double avgBatch() {
+    Avg avg = new Avg(DOUBLE_FIELD, doubleSchema);
+    avg.initialize();
+    avg.mergeValues(doubleValues, 0, doubleValues.length);
+    return avg.getAggregate();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_RECORDS)
+  public Double varianceRecords() {
+    Variance variance = new Variance(DOUBLE_FIELD, doubleSchema);
+    variance.initialize();
+    for (StructuredRecord record : records) {
+      variance.mergeValue(record);
+    }
+    return variance.getAggregate();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_RECORDS)
+  public Double varianceBatch() {
+    Variance variance = new Variance(DOUBLE_FIELD, doubleSchema);
+    variance.initialize();
+    variance.mergeValues(doubleValues, 0, doubleValues.length);
+    return variance.getAggregate();
+  }
+}
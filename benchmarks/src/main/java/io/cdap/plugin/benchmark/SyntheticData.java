@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.benchmark;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates deterministic synthetic datasets for the benchmarks.
+ *
+ * Every schema starts with a string field named 'key', followed by value fields named 'f1', 'f2', ... whose types
+ * cycle through {@link #VALUE_TYPES}. So 'f1' is always an int, 'f2' a long, 'f3' a double, 'f4' a string and 'f5'
+ * a boolean, as long as the schema has at least that many value fields. The number of distinct keys, the fraction of
+ * null values and the seed of the generator are all controlled by the caller, so that results are comparable across
+ * runs and commits.
+ */
+public final class SyntheticData {
+  public static final String KEY_FIELD = "key";
+  public static final Schema.Type[] VALUE_TYPES = {
+    Schema.Type.INT, Schema.Type.LONG, Schema.Type.DOUBLE, Schema.Type.STRING, Schema.Type.BOOLEAN
+  };
+  /**
+   * Number of value fields of a narrow schema, one of each type.
+   */
+  public static final int NARROW = VALUE_TYPES.length;
+  /**
+   * Number of value fields of a wide schema.
+   */
+  public static final int WIDE = 100;
+
+  private static final long SEED = 20210701L;
+
+  private SyntheticData() {
+    // no-op
+  }
+
+  /**
+   * Creates the schema of a synthetic dataset.
+   *
+   * @param numValueFields number of value fields, in addition to the key field
+   * @param nullable whether the value fields are nullable
+   * @return the schema
+   */
+  public static Schema schema(int numValueFields, boolean nullable) {
+    List<Schema.Field> fields = new ArrayList<>(numValueFields + 1);
+    fields.add(Schema.Field.of(KEY_FIELD, Schema.of(Schema.Type.STRING)));
+    for (int i = 1; i <= numValueFields; i++) {
+      Schema fieldSchema = Schema.of(VALUE_TYPES[(i - 1) % VALUE_TYPES.length]);
+      fields.add(Schema.Field.of(fieldName(i), nullable ? Schema.nullableOf(fieldSchema) : fieldSchema));
+    }
+    return Schema.recordOf("synthetic" + numValueFields, fields);
+  }
+
+  /**
+   * @return the name of the value field at the given one based position
+   */
+  public static String fieldName(int position) {
+    return "f" + position;
+  }
+
+  /**
+   * Generates records of the given schema.
+   *
+   * @param schema schema created by {@link #schema(int, boolean)}
+   * @param numRecords number of records to generate
+   * @param cardinality number of distinct values of the key field
+   * @param nullFraction fraction of nullable values that are set to null
+   * @return the generated records
+   */
+  public static List<StructuredRecord> records(Schema schema, int numRecords, int cardinality, double nullFraction) {
+    Random random = new Random(SEED);
+    List<StructuredRecord> records = new ArrayList<>(numRecords);
+    List<Schema.Field> fields = schema.getFields();
+    for (int i = 0; i < numRecords; i++) {
+      StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+      builder.set(KEY_FIELD, "key" + random.nextInt(cardinality));
+      for (Schema.Field field : fields.subList(1, fields.size())) {
+        Schema fieldSchema = field.getSchema();
+        if (fieldSchema.isNullable()) {
+          if (random.nextDouble() < nullFraction) {
+            builder.set(field.getName(), null);
+            continue;
+          }
+          fieldSchema = fieldSchema.getNonNullable();
+        }
+        builder.set(field.getName(), randomValue(fieldSchema.getType(), random));
+      }
+      records.add(builder.build());
+    }
+    return records;
+  }
+
+  /**
+   * Converts a record to a line of delimited text, with nulls written as empty values.
+   */
+  public static String toDelimited(StructuredRecord record, String delimiter) {
+    StringBuilder line = new StringBuilder();
+    boolean first = true;
+    for (Schema.Field field : record.getSchema().getFields()) {
+      if (!first) {
+        line.append(delimiter);
+      }
+      first = false;
+      Object value = record.get(field.getName());
+      if (value != null) {
+        line.append(value);
+      }
+    }
+    return line.toString();
+  }
+
+  private static Object randomValue(Schema.Type type, Random random) {
+    switch (type) {
+      case INT:
+        return random.nextInt(1000000);
+      case LONG:
+        return random.nextLong();
+      case DOUBLE:
+        return random.nextDouble() * 1000d;
+      case STRING:
+        return Long.toString(random.nextLong() & Long.MAX_VALUE, 36);
+      case BOOLEAN:
+        return random.nextBoolean();
+      default:
+        throw new IllegalArgumentException("Unsupported type " + type);
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.format.delimited.input;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.benchmark.SyntheticData;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reading a local delimited file through the record reader of {@link PathTrackingDelimitedInputFormat}.
+ * Scores are records per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PathTrackingDelimitedInputFormatBenchmark {
+  private static final int NUM_RECORDS = 10000;
+
+  @Param({"5", "100"})
+  public int numFields;
+
+  @Param({"false", "true"})
+  public boolean nullable;
+
+  @Param({",", ";"})
+  public String delimiter;
+
+  @Param({"false", "true"})
+  public boolean quotedValues;
+
+  private File file;
+  private FileSplit split;
+  private TaskAttemptContext context;
+  private PathTrackingDelimitedInputFormat inputFormat;
+
+  @Setup
+  public void setup() throws Exception {
+    Schema schema = SyntheticData.schema(numFields, nullable);
+    file = File.createTempFile("benchmark", ".txt");
+    try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+      for (StructuredRecord record : SyntheticData.records(schema, NUM_RECORDS, NUM_RECORDS, 0.2d)) {
+        writer.write(SyntheticData.toDelimited(record, delimiter));
+        writer.newLine();
+      }
+    }
+    split = new FileSplit(new Path(file.toURI()), 0, file.length(), new String[0]);
+
+    Configuration conf = new Configuration();
+    conf.set("schema", schema.toString());
+    conf.set(PathTrackingDelimitedInputFormat.DELIMITER, delimiter);
+    conf.setBoolean(PathTrackingDelimitedInputFormat.ENABLE_QUOTED_VALUES, quotedValues);
+    context = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+    inputFormat = new PathTrackingDelimitedInputFormat();
+  }
+
+  @TearDown
+  public void tearDown() {
+    file.delete();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_RECORDS)
+  public void read(Blackhole blackhole) throws Exception {
+    try (RecordReader<NullWritable, StructuredRecord> reader = inputFormat.createRecordReader(split, context)) {
+      reader.initialize(split, context);
+      while (reader.nextKeyValue()) {
+        blackhole.consume(reader.getCurrentValue());
+      }
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.transform;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.etl.mock.common.MockEmitter;
+import io.cdap.cdap.etl.mock.transform.MockTransformContext;
+import io.cdap.plugin.benchmark.SyntheticData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link ProjectionTransform#transform(StructuredRecord, io.cdap.cdap.etl.api.Emitter)}, either with
+ * a drop, a rename and a conversion or with a keep of half of the fields. Scores are records per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProjectionTransformBenchmark {
+  private static final int NUM_RECORDS = 10000;
+
+  @Param({"5", "100", "400"})
+  public int numFields;
+
+  @Param({"false", "true"})
+  public boolean nullable;
+
+  @Param({"drop", "keep"})
+  public String projection;
+
+  private ProjectionTransform transform;
+  private List<StructuredRecord> records;
+  private MockEmitter<StructuredRecord> emitter;
+
+  @Setup
+  public void setup() throws Exception {
+    Schema schema = SyntheticData.schema(numFields, nullable);
+    records = SyntheticData.records(schema, NUM_RECORDS, NUM_RECORDS, 0.2d);
+    ProjectionTransform.ProjectionTransformConfig config;
+    if ("keep".equals(projection)) {
+      List<String> keep = new ArrayList<>();
+      for (int i = 1; i <= numFields; i += 2) {
+        keep.add(SyntheticData.fieldName(i));
+      }
+      config = new ProjectionTransform.ProjectionTransformConfig(null, null, null, String.join(",", keep));
+    } else {
+      config = new ProjectionTransform.ProjectionTransformConfig("f5", "f2:renamed", "f1:long", null);
+    }
+    transform = new ProjectionTransform(config);
+    transform.initialize(new MockTransformContext());
+    emitter = new MockEmitter<>();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_RECORDS)
+  public void transform(Blackhole blackhole) {
+    emitter.clear();
+    for (StructuredRecord record : records) {
+      transform.transform(record, emitter);
+    }
+    blackhole.consume(emitter.getEmitted());
+  }
+}
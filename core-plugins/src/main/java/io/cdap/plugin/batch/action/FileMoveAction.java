@@ -36,6 +36,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Pattern;
 import javax.annotation.Nullable;
 
@@ -72,71 +74,58 @@ public class FileMoveAction extends Action {
     FileSystem fileSystem = source.getFileSystem(new Configuration());
     fileSystem.mkdirs(dest.getParent());
 
+    List<Path> paths = new ArrayList<>();
     if (fileSystem.getFileStatus(source).isFile()) { //moving single file
+      paths.add(source);
+    } else {
+      // Moving contents of directory
+      FileStatus[] listFiles;
+      if (config.fileRegex != null) {
+        PathFilter filter = new PathFilter() {
+          private final Pattern pattern = Pattern.compile(config.fileRegex);
 
-      try {
-        if (!fileSystem.rename(source, dest)) {
-          if (!config.continueOnError) {
-            throw new IOException(String.format("Failed to rename file %s to %s", source, dest));
+          @Override
+          public boolean accept(Path path) {
+            return pattern.matcher(path.getName()).matches();
           }
-          LOG.error("Failed to move file {} to {}", source, dest);
-        }
-      } catch (IOException e) {
-        if (!config.continueOnError) {
-          throw e;
-        }
-        LOG.error("Failed to move file {} to {}", source, dest, e);
-      }
-      return;
-    }
+        };
 
-    // Moving contents of directory
-    FileStatus[] listFiles;
-    if (config.fileRegex != null) {
-      PathFilter filter = new PathFilter() {
-        private final Pattern pattern = Pattern.compile(config.fileRegex);
+        listFiles = fileSystem.listStatus(source, filter);
+      } else {
+        listFiles = fileSystem.listStatus(source);
+      }
 
-        @Override
-        public boolean accept(Path path) {
-          return pattern.matcher(path.getName()).matches();
+      if (listFiles.length == 0) {
+        if (config.fileRegex != null) {
+          LOG.warn("Not moving any files of type {} from source {}", config.fileRegex, source.toString());
+        } else {
+          LOG.warn("Not moving any files from source {}", source.toString());
         }
-      };
-
-      listFiles = fileSystem.listStatus(source, filter);
-    } else {
-      listFiles = fileSystem.listStatus(source);
-    }
+      }
 
-    if (listFiles.length == 0) {
-      if (config.fileRegex != null) {
-        LOG.warn("Not moving any files of type {} from source {}", config.fileRegex, source.toString());
-      } else {
-        LOG.warn("Not moving any files from source {}", source.toString());
+      if (fileSystem.isFile(dest)) {
+        throw new IllegalArgumentException(String.format("destPath %s needs to be a directory since sourcePath is a " +
+                                                           "directory", config.destPath));
       }
-    }
+      fileSystem.mkdirs(dest); //create destination directory if necessary
 
-    if (fileSystem.isFile(dest)) {
-      throw new IllegalArgumentException(String.format("destPath %s needs to be a directory since sourcePath is a " +
-                                                         "directory", config.destPath));
+      for (FileStatus file : listFiles) {
+        paths.add(file.getPath());
+      }
     }
-    fileSystem.mkdirs(dest); //create destination directory if necessary
 
-    for (FileStatus file : listFiles) {
-      source = file.getPath();
-
-      try {
-        if (!fileSystem.rename(source, dest)) {
-          if (!config.continueOnError) {
-            throw new IOException(String.format("Failed to rename file %s to %s", source, dest));
-          }
-          LOG.error("Failed to move file {} to {}", source, dest);
-        }
-      } catch (IOException e) {
-        if (!config.continueOnError) {
-          throw e;
-        }
-        LOG.error("Failed to move file {} to {}", source, dest, e);
+    // renames are independent, and on object stores each one is a copy and a delete, so they are done in parallel
+    FileOperationRunner runner = new FileOperationRunner("move", config.getNumThreads(), config.getMaxRetries(),
+                                                         FileOperationRunner.DEFAULT_RETRY_DELAY_MILLIS,
+                                                         context.getMetrics());
+    FileOperationRunner.Result result = runner.run(paths, path -> fileSystem.rename(path, dest),
+                                                   !config.continueOnError);
+    if (!result.getFailedPaths().isEmpty()) {
+      String message = String.format("Failed to move files to %s. %s", dest, result.getFailureSummary());
+      if (!config.continueOnError) {
+        throw new IOException(message, result.getFirstFailure());
       }
+      LOG.error(message);
     }
   }
 
@@ -146,6 +135,8 @@ public class FileMoveAction extends Action {
   public class Conf extends PluginConfig {
     // Constants for property names
     private static final String FILE_REGEX = "fileRegex";
+    private static final String NUM_THREADS = "numThreads";
+    private static final String MAX_RETRIES = "maxRetries";
 
     @Description("The full HDFS path of the file or directory that is to be moved. In the case of a directory, if " +
       "fileRegex is set, then only files in the source directory matching the wildcard regex will be moved. " +
@@ -167,6 +158,18 @@ public class FileMoveAction extends Action {
     @Description("Indicates if the pipeline should continue if the move process fails")
     private boolean continueOnError;
 
+    @Description("Number of files moved in parallel. On object stores, moving a file copies it, so moving many " +
+      "files is considerably faster with more threads. Defaults to 1.")
+    @Nullable
+    @Macro
+    private Integer numThreads;
+
+    @Description("Number of times moving a file is retried when it fails with a transient error, waiting twice " +
+      "as long before every retry. Defaults to 0, which does not retry.")
+    @Nullable
+    @Macro
+    private Integer maxRetries;
+
     public void validate(FailureCollector collector) {
       if (!containsMacro(FILE_REGEX) && fileRegex != null) {
         try {
@@ -176,14 +179,38 @@ public class FileMoveAction extends Action {
                                "Provide valid regex.").withConfigProperty(FILE_REGEX);
         }
       }
+      if (!containsMacro(NUM_THREADS) && numThreads != null && numThreads < 1) {
+        collector.addFailure(String.format("Number of threads %d must be at least 1.", numThreads), null)
+          .withConfigProperty(NUM_THREADS);
+      }
+      if (!containsMacro(MAX_RETRIES) && maxRetries != null && maxRetries < 0) {
+        collector.addFailure(String.format("Maximum retries %d must not be negative.", maxRetries), null)
+          .withConfigProperty(MAX_RETRIES);
+      }
+    }
+
+    int getNumThreads() {
+      return numThreads == null ? 1 : numThreads;
+    }
+
+    int getMaxRetries() {
+      return maxRetries == null ? 0 : maxRetries;
     }
 
     @VisibleForTesting
     Conf(String sourcePath, String destPath, String fileRegex, boolean continueOnError) {
+      this(sourcePath, destPath, fileRegex, continueOnError, null, null);
+    }
+
+    @VisibleForTesting
+    Conf(String sourcePath, String destPath, String fileRegex, boolean continueOnError,
+         @Nullable Integer numThreads, @Nullable Integer maxRetries) {
       this.sourcePath = sourcePath;
       this.destPath = destPath;
       this.fileRegex = fileRegex;
       this.continueOnError = continueOnError;
+      this.numThreads = numThreads;
+      this.maxRetries = maxRetries;
     }
   }
 }
@@ -0,0 +1,279 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.action;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.cdap.cdap.etl.api.StageMetrics;
+import org.apache.hadoop.fs.FileAlreadyExistsException;
+import org.apache.hadoop.fs.ParentNotDirectoryException;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathIOException;
+import org.apache.hadoop.security.AccessControlException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
+
+/**
+ * Applies an operation, like a rename or a delete, to many files with a fixed number of threads. Operations that
+ * fail with a transient exception are retried with an exponential backoff. Progress is logged and counted in the
+ * stage metrics.
+ */
+final class FileOperationRunner {
+  private static final Logger LOG = LoggerFactory.getLogger(FileOperationRunner.class);
+  static final long DEFAULT_RETRY_DELAY_MILLIS = 1000L;
+  private static final int PROGRESS_INTERVAL = 1000;
+  private static final long MAX_RETRY_DELAY_MILLIS = 30000L;
+  // number of failed paths listed in the summary
+  private static final int MAX_LISTED_FAILURES = 10;
+
+  /**
+   * An operation on a single path.
+   */
+  interface FileOperation {
+
+    /**
+     * @return true if the operation succeeded, false if it failed without an exception
+     * @throws IOException if the operation failed
+     */
+    boolean apply(Path path) throws IOException;
+  }
+
+  private final String name;
+  private final int numThreads;
+  private final int maxRetries;
+  private final long retryDelayMillis;
+  private final StageMetrics metrics;
+
+  /**
+   * @param name name of the operation, like 'move', used in logs and in the metric names
+   * @param numThreads number of paths processed in parallel
+   * @param maxRetries number of times an operation that failed with a transient exception is retried
+   * @param retryDelayMillis delay before the first retry of an operation, which doubles with every retry
+   * @param metrics metrics to count succeeded and failed operations and retries in, or null
+   */
+  FileOperationRunner(String name, int numThreads, int maxRetries, long retryDelayMillis,
+                      @Nullable StageMetrics metrics) {
+    this.name = name;
+    this.numThreads = numThreads;
+    this.maxRetries = maxRetries;
+    this.retryDelayMillis = retryDelayMillis;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Applies the operation to all the given paths.
+   *
+   * @param paths paths to apply the operation to
+   * @param operation the operation
+   * @param stopOnFailure whether to stop once an operation failed. Operations that already started still complete.
+   * @return the outcome of the operations
+   * @throws InterruptedException if interrupted while waiting for the operations
+   */
+  Result run(List<Path> paths, FileOperation operation, boolean stopOnFailure) throws InterruptedException {
+    long start = System.currentTimeMillis();
+    AtomicBoolean stopped = new AtomicBoolean();
+    int threads = Math.max(1, Math.min(numThreads, paths.size()));
+    ExecutorService executor = Executors.newFixedThreadPool(
+      threads, new ThreadFactoryBuilder().setNameFormat("file-" + name + "-%d").setDaemon(true).build());
+    CompletionService<Outcome> completionService = new ExecutorCompletionService<>(executor);
+    Result result = new Result(paths.size());
+    try {
+      for (Path path : paths) {
+        completionService.submit(() -> {
+          if (stopped.get()) {
+            return null;
+          }
+          Outcome outcome = apply(path, operation);
+          // set by the worker, so that no operation starts after the failure was seen
+          if (!outcome.succeeded && stopOnFailure) {
+            stopped.set(true);
+          }
+          return outcome;
+        });
+      }
+      for (int i = 1; i <= paths.size(); i++) {
+        Outcome outcome;
+        try {
+          outcome = completionService.take().get();
+        } catch (ExecutionException e) {
+          throw Throwables.propagate(e.getCause());
+        }
+        if (outcome != null) {
+          result.add(outcome);
+          count("retries", outcome.retries);
+          if (outcome.succeeded) {
+            count("succeeded", 1);
+          } else {
+            count("failed", 1);
+          }
+        }
+        if (i % PROGRESS_INTERVAL == 0) {
+          LOG.info("Processed {} of {} files to {}, {} failed.", i, paths.size(), name, result.failedPaths.size());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    LOG.info("Applied {} to {} of {} files in {} ms with {} threads, {} failed and {} retries.", name,
+             result.succeeded, paths.size(), System.currentTimeMillis() - start, threads, result.failedPaths.size(),
+             result.retries);
+    return result;
+  }
+
+  private Outcome apply(Path path, FileOperation operation) throws InterruptedException {
+    long delay = retryDelayMillis;
+    for (int retries = 0; ; retries++) {
+      try {
+        return new Outcome(path, operation.apply(path), null, retries);
+      } catch (IOException e) {
+        if (retries >= maxRetries || !isTransient(e)) {
+          LOG.warn("Failed to {} {}.", name, path, e);
+          return new Outcome(path, false, e, retries);
+        }
+        LOG.debug("Failed to {} {}, retrying in {} ms.", name, path, delay, e);
+      } catch (RuntimeException e) {
+        LOG.warn("Failed to {} {}.", name, path, e);
+        return new Outcome(path, false, e, retries);
+      }
+      TimeUnit.MILLISECONDS.sleep(delay);
+      delay = Math.min(delay * 2, MAX_RETRY_DELAY_MILLIS);
+    }
+  }
+
+  /**
+   * Returns whether a failure may go away when retried. Missing files, files that already exist, paths under a file
+   * and denied access fail the same way every time.
+   */
+  private static boolean isTransient(IOException e) {
+    return !(e instanceof FileNotFoundException) && !(e instanceof FileAlreadyExistsException) &&
+      !(e instanceof ParentNotDirectoryException) && !(e instanceof PathIOException) &&
+      !(e instanceof AccessControlException);
+  }
+
+  private void count(String metric, int delta) {
+    if (metrics != null && delta > 0) {
+      metrics.count("files." + name + "." + metric, delta);
+    }
+  }
+
+  /**
+   * Outcome of the operation on a single path.
+   */
+  private static final class Outcome {
+    private final Path path;
+    private final boolean succeeded;
+    private final Exception failure;
+    private final int retries;
+
+    private Outcome(Path path, boolean succeeded, @Nullable Exception failure, int retries) {
+      this.path = path;
+      this.succeeded = succeeded;
+      this.failure = failure;
+      this.retries = retries;
+    }
+  }
+
+  /**
+   * Outcome of the operations on all the paths.
+   */
+  static final class Result {
+    private final int total;
+    private final List<Path> failedPaths = new ArrayList<>();
+    private int succeeded;
+    private int retries;
+    private Exception firstFailure;
+
+    private Result(int total) {
+      this.total = total;
+    }
+
+    private void add(Outcome outcome) {
+      retries += outcome.retries;
+      if (outcome.succeeded) {
+        succeeded++;
+        return;
+      }
+      failedPaths.add(outcome.path);
+      if (firstFailure == null) {
+        firstFailure = outcome.failure;
+      }
+    }
+
+    int getSucceeded() {
+      return succeeded;
+    }
+
+    /**
+     * @return paths for which the operation failed, in the order in which they failed
+     */
+    List<Path> getFailedPaths() {
+      return Collections.unmodifiableList(failedPaths);
+    }
+
+    /**
+     * @return number of paths that were not processed because an operation failed and the runner stopped
+     */
+    int getSkipped() {
+      return total - succeeded - failedPaths.size();
+    }
+
+    int getRetries() {
+      return retries;
+    }
+
+    /**
+     * @return the exception of the first operation that failed with one, or null
+     */
+    @Nullable
+    Exception getFirstFailure() {
+      return firstFailure;
+    }
+
+    /**
+     * @return a summary of the failures, listing the first failed paths
+     */
+    String getFailureSummary() {
+      StringBuilder summary = new StringBuilder()
+        .append(failedPaths.size()).append(" of ").append(total).append(" failed");
+      if (getSkipped() > 0) {
+        summary.append(" and ").append(getSkipped()).append(" were skipped");
+      }
+      summary.append(": ");
+      for (int i = 0; i < Math.min(failedPaths.size(), MAX_LISTED_FAILURES); i++) {
+        summary.append(i == 0 ? "" : ", ").append(failedPaths.get(i));
+      }
+      if (failedPaths.size() > MAX_LISTED_FAILURES) {
+        summary.append(" and ").append(failedPaths.size() - MAX_LISTED_FAILURES).append(" more");
+      }
+      return summary.toString();
+    }
+  }
+}
@@ -49,6 +49,7 @@ public class DedupAggregator extends RecordReducibleAggregator<StructuredRecord>
   private List<String> uniqueFields;
   private DedupConfig.DedupFunctionInfo filterFunction;
   private SelectionFunction selectionFunction;
+  private KeySalter salter;
 
   public DedupAggregator(DedupConfig dedupConfig) {
     super(dedupConfig.numPartitions);
@@ -85,6 +86,8 @@ public class DedupAggregator extends RecordReducibleAggregator<StructuredRecord>
     Schema outputSchema = getOutputSchema(inputSchema);
     FailureCollector collector = stageConfigurer.getFailureCollector();
     validateSchema(outputSchema, uniqueFields, functionInfo, collector);
+    validateDistribution(functionInfo, collector);
+    collector.getOrThrowException();
 
     if (functionInfo != null) {
       // Invoke to validate whether the function used is supported, the field must be non-null here because of the
@@ -96,13 +99,17 @@ public class DedupAggregator extends RecordReducibleAggregator<StructuredRecord>
   }
 
   @Override
-  public void initialize(BatchRuntimeContext context) {
+  public void initialize(BatchRuntimeContext context) throws Exception {
+    super.initialize(context);
     uniqueFields = dedupConfig.getUniqueFields();
     filterFunction = dedupConfig.getFilter();
+    Integer distributionFactor = dedupConfig.getDistributionFactor();
+    salter = distributionFactor == null ? null : new KeySalter(distributionFactor);
   }
 
   @Override
   public void groupBy(StructuredRecord record, Emitter<StructuredRecord> emitter) {
+    countInput();
     if (uniqueFields == null) {
       emitter.emit(record);
       return;
@@ -112,11 +119,12 @@ public class DedupAggregator extends RecordReducibleAggregator<StructuredRecord>
     for (String fieldName : uniqueFields) {
       builder.set(fieldName, record.get(fieldName));
     }
-    emitter.emit(builder.build());
+    emitter.emit(salter == null ? builder.build() : salter.salt(builder.build()));
   }
 
   @Override
   public StructuredRecord initializeAggregateValue(StructuredRecord record) {
+    countPartialAggregate();
     return record;
   }
 
@@ -191,4 +199,23 @@ public class DedupAggregator extends RecordReducibleAggregator<StructuredRecord>
       }
     }
   }
+
+  private void validateDistribution(@Nullable DedupConfig.DedupFunctionInfo function, FailureCollector collector) {
+    Integer distributionFactor = dedupConfig.getDistributionFactor();
+    if (distributionFactor == null) {
+      return;
+    }
+    if (distributionFactor <= 0) {
+      collector.addFailure(String.format("Invalid distribution factor %d.", distributionFactor),
+                           "Please specify a positive number.")
+        .withConfigProperty("distributionFactor");
+    }
+    if (function != null && !function.getFunction().isMergeable()) {
+      collector.addFailure(
+        String.format("Filter function '%s' cannot be used with a distribution factor because the selected record " +
+                        "depends on the order of the records.", function.getFunction()),
+        "Please use the min or max function, or remove the distribution factor.")
+        .withConfigProperty("filterOperation");
+    }
+  }
 }
@@ -57,15 +57,30 @@ public class DedupConfig extends AggregatorConfig {
   @Macro
   private String filterOperation;
 
+  @Description("Optional number of salted groups each group of duplicates is spread over, for inputs where a few " +
+    "groups hold most of the records. Duplicates are then only removed within each salted group, so this stage " +
+    "must be followed by a second Deduplicate stage with the same unique fields and filter operation and no " +
+    "distribution factor. The first and last filter functions are not supported with a distribution factor.")
+  @Nullable
+  @Macro
+  private Integer distributionFactor;
+
   public DedupConfig() {
     this.uniqueFields = "";
     this.filterOperation = "";
+    this.distributionFactor = null;
   }
 
   @VisibleForTesting
   DedupConfig(String uniqueFields, String filterOperation) {
+    this(uniqueFields, filterOperation, null);
+  }
+
+  @VisibleForTesting
+  DedupConfig(String uniqueFields, String filterOperation, @Nullable Integer distributionFactor) {
     this.uniqueFields = uniqueFields;
     this.filterOperation = filterOperation;
+    this.distributionFactor = distributionFactor;
   }
 
   List<String> getUniqueFields() {
@@ -78,6 +93,11 @@ public class DedupConfig extends AggregatorConfig {
     return uniqueFieldList;
   }
 
+  @Nullable
+  Integer getDistributionFactor() {
+    return distributionFactor;
+  }
+
   @Nullable
   DedupFunctionInfo getFilter() {
     if (Strings.isNullOrEmpty(filterOperation)) {
@@ -170,6 +190,14 @@ public class DedupConfig extends AggregatorConfig {
     FIRST,
     LAST,
     MIN,
-    MAX
+    MAX;
+
+    /**
+     * @return whether the records selected by the function can be selected from again in any order. This is not
+     * the case for functions that depend on the order of the records.
+     */
+    boolean isMergeable() {
+      return this == MIN || this == MAX;
+    }
   }
 }
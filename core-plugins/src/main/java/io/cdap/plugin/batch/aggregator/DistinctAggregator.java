@@ -121,13 +121,15 @@ public class DistinctAggregator extends RecordReducibleAggregator<StructuredReco
   }
 
   @Override
-  public void initialize(BatchRuntimeContext context) {
+  public void initialize(BatchRuntimeContext context) throws Exception {
+    super.initialize(context);
     outputSchema = context.getOutputSchema();
     fields = conf.getFields();
   }
 
   @Override
   public void groupBy(StructuredRecord record, Emitter<StructuredRecord> emitter) {
+    countInput();
     if (fields == null || !fields.iterator().hasNext()) {
       emitter.emit(record);
       return;
@@ -143,6 +145,7 @@ public class DistinctAggregator extends RecordReducibleAggregator<StructuredReco
 
   @Override
   public StructuredRecord initializeAggregateValue(StructuredRecord record) {
+    countPartialAggregate();
     return record;
   }
 
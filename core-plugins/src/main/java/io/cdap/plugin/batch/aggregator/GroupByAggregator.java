@@ -31,6 +31,7 @@ import io.cdap.cdap.etl.api.batch.BatchRuntimeContext;
 import io.cdap.cdap.etl.api.lineage.field.FieldOperation;
 import io.cdap.cdap.etl.api.lineage.field.FieldTransformOperation;
 import io.cdap.plugin.batch.aggregator.function.AggregateFunction;
+import io.cdap.plugin.batch.aggregator.function.ApproxCountDistinct;
 import io.cdap.plugin.batch.aggregator.function.JexlCondition;
 import io.cdap.plugin.common.SchemaValidator;
 
@@ -93,11 +94,13 @@ public class GroupByAggregator extends RecordReducibleAggregator<AggregateResult
     put("CORRECTEDSUMOFSQUARESIF", "CorrectedSumOfSquaresIf");
     put("SUMOFSQUARESIF", "SumOfSquaresIf");
     put("ANYIF", "AnyIf");
+    put("APPROXCOUNTDISTINCT", "ApproxCountDistinct");
+    put("APPROXCOUNTDISTINCTIF", "ApproxCountDistinctIf");
   }};
 
-  private List<String> groupByFields;
-  private List<GroupByConfig.FunctionInfo> functionInfos;
-  private Schema outputSchema;
+  private GroupByPlan.Cache plans;
+  private GroupByConfig.AggregationPhase phase;
+  private KeySalter salter;
 
   public GroupByAggregator(GroupByConfig conf) {
     super(conf.numPartitions);
@@ -113,8 +116,9 @@ public class GroupByAggregator extends RecordReducibleAggregator<AggregateResult
     Schema inputSchema = stageConfigurer.getInputSchema();
     // if null, the input schema is unknown, or its multiple schemas.
     // if groupByFields is empty or aggregates is empty, that means they contain macros, which means the
-    // output schema is not known at configure time.
-    if (inputSchema == null || groupByFields.isEmpty() || aggregates.isEmpty()) {
+    // output schema is not known at configure time. The same goes for the aggregation phase.
+    if (inputSchema == null || groupByFields.isEmpty() || aggregates.isEmpty()
+      || conf.containsMacro("aggregationPhase")) {
       stageConfigurer.setOutputSchema(null);
       return;
     }
@@ -125,7 +129,18 @@ public class GroupByAggregator extends RecordReducibleAggregator<AggregateResult
 
     // otherwise, we have a constant input schema. Get the output schema and
     // propagate the schema, which is group by fields + aggregate fields
-    stageConfigurer.setOutputSchema(getOutputSchema(inputSchema, groupByFields, aggregates));
+    switch (conf.getAggregationPhase()) {
+      case PARTIAL:
+        stageConfigurer.setOutputSchema(
+          GroupByPlan.compile(inputSchema, groupByFields, aggregates).getPartialSchema());
+        break;
+      case FINAL:
+        stageConfigurer.setOutputSchema(
+          GroupByPlan.compileFinal(inputSchema, groupByFields, aggregates).getOutputSchema());
+        break;
+      default:
+        stageConfigurer.setOutputSchema(getOutputSchema(inputSchema, groupByFields, aggregates));
+    }
   }
 
   public void validate(Schema inputSchema, List<String> groupByFields,
@@ -140,14 +155,20 @@ public class GroupByAggregator extends RecordReducibleAggregator<AggregateResult
       }
     }
 
+    GroupByConfig.AggregationPhase phase = conf.getAggregationPhase();
+    validateAggregationPhase(phase, aggregates, collector);
+    if (phase == GroupByConfig.AggregationPhase.FINAL) {
+      // the input holds partial aggregates, which were validated against the original input by the partial phase
+      validatePartialInput(inputSchema, aggregates, collector);
+      return;
+    }
+
     for (GroupByConfig.FunctionInfo functionInfo : aggregates) {
       if (functionInfo.getField().equals("*")) {
         continue;
       }
       Schema.Field inputField = inputSchema.getField(functionInfo.getField());
-      String collectorFieldName = String.format("%s:%s(%s)", functionInfo.getName(),
-                                              functionNameMap.get(functionInfo.getFunction().toString().toUpperCase()),
-                                              functionInfo.getField());
+      String collectorFieldName = getCollectorFieldName(functionInfo);
 
       if (inputField == null) {
         collector.addFailure(
@@ -161,9 +182,68 @@ public class GroupByAggregator extends RecordReducibleAggregator<AggregateResult
         validateCountDistinct(inputField, collector, collectorFieldName);
       }
     }
+
+    int precision = conf.getApproxCountDistinctPrecision();
+    if (precision < ApproxCountDistinct.MIN_PRECISION || precision > ApproxCountDistinct.MAX_PRECISION) {
+      collector.addFailure(String.format("Invalid approximate distinct count precision %d.", precision),
+                           String.format("Please specify a precision between %d and %d.",
+                                         ApproxCountDistinct.MIN_PRECISION, ApproxCountDistinct.MAX_PRECISION))
+        .withConfigProperty("approxCountDistinctPrecision");
+    }
     validateConditionalFunctions(inputSchema, conf.getAggregates(), collector);
   }
 
+  private void validateAggregationPhase(GroupByConfig.AggregationPhase phase,
+                                        List<GroupByConfig.FunctionInfo> aggregates, FailureCollector collector) {
+    if (phase == GroupByConfig.AggregationPhase.COMPLETE) {
+      return;
+    }
+    for (GroupByConfig.FunctionInfo functionInfo : aggregates) {
+      if (!functionInfo.getFunction().isMergeable()) {
+        collector.addFailure(
+          String.format("Aggregate function '%s' cannot be used in the '%s' aggregation phase because its result " +
+                          "depends on the order of the records.", functionInfo.getFunction(),
+                        phase.name().toLowerCase()),
+          "Remove the aggregate or use the 'complete' aggregation phase.")
+          .withConfigElement("aggregates", getCollectorFieldName(functionInfo));
+      }
+    }
+    if (phase == GroupByConfig.AggregationPhase.PARTIAL && !conf.containsMacro("distributionFactor")) {
+      Integer distributionFactor = conf.getDistributionFactor();
+      if (distributionFactor == null || distributionFactor <= 0) {
+        collector.addFailure("Distribution factor must be a positive number in the 'partial' aggregation phase.",
+                             null)
+          .withConfigProperty("distributionFactor");
+      }
+    }
+  }
+
+  private void validatePartialInput(Schema inputSchema, List<GroupByConfig.FunctionInfo> aggregates,
+                                    FailureCollector collector) {
+    Schema.Field partialField = inputSchema.getField(GroupByPlan.PARTIAL_FIELD);
+    if (partialField == null || partialField.getSchema().getType() != Schema.Type.BYTES) {
+      collector.addFailure(
+        String.format("Input schema does not have the bytes field '%s' of partial aggregates.",
+                      GroupByPlan.PARTIAL_FIELD),
+        "The input of the 'final' aggregation phase must be the output of a stage in the 'partial' phase.")
+        .withConfigProperty("aggregationPhase");
+    }
+    for (GroupByConfig.FunctionInfo functionInfo : aggregates) {
+      if (inputSchema.getField(functionInfo.getName()) == null) {
+        collector.addFailure(
+          String.format("Partial aggregate '%s' does not exist in input schema.", functionInfo.getName()),
+          "Use the same aggregates as the stage in the 'partial' aggregation phase.")
+          .withConfigElement("aggregates", getCollectorFieldName(functionInfo));
+      }
+    }
+  }
+
+  private String getCollectorFieldName(GroupByConfig.FunctionInfo functionInfo) {
+    return String.format("%s:%s(%s)", functionInfo.getName(),
+                         functionNameMap.get(functionInfo.getFunction().toString().toUpperCase()),
+                         functionInfo.getField());
+  }
+
   private void validateCountDistinct(Schema.Field inputField, FailureCollector collector, String validationFieldName) {
     if (inputField != null) {
       Schema.Type type = inputField.getSchema().isNullable() ?
@@ -184,10 +264,19 @@ public class GroupByAggregator extends RecordReducibleAggregator<AggregateResult
     super.prepareRun(context);
     LinkedList<FieldOperation> fllOperations = new LinkedList<>();
     // in configurePipeline all the necessary checks have been performed already to set output schema
+    boolean finalPhase = conf.getAggregationPhase() == GroupByConfig.AggregationPhase.FINAL;
     if (SchemaValidator.canRecordLineage(context.getOutputSchema(), "output")) {
       Schema inputSchema = context.getInputSchema();
       // for every function record the field level operation details
       for (GroupByConfig.FunctionInfo functionInfo : conf.getAggregates()) {
+        if (finalPhase) {
+          // the aggregates are merged from the partial aggregates, the aggregated fields are not in the input
+          fllOperations.add(new FieldTransformOperation(
+            String.format("Merge %s", functionInfo.getName()),
+            String.format("Partial aggregates merged: '%s'.", functionInfo.getFunction()),
+            Collections.singletonList(GroupByPlan.PARTIAL_FIELD), functionInfo.getName()));
+          continue;
+        }
         Schema.Field outputSchemaField = getOutputSchemaField(functionInfo, inputSchema);
         String operationName = String.format("Group %s", functionInfo.getField());
         String description = String.format("Aggregate function applied: '%s'.", functionInfo.getFunction());
@@ -197,7 +286,9 @@ public class GroupByAggregator extends RecordReducibleAggregator<AggregateResult
         fllOperations.add(operation);
       }
     }
-    validateConditionalFunctions(context.getInputSchema(), conf.getAggregates(), context.getFailureCollector());
+    if (!finalPhase) {
+      validateConditionalFunctions(context.getInputSchema(), conf.getAggregates(), context.getFailureCollector());
+    }
     context.record(fllOperations);
   }
 
@@ -259,34 +350,49 @@ public class GroupByAggregator extends RecordReducibleAggregator<AggregateResult
 
   @Override
   public void initialize(BatchRuntimeContext context) throws Exception {
-    groupByFields = conf.getGroupByFields();
-    functionInfos = conf.getAggregates();
+    super.initialize(context);
+    phase = conf.getAggregationPhase();
+    plans = new GroupByPlan.Cache(conf.getGroupByFields(), conf.getAggregates(),
+                                  phase == GroupByConfig.AggregationPhase.FINAL);
+    if (phase == GroupByConfig.AggregationPhase.PARTIAL) {
+      Integer distributionFactor = conf.getDistributionFactor();
+      if (distributionFactor == null) {
+        throw new IllegalArgumentException("The 'distributionFactor' property must be set in the 'partial' " +
+                                             "aggregation phase.");
+      }
+      salter = new KeySalter(distributionFactor);
+    }
     if (context.getInputSchema() != null) {
-      initAggregates(context.getInputSchema());
+      // compile eagerly so that an invalid configuration fails at initialization time
+      plans.get(context.getInputSchema());
     }
   }
 
   @Override
   public void groupBy(StructuredRecord record, Emitter<StructuredRecord> emitter) throws Exception {
-    // app should provide some way to make some data calculated in configurePipeline available here.
-    // then we wouldn't have to calculate schema here
-    StructuredRecord.Builder builder = StructuredRecord.builder(getGroupKeySchema(record.getSchema()));
-    for (String groupByField : conf.getGroupByFields()) {
-      builder.set(groupByField, record.get(groupByField));
-    }
-    emitter.emit(builder.build());
+    countInput();
+    StructuredRecord groupKey = plans.get(record.getSchema()).getGroupKey(record);
+    emitter.emit(salter == null ? groupKey : salter.salt(groupKey));
   }
 
   @Override
   public AggregateResult initializeAggregateValue(StructuredRecord record) {
-    Map<String, AggregateFunction> functions = initAggregates(record.getSchema());
-    functions.values().forEach(AggregateFunction::initialize);
+    countPartialAggregate();
+    GroupByPlan plan = plans.get(record.getSchema());
+    if (phase == GroupByConfig.AggregationPhase.FINAL) {
+      return new AggregateResult(record.getSchema(), plan.readPartialFunctions(record));
+    }
+    Map<String, AggregateFunction> functions = plan.newFunctions();
     updateAggregates(functions, record);
     return new AggregateResult(record.getSchema(), functions);
   }
 
   @Override
   public AggregateResult mergeValues(AggregateResult agg, StructuredRecord record) {
+    if (phase == GroupByConfig.AggregationPhase.FINAL) {
+      mergeAggregates(agg.getFunctions(), plans.get(record.getSchema()).readPartialFunctions(record));
+      return agg;
+    }
     updateAggregates(agg.getFunctions(), record);
     return agg;
   }
@@ -300,16 +406,10 @@ public class GroupByAggregator extends RecordReducibleAggregator<AggregateResult
   @Override
   public void finalize(StructuredRecord groupKey, AggregateResult aggValue,
                        Emitter<StructuredRecord> emitter) {
-    initAggregates(aggValue.getInputSchema());
-    StructuredRecord.Builder builder = StructuredRecord.builder(outputSchema);
-    for (String groupByField : groupByFields) {
-      builder.set(groupByField, groupKey.get(groupByField));
-    }
-
-    for (Map.Entry<String, AggregateFunction> aggregateFunction : aggValue.getFunctions().entrySet()) {
-      builder.set(aggregateFunction.getKey(), aggregateFunction.getValue().getAggregate());
-    }
-    emitter.emit(builder.build());
+    GroupByPlan plan = plans.get(aggValue.getInputSchema());
+    emitter.emit(phase == GroupByConfig.AggregationPhase.PARTIAL ?
+                   plan.toPartialRecord(groupKey, aggValue.getFunctions()) :
+                   plan.toOutputRecord(groupKey, aggValue.getFunctions()));
   }
 
   private Schema getOutputSchema(Schema inputSchema, List<String> groupByFields,
@@ -361,36 +461,4 @@ public class GroupByAggregator extends RecordReducibleAggregator<AggregateResult
     AggregateFunction aggregateFunction = functionInfo.getAggregateFunction(inputField.getSchema());
     return Schema.Field.of(functionInfo.getName(), aggregateFunction.getOutputSchema());
   }
-
-  private Map<String, AggregateFunction> initAggregates(Schema valueSchema) {
-    List<Schema.Field> outputFields = new ArrayList<>(groupByFields.size() + functionInfos.size());
-    for (String groupByField : groupByFields) {
-      outputFields.add(valueSchema.getField(groupByField));
-    }
-
-    Map<String, AggregateFunction> functions = new HashMap<>();
-    for (GroupByConfig.FunctionInfo functionInfo : functionInfos) {
-      Schema.Field inputField = valueSchema.getField(functionInfo.getField());
-      Schema fieldSchema = inputField == null ? null : inputField.getSchema();
-      AggregateFunction aggregateFunction = functionInfo.getAggregateFunction(fieldSchema);
-      outputFields.add(Schema.Field.of(functionInfo.getName(), aggregateFunction.getOutputSchema()));
-      functions.put(functionInfo.getName(), aggregateFunction);
-    }
-    outputSchema = Schema.recordOf(valueSchema.getRecordName() + ".agg", outputFields);
-    return functions;
-  }
-
-  private Schema getGroupKeySchema(Schema inputSchema) {
-    List<Schema.Field> fields = new ArrayList<>();
-    for (String groupByField : conf.getGroupByFields()) {
-      Schema.Field fieldSchema = inputSchema.getField(groupByField);
-      if (fieldSchema == null) {
-        throw new IllegalArgumentException(String.format(
-          "Cannot group by field '%s' because it does not exist in input schema %s",
-          groupByField, inputSchema));
-      }
-      fields.add(fieldSchema);
-    }
-    return Schema.recordOf("group.key.schema", fields);
-  }
 }
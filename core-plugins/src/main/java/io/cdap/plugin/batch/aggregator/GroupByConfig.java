@@ -25,16 +25,20 @@ import io.cdap.cdap.api.annotation.Macro;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.plugin.batch.aggregator.function.AggregateFunction;
 import io.cdap.plugin.batch.aggregator.function.AnyIf;
+import io.cdap.plugin.batch.aggregator.function.ApproxCountDistinct;
+import io.cdap.plugin.batch.aggregator.function.ApproxCountDistinctIf;
 import io.cdap.plugin.batch.aggregator.function.Avg;
 import io.cdap.plugin.batch.aggregator.function.AvgIf;
 import io.cdap.plugin.batch.aggregator.function.CollectList;
 import io.cdap.plugin.batch.aggregator.function.CollectListIf;
 import io.cdap.plugin.batch.aggregator.function.CollectSet;
 import io.cdap.plugin.batch.aggregator.function.CollectSetIf;
+import io.cdap.plugin.batch.aggregator.function.CollectionLimits;
 import io.cdap.plugin.batch.aggregator.function.Concat;
 import io.cdap.plugin.batch.aggregator.function.ConcatDistinct;
 import io.cdap.plugin.batch.aggregator.function.ConcatDistinctIf;
 import io.cdap.plugin.batch.aggregator.function.ConcatIf;
+import io.cdap.plugin.batch.aggregator.function.Condition;
 import io.cdap.plugin.batch.aggregator.function.CorrectedSumOfSquares;
 import io.cdap.plugin.batch.aggregator.function.CorrectedSumOfSquaresIf;
 import io.cdap.plugin.batch.aggregator.function.Count;
@@ -72,6 +76,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * Config for group by types of plugins.
@@ -96,15 +101,133 @@ public class GroupByConfig extends AggregatorConfig {
     "output records will have a 'user' field and 'numActions' field.")
   private final String groupByFields;
 
+  @Macro
+  @Nullable
+  @Description("Precision of the sketches used by the approximate distinct count functions. " +
+    "Each sketch uses 2^precision bytes per group and has a relative standard error of about " +
+    "1.04 / sqrt(2^precision). Must be between 4 and 18. Defaults to 12.")
+  private final Integer approxCountDistinctPrecision;
+
+  @Macro
+  @Nullable
+  @Description("Maximum number of values kept per group by the collectList, collectSet, concat and concatDistinct " +
+    "functions and their conditional variants. Additional values of a group are ignored. No limit by default.")
+  private final Integer maxCollectionSize;
+
+  @Macro
+  @Nullable
+  @Description("Memory in megabytes that the collectList, collectSet, concat and concatDistinct functions and their " +
+    "conditional variants may use per group to hold values. Once it is reached, the values are compacted into " +
+    "compressed serialized runs that stay in memory, and are merged back when the aggregate is computed. Unless " +
+    "maxCollectionSize is set, a group whose compacted values still take more memory fails the pipeline. No limit " +
+    "by default.")
+  private final Integer collectionMemoryLimit;
+
+  @Macro
+  @Nullable
+  @Description("Phase of a salted two-phase aggregation computed by this stage, for inputs where a few groups hold " +
+    "most of the records. 'complete' computes the aggregates in a single pass and is the default. 'partial' groups " +
+    "by the group by fields and a salt, spreading each group over 'distributionFactor' groups, and outputs partial " +
+    "aggregates. 'final' merges the partial aggregates output by a 'partial' stage that has the same group by " +
+    "fields and aggregates. The first and last functions are not supported in the 'partial' and 'final' phases.")
+  private final String aggregationPhase;
+
+  @Macro
+  @Nullable
+  @Description("Number of salted groups each group is spread over in the 'partial' aggregation phase. The number of " +
+    "partitions should be greater than or equal to this number for optimal results. A larger value will lead to " +
+    "more parallelism but it will also grow the number of partial aggregates by this factor.")
+  private final Integer distributionFactor;
+
   public GroupByConfig() {
     this.groupByFields = "";
     this.aggregates = "";
+    this.approxCountDistinctPrecision = null;
+    this.maxCollectionSize = null;
+    this.collectionMemoryLimit = null;
+    this.aggregationPhase = null;
+    this.distributionFactor = null;
   }
 
   @VisibleForTesting
   GroupByConfig(String groupByFields, String aggregates) {
+    this(groupByFields, aggregates, null);
+  }
+
+  @VisibleForTesting
+  GroupByConfig(String groupByFields, String aggregates, @Nullable Integer approxCountDistinctPrecision) {
+    this(groupByFields, aggregates, approxCountDistinctPrecision, null, null);
+  }
+
+  @VisibleForTesting
+  GroupByConfig(String groupByFields, String aggregates, @Nullable Integer approxCountDistinctPrecision,
+                @Nullable Integer maxCollectionSize, @Nullable Integer collectionMemoryLimit) {
+    this(groupByFields, aggregates, approxCountDistinctPrecision, maxCollectionSize, collectionMemoryLimit, null,
+         null);
+  }
+
+  @VisibleForTesting
+  GroupByConfig(String groupByFields, String aggregates, @Nullable Integer approxCountDistinctPrecision,
+                @Nullable Integer maxCollectionSize, @Nullable Integer collectionMemoryLimit,
+                @Nullable String aggregationPhase, @Nullable Integer distributionFactor) {
     this.groupByFields = groupByFields;
     this.aggregates = aggregates;
+    this.approxCountDistinctPrecision = approxCountDistinctPrecision;
+    this.maxCollectionSize = maxCollectionSize;
+    this.collectionMemoryLimit = collectionMemoryLimit;
+    this.aggregationPhase = aggregationPhase;
+    this.distributionFactor = distributionFactor;
+  }
+
+  /**
+   * @return the precision to use for approximate distinct counts
+   */
+  int getApproxCountDistinctPrecision() {
+    return approxCountDistinctPrecision == null ?
+      ApproxCountDistinct.DEFAULT_PRECISION : approxCountDistinctPrecision;
+  }
+
+  /**
+   * @return the limits of the functions that collect values
+   * @throws IllegalArgumentException if a limit is not positive
+   */
+  CollectionLimits getCollectionLimits() {
+    if (maxCollectionSize != null && maxCollectionSize <= 0) {
+      throw new IllegalArgumentException(String.format(
+        "The 'maxCollectionSize' property must be positive, but is %d.", maxCollectionSize));
+    }
+    if (collectionMemoryLimit != null && collectionMemoryLimit <= 0) {
+      throw new IllegalArgumentException(String.format(
+        "The 'collectionMemoryLimit' property must be positive, but is %d.", collectionMemoryLimit));
+    }
+    return new CollectionLimits(maxCollectionSize,
+                                collectionMemoryLimit == null ? null : collectionMemoryLimit * 1024L * 1024L);
+  }
+
+  /**
+   * @return the aggregation phase computed by the stage
+   * @throws IllegalArgumentException if the phase is not valid
+   */
+  AggregationPhase getAggregationPhase() {
+    if (Strings.isNullOrEmpty(aggregationPhase)) {
+      return AggregationPhase.COMPLETE;
+    }
+    try {
+      return AggregationPhase.valueOf(aggregationPhase.trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(String.format(
+        "Invalid aggregation phase '%s'. Must be one of %s.", aggregationPhase,
+        Joiner.on(',').join(AggregationPhase.values()).toLowerCase()));
+    }
+  }
+
+  /**
+   * @return the number of salted groups each group is spread over in the partial aggregation phase, or null if
+   * it is not set
+   */
+  @Nullable
+  Integer getDistributionFactor() {
+    return distributionFactor;
   }
 
   /**
@@ -135,6 +258,7 @@ public class GroupByConfig extends AggregatorConfig {
       return functionInfos;
     }
     Set<String> aggregateNames = new HashSet<>();
+    CollectionLimits collectionLimits = getCollectionLimits();
     for (String aggregate : Splitter.on(',').trimResults().split(aggregates)) {
       int colonIdx = aggregate.indexOf(':');
       if (colonIdx < 0) {
@@ -191,7 +315,8 @@ public class GroupByConfig extends AggregatorConfig {
         }
         functionCondition = functionCondition.trim();
       }
-      functionInfos.add(new FunctionInfo(name, field, function, functionCondition));
+      functionInfos.add(new FunctionInfo(name, field, function, functionCondition,
+                                         getApproxCountDistinctPrecision(), collectionLimits));
     }
 
     if (functionInfos.isEmpty()) {
@@ -208,19 +333,29 @@ public class GroupByConfig extends AggregatorConfig {
     private final String field;
     private final Function function;
     private final String condition;
+    private final int precision;
+    private final CollectionLimits collectionLimits;
 
-    FunctionInfo(String name, String field, Function function, String condition) {
+    FunctionInfo(String name, String field, Function function, String condition, int precision,
+                 CollectionLimits collectionLimits) {
       this.name = name;
       this.field = field;
       this.function = function;
       this.condition = condition;
+      this.precision = precision;
+      this.collectionLimits = collectionLimits;
+    }
+
+    FunctionInfo(String name, String field, Function function, String condition, int precision) {
+      this(name, field, function, condition, precision, CollectionLimits.NONE);
+    }
+
+    FunctionInfo(String name, String field, Function function, String condition) {
+      this(name, field, function, condition, ApproxCountDistinct.DEFAULT_PRECISION);
     }
 
     FunctionInfo(String name, String field, Function function) {
-      this.name = name;
-      this.field = field;
-      this.function = function;
-      this.condition = null;
+      this(name, field, function, null);
     }
 
     public String getName() {
@@ -240,6 +375,18 @@ public class GroupByConfig extends AggregatorConfig {
     }
 
     public AggregateFunction getAggregateFunction(Schema fieldSchema) {
+      return getAggregateFunction(fieldSchema, condition == null ? null : JexlCondition.of(condition));
+    }
+
+    /**
+     * Creates the aggregate function using an already created condition, so that callers creating many
+     * instances of the same function can share a single compiled condition.
+     *
+     * @param fieldSchema schema of the field the function is applied on, null for count(*)
+     * @param condition condition of the function, null if the function is not conditional
+     * @return a new instance of the aggregate function
+     */
+    AggregateFunction getAggregateFunction(@Nullable Schema fieldSchema, @Nullable Condition condition) {
       switch (function) {
         case COUNT:
           if ("*".equals(field)) {
@@ -248,6 +395,8 @@ public class GroupByConfig extends AggregatorConfig {
           return new Count(field);
         case COUNTDISTINCT:
           return new CountDistinct(field);
+        case APPROXCOUNTDISTINCT:
+          return new ApproxCountDistinct(field, precision);
         case SUM:
           return new Sum(field, fieldSchema);
         case AVG:
@@ -265,9 +414,9 @@ public class GroupByConfig extends AggregatorConfig {
         case VARIANCE:
           return new Variance(field, fieldSchema);
         case COLLECTLIST:
-          return new CollectList(field, fieldSchema);
+          return new CollectList(field, fieldSchema, collectionLimits);
         case COLLECTSET:
-          return new CollectSet(field, fieldSchema);
+          return new CollectSet(field, fieldSchema, collectionLimits);
         case LONGESTSTRING:
           return new LongestString(field, fieldSchema);
         case SHORTESTSTRING:
@@ -275,9 +424,9 @@ public class GroupByConfig extends AggregatorConfig {
         case COUNTNULLS:
           return new CountNulls(field);
         case CONCAT:
-          return new Concat(field, fieldSchema);
+          return new Concat(field, fieldSchema, collectionLimits);
         case CONCATDISTINCT:
-          return new ConcatDistinct(field, fieldSchema);
+          return new ConcatDistinct(field, fieldSchema, collectionLimits);
         case LOGICALAND:
           return new LogicalAnd(field, fieldSchema);
         case LOGICALOR:
@@ -287,43 +436,45 @@ public class GroupByConfig extends AggregatorConfig {
         case SUMOFSQUARES:
           return new SumOfSquares(field, fieldSchema);
         case COUNTIF:
-          return new CountIf(field, JexlCondition.of(condition));
+          return new CountIf(field, condition);
         case COUNTDISTINCTIF:
-          return new CountDistinctIf(field, JexlCondition.of(condition));
+          return new CountDistinctIf(field, condition);
+        case APPROXCOUNTDISTINCTIF:
+          return new ApproxCountDistinctIf(field, precision, condition);
         case SUMIF:
-          return new SumIf(field, fieldSchema, JexlCondition.of(condition));
+          return new SumIf(field, fieldSchema, condition);
         case AVGIF:
-          return new AvgIf(field, fieldSchema, JexlCondition.of(condition));
+          return new AvgIf(field, fieldSchema, condition);
         case MINIF:
-          return new MinIf(field, fieldSchema, JexlCondition.of(condition));
+          return new MinIf(field, fieldSchema, condition);
         case MAXIF:
-          return new MaxIf(field, fieldSchema, JexlCondition.of(condition));
+          return new MaxIf(field, fieldSchema, condition);
         case STDDEVIF:
-          return new StddevIf(field, fieldSchema, JexlCondition.of(condition));
+          return new StddevIf(field, fieldSchema, condition);
         case VARIANCEIF:
-          return new VarianceIf(field, fieldSchema, JexlCondition.of(condition));
+          return new VarianceIf(field, fieldSchema, condition);
         case COLLECTLISTIF:
-          return new CollectListIf(field, fieldSchema, JexlCondition.of(condition));
+          return new CollectListIf(field, fieldSchema, condition, collectionLimits);
         case COLLECTSETIF:
-          return new CollectSetIf(field, fieldSchema, JexlCondition.of(condition));
+          return new CollectSetIf(field, fieldSchema, condition, collectionLimits);
         case LONGESTSTRINGIF:
-          return new LongestStringIf(field, fieldSchema, JexlCondition.of(condition));
+          return new LongestStringIf(field, fieldSchema, condition);
         case SHORTESTSTRINGIF:
-          return new ShortestStringIf(field, fieldSchema, JexlCondition.of(condition));
+          return new ShortestStringIf(field, fieldSchema, condition);
         case CONCATIF:
-          return new ConcatIf(field, fieldSchema, JexlCondition.of(condition));
+          return new ConcatIf(field, fieldSchema, condition, collectionLimits);
         case CONCATDISTINCTIF:
-          return new ConcatDistinctIf(field, fieldSchema, JexlCondition.of(condition));
+          return new ConcatDistinctIf(field, fieldSchema, condition, collectionLimits);
         case LOGICALANDIF:
-          return new LogicalAndIf(field, fieldSchema, JexlCondition.of(condition));
+          return new LogicalAndIf(field, fieldSchema, condition);
         case LOGICALORIF:
-          return new LogicalOrIf(field, fieldSchema, JexlCondition.of(condition));
+          return new LogicalOrIf(field, fieldSchema, condition);
         case CORRECTEDSUMOFSQUARESIF:
-          return new CorrectedSumOfSquaresIf(field, fieldSchema, JexlCondition.of(condition));
+          return new CorrectedSumOfSquaresIf(field, fieldSchema, condition);
         case SUMOFSQUARESIF:
-          return new SumOfSquaresIf(field, fieldSchema, JexlCondition.of(condition));
+          return new SumOfSquaresIf(field, fieldSchema, condition);
         case ANYIF:
-          return new AnyIf(field, fieldSchema, JexlCondition.of(condition));
+          return new AnyIf(field, fieldSchema, condition);
       }
       // should never happen
       throw new IllegalStateException("Unknown function type " + function);
@@ -343,12 +494,14 @@ public class GroupByConfig extends AggregatorConfig {
       return Objects.equals(name, that.name) &&
         Objects.equals(field, that.field) &&
         Objects.equals(function, that.function) &&
-        Objects.equals(condition, that.condition);
+        Objects.equals(condition, that.condition) &&
+        precision == that.precision &&
+        Objects.equals(collectionLimits, that.collectionLimits);
     }
 
     @Override
     public int hashCode() {
-      return Objects.hash(name, field, function, condition);
+      return Objects.hash(name, field, function, condition, precision, collectionLimits);
     }
 
     @Override
@@ -358,6 +511,8 @@ public class GroupByConfig extends AggregatorConfig {
         ", field='" + field + '\'' +
         ", function=" + function + '\'' +
         ", condition=" + condition +
+        ", precision=" + precision +
+        ", collectionLimits=" + collectionLimits +
         '}';
     }
   }
@@ -389,6 +544,7 @@ public class GroupByConfig extends AggregatorConfig {
     LOGICALOR(FunctionType.NONE),
     CORRECTEDSUMOFSQUARES(FunctionType.NONE),
     SUMOFSQUARES(FunctionType.NONE),
+    APPROXCOUNTDISTINCT(FunctionType.NONE),
     COUNTIF(FunctionType.CONDITIONAL),
     COUNTDISTINCTIF(FunctionType.CONDITIONAL),
     SUMIF(FunctionType.CONDITIONAL),
@@ -407,7 +563,8 @@ public class GroupByConfig extends AggregatorConfig {
     LOGICALORIF(FunctionType.CONDITIONAL),
     CORRECTEDSUMOFSQUARESIF(FunctionType.CONDITIONAL),
     SUMOFSQUARESIF(FunctionType.CONDITIONAL),
-    ANYIF(FunctionType.CONDITIONAL);
+    ANYIF(FunctionType.CONDITIONAL),
+    APPROXCOUNTDISTINCTIF(FunctionType.CONDITIONAL);
 
     private final FunctionType type;
 
@@ -418,5 +575,25 @@ public class GroupByConfig extends AggregatorConfig {
     public boolean isConditional() {
       return this.type == FunctionType.CONDITIONAL;
     }
+
+    /**
+     * @return whether partial aggregates of the function can be merged in any order. This is not the case for
+     * functions that depend on the order of the records.
+     */
+    public boolean isMergeable() {
+      return this != FIRST && this != LAST;
+    }
+  }
+
+  /**
+   * Phases of a salted two-phase aggregation.
+   */
+  enum AggregationPhase {
+    // aggregates are computed in a single pass
+    COMPLETE,
+    // aggregates are computed per group and salt, and output as partial aggregates
+    PARTIAL,
+    // partial aggregates are merged per group
+    FINAL
   }
 }
@@ -0,0 +1,334 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.batch.aggregator.function.AggregateFunction;
+import io.cdap.plugin.batch.aggregator.function.Condition;
+import io.cdap.plugin.batch.aggregator.function.JexlCondition;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Execution plan of a {@link GroupByAggregator} for a single input schema. Everything that only depends on the
+ * input schema, like the group key schema, the schema of the aggregated fields and the output schema, is computed
+ * once when the plan is compiled, so that the per record path only has to copy values and merge them into the
+ * aggregate functions.
+ *
+ * In a salted two-phase aggregation, the plan of the partial phase outputs the aggregate functions of a group and
+ * salt as a partial record, and the plan of the final phase merges partial records into the output record.
+ */
+final class GroupByPlan {
+  // field of a partial record that holds the serialized aggregate functions
+  static final String PARTIAL_FIELD = "_partial";
+
+  private final Schema inputSchema;
+  private final String[] groupByFields;
+  private final Schema groupKeySchema;
+  private final String[] functionNames;
+  private final GroupByConfig.FunctionInfo[] functionInfos;
+  private final Schema[] functionFieldSchemas;
+  private final Condition[] functionConditions;
+  private final Schema outputSchema;
+  private final Schema partialSchema;
+
+  private GroupByPlan(Schema inputSchema, String[] groupByFields, Schema groupKeySchema,
+                      GroupByConfig.FunctionInfo[] functionInfos, Schema[] functionFieldSchemas,
+                      Condition[] functionConditions, Schema outputSchema, @Nullable Schema partialSchema) {
+    this.inputSchema = inputSchema;
+    this.groupByFields = groupByFields;
+    this.groupKeySchema = groupKeySchema;
+    this.functionInfos = functionInfos;
+    this.functionFieldSchemas = functionFieldSchemas;
+    this.functionConditions = functionConditions;
+    this.outputSchema = outputSchema;
+    this.partialSchema = partialSchema;
+    this.functionNames = new String[functionInfos.length];
+    for (int i = 0; i < functionInfos.length; i++) {
+      functionNames[i] = functionInfos[i].getName();
+    }
+  }
+
+  /**
+   * Compiles the plan for the given input schema.
+   *
+   * @param inputSchema schema of the records that will be aggregated
+   * @param groupByFields fields to group by
+   * @param functionInfos aggregates to compute
+   * @return the compiled plan
+   * @throws IllegalArgumentException if a group by field or an aggregated field does not exist in the schema
+   */
+  static GroupByPlan compile(Schema inputSchema, List<String> groupByFields,
+                             List<GroupByConfig.FunctionInfo> functionInfos) {
+    List<Schema.Field> keyFields = getGroupKeyFields(inputSchema, groupByFields);
+    List<Schema.Field> outputFields = new ArrayList<>(keyFields);
+    List<Schema.Field> partialFields = new ArrayList<>(keyFields);
+
+    int numFunctions = functionInfos.size();
+    Schema[] fieldSchemas = new Schema[numFunctions];
+    Condition[] conditions = new Condition[numFunctions];
+    for (int i = 0; i < numFunctions; i++) {
+      GroupByConfig.FunctionInfo functionInfo = functionInfos.get(i);
+      Schema.Field inputField = inputSchema.getField(functionInfo.getField());
+      fieldSchemas[i] = inputField == null ? null : inputField.getSchema();
+      conditions[i] = functionInfo.getCondition() == null ? null : JexlCondition.of(functionInfo.getCondition());
+      // creating the function also validates that it can be applied on the field
+      AggregateFunction aggregateFunction = functionInfo.getAggregateFunction(fieldSchemas[i], conditions[i]);
+      Schema outputSchema = aggregateFunction.getOutputSchema();
+      outputFields.add(Schema.Field.of(functionInfo.getName(), outputSchema));
+      // partial records keep the aggregate fields, always null, so that the final phase knows their schema
+      partialFields.add(Schema.Field.of(functionInfo.getName(),
+                                        outputSchema.isNullable() ? outputSchema : Schema.nullableOf(outputSchema)));
+    }
+    partialFields.add(Schema.Field.of(PARTIAL_FIELD, Schema.of(Schema.Type.BYTES)));
+
+    return new GroupByPlan(inputSchema, groupByFields.toArray(new String[0]),
+                           Schema.recordOf("group.key.schema", keyFields),
+                           functionInfos.toArray(new GroupByConfig.FunctionInfo[0]), fieldSchemas, conditions,
+                           Schema.recordOf(inputSchema.getRecordName() + ".agg", outputFields),
+                           Schema.recordOf(inputSchema.getRecordName() + ".partial", partialFields));
+  }
+
+  /**
+   * Compiles the plan of the final phase of a salted two-phase aggregation, which merges the partial records
+   * output by the partial phase. The aggregate functions of the groups are read from the partial records, so
+   * {@link #newFunctions()} must not be used with this plan.
+   *
+   * @param partialSchema schema of the partial records
+   * @param groupByFields fields to group by
+   * @param functionInfos aggregates to compute
+   * @return the compiled plan
+   * @throws IllegalArgumentException if the schema is not the schema of partial records for the given group by
+   *                                  fields and aggregates
+   */
+  static GroupByPlan compileFinal(Schema partialSchema, List<String> groupByFields,
+                                  List<GroupByConfig.FunctionInfo> functionInfos) {
+    List<Schema.Field> keyFields = getGroupKeyFields(partialSchema, groupByFields);
+    List<Schema.Field> outputFields = new ArrayList<>(keyFields);
+    for (GroupByConfig.FunctionInfo functionInfo : functionInfos) {
+      Schema.Field field = partialSchema.getField(functionInfo.getName());
+      if (field == null) {
+        throw new IllegalArgumentException(String.format(
+          "Cannot merge aggregate '%s' because it does not exist in partial input schema %s",
+          functionInfo.getName(), partialSchema));
+      }
+      outputFields.add(field);
+    }
+    Schema.Field partialField = partialSchema.getField(PARTIAL_FIELD);
+    if (partialField == null || partialField.getSchema().getType() != Schema.Type.BYTES) {
+      throw new IllegalArgumentException(String.format(
+        "Input schema %s is not the schema of partial aggregates because it does not have a bytes field '%s'",
+        partialSchema, PARTIAL_FIELD));
+    }
+
+    String recordName = partialSchema.getRecordName();
+    if (recordName.endsWith(".partial")) {
+      recordName = recordName.substring(0, recordName.length() - ".partial".length());
+    }
+    int numFunctions = functionInfos.size();
+    return new GroupByPlan(partialSchema, groupByFields.toArray(new String[0]),
+                           Schema.recordOf("group.key.schema", keyFields),
+                           functionInfos.toArray(new GroupByConfig.FunctionInfo[0]), new Schema[numFunctions],
+                           new Condition[numFunctions], Schema.recordOf(recordName + ".agg", outputFields), null);
+  }
+
+  private static List<Schema.Field> getGroupKeyFields(Schema inputSchema, List<String> groupByFields) {
+    List<Schema.Field> keyFields = new ArrayList<>(groupByFields.size());
+    for (String groupByField : groupByFields) {
+      Schema.Field field = inputSchema.getField(groupByField);
+      if (field == null) {
+        throw new IllegalArgumentException(String.format(
+          "Cannot group by field '%s' because it does not exist in input schema %s",
+          groupByField, inputSchema));
+      }
+      keyFields.add(field);
+    }
+    return keyFields;
+  }
+
+  Schema getInputSchema() {
+    return inputSchema;
+  }
+
+  Schema getGroupKeySchema() {
+    return groupKeySchema;
+  }
+
+  Schema getOutputSchema() {
+    return outputSchema;
+  }
+
+  /**
+   * @return the schema of the partial records output by the partial phase, or null for a plan of the final phase
+   */
+  @Nullable
+  Schema getPartialSchema() {
+    return partialSchema;
+  }
+
+  /**
+   * @return the group key of the given record
+   */
+  StructuredRecord getGroupKey(StructuredRecord record) {
+    StructuredRecord.Builder builder = StructuredRecord.builder(groupKeySchema);
+    for (String groupByField : groupByFields) {
+      builder.set(groupByField, record.get(groupByField));
+    }
+    return builder.build();
+  }
+
+  /**
+   * @return new, initialized instances of all the aggregate functions of this plan, keyed by aggregate name
+   */
+  Map<String, AggregateFunction> newFunctions() {
+    Map<String, AggregateFunction> functions = new LinkedHashMap<>();
+    for (int i = 0; i < functionInfos.length; i++) {
+      AggregateFunction function = functionInfos[i].getAggregateFunction(functionFieldSchemas[i],
+                                                                         functionConditions[i]);
+      function.initialize();
+      functions.put(functionNames[i], function);
+    }
+    return functions;
+  }
+
+  /**
+   * Builds the output record of a group.
+   *
+   * @param groupKey the group key
+   * @param functions the aggregate functions of the group
+   * @return the output record
+   */
+  StructuredRecord toOutputRecord(StructuredRecord groupKey, Map<String, AggregateFunction> functions) {
+    StructuredRecord.Builder builder = StructuredRecord.builder(outputSchema);
+    for (String groupByField : groupByFields) {
+      builder.set(groupByField, groupKey.get(groupByField));
+    }
+    for (String functionName : functionNames) {
+      builder.set(functionName, functions.get(functionName).getAggregate());
+    }
+    return builder.build();
+  }
+
+  /**
+   * Builds the partial record of a group in the partial phase of a salted two-phase aggregation.
+   *
+   * @param groupKey the group key, which may contain a salt
+   * @param functions the aggregate functions of the group
+   * @return the partial record
+   */
+  StructuredRecord toPartialRecord(StructuredRecord groupKey, Map<String, AggregateFunction> functions) {
+    StructuredRecord.Builder builder = StructuredRecord.builder(partialSchema);
+    for (String groupByField : groupByFields) {
+      builder.set(groupByField, groupKey.get(groupByField));
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+      output.writeObject(functions);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to serialize partial aggregates: " + e.getMessage(), e);
+    }
+    builder.set(PARTIAL_FIELD, bytes.toByteArray());
+    return builder.build();
+  }
+
+  /**
+   * Reads the aggregate functions of a partial record in the final phase of a salted two-phase aggregation.
+   *
+   * @param partial the partial record
+   * @return the aggregate functions of the partial record, keyed by aggregate name
+   */
+  Map<String, AggregateFunction> readPartialFunctions(StructuredRecord partial) {
+    Object value = partial.get(PARTIAL_FIELD);
+    byte[] bytes;
+    if (value instanceof ByteBuffer) {
+      ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+      bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+    } else {
+      bytes = (byte[]) value;
+    }
+    try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return (Map<String, AggregateFunction>) input.readObject();
+    } catch (IOException | ClassNotFoundException e) {
+      throw new IllegalStateException("Failed to deserialize partial aggregates: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Cache of compiled plans. Lookups are done by schema identity first, since records in a task almost always
+   * share the same schema instance, and fall back to schema equality before compiling a new plan.
+   */
+  static final class Cache {
+    // bound on the identity map, in case every record carries its own copy of an equal schema
+    private static final int MAX_IDENTITY_ENTRIES = 64;
+
+    private final List<String> groupByFields;
+    private final List<GroupByConfig.FunctionInfo> functionInfos;
+    private final boolean finalPhase;
+    private final Map<Schema, GroupByPlan> byIdentity = new IdentityHashMap<>();
+    private final Map<Schema, GroupByPlan> byEquality = new HashMap<>();
+    private GroupByPlan lastPlan;
+
+    Cache(List<String> groupByFields, List<GroupByConfig.FunctionInfo> functionInfos) {
+      this(groupByFields, functionInfos, false);
+    }
+
+    /**
+     * @param finalPhase whether plans of the final phase of a salted two-phase aggregation should be compiled
+     */
+    Cache(List<String> groupByFields, List<GroupByConfig.FunctionInfo> functionInfos, boolean finalPhase) {
+      this.groupByFields = groupByFields;
+      this.functionInfos = functionInfos;
+      this.finalPhase = finalPhase;
+    }
+
+    GroupByPlan get(Schema inputSchema) {
+      GroupByPlan plan = lastPlan;
+      if (plan != null && plan.getInputSchema() == inputSchema) {
+        return plan;
+      }
+      plan = byIdentity.get(inputSchema);
+      if (plan == null) {
+        plan = byEquality.get(inputSchema);
+        if (plan == null) {
+          plan = finalPhase ? compileFinal(inputSchema, groupByFields, functionInfos)
+            : compile(inputSchema, groupByFields, functionInfos);
+          byEquality.put(inputSchema, plan);
+        }
+        if (byIdentity.size() >= MAX_IDENTITY_ENTRIES) {
+          byIdentity.clear();
+        }
+        byIdentity.put(inputSchema, plan);
+      }
+      lastPlan = plan;
+      return plan;
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adds a salt to group keys, so that a group that holds most of the records is spread over several salted groups
+ * that can be aggregated in parallel. Salts are assigned to the records of a task in a round robin fashion, which
+ * spreads the records of every group evenly and gives the same salts when a task is retried on the same input.
+ */
+final class KeySalter {
+  static final String SALT_FIELD = "_salt";
+
+  private final int distributionFactor;
+  private Schema keySchema;
+  private Schema saltedKeySchema;
+  private int nextSalt;
+
+  /**
+   * @param distributionFactor number of salted groups each group is spread over
+   * @throws IllegalArgumentException if the distribution factor is not positive
+   */
+  KeySalter(int distributionFactor) {
+    if (distributionFactor <= 0) {
+      throw new IllegalArgumentException(String.format("Distribution factor must be positive, but is %d.",
+                                                       distributionFactor));
+    }
+    this.distributionFactor = distributionFactor;
+  }
+
+  /**
+   * @return the given group key with an additional salt field
+   */
+  StructuredRecord salt(StructuredRecord key) {
+    Schema schema = key.getSchema();
+    if (schema != keySchema) {
+      saltedKeySchema = getSaltedKeySchema(schema);
+      keySchema = schema;
+    }
+    StructuredRecord.Builder builder = StructuredRecord.builder(saltedKeySchema);
+    for (Schema.Field field : schema.getFields()) {
+      builder.set(field.getName(), key.get(field.getName()));
+    }
+    builder.set(SALT_FIELD, nextSalt);
+    nextSalt = nextSalt + 1 == distributionFactor ? 0 : nextSalt + 1;
+    return builder.build();
+  }
+
+  /**
+   * @return the schema of the group key with an additional salt field
+   * @throws IllegalArgumentException if the group key already has a field with the name of the salt field
+   */
+  static Schema getSaltedKeySchema(Schema keySchema) {
+    if (keySchema.getField(SALT_FIELD) != null) {
+      throw new IllegalArgumentException(String.format(
+        "Cannot salt the group key because field '%s' is reserved for the salt.", SALT_FIELD));
+    }
+    List<Schema.Field> fields = new ArrayList<>(keySchema.getFields());
+    fields.add(Schema.Field.of(SALT_FIELD, Schema.of(Schema.Type.INT)));
+    return Schema.recordOf(keySchema.getRecordName() + ".salted", fields);
+  }
+}
@@ -17,21 +17,32 @@
 package io.cdap.plugin.batch.aggregator;
 
 import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.etl.api.StageMetrics;
 import io.cdap.cdap.etl.api.batch.BatchAggregatorContext;
 import io.cdap.cdap.etl.api.batch.BatchReducibleAggregator;
+import io.cdap.cdap.etl.api.batch.BatchRuntimeContext;
 
 import javax.annotation.Nullable;
 
 /**
  * Base class for StructuredRecord based aggregators.
  *
+ * Partial aggregation before the shuffle is performed by the execution engine through
+ * {@link #initializeAggregateValue(Object)} and {@link #mergeValues(Object, Object)}. In order to make the
+ * effectiveness of that combining visible, subclasses report every input record through {@link #countInput()}
+ * and every partial aggregate they create through {@link #countPartialAggregate()}.
+ *
  * @param <AGG_VALUE> Type of aggregation value
  */
 public abstract class RecordReducibleAggregator<AGG_VALUE>
   extends BatchReducibleAggregator<StructuredRecord, StructuredRecord, AGG_VALUE, StructuredRecord> {
 
+  public static final String COMBINE_RECORDS_IN = "aggregator.combine.records.in";
+  public static final String COMBINE_RECORDS_OUT = "aggregator.combine.records.out";
+
   @Nullable
   private final Integer numPartitions;
+  private StageMetrics metrics;
 
   protected RecordReducibleAggregator(@Nullable Integer numPartitions) {
     this.numPartitions = numPartitions;
@@ -43,4 +54,28 @@ public abstract class RecordReducibleAggregator<AGG_VALUE>
       context.setNumPartitions(numPartitions);
     }
   }
+
+  @Override
+  public void initialize(BatchRuntimeContext context) throws Exception {
+    metrics = context.getMetrics();
+  }
+
+  /**
+   * Counts an input record, before it is combined with any other record of its group.
+   */
+  protected void countInput() {
+    if (metrics != null) {
+      metrics.count(COMBINE_RECORDS_IN, 1);
+    }
+  }
+
+  /**
+   * Counts a newly created partial aggregate. Since the engine creates one partial aggregate per group and
+   * partition before the shuffle, this is the number of records left after combining.
+   */
+  protected void countPartialAggregate() {
+    if (metrics != null) {
+      metrics.count(COMBINE_RECORDS_OUT, 1);
+    }
+  }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Estimates the number of distinct non-null values of a specific column using a HyperLogLog sketch.
+ * Unlike {@link CountDistinct}, the memory used per group is fixed by the precision of the sketch and does not
+ * grow with the number of distinct values.
+ */
+public class ApproxCountDistinct implements AggregateFunction<Long, ApproxCountDistinct> {
+  public static final int DEFAULT_PRECISION = 12;
+  public static final int MIN_PRECISION = HyperLogLog.MIN_PRECISION;
+  public static final int MAX_PRECISION = HyperLogLog.MAX_PRECISION;
+  private static final Schema SCHEMA = Schema.of(Schema.Type.LONG);
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+  private final String fieldName;
+  private final int precision;
+  private HyperLogLog sketch;
+
+  public ApproxCountDistinct(String fieldName, int precision) {
+    if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+      throw new IllegalArgumentException(String.format(
+        "Invalid precision %d for approximate distinct count of field '%s'. It must be between %d and %d.",
+        precision, fieldName, MIN_PRECISION, MAX_PRECISION));
+    }
+    this.fieldName = fieldName;
+    this.precision = precision;
+  }
+
+  @Override
+  public void initialize() {
+    sketch = new HyperLogLog(precision);
+  }
+
+  @Override
+  public void mergeValue(StructuredRecord record) {
+    Object value = record.get(fieldName);
+    if (value != null) {
+      sketch.add(hash(value));
+    }
+  }
+
+  @Override
+  public void mergeAggregates(ApproxCountDistinct otherAgg) {
+    sketch.merge(otherAgg.sketch);
+  }
+
+  @Override
+  public Long getAggregate() {
+    return sketch.cardinality();
+  }
+
+  @Override
+  public Schema getOutputSchema() {
+    return SCHEMA;
+  }
+
+  private static long hash(Object value) {
+    if (value instanceof String) {
+      return HASH_FUNCTION.hashString((String) value, Charsets.UTF_8).asLong();
+    }
+    if (value instanceof Integer || value instanceof Long) {
+      return HASH_FUNCTION.hashLong(((Number) value).longValue()).asLong();
+    }
+    if (value instanceof Boolean) {
+      return HASH_FUNCTION.hashLong((Boolean) value ? 1L : 0L).asLong();
+    }
+    if (value instanceof byte[]) {
+      return HASH_FUNCTION.hashBytes((byte[]) value).asLong();
+    }
+    if (value instanceof ByteBuffer) {
+      ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      return HASH_FUNCTION.hashBytes(bytes).asLong();
+    }
+    return HASH_FUNCTION.hashString(value.toString(), Charsets.UTF_8).asLong();
+  }
+}
@@ -23,7 +23,7 @@ import io.cdap.plugin.batch.aggregator.AggregationUtils;
 /**
  * Calculates the average of a column. Does not protect against overflow.
  */
-public class Avg implements AggregateFunction<Double, Avg> {
+public class Avg implements AggregateFunction<Double, Avg>, NumericBatchFunction {
   private final String fieldName;
   private final Schema outputSchema;
   private double avg;
@@ -45,11 +45,27 @@ public class Avg implements AggregateFunction<Double, Avg> {
 
   @Override
   public void mergeValue(StructuredRecord record) {
-    Object val = record.get(fieldName);
+    Number val = record.get(fieldName);
     if (val == null) {
       return;
     }
-    computeAvg(1L, (Number) val);
+    computeAvg(1L, val.doubleValue());
+  }
+
+  @Override
+  public void mergeValues(long[] values, int offset, int length) {
+    int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      computeAvg(1L, values[i]);
+    }
+  }
+
+  @Override
+  public void mergeValues(double[] values, int offset, int length) {
+    int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      computeAvg(1L, values[i]);
+    }
   }
 
   @Override
@@ -71,11 +87,11 @@ public class Avg implements AggregateFunction<Double, Avg> {
     return outputSchema;
   }
 
-  private void computeAvg(long deltaCount, Number oldAvg) {
+  private void computeAvg(long deltaCount, double oldAvg) {
     if (deltaCount == 0L) {
       return;
     }
     count += deltaCount;
-    avg = avg + (oldAvg.doubleValue() - avg) * deltaCount / count;
+    avg = avg + (oldAvg - avg) * deltaCount / count;
   }
 }
@@ -41,4 +41,9 @@ public class AvgIf extends Avg implements Serializable {
     }
     super.mergeValue(record);
   }
+
+  @Override
+  public boolean supportsBatch() {
+    return false;
+  }
 }
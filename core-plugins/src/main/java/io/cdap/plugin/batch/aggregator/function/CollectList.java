@@ -20,7 +20,6 @@ package io.cdap.plugin.batch.aggregator.function;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -30,16 +29,22 @@ import java.util.List;
 public class CollectList<T> implements AggregateFunction<List<T>, CollectList<T>> {
   private final String fieldName;
   private final Schema fieldSchema;
-  private List<T> result;
+  private final CollectionLimits limits;
+  private ValueBuffer<T> result;
 
   public CollectList(String fieldName, Schema fieldSchema) {
+    this(fieldName, fieldSchema, CollectionLimits.NONE);
+  }
+
+  public CollectList(String fieldName, Schema fieldSchema, CollectionLimits limits) {
     this.fieldName = fieldName;
     this.fieldSchema = fieldSchema;
+    this.limits = limits;
   }
 
   @Override
   public void initialize() {
-    this.result = new ArrayList<>();
+    this.result = new ValueBuffer<>(false, limits);
   }
 
   @Override
@@ -54,7 +59,7 @@ public class CollectList<T> implements AggregateFunction<List<T>, CollectList<T>
 
   @Override
   public List<T> getAggregate() {
-    return result;
+    return result.toList();
   }
 
   @Override
@@ -31,7 +31,11 @@ public class CollectListIf<T> extends CollectList<T> implements Serializable {
   private final Condition condition;
 
   public CollectListIf(String fieldName, Schema fieldSchema, Condition condition) {
-    super(fieldName, fieldSchema);
+    this(fieldName, fieldSchema, condition, CollectionLimits.NONE);
+  }
+
+  public CollectListIf(String fieldName, Schema fieldSchema, Condition condition, CollectionLimits limits) {
+    super(fieldName, fieldSchema, limits);
     this.condition = condition;
   }
 
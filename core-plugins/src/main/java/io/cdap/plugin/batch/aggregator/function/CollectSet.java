@@ -14,12 +14,12 @@
  * the License.
  */
 
+
 package io.cdap.plugin.batch.aggregator.function;
 
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 
-import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -29,16 +29,22 @@ import java.util.Set;
 public class CollectSet<T> implements AggregateFunction<Set<T>, CollectSet<T>> {
   private final String fieldName;
   private final Schema fieldSchema;
-  private Set<T> result;
+  private final CollectionLimits limits;
+  private ValueBuffer<T> result;
 
   public CollectSet(String fieldName, Schema fieldSchema) {
+    this(fieldName, fieldSchema, CollectionLimits.NONE);
+  }
+
+  public CollectSet(String fieldName, Schema fieldSchema, CollectionLimits limits) {
     this.fieldName = fieldName;
     this.fieldSchema = fieldSchema;
+    this.limits = limits;
   }
 
   @Override
   public void initialize() {
-    this.result = new HashSet<>();
+    this.result = new ValueBuffer<>(true, limits);
   }
 
   @Override
@@ -53,7 +59,7 @@ public class CollectSet<T> implements AggregateFunction<Set<T>, CollectSet<T>> {
 
   @Override
   public Set<T> getAggregate() {
-    return result;
+    return result.toSet();
   }
 
   @Override
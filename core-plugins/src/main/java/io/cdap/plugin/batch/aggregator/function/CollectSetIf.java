@@ -30,7 +30,11 @@ public class CollectSetIf<T> extends CollectSet<T> implements Serializable {
   private final Condition condition;
 
   public CollectSetIf(String fieldName, Schema fieldSchema, Condition condition) {
-    super(fieldName, fieldSchema);
+    this(fieldName, fieldSchema, condition, CollectionLimits.NONE);
+  }
+
+  public CollectSetIf(String fieldName, Schema fieldSchema, Condition condition, CollectionLimits limits) {
+    super(fieldName, fieldSchema, limits);
     this.condition = condition;
   }
 
@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import java.io.Serializable;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * Limits on the values kept per group by the functions that collect values, like {@link CollectList},
+ * {@link CollectSet}, {@link Concat} and {@link ConcatDistinct}.
+ */
+public final class CollectionLimits implements Serializable {
+  public static final CollectionLimits NONE = new CollectionLimits(null, null);
+
+  private final int maxSize;
+  private final long maxMemoryBytes;
+
+  /**
+   * @param maxSize maximum number of values to keep per group, additional values are ignored. Null for no limit.
+   * @param maxMemoryBytes estimated number of bytes of values kept per group, above which the values are compacted
+   *                       into a serialized run kept in memory. Without a maximum size, collecting fails if the runs
+   *                       alone take more. Null for no limit.
+   */
+  public CollectionLimits(@Nullable Integer maxSize, @Nullable Long maxMemoryBytes) {
+    if (maxSize != null && maxSize <= 0) {
+      throw new IllegalArgumentException(String.format("Maximum collection size must be positive, but is %d.",
+                                                       maxSize));
+    }
+    if (maxMemoryBytes != null && maxMemoryBytes <= 0) {
+      throw new IllegalArgumentException(String.format("Collection memory limit must be positive, but is %d.",
+                                                       maxMemoryBytes));
+    }
+    this.maxSize = maxSize == null ? Integer.MAX_VALUE : maxSize;
+    this.maxMemoryBytes = maxMemoryBytes == null ? Long.MAX_VALUE : maxMemoryBytes;
+  }
+
+  int getMaxSize() {
+    return maxSize;
+  }
+
+  long getMaxMemoryBytes() {
+    return maxMemoryBytes;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    CollectionLimits that = (CollectionLimits) o;
+    return maxSize == that.maxSize && maxMemoryBytes == that.maxMemoryBytes;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(maxSize, maxMemoryBytes);
+  }
+
+  @Override
+  public String toString() {
+    return "CollectionLimits{" +
+      "maxSize=" + maxSize +
+      ", maxMemoryBytes=" + maxMemoryBytes +
+      '}';
+  }
+}
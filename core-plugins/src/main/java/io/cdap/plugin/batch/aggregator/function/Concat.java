@@ -14,12 +14,15 @@
  * the License.
  */
 
+
 package io.cdap.plugin.batch.aggregator.function;
 
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.api.data.schema.Schema.Type;
 
+import java.util.StringJoiner;
+
 /**
  * Concatenates the values in the group with a comma
  */
@@ -27,55 +30,49 @@ public class Concat implements AggregateFunction<String, Concat> {
 
   private final String fieldName;
   private final Schema fieldSchema;
-  private String concatString;
-  private boolean firstString = true;
+  private final CollectionLimits limits;
+  private ValueBuffer<String> values;
 
   public Concat(String fieldName, Schema fieldSchema) {
+    this(fieldName, fieldSchema, CollectionLimits.NONE);
+  }
+
+  public Concat(String fieldName, Schema fieldSchema, CollectionLimits limits) {
     this.fieldName = fieldName;
     this.fieldSchema = fieldSchema;
-    Type inputType =
-      fieldSchema.isNullable() ? fieldSchema.getNonNullable().getType() : fieldSchema.getType();
+    this.limits = limits;
+    Type inputType = fieldSchema.isNullable() ? fieldSchema.getNonNullable().getType() : fieldSchema.getType();
 
     if (!inputType.equals(Type.STRING)) {
       throw new IllegalArgumentException(
-        String.format("Field '%s' is of unsupported non-string type '%s'. ",
-                      fieldName, inputType));
+        String.format("Field '%s' is of unsupported non-string type '%s'. ", fieldName, inputType));
     }
   }
 
   @Override
   public void initialize() {
-    this.concatString = "";
+    this.values = new ValueBuffer<>(false, limits);
   }
 
   @Override
   public void mergeValue(StructuredRecord record) {
-    if (record.get(fieldName) != null) {
-      String value = record.get(fieldName);
-      if (firstString) {
-        concatString = value;
-        firstString = false;
-        return;
-      }
-      concatString = String.format("%s, %s", concatString, value);
+    String value = record.get(fieldName);
+    if (value != null) {
+      values.add(value);
     }
   }
 
   @Override
   public void mergeAggregates(Concat otherAgg) {
-    if (otherAgg.getAggregate() == null) {
-      return;
-    }
-    if (concatString.equals("")) {
-      concatString = otherAgg.getAggregate();
-      return;
-    }
-    concatString = String.format("%s, %s", concatString, otherAgg.concatString);
+    values.addAll(otherAgg.values);
   }
 
   @Override
   public String getAggregate() {
-    return concatString;
+    // values are only joined once, instead of copying the whole string for every value
+    StringJoiner concatString = new StringJoiner(", ");
+    values.forEach(concatString::add);
+    return concatString.toString();
   }
 
   @Override
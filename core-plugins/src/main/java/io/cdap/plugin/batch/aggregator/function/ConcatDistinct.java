@@ -14,13 +14,15 @@
  * the License.
  */
 
+
 package io.cdap.plugin.batch.aggregator.function;
 
-import com.google.common.base.Strings;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.api.data.schema.Schema.Type;
 
+import java.util.StringJoiner;
+
 /**
  * Concatenates only distinct values in the group with a comma
  */
@@ -28,12 +30,17 @@ public class ConcatDistinct implements AggregateFunction<String, ConcatDistinct>
 
   private final String fieldName;
   private final Schema fieldSchema;
-  private String concatString;
-  private boolean firstString = true;
+  private final CollectionLimits limits;
+  private ValueBuffer<String> values;
 
   public ConcatDistinct(String fieldName, Schema fieldSchema) {
+    this(fieldName, fieldSchema, CollectionLimits.NONE);
+  }
+
+  public ConcatDistinct(String fieldName, Schema fieldSchema, CollectionLimits limits) {
     this.fieldName = fieldName;
     this.fieldSchema = fieldSchema;
+    this.limits = limits;
     Type inputType = fieldSchema.isNullable() ? fieldSchema.getNonNullable().getType() : fieldSchema.getType();
 
     if (!inputType.equals(Type.STRING)) {
@@ -44,41 +51,28 @@ public class ConcatDistinct implements AggregateFunction<String, ConcatDistinct>
 
   @Override
   public void initialize() {
-    concatString = "";
+    this.values = new ValueBuffer<>(true, limits);
   }
 
   @Override
   public void mergeValue(StructuredRecord record) {
-    if (record.get(fieldName) != null) {
-      String value = record.get(fieldName);
-      if (value != null && !concatString.contains(value)) {
-        if (firstString) {
-          concatString = value;
-          firstString = false;
-          return;
-        }
-        concatString = String.format("%s, %s", concatString, value);
-      }
+    String value = record.get(fieldName);
+    if (value != null) {
+      values.add(value);
     }
   }
 
   @Override
   public void mergeAggregates(ConcatDistinct otherAgg) {
-    if (Strings.isNullOrEmpty(otherAgg.getAggregate())) {
-      return;
-    }
-    if (concatString.equals("")) {
-      concatString = otherAgg.getAggregate();
-      return;
-    }
-    if (!concatString.contains(otherAgg.concatString)) {
-      concatString = String.format("%s, %s", concatString, otherAgg.concatString);
-    }
+    values.addAll(otherAgg.values);
   }
 
   @Override
   public String getAggregate() {
-    return concatString;
+    // values are only joined once, instead of copying the whole string for every value
+    StringJoiner concatString = new StringJoiner(", ");
+    values.forEach(concatString::add);
+    return concatString.toString();
   }
 
   @Override
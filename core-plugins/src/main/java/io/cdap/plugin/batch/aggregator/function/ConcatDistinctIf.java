@@ -29,7 +29,11 @@ public class ConcatDistinctIf extends ConcatDistinct implements Serializable {
   private final Condition condition;
 
   public ConcatDistinctIf(String fieldName, Schema fieldSchema, Condition condition) {
-    super(fieldName, fieldSchema);
+    this(fieldName, fieldSchema, condition, CollectionLimits.NONE);
+  }
+
+  public ConcatDistinctIf(String fieldName, Schema fieldSchema, Condition condition, CollectionLimits limits) {
+    super(fieldName, fieldSchema, limits);
     this.condition = condition;
   }
 
@@ -29,7 +29,11 @@ public class ConcatIf extends Concat implements Serializable {
   private final Condition condition;
 
   public ConcatIf(String fieldName, Schema fieldSchema, Condition condition) {
-    super(fieldName, fieldSchema);
+    this(fieldName, fieldSchema, condition, CollectionLimits.NONE);
+  }
+
+  public ConcatIf(String fieldName, Schema fieldSchema, Condition condition, CollectionLimits limits) {
+    super(fieldName, fieldSchema, limits);
     this.condition = condition;
   }
 
@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import java.io.Serializable;
+
+/**
+ * A HyperLogLog sketch that estimates the number of distinct 64 bit hashes added to it.
+ * The sketch uses 2^precision one byte registers, so its size does not depend on the number of distinct values.
+ * The relative standard error of the estimate is about 1.04 / sqrt(2^precision).
+ */
+final class HyperLogLog implements Serializable {
+  static final int MIN_PRECISION = 4;
+  static final int MAX_PRECISION = 18;
+
+  private final int precision;
+  private final byte[] registers;
+
+  HyperLogLog(int precision) {
+    if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+      throw new IllegalArgumentException(String.format("Precision must be between %d and %d, but is %d.",
+                                                       MIN_PRECISION, MAX_PRECISION, precision));
+    }
+    this.precision = precision;
+    this.registers = new byte[1 << precision];
+  }
+
+  int getPrecision() {
+    return precision;
+  }
+
+  /**
+   * Adds a hash to the sketch. The hash must be uniformly distributed over all 64 bits.
+   */
+  void add(long hash) {
+    int index = (int) (hash >>> (Long.SIZE - precision));
+    // set the lowest bit so that the rank is bounded by 64 - precision + 1
+    long remaining = (hash << precision) | (1L << (precision - 1));
+    byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+    if (rank > registers[index]) {
+      registers[index] = rank;
+    }
+  }
+
+  /**
+   * Merges the given sketch into this sketch. Both sketches must have the same precision.
+   */
+  void merge(HyperLogLog other) {
+    if (other.precision != precision) {
+      throw new IllegalArgumentException(String.format("Cannot merge sketches with precision %d and %d.",
+                                                       precision, other.precision));
+    }
+    for (int i = 0; i < registers.length; i++) {
+      if (other.registers[i] > registers[i]) {
+        registers[i] = other.registers[i];
+      }
+    }
+  }
+
+  /**
+   * @return the estimated number of distinct hashes added to the sketch
+   */
+  long cardinality() {
+    int numRegisters = registers.length;
+    double sum = 0;
+    int zeros = 0;
+    for (byte register : registers) {
+      sum += 1.0d / (1L << register);
+      if (register == 0) {
+        zeros++;
+      }
+    }
+    double estimate = alpha(numRegisters) * numRegisters * numRegisters / sum;
+    // use linear counting for small cardinalities, where the raw estimate is biased
+    if (estimate <= 2.5d * numRegisters && zeros > 0) {
+      estimate = numRegisters * Math.log((double) numRegisters / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  private static double alpha(int numRegisters) {
+    switch (numRegisters) {
+      case 16:
+        return 0.673d;
+      case 32:
+        return 0.697d;
+      case 64:
+        return 0.709d;
+      default:
+        return 0.7213d / (1 + 1.079d / numRegisters);
+    }
+  }
+}
@@ -39,4 +39,9 @@ public class MaxIf extends Max implements Serializable {
     }
     super.mergeValue(record);
   }
+
+  @Override
+  public boolean supportsBatch() {
+    return false;
+  }
 }
@@ -39,4 +39,9 @@ public class MinIf extends Min implements Serializable {
     }
     super.mergeValue(record);
   }
+
+  @Override
+  public boolean supportsBatch() {
+    return false;
+  }
 }
@@ -16,40 +16,127 @@
 
 package io.cdap.plugin.batch.aggregator.function;
 
+import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.plugin.batch.aggregator.AggregationUtils;
 
 /**
  * Base class for number based aggregate functions.
- * Allows subclasses to implement typed methods instead of implementing their own casting logic.
+ * The aggregate is kept in a primitive long for int and long fields and in a primitive double for float and double
+ * fields, which is decided once from the field schema. Subclasses only implement the typed combine methods, so that
+ * merging a value does not need to box the result or dispatch on the field type.
  *
  * @param <V> type of aggregate function
  */
-public abstract class NumberFunction<V extends NumberFunction> implements AggregateFunction<Number, V> {
+public abstract class NumberFunction<V extends NumberFunction> implements AggregateFunction<Number, V>,
+  NumericBatchFunction {
   protected final String fieldName;
   protected final Schema fieldSchema;
   protected final Schema.Type fieldType;
-  protected Number number;
+  protected final boolean isIntegral;
+  protected boolean hasValue;
+  protected long longValue;
+  protected double doubleValue;
 
   public NumberFunction(final String fieldName, Schema fieldSchema) {
     this.fieldName = fieldName;
     this.fieldSchema = fieldSchema;
     this.fieldType = fieldSchema.isNullable() ? fieldSchema.getNonNullable().getType() : fieldSchema.getType();
     AggregationUtils.ensureNumericType(fieldSchema, fieldName, this.getClass().getSimpleName());
+    this.isIntegral = fieldType == Schema.Type.INT || fieldType == Schema.Type.LONG;
   }
 
   @Override
   public void initialize() {
-    this.number = null;
+    this.hasValue = false;
+    this.longValue = 0L;
+    this.doubleValue = 0d;
+  }
+
+  @Override
+  public void mergeValue(StructuredRecord record) {
+    Number value = record.get(fieldName);
+    if (value == null) {
+      return;
+    }
+    if (isIntegral) {
+      mergeLong(value.longValue());
+    } else {
+      mergeDouble(value.doubleValue());
+    }
+  }
+
+  @Override
+  public void mergeAggregates(V otherAgg) {
+    if (!otherAgg.hasValue) {
+      return;
+    }
+    if (isIntegral) {
+      mergeLong(otherAgg.longValue);
+    } else {
+      mergeDouble(otherAgg.doubleValue);
+    }
+  }
+
+  @Override
+  public void mergeValues(long[] values, int offset, int length) {
+    int end = offset + length;
+    if (isIntegral) {
+      for (int i = offset; i < end; i++) {
+        mergeLong(values[i]);
+      }
+    } else {
+      for (int i = offset; i < end; i++) {
+        mergeDouble(values[i]);
+      }
+    }
+  }
+
+  @Override
+  public void mergeValues(double[] values, int offset, int length) {
+    if (isIntegral) {
+      throw new IllegalArgumentException(String.format(
+        "Cannot merge floating point values into %s on field '%s' of type '%s'.",
+        getClass().getSimpleName(), fieldName, fieldType));
+    }
+    int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      mergeDouble(values[i]);
+    }
   }
 
   @Override
   public Number getAggregate() {
-    return number;
+    if (!hasValue) {
+      return null;
+    }
+    switch (fieldType) {
+      case INT:
+        return (int) longValue;
+      case LONG:
+        return longValue;
+      case FLOAT:
+        return (float) doubleValue;
+      case DOUBLE:
+        return doubleValue;
+      default:
+        throw new IllegalArgumentException(String.format("Field '%s' is of unsupported non-numeric type '%s'. ",
+                                                         fieldName, fieldType));
+    }
   }
 
   @Override
   public Schema getOutputSchema() {
     return fieldSchema;
   }
+
+  /**
+   * Combines an integral value into the aggregate. Only called for int and long fields.
+   */
+  protected abstract void mergeLong(long value);
+
+  /**
+   * Combines a floating point value into the aggregate. Only called for float and double fields.
+   */
+  protected abstract void mergeDouble(double value);
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+/**
+ * A numeric aggregate function that can merge a batch of primitive values without going through records.
+ * Batches may only be merged if {@link #supportsBatch()} returns true.
+ */
+public interface NumericBatchFunction {
+
+  /**
+   * @return whether batches of values can be merged. Conditional functions, like {@link SumIf}, can only evaluate
+   *   their condition on records, so they must be merged record by record.
+   */
+  default boolean supportsBatch() {
+    return true;
+  }
+
+  /**
+   * Merges a batch of integral values.
+   *
+   * @param values array containing the values
+   * @param offset index of the first value to merge
+   * @param length number of values to merge
+   */
+  void mergeValues(long[] values, int offset, int length);
+
+  /**
+   * Merges a batch of floating point values.
+   *
+   * @param values array containing the values
+   * @param offset index of the first value to merge
+   * @param length number of values to merge
+   */
+  void mergeValues(double[] values, int offset, int length);
+}
@@ -25,7 +25,7 @@ import javax.annotation.Nullable;
 /**
  * Calculates the Standard Deviation
  */
-public class Stddev implements AggregateFunction<Double, Stddev> {
+public class Stddev implements AggregateFunction<Double, Stddev>, NumericBatchFunction {
   private final Variance variance;
 
   public Stddev(String fieldName, Schema fieldSchema) {
@@ -43,6 +43,16 @@ public class Stddev implements AggregateFunction<Double, Stddev> {
     variance.mergeValue(record);
   }
 
+  @Override
+  public void mergeValues(long[] values, int offset, int length) {
+    variance.mergeValues(values, offset, length);
+  }
+
+  @Override
+  public void mergeValues(double[] values, int offset, int length) {
+    variance.mergeValues(values, offset, length);
+  }
+
   @Override
   public void mergeAggregates(Stddev otherAgg) {
     variance.mergeAggregates(otherAgg.variance);
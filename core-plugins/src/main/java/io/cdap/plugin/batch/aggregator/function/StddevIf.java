@@ -39,4 +39,9 @@ public class StddevIf extends Stddev implements Serializable {
     }
     super.mergeValue(record);
   }
+
+  @Override
+  public boolean supportsBatch() {
+    return false;
+  }
 }
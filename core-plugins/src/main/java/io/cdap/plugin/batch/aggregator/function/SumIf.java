@@ -39,4 +39,9 @@ public class SumIf extends Sum implements Serializable {
     }
     super.mergeValue(record);
   }
+
+  @Override
+  public boolean supportsBatch() {
+    return false;
+  }
 }
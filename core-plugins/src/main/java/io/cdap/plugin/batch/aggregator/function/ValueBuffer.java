@@ -0,0 +1,463 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import javax.annotation.Nullable;
+
+/**
+ * Values collected for a group, bounded by {@link CollectionLimits}.
+ *
+ * Values are first kept as objects. Once their estimated size plus the size of the runs goes over the memory limit,
+ * they are serialized and compressed into a run, which usually takes a fraction of the memory of the objects, and
+ * collection starts over. Runs stay in memory and are only decoded again when the aggregate is computed. Since runs
+ * are plain byte arrays, the buffer can be serialized and shuffled like any other aggregate value. If the runs alone
+ * go over the memory limit and no maximum size bounds the group, adding fails. Values are returned in the order they
+ * were added.
+ *
+ * A distinct buffer keeps a 64-bit hash of every compacted value to count the distinct values without decoding the
+ * runs. Runs may repeat values of earlier runs, which are only dropped once, when the values are returned.
+ *
+ * @param <T> type of the values
+ */
+final class ValueBuffer<T> implements Serializable {
+  // rough overhead of keeping a value in an array list and in a hash set
+  private static final long LIST_ENTRY_BYTES = 8;
+  private static final long SET_ENTRY_BYTES = 48;
+  // smallest estimated size of the values compacted into a run once the runs alone exceed the memory limit
+  private static final long MIN_RUN_BYTES = 64 * 1024;
+
+  private static final int NULL = 0;
+  private static final int STRING = 1;
+  private static final int INT = 2;
+  private static final int LONG = 3;
+  private static final int FLOAT = 4;
+  private static final int DOUBLE = 5;
+  private static final int BOOLEAN = 6;
+  private static final int BYTES = 7;
+  private static final int BYTE_BUFFER = 8;
+  private static final int OBJECT = 9;
+
+  private final boolean distinct;
+  private final CollectionLimits limits;
+  private final List<byte[]> runs = new ArrayList<>();
+  // hashes of the compacted values of a distinct buffer
+  private final LongHashSet hashes;
+  private Collection<T> values;
+  private long estimatedBytes;
+  // number of values in runs and their total size in bytes
+  private long runValues;
+  private long runBytes;
+  // number of values kept as objects by a distinct buffer that are not in the runs
+  private int newValues;
+
+  /**
+   * @param distinct whether only distinct values should be kept
+   * @param limits limits on the values kept
+   */
+  ValueBuffer(boolean distinct, CollectionLimits limits) {
+    this.distinct = distinct;
+    this.limits = limits;
+    this.hashes = distinct ? new LongHashSet() : null;
+    this.values = newCollection();
+  }
+
+  /**
+   * Adds a value, unless the maximum number of values has been reached.
+   */
+  void add(@Nullable T value) {
+    if (size() >= limits.getMaxSize()) {
+      return;
+    }
+    if (values.add(value)) {
+      if (distinct && (runs.isEmpty() || !hashes.contains(hash(value)))) {
+        newValues++;
+      }
+      estimatedBytes += estimateSize(value) + (distinct ? SET_ENTRY_BYTES : LIST_ENTRY_BYTES);
+      if (shouldCompact()) {
+        compact();
+      }
+    }
+  }
+
+  /**
+   * Adds all the values of the given buffer, after the values of this buffer.
+   */
+  void addAll(ValueBuffer<T> other) {
+    if (distinct || limits.getMaxSize() != Integer.MAX_VALUE || other.runs.isEmpty()) {
+      other.forEach(this::add);
+      return;
+    }
+    // runs can be taken over without decoding them, as long as the values of this buffer go first
+    compact();
+    runs.addAll(other.runs);
+    runValues += other.runValues;
+    runBytes += other.runBytes;
+    checkMemory();
+    other.values.forEach(this::add);
+  }
+
+  /**
+   * Calls the given consumer for every value, in the order they were added.
+   */
+  void forEach(Consumer<? super T> consumer) {
+    if (distinct && !runs.isEmpty()) {
+      toSet().forEach(consumer);
+      return;
+    }
+    for (byte[] run : runs) {
+      decode(run, consumer);
+    }
+    values.forEach(consumer);
+  }
+
+  /**
+   * @return all values, for a buffer that does not only keep distinct values
+   */
+  List<T> toList() {
+    if (runs.isEmpty()) {
+      return Collections.unmodifiableList((List<T>) values);
+    }
+    List<T> list = new ArrayList<>((int) Math.min(size(), Integer.MAX_VALUE));
+    forEach(list::add);
+    return list;
+  }
+
+  /**
+   * @return all distinct values, for a buffer that only keeps distinct values
+   */
+  Set<T> toSet() {
+    if (runs.isEmpty()) {
+      return Collections.unmodifiableSet((Set<T>) values);
+    }
+    // values repeated by later runs are dropped here, and the maximum size holds even if distinct values share a hash
+    Set<T> set = new LinkedHashSet<>();
+    Consumer<T> collector = value -> {
+      if (set.size() < limits.getMaxSize()) {
+        set.add(value);
+      }
+    };
+    for (byte[] run : runs) {
+      decode(run, collector);
+    }
+    values.forEach(collector);
+    return set;
+  }
+
+  /**
+   * @return number of values kept. For a distinct buffer, values are counted by their hash.
+   */
+  long size() {
+    return distinct ? hashes.size() + newValues : runValues + values.size();
+  }
+
+  private Collection<T> newCollection() {
+    return distinct ? new LinkedHashSet<>() : new ArrayList<>();
+  }
+
+  private long compactedBytes() {
+    return runBytes + (distinct ? hashes.getBytes() : 0);
+  }
+
+  private boolean shouldCompact() {
+    long maxMemoryBytes = limits.getMaxMemoryBytes();
+    long compactedBytes = compactedBytes();
+    if (compactedBytes <= maxMemoryBytes) {
+      return estimatedBytes + compactedBytes > maxMemoryBytes;
+    }
+    // only possible when a maximum size bounds the group, runs are then kept large enough to compress well
+    return estimatedBytes >= Math.min(maxMemoryBytes, MIN_RUN_BYTES);
+  }
+
+  /**
+   * Compacts the values kept as objects into a run.
+   */
+  @VisibleForTesting
+  void compact() {
+    if (values.isEmpty()) {
+      estimatedBytes = 0;
+      return;
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+      output.writeInt(values.size());
+      for (T value : values) {
+        writeValue(output, value);
+        if (distinct) {
+          hashes.add(hash(value));
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to compact the collected values of a group: " + e.getMessage(), e);
+    }
+    byte[] run = bytes.toByteArray();
+    runs.add(run);
+    runValues += values.size();
+    runBytes += run.length;
+    values = newCollection();
+    estimatedBytes = 0;
+    newValues = 0;
+    checkMemory();
+  }
+
+  private void checkMemory() {
+    // with a maximum size, the group is bounded anyway
+    if (limits.getMaxSize() == Integer.MAX_VALUE && compactedBytes() > limits.getMaxMemoryBytes()) {
+      throw new IllegalStateException(String.format(
+        "Values collected for a group take %d bytes even when compacted, which is more than the collection memory " +
+          "limit of %d bytes. Increase the memory limit or set a maximum collection size.",
+        compactedBytes(), limits.getMaxMemoryBytes()));
+    }
+  }
+
+  private void decode(byte[] run, Consumer<? super T> consumer) {
+    try (DataInputStream input = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(run)))) {
+      int count = input.readInt();
+      for (int i = 0; i < count; i++) {
+        consumer.accept((T) readValue(input));
+      }
+    } catch (IOException | ClassNotFoundException e) {
+      throw new IllegalStateException("Failed to read the compacted values of a group: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * @return a 64-bit hash of a value, which is the same for equal values
+   */
+  private static long hash(@Nullable Object value) {
+    long hash;
+    if (value == null) {
+      hash = NULL;
+    } else if (value instanceof String) {
+      String string = (String) value;
+      hash = STRING;
+      for (int i = 0; i < string.length(); i++) {
+        hash = hash * 1099511628211L + string.charAt(i);
+      }
+    } else if (value instanceof byte[]) {
+      hash = hashBytes(BYTES, ByteBuffer.wrap((byte[]) value));
+    } else if (value instanceof ByteBuffer) {
+      hash = hashBytes(BYTE_BUFFER, (ByteBuffer) value);
+    } else if (value instanceof Integer || value instanceof Long) {
+      hash = (value instanceof Integer ? INT : LONG) * 1099511628211L + ((Number) value).longValue();
+    } else if (value instanceof Float || value instanceof Double) {
+      hash = (value instanceof Float ? FLOAT : DOUBLE) * 1099511628211L +
+        Double.doubleToLongBits(((Number) value).doubleValue());
+    } else {
+      // other values only have a 32-bit hash code consistent with equals
+      hash = OBJECT * 1099511628211L + value.hashCode();
+    }
+    // spreads the bits, as in SplitMix64
+    hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+    hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+    return hash ^ (hash >>> 31);
+  }
+
+  private static long hashBytes(int type, ByteBuffer buffer) {
+    long hash = type;
+    for (int i = buffer.position(); i < buffer.limit(); i++) {
+      hash = hash * 1099511628211L + buffer.get(i);
+    }
+    return hash;
+  }
+
+  private static long estimateSize(@Nullable Object value) {
+    if (value instanceof String) {
+      return 40 + 2L * ((String) value).length();
+    }
+    if (value instanceof byte[]) {
+      return 16 + ((byte[]) value).length;
+    }
+    if (value instanceof ByteBuffer) {
+      return 64 + ((ByteBuffer) value).remaining();
+    }
+    // null, boxed primitives and other small values
+    return 16;
+  }
+
+  private static void writeValue(DataOutput output, @Nullable Object value) throws IOException {
+    if (value == null) {
+      output.writeByte(NULL);
+    } else if (value instanceof String) {
+      output.writeByte(STRING);
+      writeBytes(output, ((String) value).getBytes(StandardCharsets.UTF_8));
+    } else if (value instanceof Integer) {
+      output.writeByte(INT);
+      output.writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      output.writeByte(LONG);
+      output.writeLong((Long) value);
+    } else if (value instanceof Float) {
+      output.writeByte(FLOAT);
+      output.writeFloat((Float) value);
+    } else if (value instanceof Double) {
+      output.writeByte(DOUBLE);
+      output.writeDouble((Double) value);
+    } else if (value instanceof Boolean) {
+      output.writeByte(BOOLEAN);
+      output.writeBoolean((Boolean) value);
+    } else if (value instanceof byte[]) {
+      output.writeByte(BYTES);
+      writeBytes(output, (byte[]) value);
+    } else if (value instanceof ByteBuffer) {
+      ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      output.writeByte(BYTE_BUFFER);
+      writeBytes(output, bytes);
+    } else {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream objectOutput = new ObjectOutputStream(bytes)) {
+        objectOutput.writeObject(value);
+      }
+      output.writeByte(OBJECT);
+      writeBytes(output, bytes.toByteArray());
+    }
+  }
+
+  @Nullable
+  private static Object readValue(DataInput input) throws IOException, ClassNotFoundException {
+    int type = input.readByte();
+    switch (type) {
+      case NULL:
+        return null;
+      case STRING:
+        return new String(readBytes(input), StandardCharsets.UTF_8);
+      case INT:
+        return input.readInt();
+      case LONG:
+        return input.readLong();
+      case FLOAT:
+        return input.readFloat();
+      case DOUBLE:
+        return input.readDouble();
+      case BOOLEAN:
+        return input.readBoolean();
+      case BYTES:
+        return readBytes(input);
+      case BYTE_BUFFER:
+        return ByteBuffer.wrap(readBytes(input));
+      case OBJECT:
+        try (ObjectInputStream objectInput = new ObjectInputStream(new ByteArrayInputStream(readBytes(input)))) {
+          return objectInput.readObject();
+        }
+      default:
+        throw new IOException("Unknown value type " + type);
+    }
+  }
+
+  private static void writeBytes(DataOutput output, byte[] bytes) throws IOException {
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  private static byte[] readBytes(DataInput input) throws IOException {
+    byte[] bytes = new byte[input.readInt()];
+    input.readFully(bytes);
+    return bytes;
+  }
+
+  /**
+   * Set of longs in an open addressing table, which takes a fraction of the memory of a set of boxed longs.
+   */
+  private static final class LongHashSet implements Serializable {
+    private long[] table = new long[16];
+    // zero marks free slots, so it is kept apart
+    private boolean hasZero;
+    private int size;
+
+    boolean contains(long value) {
+      if (value == 0) {
+        return hasZero;
+      }
+      for (int i = index(value, table.length); table[i] != 0; i = (i + 1) & (table.length - 1)) {
+        if (table[i] == value) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    void add(long value) {
+      if (value == 0) {
+        if (!hasZero) {
+          hasZero = true;
+          size++;
+        }
+        return;
+      }
+      if (insert(table, value)) {
+        size++;
+        if (size * 2 > table.length) {
+          long[] larger = new long[table.length * 2];
+          for (long existing : table) {
+            if (existing != 0) {
+              insert(larger, existing);
+            }
+          }
+          table = larger;
+        }
+      }
+    }
+
+    int size() {
+      return size;
+    }
+
+    long getBytes() {
+      return 8L * table.length;
+    }
+
+    private static boolean insert(long[] table, long value) {
+      int i = index(value, table.length);
+      while (table[i] != 0) {
+        if (table[i] == value) {
+          return false;
+        }
+        i = (i + 1) & (table.length - 1);
+      }
+      table[i] = value;
+      return true;
+    }
+
+    private static int index(long value, int length) {
+      return (int) (value ^ (value >>> 32)) & (length - 1);
+    }
+  }
+}
@@ -29,14 +29,9 @@ import javax.annotation.Nullable;
  * Uses https://www.tandfonline.com/doi/abs/10.1080/00031305.2014.966589 as the way to combine variance from two
  * splits.
  */
-public class Variance implements AggregateFunction<Double, Variance> {
-  private static final String AGG_KEY = "variance";
-  private static final String AGG_SQUARE_MEAN_KEY = "squareMean";
-  private static final String AGG_COUNT_KEY = "count";
-  private static final String AGG_MEAN_KEY = "mean";
+public class Variance implements AggregateFunction<Double, Variance>, NumericBatchFunction {
   private final String fieldName;
   private final Schema outputSchema;
-  private Double variance;
   private double squareMean;
   private double mean;
   private long count;
@@ -50,7 +45,6 @@ public class Variance implements AggregateFunction<Double, Variance> {
 
   @Override
   public void initialize() {
-    this.variance = null;
     this.squareMean = 0d;
     this.mean = 0d;
     this.count = 0L;
@@ -58,34 +52,36 @@ public class Variance implements AggregateFunction<Double, Variance> {
 
   @Override
   public void mergeValue(StructuredRecord record) {
-    Object val = record.get(fieldName);
+    Number val = record.get(fieldName);
     if (val == null) {
       return;
     }
+    push(val.doubleValue());
+  }
 
-    Number value = (Number) val;
-    count++;
+  @Override
+  public void mergeValues(long[] values, int offset, int length) {
+    int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      push(values[i]);
+    }
+  }
 
-    double delta = value.doubleValue() - mean;
-    mean += delta / count;
-    double delta2 = value.doubleValue() - mean;
-    squareMean += delta * delta2;
-    // if we divide by count, the result will be population variance,
-    // count - 1, we will get sample variance
-    if (count == 1L) {
-      variance = 0d;
-      return;
+  @Override
+  public void mergeValues(double[] values, int offset, int length) {
+    int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      push(values[i]);
     }
-    variance = squareMean / (count - 1);
   }
 
   @Override
   public void mergeAggregates(Variance otherAgg) {
-    if (otherAgg.variance == null) {
+    if (otherAgg.count == 0L) {
       return;
     }
-    if (variance == null) {
-      variance = otherAgg.variance;
+    if (count == 0L) {
+      squareMean = otherAgg.squareMean;
       count = otherAgg.count;
       mean = otherAgg.mean;
       return;
@@ -97,22 +93,31 @@ public class Variance implements AggregateFunction<Double, Variance> {
     double m2 = otherAgg.mean;
 
     count = c1 + c2;
-    variance = 1d / (count - 1d) * ((c1 - 1d) * variance + (c2 - 1d) * otherAgg.variance +
-                                      c1 * c2 * Math.pow(m1 - m2, 2d) / count);
+    squareMean = squareMean + otherAgg.squareMean + c1 * c2 * Math.pow(m1 - m2, 2d) / count;
     mean = (c1 * m1 + c2 * m2) / count;
   }
 
   @Nullable
   @Override
   public Double getAggregate() {
-    if (variance != null) {
-      return variance / count * (count - 1);
+    // this only happens when every value is null
+    if (count == 0L) {
+      return null;
     }
-    return variance;
+    // dividing by count gives the population variance, dividing by count - 1 would give the sample variance
+    return squareMean / count;
   }
 
   @Override
   public Schema getOutputSchema() {
     return outputSchema;
   }
+
+  private void push(double value) {
+    count++;
+    double delta = value - mean;
+    mean += delta / count;
+    double delta2 = value - mean;
+    squareMean += delta * delta2;
+  }
 }
@@ -43,4 +43,9 @@ public class VarianceIf extends Variance implements Serializable {
     }
     super.mergeValue(record);
   }
+
+  @Override
+  public boolean supportsBatch() {
+    return false;
+  }
 }
@@ -23,13 +23,13 @@ import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.input.FileSplit;
-import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
 import org.apache.poi.hssf.usermodel.HSSFDateUtil;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
@@ -38,17 +38,23 @@ import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.apache.poi.ss.util.CellReference;
 
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
 
 
 /**
- * {@link ExcelInputFormat} is {@link TextInputFormat} implementation for reading Excel files.
+ * {@link ExcelInputFormat} is {@link FileInputFormat} implementation for reading Excel files.
  *
  * The {@link ExcelInputFormat.ExcelRecordReader} reads a given sheet, and within a sheet reads
- * all columns and all rows.
+ * all columns and all rows. Files are not split, since a workbook can only be read as a whole.
  */
-public class ExcelInputFormat extends TextInputFormat {
+public class ExcelInputFormat extends FileInputFormat<LongWritable, ExcelRow> {
 
   public static final String SHEET_NAME = "Sheet Name";
   public static final String RE_PROCESS = "reprocess";
@@ -63,10 +69,15 @@ public class ExcelInputFormat extends TextInputFormat {
   public static final String SHEET_VALUE = "sheetValue";
 
   @Override
-  public RecordReader<LongWritable, Text> createRecordReader(InputSplit split, TaskAttemptContext context) {
+  public RecordReader<LongWritable, ExcelRow> createRecordReader(InputSplit split, TaskAttemptContext context) {
     return new ExcelRecordReader();
   }
 
+  @Override
+  protected boolean isSplitable(JobContext context, Path filename) {
+    return false;
+  }
+
   public static void setConfigurations(Job job, String filePattern, String sheet, boolean reprocess,
                                        String sheetValue, String columnList, boolean skipFirstRow,
                                        String terminateIfEmptyRow, String rowLimit, String ifErrorRecord,
@@ -94,9 +105,29 @@ public class ExcelInputFormat extends TextInputFormat {
 
 
   /**
-   * Reads excel spread sheet, where the keys are the offset in the excel file and the text is the complete record.
+   * Rows of the sheet being read.
+   */
+  interface SheetRows extends Closeable {
+
+    /**
+     * @return the next row of the sheet, or null if all rows were read
+     */
+    @Nullable
+    ExcelRow next() throws IOException;
+
+    /**
+     * @return the 0-based number of the last row of the sheet, or -1 if it is not known
+     */
+    int getLastRowNum();
+  }
+
+  /**
+   * Reads excel spread sheet, where the keys are the offset in the excel file and the values are the rows.
+   *
+   * xlsx files are read one row at a time by a {@link XlsxSheetReader}, so that large files can be read without
+   * loading the whole workbook in memory. Files in other formats are loaded as a workbook.
    */
-  public static class ExcelRecordReader extends RecordReader<LongWritable, Text> {
+  public static class ExcelRecordReader extends RecordReader<LongWritable, ExcelRow> {
 
     public static final String END = "END";
     public static final String MID = "MID";
@@ -106,27 +137,27 @@ public class ExcelInputFormat extends TextInputFormat {
 
     public static final String COLUMN_SEPERATOR = "\r";
 
+    // xlsx files are zip files
+    private static final byte[] ZIP_HEADER = { 'P', 'K', 3, 4 };
+
     // Map key that represents the row index.
     private LongWritable key;
 
     // Map value that represents an excel row
-    private Text value;
+    private ExcelRow value;
 
-    // Specifies all the rows of an Excel spreadsheet - An iterator over all the rows.
-    private Iterator<Row> rows;
+    // Rows of the sheet being read.
+    private SheetRows rows;
 
-    // InputStream handler for Excel files.
-    private FSDataInputStream fileIn;
+    // Next row, read ahead to know whether the current row is the last one.
+    private ExcelRow next;
 
-    // Path of input file.
-    private Path file;
+    // Local copy of an xlsx file that is not on the local file system.
+    private File localCopy;
 
     // Specifies the row index.
     private long rowIdx;
 
-    // Specifies last row num.
-    private int lastRowNum;
-
     //Keeps row limits
     private int rowCount;
 
@@ -136,116 +167,200 @@ public class ExcelInputFormat extends TextInputFormat {
 
       FileSplit split = (FileSplit) genericSplit;
       Configuration job = context.getConfiguration();
-      file = split.getPath();
-
+      Path file = split.getPath();
       FileSystem fs = file.getFileSystem(job);
-      fileIn = fs.open(split.getPath());
 
       // Reads the excel file, selects the sheet to be read.
       String sheet = job.get(SHEET);
       String sheetValue = job.get(SHEET_VALUE);
+      boolean byName = sheet.equalsIgnoreCase(SHEET_NAME);
 
-      Sheet workSheet; // sheet can be used as common for XSSF and HSSF workbook
       try {
-        Workbook workbook = WorkbookFactory.create(fileIn);
-        if (sheet.equalsIgnoreCase(SHEET_NAME)) {
-          workSheet = workbook.getSheet(sheetValue);
-        } else {
-          workSheet = workbook.getSheetAt(Integer.parseInt(sheetValue));
-        }
+        rows = isZip(fs, file) ? openXlsx(fs, file, byName, sheetValue) : openWorkbook(fs, file, byName, sheetValue);
       } catch (Exception e) {
+        deleteLocalCopy();
         throw new IllegalArgumentException("Exception while reading excel sheet. " + e.getMessage(), e);
       }
 
-      rowCount = job.getInt(ROWS_LIMIT, workSheet.getPhysicalNumberOfRows());
-      rows = workSheet.iterator();
-      lastRowNum = workSheet.getLastRowNum();
+      rowCount = job.getInt(ROWS_LIMIT, Integer.MAX_VALUE);
       rowIdx = 0;
+      next = rows.next();
 
       boolean skipFirstRow = job.getBoolean(SKIP_FIRST_ROW, false);
       if (skipFirstRow) {
-        Preconditions.checkArgument(rows.hasNext(), "No rows found on sheet %s", sheetValue);
+        Preconditions.checkArgument(next != null, "No rows found on sheet %s", sheetValue);
         rowIdx = 1;
-        rows.next();
+        next = rows.next();
       }
     }
 
     @Override
     public boolean nextKeyValue() throws IOException, InterruptedException {
-      if (!rows.hasNext() || rowCount == 0) {
+      if (next == null || rowCount == 0) {
         return false;
       }
 
-      StringBuilder sb = new StringBuilder();
+      ExcelRow row = next;
+      next = rowCount > 1 ? rows.next() : null;
+      rowCount--;
 
-      // Get the next row.
-      Row row = rows.next();
+      key = new LongWritable(rowIdx);
+      value = next == null ? row.asLast() : row;
+      rowIdx++;
 
-      // For each row, iterate through each columns
-      Iterator<Cell> cellIterator = row.cellIterator();
+      return true;
+    }
 
-      sb.append(row.getRowNum()).append(CELL_SEPERATOR);
-      sb.append(file).append(CELL_SEPERATOR);
-      sb.append(row.getSheet().getSheetName()).append(CELL_SEPERATOR);
+    @Override
+    public float getProgress() throws IOException {
+      if (next == null) {
+        return 1f;
+      }
+      int lastRowNum = rows.getLastRowNum();
+      return lastRowNum <= 0 ? 0f : Math.min(1f, (float) rowIdx / lastRowNum);
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        if (rows != null) {
+          rows.close();
+        }
+      } finally {
+        deleteLocalCopy();
+      }
+    }
 
-      if (rowCount - 1 == 0 || !rows.hasNext()) {
-        sb.append(END).append(CELL_SEPERATOR);
+    @Override
+    public LongWritable getCurrentKey() throws IOException, InterruptedException {
+      return key;
+    }
+
+    @Override
+    public ExcelRow getCurrentValue() throws IOException, InterruptedException {
+      return value;
+    }
+
+    private static boolean isZip(FileSystem fs, Path file) throws IOException {
+      byte[] header = new byte[ZIP_HEADER.length];
+      try (FSDataInputStream input = fs.open(file)) {
+        int read = 0;
+        while (read < header.length) {
+          int count = input.read(header, read, header.length - read);
+          if (count < 0) {
+            return false;
+          }
+          read += count;
+        }
+      }
+      for (int i = 0; i < header.length; i++) {
+        if (header[i] != ZIP_HEADER[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private SheetRows openXlsx(FileSystem fs, Path file, boolean byName, String sheetValue) throws IOException {
+      File localFile;
+      if ("file".equals(fs.getUri().getScheme())) {
+        localFile = new File(fs.makeQualified(file).toUri());
       } else {
-        sb.append(MID).append(CELL_SEPERATOR);
+        // xlsx files are zip files, which can only be read without loading them in memory from a local file
+        localCopy = File.createTempFile("excel", ".xlsx");
+        fs.copyToLocalFile(false, file, new Path(localCopy.toURI()), true);
+        localFile = localCopy;
       }
-      rowCount--;
+      return new XlsxSheetReader(localFile, file.toString(), byName, sheetValue);
+    }
 
-      key = new LongWritable(rowIdx);
+    private static SheetRows openWorkbook(FileSystem fs, Path file, boolean byName,
+                                          String sheetValue) throws Exception {
+      FSDataInputStream fileIn = fs.open(file);
+      try {
+        Workbook workbook = WorkbookFactory.create(fileIn);
+        // sheet can be used as common for XSSF and HSSF workbook
+        Sheet workSheet = byName ? workbook.getSheet(sheetValue) : workbook.getSheetAt(Integer.parseInt(sheetValue));
+        if (workSheet == null) {
+          throw new IllegalArgumentException(String.format("Sheet '%s' not found in file %s.", sheetValue, file));
+        }
+        return new WorkbookSheetRows(fileIn, file.toString(), workSheet);
+      } catch (Exception e) {
+        fileIn.close();
+        throw e;
+      }
+    }
+
+    private void deleteLocalCopy() {
+      if (localCopy != null) {
+        localCopy.delete();
+        localCopy = null;
+      }
+    }
+  }
+
+  /**
+   * Rows of a sheet of a workbook loaded in memory.
+   */
+  static final class WorkbookSheetRows implements SheetRows {
+    private final InputStream input;
+    private final String file;
+    private final Sheet sheet;
+    // Specifies all the rows of an Excel spreadsheet - An iterator over all the rows.
+    private final Iterator<Row> rows;
+
+    WorkbookSheetRows(InputStream input, String file, Sheet sheet) {
+      this.input = input;
+      this.file = file;
+      this.sheet = sheet;
+      this.rows = sheet.iterator();
+    }
+
+    @Nullable
+    @Override
+    public ExcelRow next() {
+      if (!rows.hasNext()) {
+        return null;
+      }
+
+      // Get the next row.
+      Row row = rows.next();
+      Map<String, String> cells = new LinkedHashMap<>();
+
+      // For each row, iterate through each columns
+      Iterator<Cell> cellIterator = row.cellIterator();
       while (cellIterator.hasNext()) {
         Cell cell = cellIterator.next();
         String colName = CellReference.convertNumToColString(cell.getColumnIndex());
         switch (cell.getCellType()) {
           case Cell.CELL_TYPE_STRING:
-            sb.append(colName)
-              .append(COLUMN_SEPERATOR).append(cell.getStringCellValue()).append(CELL_SEPERATOR);
+            cells.put(colName, cell.getStringCellValue());
             break;
 
           case Cell.CELL_TYPE_BOOLEAN:
-            sb.append(colName)
-              .append(COLUMN_SEPERATOR).append(cell.getBooleanCellValue()).append(CELL_SEPERATOR);
+            cells.put(colName, String.valueOf(cell.getBooleanCellValue()));
             break;
 
           case Cell.CELL_TYPE_NUMERIC:
             if (HSSFDateUtil.isCellDateFormatted(cell)) {
-              sb.append(colName).append(COLUMN_SEPERATOR).append(cell.getDateCellValue()).append(CELL_SEPERATOR);
+              cells.put(colName, String.valueOf(cell.getDateCellValue()));
             } else {
-              sb.append(colName)
-                  .append(COLUMN_SEPERATOR).append(cell.getNumericCellValue()).append(CELL_SEPERATOR);
+              cells.put(colName, String.valueOf(cell.getNumericCellValue()));
             }
             break;
         }
       }
-      value = new Text(sb.toString());
-      rowIdx++;
-
-      return true;
+      return new ExcelRow(row.getRowNum(), file, sheet.getSheetName(), false, cells);
     }
 
     @Override
-    public float getProgress() throws IOException {
-        return rowIdx / lastRowNum;
+    public int getLastRowNum() {
+      return sheet.getLastRowNum();
     }
 
     @Override
     public void close() throws IOException {
-      if (fileIn != null) {
-        fileIn.close();
-      }
-    }
-
-    @Override
-    public LongWritable getCurrentKey() throws IOException, InterruptedException {
-      return key;
-    }
-
-    @Override
-    public Text getCurrentValue() throws IOException, InterruptedException {
-      return value;
+      input.close();
     }
   }
 }
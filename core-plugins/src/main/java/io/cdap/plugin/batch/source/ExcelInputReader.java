@@ -91,13 +91,8 @@ public class ExcelInputReader extends BatchSource<LongWritable, Object, Structur
   private static final String EXIT_ON_ERROR = "Exit on error";
   private static final String WRITE_ERROR_DATASET = "Write to error dataset";
   private static final String NULL = "NULL";
-  private static final String END = "END";
   private static final String SHEET_NO = "Sheet Number";
 
-  // Non-printable ASCII character(EOT) to seperate column-values
-  private static final String CELL_SEPERATION = String.valueOf((char) 4);
-  private static final String COLUMN_SEPERATION = "\r";
-
   private static final Gson GSON = new Gson();
   private static final Type ARRAYLIST_PREPROCESSED_FILES = new TypeToken<ArrayList<String>>() { }.getType();
 
@@ -182,15 +177,12 @@ public class ExcelInputReader extends BatchSource<LongWritable, Object, Structur
 
     getOutputSchema();
     StructuredRecord.Builder builder = StructuredRecord.builder(outputSchema);
-    String inputValue = input.getValue().toString();
-
-    String[] excelRecord = inputValue.split(CELL_SEPERATION);
+    ExcelRow row = (ExcelRow) input.getValue();
 
-    String fileName = excelRecord[1];
-    String sheetName = excelRecord[2];
-    String ifEndRow = excelRecord[3];
+    String fileName = row.getFile();
+    String sheetName = row.getSheet();
 
-    int currentRowNum = Integer.parseInt(excelRecord[0]);
+    int currentRowNum = row.getRowNum();
     if (currentRowNum - prevRowNum > 1 && excelInputreaderConfig.terminateIfEmptyRow.equalsIgnoreCase("true")) {
       throw new ExecutionException("Encountered empty row while reading Excel file :" + fileName +
                                      " . Terminating processing", new Throwable());
@@ -199,12 +191,11 @@ public class ExcelInputReader extends BatchSource<LongWritable, Object, Structur
 
     Map<String, String> excelColumnValueMap = new HashMap<>();
 
-    for (String column : excelRecord) {
-      String[] columnValue = column.split(COLUMN_SEPERATION);
-      if (columnValue.length > 1) {
-        String name = columnValue[0];
-        String value = columnValue[1];
-
+    for (Map.Entry<String, String> cell : row.getCells().entrySet()) {
+      String name = cell.getKey();
+      String value = cell.getValue();
+      // empty values are treated as missing, as they always were
+      if (!value.isEmpty()) {
         if (columnMapping.containsKey(name)) {
           excelColumnValueMap.put(columnMapping.get(name), value);
         } else {
@@ -228,7 +219,7 @@ public class ExcelInputReader extends BatchSource<LongWritable, Object, Structur
 
       emitter.emit(builder.build());
 
-      if (ifEndRow.equalsIgnoreCase(END) && !Strings.isNullOrEmpty(excelInputreaderConfig.memoryTableName)) {
+      if (row.isLast() && !Strings.isNullOrEmpty(excelInputreaderConfig.memoryTableName)) {
         KeyValueTable processedFileMemoryTable = batchRuntimeContext.getDataset(excelInputreaderConfig.memoryTableName);
         processedFileMemoryTable.write(Bytes.toBytes(fileName), Bytes.toBytes(new Date().getTime()));
       }
@@ -238,10 +229,10 @@ public class ExcelInputReader extends BatchSource<LongWritable, Object, Structur
           throw new IllegalStateException("Terminating processing on error : " + e.getMessage());
         case WRITE_ERROR_DATASET:
           StructuredRecord.Builder errorRecordBuilder = StructuredRecord.builder(errorRecordSchema);
-          errorRecordBuilder.set(KEY, fileName + "_" + sheetName + "_" + excelRecord[0]);
+          errorRecordBuilder.set(KEY, fileName + "_" + sheetName + "_" + currentRowNum);
           errorRecordBuilder.set(FILE, fileName);
           errorRecordBuilder.set(SHEET, sheetName);
-          errorRecordBuilder.set(RECORD, inputValue);
+          errorRecordBuilder.set(RECORD, row.toString());
           Table errorTable = batchRuntimeContext.getDataset(excelInputreaderConfig.errorDatasetName);
           errorTable.write(errorRecordBuilder.build());
           break;
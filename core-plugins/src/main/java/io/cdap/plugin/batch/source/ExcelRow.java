@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.source;
+
+import java.util.Map;
+
+/**
+ * A row of an Excel sheet, as read by {@link ExcelInputFormat}.
+ */
+public final class ExcelRow {
+  private final int rowNum;
+  private final String file;
+  private final String sheet;
+  private final boolean last;
+  private final Map<String, String> cells;
+
+  /**
+   * @param rowNum 0-based number of the row in the sheet
+   * @param file path of the file the row was read from
+   * @param sheet name of the sheet the row was read from
+   * @param last whether this is the last row read from the sheet
+   * @param cells values of the cells of the row by column name, for example 'A', in the order of the columns
+   */
+  public ExcelRow(int rowNum, String file, String sheet, boolean last, Map<String, String> cells) {
+    this.rowNum = rowNum;
+    this.file = file;
+    this.sheet = sheet;
+    this.last = last;
+    this.cells = cells;
+  }
+
+  public int getRowNum() {
+    return rowNum;
+  }
+
+  public String getFile() {
+    return file;
+  }
+
+  public String getSheet() {
+    return sheet;
+  }
+
+  public boolean isLast() {
+    return last;
+  }
+
+  public Map<String, String> getCells() {
+    return cells;
+  }
+
+  /**
+   * @return a copy of this row that is the last one read from the sheet
+   */
+  ExcelRow asLast() {
+    return new ExcelRow(rowNum, file, sheet, true, cells);
+  }
+
+  /**
+   * Returns the row as text, with the row number, file, sheet, position and column values separated by
+   * {@link ExcelInputFormat.ExcelRecordReader#CELL_SEPERATOR}. This is the format rows used to be read as, which is
+   * kept for the error records.
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    String separator = ExcelInputFormat.ExcelRecordReader.CELL_SEPERATOR;
+    sb.append(rowNum).append(separator);
+    sb.append(file).append(separator);
+    sb.append(sheet).append(separator);
+    sb.append(last ? ExcelInputFormat.ExcelRecordReader.END : ExcelInputFormat.ExcelRecordReader.MID).append(separator);
+    for (Map.Entry<String, String> cell : cells.entrySet()) {
+      sb.append(cell.getKey()).append(ExcelInputFormat.ExcelRecordReader.COLUMN_SEPERATOR)
+        .append(cell.getValue()).append(separator);
+    }
+    return sb.toString();
+  }
+}
@@ -62,8 +62,22 @@ public class FileSourceConfig extends AbstractFileSourceConfig {
 
   @Macro
   @Nullable
-  @Description("The maximum number of rows that will get investigated for automatic data type detection.")
+  @Description("The maximum number of rows in each sampled file that will get investigated for automatic data type " +
+    "detection.")
   private Long sampleSize;
+
+  @Macro
+  @Nullable
+  @Description("The maximum number of files that will get investigated in parallel for automatic data type " +
+    "detection. Files are picked evenly across the files matching the regex. Defaults to 1.")
+  private Integer sampleFiles;
+
+  @Macro
+  @Nullable
+  @Description("Which rows of a file get investigated for automatic data type detection. 'first' investigates the " +
+    "first rows of the file. 'random' investigates a random sample of the rows read from several ranges spread " +
+    "across the file. Defaults to 'first'.")
+  private String samplingMethod;
   
   FileSourceConfig() {
     super();
@@ -0,0 +1,304 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.source;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.SAXException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads the rows of a sheet of an xlsx file one at a time, by pulling the XML events of the sheet instead of loading
+ * the whole workbook. Only the shared strings and the styles of the workbook are kept in memory, along with the row
+ * being read.
+ *
+ * Cell values are the same as the ones of the workbook model: strings, booleans as 'true' or 'false', numbers as
+ * doubles and date formatted numbers as dates. Like with the workbook model, formula, error and blank cells are
+ * skipped.
+ */
+final class XlsxSheetReader implements ExcelInputFormat.SheetRows {
+  private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+  private final String file;
+  private final OPCPackage pkg;
+  private final InputStream sheetData;
+  private final XMLStreamReader reader;
+  private final ReadOnlySharedStringsTable sharedStrings;
+  @Nullable
+  private final StylesTable styles;
+  private final boolean date1904;
+  private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+  private final String sheetName;
+  private int lastRowNum = -1;
+  private int rowNum = -1;
+
+  /**
+   * @param localFile local copy of the xlsx file
+   * @param file path of the file, set in the rows
+   * @param byName whether the sheet is selected by name rather than by number
+   * @param sheet name or 0-based number of the sheet to read
+   */
+  XlsxSheetReader(File localFile, String file, boolean byName, String sheet) throws IOException {
+    this.file = file;
+    try {
+      pkg = OPCPackage.open(localFile.getPath(), PackageAccess.READ);
+    } catch (OpenXML4JException e) {
+      throw new IOException("Failed to open xlsx file " + file + ": " + e.getMessage(), e);
+    }
+    try {
+      XSSFReader xssfReader = new XSSFReader(pkg);
+      sharedStrings = new ReadOnlySharedStringsTable(pkg);
+      styles = xssfReader.getStylesTable();
+      try (InputStream workbook = xssfReader.getWorkbookData()) {
+        date1904 = isDate1904(workbook);
+      }
+
+      XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+      int sheetIndex = byName ? -1 : Integer.parseInt(sheet);
+      InputStream selected = null;
+      String selectedName = null;
+      for (int index = 0; sheets.hasNext() && selected == null; index++) {
+        InputStream data = sheets.next();
+        String name = sheets.getSheetName();
+        if (byName ? name.equalsIgnoreCase(sheet) : index == sheetIndex) {
+          selected = data;
+          selectedName = name;
+        } else {
+          data.close();
+        }
+      }
+      if (selected == null) {
+        throw new IllegalArgumentException(String.format("Sheet '%s' not found in file %s.", sheet, file));
+      }
+      sheetData = selected;
+      sheetName = selectedName;
+      reader = XML_INPUT_FACTORY.createXMLStreamReader(sheetData);
+    } catch (OpenXML4JException | SAXException | XMLStreamException e) {
+      pkg.revert();
+      throw new IOException("Failed to read xlsx file " + file + ": " + e.getMessage(), e);
+    } catch (IOException | RuntimeException e) {
+      pkg.revert();
+      throw e;
+    }
+  }
+
+  @Nullable
+  @Override
+  public ExcelRow next() throws IOException {
+    try {
+      while (reader.hasNext()) {
+        if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+          continue;
+        }
+        String element = reader.getLocalName();
+        if ("row".equals(element)) {
+          String r = reader.getAttributeValue(null, "r");
+          rowNum = r == null ? rowNum + 1 : Integer.parseInt(r) - 1;
+          return new ExcelRow(rowNum, file, sheetName, false, readCells());
+        }
+        if ("dimension".equals(element)) {
+          String ref = reader.getAttributeValue(null, "ref");
+          if (ref != null) {
+            lastRowNum = new CellReference(ref.substring(ref.indexOf(':') + 1)).getRow();
+          }
+        }
+      }
+      return null;
+    } catch (XMLStreamException | RuntimeException e) {
+      throw new IOException(String.format("Failed to read row %d of sheet '%s' of file %s: %s",
+                                          rowNum + 1, sheetName, file, e.getMessage()), e);
+    }
+  }
+
+  @Override
+  public int getLastRowNum() {
+    return lastRowNum;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      reader.close();
+      sheetData.close();
+    } catch (XMLStreamException e) {
+      throw new IOException(e);
+    } finally {
+      // the package was opened read only, reverting closes it without trying to save it
+      pkg.revert();
+    }
+  }
+
+  /**
+   * Reads the cells of the current row, up to the end of the row element.
+   */
+  private Map<String, String> readCells() throws XMLStreamException {
+    Map<String, String> cells = new LinkedHashMap<>();
+    int column = -1;
+    while (true) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.END_ELEMENT && "row".equals(reader.getLocalName())) {
+        return cells;
+      }
+      if (event != XMLStreamConstants.START_ELEMENT || !"c".equals(reader.getLocalName())) {
+        continue;
+      }
+      String ref = reader.getAttributeValue(null, "r");
+      column = ref == null ? column + 1 : new CellReference(ref).getCol();
+      String type = reader.getAttributeValue(null, "t");
+      String style = reader.getAttributeValue(null, "s");
+      String value = readCellValue(type, style);
+      if (value != null) {
+        cells.put(CellReference.convertNumToColString(column), value);
+      }
+    }
+  }
+
+  /**
+   * Reads the value of the current cell, up to the end of the cell element.
+   *
+   * @return the value of the cell, or null if the cell is skipped
+   */
+  @Nullable
+  private String readCellValue(@Nullable String type, @Nullable String style) throws XMLStreamException {
+    String value = null;
+    StringBuilder inline = null;
+    boolean formula = false;
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      } else if (event == XMLStreamConstants.START_ELEMENT) {
+        String element = reader.getLocalName();
+        if ("v".equals(element)) {
+          value = reader.getElementText();
+        } else if ("f".equals(element)) {
+          formula = true;
+          depth++;
+        } else if ("t".equals(element)) {
+          inline = inline == null ? new StringBuilder() : inline;
+          inline.append(reader.getElementText());
+        } else if ("rPh".equals(element)) {
+          // phonetic runs of inline strings are not part of the value
+          skipElement();
+        } else {
+          depth++;
+        }
+      }
+    }
+
+    if (formula) {
+      return null;
+    }
+    if ("inlineStr".equals(type)) {
+      return inline == null ? "" : inline.toString();
+    }
+    if (value == null || value.isEmpty()) {
+      return null;
+    }
+    if (type == null || "n".equals(type)) {
+      double number = Double.parseDouble(value);
+      if (isDateFormatted(style, number)) {
+        return DateUtil.getJavaDate(number, date1904).toString();
+      }
+      return String.valueOf(number);
+    }
+    switch (type) {
+      case "s":
+        return sharedStrings.getEntryAt(Integer.parseInt(value));
+      case "b":
+        return String.valueOf("1".equals(value) || "true".equalsIgnoreCase(value));
+      case "str":
+        return value;
+      default:
+        // errors and unknown types
+        return null;
+    }
+  }
+
+  private void skipElement() throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+
+  private boolean isDateFormatted(@Nullable String style, double value) {
+    if (styles == null || !DateUtil.isValidExcelDate(value)) {
+      return false;
+    }
+    int index = style == null ? 0 : Integer.parseInt(style);
+    Boolean date = dateStyles.get(index);
+    if (date == null) {
+      XSSFCellStyle cellStyle = index < styles.getNumCellStyles() ? styles.getStyleAt(index) : null;
+      date = cellStyle != null
+        && DateUtil.isADateFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString());
+      dateStyles.put(index, date);
+    }
+    return date;
+  }
+
+  private static boolean isDate1904(InputStream workbook) throws XMLStreamException {
+    XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(workbook);
+    try {
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT && "workbookPr".equals(reader.getLocalName())) {
+          String date1904 = reader.getAttributeValue(null, "date1904");
+          return "1".equals(date1904) || "true".equalsIgnoreCase(date1904);
+        }
+        if (reader.getEventType() == XMLStreamConstants.START_ELEMENT && "sheets".equals(reader.getLocalName())) {
+          // the workbook properties come before the sheets
+          return false;
+        }
+      }
+      return false;
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static XMLInputFactory createXmlInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory;
+  }
+}
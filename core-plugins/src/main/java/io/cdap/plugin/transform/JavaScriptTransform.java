@@ -18,6 +18,7 @@ package io.cdap.plugin.transform;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.gson.Gson;
@@ -53,12 +54,14 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
+import javax.script.Compilable;
 import javax.script.Invocable;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
@@ -79,8 +82,11 @@ public class JavaScriptTransform extends Transform<StructuredRecord, StructuredR
   private static final String VARIABLE_NAME = "dont_name_your_variable_this";
   private static final String EMITTER_NAME = "dont_name_your_variable2_this";
   private static final String CONTEXT_NAME = "dont_name_your_context_this";
+  private static final String TRANSFORM_FUNCTION = "transform";
   private ScriptEngine engine;
   private Invocable invocable;
+  private ScriptContext scriptContext;
+  private boolean recordMode;
   private Schema schema;
   private Schema errSchema;
   private final Config config;
@@ -96,6 +102,9 @@ public class JavaScriptTransform extends Transform<StructuredRecord, StructuredR
     private static final String LOOKUP = "lookup";
     private static final String SCHEMA = "schema";
     private static final String SCRIPT = "script";
+    private static final String INPUT_MODE = "inputMode";
+    private static final String JSON_MODE = "json";
+    private static final String RECORD_MODE = "record";
 
     @Description("JavaScript defining how to transform input record into zero or more records. " +
       "The script must implement a function " +
@@ -128,10 +137,23 @@ public class JavaScriptTransform extends Transform<StructuredRecord, StructuredR
     @Nullable
     private final String lookup;
 
+    @Description("How input records are passed to the transform function. With 'json', the default, every record " +
+      "is converted into a JavaScript object through its JSON representation. With 'record', the script is " +
+      "compiled once and the function is called directly with a map backed by the record, whose fields are only " +
+      "converted when they are read, which is much faster. In 'record' mode, arrays are Java lists, maps are Java " +
+      "maps and bytes are Java byte arrays, and missing fields are null instead of undefined.")
+    @Nullable
+    private final String inputMode;
+
     public Config(String script, String schema, LookupConfig lookup) {
+      this(script, schema, lookup, null);
+    }
+
+    public Config(String script, String schema, LookupConfig lookup, @Nullable String inputMode) {
       this.script = script;
       this.schema = schema;
       this.lookup = GSON.toJson(lookup);
+      this.inputMode = inputMode;
     }
   }
 
@@ -201,6 +223,11 @@ public class JavaScriptTransform extends Transform<StructuredRecord, StructuredR
   @Override
   public void transform(StructuredRecord input, Emitter<StructuredRecord> emitter) {
     try {
+      if (recordMode) {
+        invocable.invokeFunction(TRANSFORM_FUNCTION, new ScriptRecord(input),
+                                 new JSEmitter(emitter, schema == null ? input.getSchema() : schema), scriptContext);
+        return;
+      }
       engine.eval(String.format("var %s = %s;", VARIABLE_NAME, StructuredRecordStringConverter.toJsonString(input)));
       Emitter<Map> jsEmitter = new JSEmitter(emitter, schema == null ? input.getSchema() : schema);
       engine.put(EMITTER_NAME, jsEmitter);
@@ -301,6 +328,9 @@ public class JavaScriptTransform extends Transform<StructuredRecord, StructuredR
   }
 
   private StructuredRecord decodeRecord(Map nativeObject, Schema schema) {
+    if (nativeObject instanceof ScriptRecord) {
+      return decodeScriptRecord((ScriptRecord) nativeObject, schema);
+    }
     StructuredRecord.Builder builder = StructuredRecord.builder(schema);
     for (Schema.Field field : schema.getFields()) {
       String fieldName = field.getName();
@@ -310,7 +340,29 @@ public class JavaScriptTransform extends Transform<StructuredRecord, StructuredR
     return builder.build();
   }
 
+  /**
+   * Decodes a record passed to the script in record mode. A record that was not changed is returned as is, otherwise
+   * only the fields that the script set or got a copy of are decoded and the others are taken from the input record.
+   */
+  private StructuredRecord decodeScriptRecord(ScriptRecord scriptRecord, Schema schema) {
+    StructuredRecord record = scriptRecord.getUnmodifiedRecord(schema);
+    if (record != null) {
+      return record;
+    }
+    StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+    for (Schema.Field field : schema.getFields()) {
+      String fieldName = field.getName();
+      builder.set(fieldName, scriptRecord.isUnchanged(field) ? scriptRecord.getRecordValue(fieldName) :
+        decode(scriptRecord.get(fieldName), field.getSchema()));
+    }
+    return builder.build();
+  }
+
   private List jsObject2List(Object object) {
+    if (object instanceof List) {
+      // lists of records passed in record mode
+      return (List) object;
+    }
     if (somValuesMethod != null) {
       // using Nashorn (Java 8+) -- convert ScriptObjectMirror to List
       try {
@@ -336,6 +388,12 @@ public class JavaScriptTransform extends Transform<StructuredRecord, StructuredR
       case FLOAT:
         return ((Number) object).floatValue();
       case BYTES:
+        if (object instanceof byte[]) {
+          return object;
+        }
+        if (object instanceof ByteBuffer) {
+          return object;
+        }
         List byteArr = jsObject2List(object);
         byte[] output = new byte[byteArr.size()];
         for (int i = 0; i < output.length; i++) {
@@ -350,7 +408,8 @@ public class JavaScriptTransform extends Transform<StructuredRecord, StructuredR
       case BOOLEAN:
         return (Boolean) object;
       case STRING:
-        return (String) object;
+        // strings built by scripts may be other char sequences when they are set on records in record mode
+        return object instanceof CharSequence ? object.toString() : (String) object;
     }
     throw new RuntimeException("Unable decode object with schema " + schema);
   }
@@ -406,17 +465,37 @@ public class JavaScriptTransform extends Transform<StructuredRecord, StructuredR
     }
 
     Arguments arguments = context == null ? null : context.getArguments();
-    engine.put(CONTEXT_NAME, new ScriptContext(LOG, metrics, context, lookupConfig, js, arguments));
+    scriptContext = new ScriptContext(LOG, metrics, context, lookupConfig, js, arguments);
+    engine.put(CONTEXT_NAME, scriptContext);
+
+    String inputMode = Strings.isNullOrEmpty(config.inputMode) ? Config.JSON_MODE : config.inputMode.trim();
+    if (!Config.JSON_MODE.equalsIgnoreCase(inputMode) && !Config.RECORD_MODE.equalsIgnoreCase(inputMode)) {
+      collector.addFailure(String.format("Invalid input mode '%s'.", config.inputMode),
+                           String.format("Input mode must be '%s' or '%s'.", Config.JSON_MODE, Config.RECORD_MODE))
+        .withConfigProperty(Config.INPUT_MODE);
+      throw collector.getOrThrowException();
+    }
+    recordMode = Config.RECORD_MODE.equalsIgnoreCase(inputMode);
 
     try {
-      // this is pretty ugly, but doing this so that we can pass the 'input' json into the transform function.
-      // that is, we want people to implement
-      // function transform(input) { ... }
-      // rather than function transform() { ... } and have them access a global variable in the function
-
-      String script = String.format("function %s() { return transform(%s, %s, %s); }\n%s",
-                                    FUNCTION_NAME, VARIABLE_NAME, EMITTER_NAME, CONTEXT_NAME, config.script);
-      engine.eval(script);
+      if (recordMode) {
+        // the script only defines functions, so it is compiled and evaluated once, and the transform function is
+        // invoked with the record, emitter and context as arguments
+        if (engine instanceof Compilable) {
+          ((Compilable) engine).compile(config.script).eval();
+        } else {
+          engine.eval(config.script);
+        }
+      } else {
+        // this is pretty ugly, but doing this so that we can pass the 'input' json into the transform function.
+        // that is, we want people to implement
+        // function transform(input) { ... }
+        // rather than function transform() { ... } and have them access a global variable in the function
+
+        String script = String.format("function %s() { return transform(%s, %s, %s); }\n%s",
+                                      FUNCTION_NAME, VARIABLE_NAME, EMITTER_NAME, CONTEXT_NAME, config.script);
+        engine.eval(script);
+      }
     } catch (ScriptException e) {
       collector.addFailure(String.format("Invalid script: %s.", e.getMessage()), null)
         .withConfigProperty(Config.SCRIPT);
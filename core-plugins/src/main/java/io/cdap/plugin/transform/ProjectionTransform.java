@@ -120,8 +120,11 @@ public class ProjectionTransform extends Transform<StructuredRecord, StructuredR
   private Set<String> fieldsToKeep = Sets.newHashSet();
   private BiMap<String, String> fieldsToRename = HashBiMap.create();
   private Map<String, Schema.Type> fieldsToConvert = Maps.newHashMap();
-  // cache input schema hash to output schema so we don't have to build it each time
-  private Map<Schema, Schema> schemaCache = Maps.newHashMap();
+  // cache input schema to the projection plan for it so we don't have to build it each time
+  private Map<Schema, ProjectionPlan> planCache = Maps.newHashMap();
+  // plan of the last input schema. Records usually share the same schema object, which is checked before the cache
+  // since hashing a schema walks all of its fields.
+  private ProjectionPlan lastPlan;
 
   @Override
   public void configurePipeline(PipelineConfigurer pipelineConfigurer) throws IllegalArgumentException {
@@ -172,31 +175,10 @@ public class ProjectionTransform extends Transform<StructuredRecord, StructuredR
 
   @Override
   public void transform(StructuredRecord valueIn, Emitter<StructuredRecord> emitter) {
-    Schema inputSchema = valueIn.getSchema();
-    Schema outputSchema = getOutputSchema(inputSchema, getContext().getFailureCollector());
-    StructuredRecord.Builder builder = StructuredRecord.builder(outputSchema);
-    for (Schema.Field inputField : inputSchema.getFields()) {
-      String inputFieldName = inputField.getName();
-      if (!fieldsToKeep.isEmpty() && !fieldsToKeep.contains(inputFieldName)) {
-        continue;
-      } else if (fieldsToDrop.contains(inputFieldName)) {
-        continue;
-      }
-      // get the corresponding output field name
-      String outputFieldName = fieldsToRename.get(inputFieldName);
-      if (outputFieldName == null) {
-        outputFieldName = inputFieldName;
-      }
-
-      Schema.Field outputField = outputSchema.getField(outputFieldName);
-      Object inputVal = valueIn.get(inputFieldName);
-
-      // if we need to convert the value, convert it. otherwise just pass the value through
-      if (fieldsToConvert.containsKey(inputFieldName)) {
-        convertAndSet(builder, outputFieldName, inputVal, inputField.getSchema(), outputField.getSchema());
-      } else {
-        builder.set(outputFieldName, inputVal);
-      }
+    ProjectionPlan plan = getPlan(valueIn.getSchema(), getContext().getFailureCollector());
+    StructuredRecord.Builder builder = StructuredRecord.builder(plan.outputSchema);
+    for (FieldProjection projection : plan.projections) {
+      projection.project(valueIn, builder);
     }
     emitter.emit(builder.build());
   }
@@ -293,28 +275,34 @@ public class ProjectionTransform extends Transform<StructuredRecord, StructuredR
     }
   }
 
-  private void convertAndSet(StructuredRecord.Builder builder, String fieldName, Object val,
-                             Schema inputSchema, Schema outputSchema) {
+  private FieldProjection createConversion(String inputFieldName, String outputFieldName,
+                                           Schema inputSchema, Schema outputSchema) {
     // guaranteed that if the input type is nullable, the output type is also nullable.
-    Schema.Type inputType = inputSchema.getType();
-    Schema.Type outputType = outputSchema.getType();
-    if (inputSchema.isNullable()) {
-      if (val == null) {
-        builder.set(fieldName, null);
-        return;
-      }
-      inputType = inputSchema.getNonNullable().getType();
-      outputType = outputSchema.getNonNullable().getType();
-    }
+    Schema.Type inputType = inputSchema.isNullable() ? inputSchema.getNonNullable().getType() : inputSchema.getType();
+    Schema.Type outputType =
+      outputSchema.isNullable() ? outputSchema.getNonNullable().getType() : outputSchema.getType();
 
     // if the input is a string, try and do some sensible conversion
     if (inputType == Schema.Type.STRING) {
-      builder.convertAndSet(fieldName, (String) val);
-    } else {
-      // otherwise, just try to cast it.
-      builder.set(fieldName, convertPrimitive(fieldName, val, inputType, outputType,
-                                              getContext().getFailureCollector()));
+      return (input, builder) -> {
+        String val = input.get(inputFieldName);
+        if (val == null) {
+          builder.set(outputFieldName, null);
+        } else {
+          builder.convertAndSet(outputFieldName, val);
+        }
+      };
     }
+    // otherwise, just try to cast it.
+    return (input, builder) -> {
+      Object val = input.get(inputFieldName);
+      if (val == null) {
+        builder.set(outputFieldName, null);
+      } else {
+        builder.set(outputFieldName, convertPrimitive(outputFieldName, val, inputType, outputType,
+                                                      getContext().getFailureCollector()));
+      }
+    };
   }
 
   private Object convertPrimitive(String fieldName, Object val, Schema.Type inputType,
@@ -424,12 +412,25 @@ public class ProjectionTransform extends Transform<StructuredRecord, StructuredR
   }
 
   private Schema getOutputSchema(Schema inputSchema, FailureCollector collector) {
-    Schema output = schemaCache.get(inputSchema);
-    if (output != null) {
-      return output;
+    return getPlan(inputSchema, collector).outputSchema;
+  }
+
+  private ProjectionPlan getPlan(Schema inputSchema, FailureCollector collector) {
+    if (lastPlan != null && lastPlan.inputSchema == inputSchema) {
+      return lastPlan;
+    }
+    ProjectionPlan plan = planCache.get(inputSchema);
+    if (plan == null) {
+      plan = createPlan(inputSchema, collector);
+      planCache.put(inputSchema, plan);
     }
+    lastPlan = plan;
+    return plan;
+  }
 
+  private ProjectionPlan createPlan(Schema inputSchema, FailureCollector collector) {
     List<Schema.Field> outputFields = Lists.newArrayList();
+    List<FieldProjection> projections = Lists.newArrayList();
     for (Schema.Field inputField : inputSchema.getFields()) {
       String inputFieldName = inputField.getName();
       if (fieldsToDrop.contains(inputFieldName)) {
@@ -438,6 +439,7 @@ public class ProjectionTransform extends Transform<StructuredRecord, StructuredR
         continue;
       }
 
+      String outputFieldName = fieldsToRename.getOrDefault(inputFieldName, inputFieldName);
       Schema outputFieldSchema = inputField.getSchema();
       // if this is a field that will be converted, figure out the desired schema
       if (fieldsToConvert.containsKey(inputFieldName)) {
@@ -459,18 +461,38 @@ public class ProjectionTransform extends Transform<StructuredRecord, StructuredR
             .withConfigElement(ProjectionTransformConfig.CONVERT, String.format("%s:%s", inputFieldName, typeStr));
           collector.getOrThrowException();
         }
-      }
-
-      String outputFieldName = inputFieldName;
-      if (fieldsToRename.containsKey(inputFieldName)) {
-        outputFieldName = fieldsToRename.get(inputFieldName);
+        projections.add(createConversion(inputFieldName, outputFieldName, inputFieldSchema, outputFieldSchema));
+      } else {
+        // if we don't need to convert the value, just pass it through
+        projections.add((input, builder) -> builder.set(outputFieldName, input.get(inputFieldName)));
       }
 
       outputFields.add(Schema.Field.of(outputFieldName, outputFieldSchema));
     }
 
-    output = Schema.recordOf(inputSchema.getRecordName() + ".projected", outputFields);
-    schemaCache.put(inputSchema, output);
-    return output;
+    Schema outputSchema = Schema.recordOf(inputSchema.getRecordName() + ".projected", outputFields);
+    return new ProjectionPlan(inputSchema, outputSchema, projections.toArray(new FieldProjection[0]));
+  }
+
+  /**
+   * Projection of the records of one input schema, with one step per output field, in output schema order.
+   */
+  private static final class ProjectionPlan {
+    private final Schema inputSchema;
+    private final Schema outputSchema;
+    private final FieldProjection[] projections;
+
+    private ProjectionPlan(Schema inputSchema, Schema outputSchema, FieldProjection[] projections) {
+      this.inputSchema = inputSchema;
+      this.outputSchema = outputSchema;
+      this.projections = projections;
+    }
+  }
+
+  /**
+   * Sets one output field from the input record, converting the value if needed.
+   */
+  private interface FieldProjection {
+    void project(StructuredRecord input, StructuredRecord.Builder builder);
   }
 }
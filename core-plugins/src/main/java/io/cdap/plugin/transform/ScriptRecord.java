@@ -0,0 +1,184 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.transform;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Map view of a {@link StructuredRecord} that is passed to scripts in place of a JSON object, so that fields can be
+ * read and set with the property syntax, like {@code input.count = input.count * 1024}.
+ *
+ * Fields are only converted when they are read. Nested records are returned as {@link ScriptRecord}, arrays as
+ * lists, maps as maps and bytes as byte arrays. These are copies, so changing them from a script never changes the
+ * input record. Fields set by the script are kept in this map. As long as the script neither sets a field nor reads
+ * a field that could be changed in place, the record is left as is and can be emitted without conversion. Otherwise,
+ * only the fields that were set or copied need to be converted, the others can be taken from the record as they are.
+ */
+public final class ScriptRecord extends AbstractMap<String, Object> {
+  private final StructuredRecord record;
+  // fields set by the script, and copies of mutable fields handed out to the script
+  private Map<String, Object> values;
+  private boolean modified;
+
+  public ScriptRecord(StructuredRecord record) {
+    this.record = record;
+  }
+
+  /**
+   * @return the record, if it was not modified and has the given schema. Null otherwise.
+   */
+  @Nullable
+  StructuredRecord getUnmodifiedRecord(Schema schema) {
+    Schema recordSchema = record.getSchema();
+    return !modified && (recordSchema == schema || recordSchema.equals(schema)) ? record : null;
+  }
+
+  /**
+   * @return whether the field was neither set by the script nor copied for it, and has the given schema in the record
+   */
+  boolean isUnchanged(Schema.Field field) {
+    if (values != null && values.containsKey(field.getName())) {
+      return false;
+    }
+    Schema.Field recordField = record.getSchema().getField(field.getName());
+    return recordField != null && recordField.getSchema().equals(field.getSchema());
+  }
+
+  /**
+   * @return the value of the field in the record, regardless of changes made by the script
+   */
+  @Nullable
+  Object getRecordValue(String fieldName) {
+    return record.get(fieldName);
+  }
+
+  @Override
+  public Object get(Object key) {
+    if (values != null && values.containsKey(key)) {
+      return values.get(key);
+    }
+    Schema.Field field = key instanceof String ? record.getSchema().getField((String) key) : null;
+    if (field == null) {
+      return null;
+    }
+    Object value = record.get(field.getName());
+    if (isImmutable(value)) {
+      return value;
+    }
+    Object copy = copy(value);
+    getValues().put(field.getName(), copy);
+    modified = true;
+    return copy;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return (values != null && values.containsKey(key))
+      || (key instanceof String && record.getSchema().getField((String) key) != null);
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    Object previous = get(key);
+    getValues().put(key, value);
+    modified = true;
+    return previous;
+  }
+
+  @Override
+  public Object remove(Object key) {
+    return key instanceof String ? put((String) key, null) : null;
+  }
+
+  /**
+   * @return a snapshot of all fields of the record and all fields set by the script
+   */
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    Map<String, Object> entries = new LinkedHashMap<>();
+    for (Schema.Field field : record.getSchema().getFields()) {
+      entries.put(field.getName(), get(field.getName()));
+    }
+    if (values != null) {
+      entries.putAll(values);
+    }
+    return entries.entrySet();
+  }
+
+  private Map<String, Object> getValues() {
+    if (values == null) {
+      values = new HashMap<>();
+    }
+    return values;
+  }
+
+  private static boolean isImmutable(@Nullable Object value) {
+    return value == null || value instanceof String || value instanceof Number || value instanceof Boolean;
+  }
+
+  private static Object copy(Object value) {
+    if (value instanceof StructuredRecord) {
+      return new ScriptRecord((StructuredRecord) value);
+    }
+    if (value instanceof byte[]) {
+      return ((byte[]) value).clone();
+    }
+    if (value instanceof ByteBuffer) {
+      ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      return bytes;
+    }
+    if (value instanceof Collection) {
+      List<Object> list = new ArrayList<>(((Collection<?>) value).size());
+      for (Object element : (Collection<?>) value) {
+        list.add(isImmutable(element) ? element : copy(element));
+      }
+      return list;
+    }
+    if (value.getClass().isArray()) {
+      int length = Array.getLength(value);
+      List<Object> list = new ArrayList<>(length);
+      for (int i = 0; i < length; i++) {
+        Object element = Array.get(value, i);
+        list.add(isImmutable(element) ? element : copy(element));
+      }
+      return list;
+    }
+    if (value instanceof Map) {
+      Map<Object, Object> map = new LinkedHashMap<>();
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        map.put(entry.getKey(), isImmutable(entry.getValue()) ? entry.getValue() : copy(entry.getValue()));
+      }
+      return map;
+    }
+    return value;
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.batch.action;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileAlreadyExistsException;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.ParentNotDirectoryException;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathIOException;
+import org.apache.hadoop.security.AccessControlException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for {@link FileOperationRunner}, on the local file system.
+ */
+public class FileOperationRunnerTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private FileSystem fileSystem;
+  private Path source;
+  private Path dest;
+
+  @Before
+  public void setup() throws IOException {
+    fileSystem = FileSystem.getLocal(new Configuration());
+    source = new Path(folder.newFolder("source").toURI());
+    dest = new Path(folder.newFolder("dest").toURI());
+  }
+
+  @Test
+  public void testParallelMove() throws Exception {
+    List<Path> paths = createFiles(100);
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    FileOperationRunner.Result result = new FileOperationRunner("move", 4, 0, 1, null).run(paths, path -> {
+      threads.add(Thread.currentThread().getName());
+      return fileSystem.rename(path, dest);
+    }, true);
+
+    Assert.assertEquals(100, result.getSucceeded());
+    Assert.assertTrue(result.getFailedPaths().isEmpty());
+    Assert.assertEquals(0, fileSystem.listStatus(source).length);
+    Assert.assertEquals(100, fileSystem.listStatus(dest).length);
+    Assert.assertTrue(threads.size() <= 4);
+  }
+
+  @Test
+  public void testRetryTransientFailure() throws Exception {
+    List<Path> paths = createFiles(3);
+    AtomicInteger attempts = new AtomicInteger();
+    FileOperationRunner.Result result = new FileOperationRunner("delete", 2, 3, 1, null).run(paths, path -> {
+      if (path.getName().equals("file-1") && attempts.incrementAndGet() < 3) {
+        throw new IOException("Transient failure");
+      }
+      return fileSystem.delete(path, true);
+    }, true);
+
+    Assert.assertEquals(3, result.getSucceeded());
+    Assert.assertEquals(2, result.getRetries());
+    Assert.assertEquals(0, fileSystem.listStatus(source).length);
+  }
+
+  @Test
+  public void testPermanentFailureIsNotRetried() throws Exception {
+    List<Path> paths = createFiles(1);
+    List<IOException> failures = Arrays.asList(
+      new FileNotFoundException("missing"), new FileAlreadyExistsException("exists"),
+      new ParentNotDirectoryException("file"), new PathIOException("path"), new AccessControlException("denied"));
+    for (IOException failure : failures) {
+      AtomicInteger attempts = new AtomicInteger();
+      FileOperationRunner.Result result = new FileOperationRunner("delete", 1, 3, 1, null).run(paths, path -> {
+        attempts.incrementAndGet();
+        throw failure;
+      }, false);
+
+      Assert.assertEquals(failure.toString(), 1, attempts.get());
+      Assert.assertEquals(paths, result.getFailedPaths());
+      Assert.assertSame(failure, result.getFirstFailure());
+      Assert.assertEquals(0, result.getRetries());
+    }
+  }
+
+  @Test
+  public void testContinueOnFailure() throws Exception {
+    List<Path> paths = createFiles(20);
+    FileOperationRunner.Result result = new FileOperationRunner("move", 3, 1, 1, null).run(
+      paths, path -> !path.getName().endsWith("7") && fileSystem.rename(path, dest), false);
+
+    Assert.assertEquals(18, result.getSucceeded());
+    Assert.assertEquals(2, result.getFailedPaths().size());
+    Assert.assertEquals(0, result.getSkipped());
+    String summary = result.getFailureSummary();
+    Assert.assertTrue(summary, summary.startsWith("2 of 20 failed: "));
+    Assert.assertTrue(summary, summary.contains("file-7") && summary.contains("file-17"));
+  }
+
+  @Test
+  public void testStopOnFailure() throws Exception {
+    List<Path> paths = createFiles(20);
+    FileOperationRunner.Result result = new FileOperationRunner("move", 1, 0, 1, null).run(
+      paths, path -> !path.getName().equals("file-5") && fileSystem.rename(path, dest), true);
+
+    // with a single thread, the files are processed in order
+    Assert.assertEquals(5, result.getSucceeded());
+    Assert.assertEquals(1, result.getFailedPaths().size());
+    Assert.assertEquals(14, result.getSkipped());
+    Assert.assertEquals(15, fileSystem.listStatus(source).length);
+    Assert.assertTrue(result.getFailureSummary(), result.getFailureSummary().contains("14 were skipped"));
+  }
+
+  private List<Path> createFiles(int count) throws IOException {
+    List<Path> paths = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Path path = new Path(source, "file-" + i);
+      fileSystem.createNewFile(path);
+      paths.add(path);
+    }
+    return paths;
+  }
+}
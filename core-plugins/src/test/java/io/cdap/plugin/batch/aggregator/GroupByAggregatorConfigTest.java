@@ -55,4 +55,22 @@ public class GroupByAggregatorConfigTest {
     );
     Assert.assertEquals(expected, config.getAggregates());
   }
+
+  @Test
+  public void testAggregationPhase() {
+    Assert.assertEquals(GroupByConfig.AggregationPhase.COMPLETE,
+                        new GroupByConfig("user", "total:sum(price)").getAggregationPhase());
+    GroupByConfig config = new GroupByConfig("user", "total:sum(price)", null, null, null, " Partial ", 8);
+    Assert.assertEquals(GroupByConfig.AggregationPhase.PARTIAL, config.getAggregationPhase());
+    Assert.assertEquals(8, (int) config.getDistributionFactor());
+
+    Assert.assertTrue(GroupByConfig.Function.SUM.isMergeable());
+    Assert.assertFalse(GroupByConfig.Function.FIRST.isMergeable());
+    Assert.assertFalse(GroupByConfig.Function.LAST.isMergeable());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidAggregationPhase() {
+    new GroupByConfig("user", "total:sum(price)", null, null, null, "merge", null).getAggregationPhase();
+  }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.batch.aggregator.function.AggregateFunction;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+/**
+ * Tests for {@link GroupByPlan}.
+ */
+public class GroupByPlanTest {
+  private static final Schema INPUT_SCHEMA = Schema.recordOf(
+    "purchase",
+    Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+    Schema.Field.of("item", Schema.of(Schema.Type.STRING)),
+    Schema.Field.of("price", Schema.of(Schema.Type.DOUBLE)));
+
+  @Test
+  public void testPlan() {
+    GroupByConfig config = new GroupByConfig("user", "totalSpent:sum(price),numPurchases:count(*)," +
+      "cheapCount:countif(price):condition(price < 5)");
+    GroupByPlan plan = GroupByPlan.compile(INPUT_SCHEMA, config.getGroupByFields(), config.getAggregates());
+
+    Assert.assertEquals(Schema.recordOf("group.key.schema", INPUT_SCHEMA.getField("user")),
+                        plan.getGroupKeySchema());
+    Assert.assertEquals(Schema.recordOf("purchase.agg",
+                                        INPUT_SCHEMA.getField("user"),
+                                        Schema.Field.of("totalSpent", Schema.of(Schema.Type.DOUBLE)),
+                                        Schema.Field.of("numPurchases", Schema.of(Schema.Type.LONG)),
+                                        Schema.Field.of("cheapCount", Schema.of(Schema.Type.LONG))),
+                        plan.getOutputSchema());
+
+    StructuredRecord first = purchase("alice", "apple", 1.5d);
+    StructuredRecord groupKey = plan.getGroupKey(first);
+    Assert.assertEquals(plan.getGroupKeySchema(), groupKey.getSchema());
+    Assert.assertEquals("alice", groupKey.get("user"));
+
+    Map<String, AggregateFunction> functions = plan.newFunctions();
+    functions.values().forEach(function -> function.mergeValue(first));
+    functions.values().forEach(function -> function.mergeValue(purchase("alice", "pear", 10d)));
+
+    StructuredRecord output = plan.toOutputRecord(groupKey, functions);
+    Assert.assertEquals("alice", output.get("user"));
+    Assert.assertEquals(11.5d, output.<Double>get("totalSpent"), 0.000001d);
+    Assert.assertEquals(2L, (long) output.<Long>get("numPurchases"));
+    Assert.assertEquals(1L, (long) output.<Long>get("cheapCount"));
+  }
+
+  @Test
+  public void testCache() throws Exception {
+    GroupByConfig config = new GroupByConfig("user", "totalSpent:sum(price)");
+    GroupByPlan.Cache cache = new GroupByPlan.Cache(config.getGroupByFields(), config.getAggregates());
+
+    GroupByPlan plan = cache.get(INPUT_SCHEMA);
+    Assert.assertSame(plan, cache.get(INPUT_SCHEMA));
+    // an equal schema that is a different instance should reuse the same plan
+    Assert.assertSame(plan, cache.get(Schema.parseJson(INPUT_SCHEMA.toString())));
+
+    Schema otherSchema = Schema.recordOf("other", INPUT_SCHEMA.getField("user"), INPUT_SCHEMA.getField("price"));
+    GroupByPlan otherPlan = cache.get(otherSchema);
+    Assert.assertNotSame(plan, otherPlan);
+    Assert.assertEquals("other.agg", otherPlan.getOutputSchema().getRecordName());
+  }
+
+  @Test
+  public void testPartialAndFinalPlans() {
+    GroupByConfig config = new GroupByConfig("user", "totalSpent:sum(price),numPurchases:count(*)");
+    GroupByPlan partialPlan = GroupByPlan.compile(INPUT_SCHEMA, config.getGroupByFields(), config.getAggregates());
+    Schema partialSchema = partialPlan.getPartialSchema();
+    Assert.assertEquals(Schema.recordOf("purchase.partial",
+                                        INPUT_SCHEMA.getField("user"),
+                                        Schema.Field.of("totalSpent", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))),
+                                        Schema.Field.of("numPurchases", Schema.nullableOf(Schema.of(Schema.Type.LONG))),
+                                        Schema.Field.of(GroupByPlan.PARTIAL_FIELD, Schema.of(Schema.Type.BYTES))),
+                        partialSchema);
+
+    // aggregate the records of the same user in two salted groups
+    KeySalter salter = new KeySalter(2);
+    StructuredRecord firstKey = salter.salt(partialPlan.getGroupKey(purchase("alice", "apple", 1.5d)));
+    Map<String, AggregateFunction> firstFunctions = partialPlan.newFunctions();
+    firstFunctions.values().forEach(function -> function.mergeValue(purchase("alice", "apple", 1.5d)));
+    StructuredRecord secondKey = salter.salt(partialPlan.getGroupKey(purchase("alice", "pear", 10d)));
+    Map<String, AggregateFunction> secondFunctions = partialPlan.newFunctions();
+    secondFunctions.values().forEach(function -> function.mergeValue(purchase("alice", "pear", 10d)));
+    secondFunctions.values().forEach(function -> function.mergeValue(purchase("alice", "plum", 2d)));
+    Assert.assertEquals(0, (int) firstKey.<Integer>get(KeySalter.SALT_FIELD));
+    Assert.assertEquals(1, (int) secondKey.<Integer>get(KeySalter.SALT_FIELD));
+
+    StructuredRecord firstPartial = partialPlan.toPartialRecord(firstKey, firstFunctions);
+    StructuredRecord secondPartial = partialPlan.toPartialRecord(secondKey, secondFunctions);
+    Assert.assertEquals("alice", firstPartial.get("user"));
+    Assert.assertNull(firstPartial.get("totalSpent"));
+
+    GroupByPlan finalPlan = GroupByPlan.compileFinal(partialSchema, config.getGroupByFields(),
+                                                     config.getAggregates());
+    Assert.assertEquals(Schema.recordOf("purchase.agg",
+                                        INPUT_SCHEMA.getField("user"),
+                                        partialSchema.getField("totalSpent"),
+                                        partialSchema.getField("numPurchases")),
+                        finalPlan.getOutputSchema());
+
+    Map<String, AggregateFunction> functions = finalPlan.readPartialFunctions(firstPartial);
+    Map<String, AggregateFunction> otherFunctions = finalPlan.readPartialFunctions(secondPartial);
+    functions.forEach((name, function) -> function.mergeAggregates(otherFunctions.get(name)));
+    StructuredRecord output = finalPlan.toOutputRecord(finalPlan.getGroupKey(firstPartial), functions);
+    Assert.assertEquals("alice", output.get("user"));
+    Assert.assertEquals(13.5d, output.<Double>get("totalSpent"), 0.000001d);
+    Assert.assertEquals(3L, (long) output.<Long>get("numPurchases"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFinalPlanWithoutPartialInput() {
+    GroupByConfig config = new GroupByConfig("user", "totalSpent:sum(price)");
+    GroupByPlan.compileFinal(INPUT_SCHEMA, config.getGroupByFields(), config.getAggregates());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingGroupByField() {
+    GroupByConfig config = new GroupByConfig("email", "totalSpent:sum(price)");
+    GroupByPlan.compile(INPUT_SCHEMA, config.getGroupByFields(), config.getAggregates());
+  }
+
+  private static StructuredRecord purchase(String user, String item, double price) {
+    return StructuredRecord.builder(INPUT_SCHEMA)
+      .set("user", user)
+      .set("item", item)
+      .set("price", price)
+      .build();
+  }
+}
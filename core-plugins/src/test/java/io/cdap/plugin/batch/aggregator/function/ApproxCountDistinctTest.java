@@ -0,0 +1,57 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class ApproxCountDistinctTest extends AggregateFunctionTest {
+
+  @Test
+  public void testApproxCountDistinct() {
+    Schema schema = Schema.recordOf("cities", Schema.Field.of("city", Schema.of(Schema.Type.STRING)));
+    test(new ApproxCountDistinct("city", ApproxCountDistinct.DEFAULT_PRECISION), schema, "city", 3L,
+         Arrays.asList("Mountain View", "Sunnyvale", "Sunnyvale", "Sunnyvale", "RedwoodCity", "RedwoodCity"),
+         new ApproxCountDistinct("city", ApproxCountDistinct.DEFAULT_PRECISION));
+  }
+
+  @Test
+  public void testLargeCardinality() {
+    Schema schema = Schema.recordOf("users", Schema.Field.of("id", Schema.of(Schema.Type.LONG)));
+    ApproxCountDistinct function = new ApproxCountDistinct("id", 14);
+    ApproxCountDistinct otherFunction = new ApproxCountDistinct("id", 14);
+    function.initialize();
+    otherFunction.initialize();
+    // the two halves overlap on 50000 ids, so there are 250000 distinct ids in total
+    for (long i = 0; i < 150000; i++) {
+      function.mergeValue(StructuredRecord.builder(schema).set("id", i).build());
+      otherFunction.mergeValue(StructuredRecord.builder(schema).set("id", i + 100000).build());
+    }
+    function.mergeAggregates(otherFunction);
+    // the standard error with precision 14 is below 1%, allow 4 standard errors
+    Assert.assertEquals(250000d, function.getAggregate(), 250000d * 0.04d);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPrecision() {
+    new ApproxCountDistinct("city", ApproxCountDistinct.MAX_PRECISION + 1);
+  }
+}
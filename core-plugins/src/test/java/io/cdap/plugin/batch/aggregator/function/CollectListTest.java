@@ -61,4 +61,12 @@ public class CollectListTest extends AggregateFunctionTest {
     test(new CollectList("x", schema), schema, "x",
          ImmutableList.of("a", "b", "c", "d"), ImmutableList.of("a", "b", "c", "d"), new CollectList("x", schema));
   }
+
+  @Test
+  public void testLimitedCollectList() {
+    Schema schema = Schema.recordOf("test", Schema.Field.of("x", Schema.of(Schema.Type.STRING)));
+    CollectionLimits limits = new CollectionLimits(3, 60L);
+    test(new CollectList("x", schema, limits), schema, "x",
+         ImmutableList.of("a", "b", "c"), ImmutableList.of("a", "b", "c", "d"), new CollectList("x", schema, limits));
+  }
 }
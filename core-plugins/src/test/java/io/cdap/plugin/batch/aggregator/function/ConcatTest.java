@@ -37,4 +37,13 @@ public class ConcatTest extends AggregateFunctionTest {
          Arrays.asList(null, "2", "3", "3", "5"), new ConcatDistinct("x", fieldSchema));
   }
 
+  @Test
+  public void testConcatDistinctSubstrings() {
+    Schema fieldSchema = Schema.of(Type.STRING);
+    Schema schema = Schema.recordOf("test", Schema.Field.of("x", Schema.nullableOf(fieldSchema)));
+    // values that are part of other values are still distinct
+    test(new ConcatDistinct("x", fieldSchema), schema, "x", "10, 1, 0",
+         Arrays.asList("10", "1", "0", "10"), new ConcatDistinct("x", fieldSchema));
+  }
+
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that merging batches of primitive values gives the same result as merging records.
+ */
+public class NumericBatchFunctionTest {
+  private static final Schema LONG_SCHEMA = Schema.recordOf("test", Schema.Field.of("x", Schema.of(Schema.Type.LONG)));
+  private static final Schema DOUBLE_SCHEMA =
+    Schema.recordOf("test", Schema.Field.of("x", Schema.of(Schema.Type.DOUBLE)));
+  private static final long[] LONGS = {-10L, 0L, 3L, 100L, 7L, 42L};
+  private static final double[] DOUBLES = {-1.5d, 0d, 3.25d, 100.125d, 7d, 0.001d};
+
+  @Test
+  public void testLongFunctions() {
+    Schema fieldSchema = Schema.of(Schema.Type.LONG);
+    assertSameAggregate(new Sum("x", fieldSchema), new Sum("x", fieldSchema), LONGS);
+    assertSameAggregate(new Min("x", fieldSchema), new Min("x", fieldSchema), LONGS);
+    assertSameAggregate(new Max("x", fieldSchema), new Max("x", fieldSchema), LONGS);
+    assertSameAggregate(new Avg("x", fieldSchema), new Avg("x", fieldSchema), LONGS);
+    assertSameAggregate(new Variance("x", fieldSchema), new Variance("x", fieldSchema), LONGS);
+    assertSameAggregate(new Stddev("x", fieldSchema), new Stddev("x", fieldSchema), LONGS);
+  }
+
+  @Test
+  public void testDoubleFunctions() {
+    Schema fieldSchema = Schema.of(Schema.Type.DOUBLE);
+    assertSameAggregate(new Sum("x", fieldSchema), new Sum("x", fieldSchema), DOUBLES);
+    assertSameAggregate(new Min("x", fieldSchema), new Min("x", fieldSchema), DOUBLES);
+    assertSameAggregate(new Max("x", fieldSchema), new Max("x", fieldSchema), DOUBLES);
+    assertSameAggregate(new Avg("x", fieldSchema), new Avg("x", fieldSchema), DOUBLES);
+    assertSameAggregate(new Variance("x", fieldSchema), new Variance("x", fieldSchema), DOUBLES);
+    assertSameAggregate(new Stddev("x", fieldSchema), new Stddev("x", fieldSchema), DOUBLES);
+  }
+
+  @Test
+  public void testIntSumFromLongs() {
+    Sum sum = new Sum("x", Schema.of(Schema.Type.INT));
+    sum.initialize();
+    sum.mergeValues(new long[] {1L, 2L, 3L, 4L}, 1, 2);
+    Assert.assertEquals(5, sum.getAggregate());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDoublesIntoIntegralField() {
+    Sum sum = new Sum("x", Schema.of(Schema.Type.LONG));
+    sum.initialize();
+    sum.mergeValues(DOUBLES, 0, DOUBLES.length);
+  }
+
+  @Test
+  public void testSupportsBatch() {
+    Schema fieldSchema = Schema.of(Schema.Type.LONG);
+    NumericBatchFunction[] functions = {
+      new Sum("x", fieldSchema), new Min("x", fieldSchema), new Max("x", fieldSchema), new Avg("x", fieldSchema),
+      new Variance("x", fieldSchema), new Stddev("x", fieldSchema)
+    };
+    for (NumericBatchFunction function : functions) {
+      Assert.assertTrue(function.getClass().getSimpleName(), function.supportsBatch());
+    }
+
+    // conditions are evaluated on records, so conditional functions cannot merge batches
+    Condition condition = JexlCondition.of("x > 0");
+    NumericBatchFunction[] conditionalFunctions = {
+      new SumIf("x", fieldSchema, condition), new MinIf("x", fieldSchema, condition),
+      new MaxIf("x", fieldSchema, condition), new AvgIf("x", fieldSchema, condition),
+      new VarianceIf("x", fieldSchema, condition), new StddevIf("x", fieldSchema, condition)
+    };
+    for (NumericBatchFunction function : conditionalFunctions) {
+      Assert.assertFalse(function.getClass().getSimpleName(), function.supportsBatch());
+    }
+  }
+
+  private static <T extends AggregateFunction & NumericBatchFunction> void assertSameAggregate(T recordFunction,
+                                                                                             T batchFunction,
+                                                                                             long[] values) {
+    recordFunction.initialize();
+    for (long value : values) {
+      recordFunction.mergeValue(StructuredRecord.builder(LONG_SCHEMA).set("x", value).build());
+    }
+    batchFunction.initialize();
+    batchFunction.mergeValues(values, 0, values.length);
+    Assert.assertEquals(recordFunction.getAggregate(), batchFunction.getAggregate());
+  }
+
+  private static <T extends AggregateFunction & NumericBatchFunction> void assertSameAggregate(T recordFunction,
+                                                                                             T batchFunction,
+                                                                                             double[] values) {
+    recordFunction.initialize();
+    for (double value : values) {
+      recordFunction.mergeValue(StructuredRecord.builder(DOUBLE_SCHEMA).set("x", value).build());
+    }
+    batchFunction.initialize();
+    batchFunction.mergeValues(values, 0, values.length);
+    Assert.assertEquals(recordFunction.getAggregate(), batchFunction.getAggregate());
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link ValueBuffer}.
+ */
+public class ValueBufferTest {
+
+  @Test
+  public void testCompactedValuesKeepOrder() {
+    List<Object> values = Arrays.asList("a", null, 1, 2L, 3.5f, 4.5d, true, "é", new ArrayList<>(ImmutableList.of(1)));
+    ValueBuffer<Object> buffer = new ValueBuffer<>(false, CollectionLimits.NONE);
+    values.forEach(value -> addAndCompact(buffer, value));
+    Assert.assertEquals(values, buffer.toList());
+  }
+
+  @Test
+  public void testCompactedBytes() {
+    ValueBuffer<Object> buffer = new ValueBuffer<>(false, CollectionLimits.NONE);
+    addAndCompact(buffer, new byte[] { 1, 2 });
+    addAndCompact(buffer, ByteBuffer.wrap(new byte[] { 3, 4 }));
+    List<Object> values = buffer.toList();
+    Assert.assertArrayEquals(new byte[] { 1, 2 }, (byte[]) values.get(0));
+    Assert.assertEquals(ByteBuffer.wrap(new byte[] { 3, 4 }), values.get(1));
+  }
+
+  @Test
+  public void testCompactedDistinctValues() {
+    ValueBuffer<String> buffer = new ValueBuffer<>(true, CollectionLimits.NONE);
+    for (String value : Arrays.asList("a", "b", "a", "c", "b")) {
+      addAndCompact(buffer, value);
+    }
+    Assert.assertEquals(ImmutableList.of("a", "b", "c"), new ArrayList<>(buffer.toSet()));
+    Assert.assertEquals(3, buffer.size());
+  }
+
+  @Test
+  public void testMaxSize() {
+    for (boolean compact : new boolean[] { false, true }) {
+      CollectionLimits limits = new CollectionLimits(2, null);
+      ValueBuffer<String> list = new ValueBuffer<>(false, limits);
+      ValueBuffer<String> set = new ValueBuffer<>(true, limits);
+      for (String value : Arrays.asList("a", "a", "b", "c")) {
+        list.add(value);
+        set.add(value);
+        if (compact) {
+          list.compact();
+          set.compact();
+        }
+      }
+      Assert.assertEquals(ImmutableList.of("a", "a"), list.toList());
+      Assert.assertEquals(ImmutableSet.of("a", "b"), set.toSet());
+    }
+  }
+
+  @Test
+  public void testDistinctSizeIsExactAfterCompaction() {
+    ValueBuffer<String> buffer = new ValueBuffer<>(true, new CollectionLimits(3, null));
+    addAndCompact(buffer, "a");
+    buffer.add("a");
+    buffer.add("b");
+    addAndCompact(buffer, "b");
+    for (String value : Arrays.asList("a", "c", "d", "e")) {
+      buffer.add(value);
+    }
+    Assert.assertEquals(ImmutableList.of("a", "b", "c"), new ArrayList<>(buffer.toSet()));
+    Assert.assertEquals(3, buffer.size());
+  }
+
+  @Test
+  public void testDistinctBufferStopsAtMaxSize() {
+    // once the maximum number of distinct values was seen, new values are not kept, so the runs stay under the limit
+    ValueBuffer<String> buffer = new ValueBuffer<>(true, new CollectionLimits(10, 1000L));
+    for (int i = 0; i < 100000; i++) {
+      buffer.add("value-" + i);
+    }
+    Assert.assertEquals(10, buffer.size());
+    Assert.assertEquals(10, buffer.toSet().size());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testMemoryLimit() {
+    ValueBuffer<String> buffer = new ValueBuffer<>(false, new CollectionLimits(null, 1000L));
+    for (int i = 0; i < 100000; i++) {
+      buffer.add("value-" + i);
+    }
+  }
+
+  @Test
+  public void testMaxSizeBoundsMemory() {
+    // compacted values may go over the memory limit when the maximum size bounds the group
+    CollectionLimits limits = new CollectionLimits(10000, 1000L);
+    ValueBuffer<String> list = new ValueBuffer<>(false, limits);
+    ValueBuffer<String> set = new ValueBuffer<>(true, limits);
+    for (int i = 0; i < 20000; i++) {
+      list.add("value-" + i);
+      set.add("value-" + i);
+    }
+    Assert.assertEquals(10000, list.toList().size());
+    Assert.assertEquals("value-9999", list.toList().get(9999));
+    Assert.assertEquals(10000, set.size());
+    Assert.assertEquals(10000, set.toSet().size());
+  }
+
+  @Test
+  public void testDistinctValuesRepeatedAcrossRuns() {
+    ValueBuffer<Integer> buffer = new ValueBuffer<>(true, new CollectionLimits(5000, 2000L));
+    for (int i = 0; i < 100000; i++) {
+      buffer.add(i % 3000);
+    }
+    Assert.assertEquals(3000, buffer.size());
+    List<Integer> values = new ArrayList<>();
+    buffer.forEach(values::add);
+    Assert.assertEquals(3000, values.size());
+    for (int i = 0; i < values.size(); i++) {
+      Assert.assertEquals(i, values.get(i).intValue());
+    }
+  }
+
+  @Test
+  public void testValuesCannotBeModified() {
+    ValueBuffer<String> list = new ValueBuffer<>(false, CollectionLimits.NONE);
+    ValueBuffer<String> set = new ValueBuffer<>(true, CollectionLimits.NONE);
+    list.add("a");
+    set.add("a");
+    try {
+      list.toList().add("b");
+      Assert.fail("Values of the buffer should not be modifiable.");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    try {
+      set.toSet().add("b");
+      Assert.fail("Values of the buffer should not be modifiable.");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    Assert.assertEquals(ImmutableList.of("a"), list.toList());
+  }
+
+  @Test
+  public void testAddAll() {
+    for (CollectionLimits limits : Arrays.asList(CollectionLimits.NONE, new CollectionLimits(3, null))) {
+      for (boolean compact : new boolean[] { false, true }) {
+        ValueBuffer<Integer> buffer = new ValueBuffer<>(false, limits);
+        ValueBuffer<Integer> other = new ValueBuffer<>(false, limits);
+        buffer.add(1);
+        buffer.add(2);
+        other.add(3);
+        if (compact) {
+          other.compact();
+        }
+        other.add(4);
+        buffer.addAll(other);
+        List<Integer> expected = limits.getMaxSize() == 3 ? ImmutableList.of(1, 2, 3) : ImmutableList.of(1, 2, 3, 4);
+        Assert.assertEquals(expected, buffer.toList());
+      }
+    }
+  }
+
+  @Test
+  public void testSerialization() throws Exception {
+    ValueBuffer<String> buffer = new ValueBuffer<>(false, CollectionLimits.NONE);
+    addAndCompact(buffer, "a");
+    addAndCompact(buffer, "b");
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+      output.writeObject(buffer);
+    }
+    try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      ValueBuffer<String> copy = (ValueBuffer<String>) input.readObject();
+      copy.add("c");
+      Assert.assertEquals(ImmutableList.of("a", "b", "c"), copy.toList());
+    }
+  }
+
+  private static <T> void addAndCompact(ValueBuffer<T> buffer, T value) {
+    buffer.add(value);
+    buffer.compact();
+  }
+}
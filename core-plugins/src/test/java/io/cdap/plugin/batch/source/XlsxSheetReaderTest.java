@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.source;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for {@link XlsxSheetReader}.
+ */
+public class XlsxSheetReaderTest {
+
+  @Test
+  public void testSameRowsAsWorkbook() throws Exception {
+    for (String resource : new String[] { "/civil_test_data_one.xlsx", "/civil_test_data_two.xlsx" }) {
+      File file = new File(getClass().getResource(resource).toURI());
+
+      List<ExcelRow> expected = new ArrayList<>();
+      InputStream input = new FileInputStream(file);
+      Workbook workbook = WorkbookFactory.create(input);
+      try (ExcelInputFormat.SheetRows rows = new ExcelInputFormat.WorkbookSheetRows(input, resource,
+                                                                                    workbook.getSheetAt(0))) {
+        for (ExcelRow row = rows.next(); row != null; row = rows.next()) {
+          expected.add(row);
+        }
+      }
+
+      List<ExcelRow> actual = new ArrayList<>();
+      try (ExcelInputFormat.SheetRows rows = new XlsxSheetReader(file, resource, false, "0")) {
+        for (ExcelRow row = rows.next(); row != null; row = rows.next()) {
+          actual.add(row);
+        }
+      }
+
+      Assert.assertFalse(expected.isEmpty());
+      Assert.assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); i++) {
+        Assert.assertEquals(expected.get(i).toString(), actual.get(i).toString());
+      }
+    }
+  }
+
+  @Test
+  public void testSheetByName() throws Exception {
+    File file = new File(getClass().getResource("/civil_test_data_one.xlsx").toURI());
+    try (ExcelInputFormat.SheetRows rows = new XlsxSheetReader(file, file.getPath(), true, "sheet1")) {
+      ExcelRow row = rows.next();
+      Assert.assertNotNull(row);
+      Assert.assertEquals(0, row.getRowNum());
+      Assert.assertEquals("Sheet1", row.getSheet());
+      Assert.assertEquals(file.getPath(), row.getFile());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingSheet() throws Exception {
+    File file = new File(getClass().getResource("/civil_test_data_one.xlsx").toURI());
+    new XlsxSheetReader(file, file.getPath(), true, "missing");
+  }
+}
@@ -167,6 +167,45 @@ public class JavaScriptTransformTest {
     Assert.assertEquals(expectedListField, output.get("arrayField"));
   }
 
+  @Test
+  public void testRecordMode() throws Exception {
+    JavaScriptTransform.Config config = new JavaScriptTransform.Config(
+      "function transform(x, emitter, context) {" +
+        "  if (x.intField > 0) {" +
+        "    emitter.emit(x);" +
+        "    return;" +
+        "  }" +
+        "  x.intField = x.intField * 1024;" +
+        "  x.stringField = x.stringField + '!' + x.arrayField.length;" +
+        "  x.arrayField.add('extra');" +
+        "  emitter.emit(x);" +
+        "}", null, null, "record");
+    Transform<StructuredRecord, StructuredRecord> transform = new JavaScriptTransform(config);
+    transform.initialize(new MockTransformContext());
+
+    // records emitted as is are not decoded
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(RECORD1, emitter);
+    Assert.assertSame(RECORD1, emitter.getEmitted().get(0));
+    emitter.clear();
+
+    transform.transform(RECORD2, emitter);
+    StructuredRecord output = emitter.getEmitted().get(0);
+    Assert.assertEquals(SCHEMA, output.getSchema());
+    Assert.assertFalse((Boolean) output.get("booleanField"));
+    Assert.assertEquals(-28 * 1024, output.<Integer>get("intField").intValue());
+    Assert.assertEquals(-99L, output.<Long>get("longField").longValue());
+    // fields the script did not change are taken from the input record without decoding
+    Assert.assertSame(RECORD2.get("bytesField"), output.get("bytesField"));
+    Assert.assertSame(RECORD2.get("mapField"), output.get("mapField"));
+    Assert.assertEquals("world!0", output.get("stringField"));
+    Assert.assertNull(output.get("nullableField"));
+    Assert.assertEquals(3, output.<Integer>get("unionField").intValue());
+    Assert.assertEquals(ImmutableList.of("extra"), output.get("arrayField"));
+    // the input record is not changed by the script
+    Assert.assertEquals(ImmutableList.of(), RECORD2.get("arrayField"));
+  }
+
   @Test
   public void testSchemaValidation() throws Exception {
     Schema outputSchema = Schema.recordOf(
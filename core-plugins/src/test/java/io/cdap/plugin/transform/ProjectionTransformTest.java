@@ -250,6 +250,42 @@ public class ProjectionTransformTest {
     Assert.assertEquals(1, output.<Integer>get("x").intValue());
   }
 
+  @Test
+  public void testInputSchemaChanges() throws Exception {
+    ProjectionTransform.ProjectionTransformConfig config = new ProjectionTransform
+      .ProjectionTransformConfig("y", "x:a", "z:string", null);
+    Transform<StructuredRecord, StructuredRecord> transform = new ProjectionTransform(config);
+    transform.initialize(new MockTransformContext());
+
+    Schema schema1 = Schema.recordOf("one",
+                                     Schema.Field.of("x", Schema.of(Schema.Type.INT)),
+                                     Schema.Field.of("y", Schema.of(Schema.Type.DOUBLE)),
+                                     Schema.Field.of("z", Schema.nullableOf(Schema.of(Schema.Type.LONG))));
+    Schema schema2 = Schema.recordOf("two",
+                                     Schema.Field.of("z", Schema.of(Schema.Type.INT)),
+                                     Schema.Field.of("x", Schema.of(Schema.Type.STRING)));
+    // equal to the first schema, but a different object
+    Schema schema3 = Schema.parseJson(schema1.toString());
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(StructuredRecord.builder(schema1).set("x", 1).set("y", 2d).set("z", 3L).build(), emitter);
+    transform.transform(StructuredRecord.builder(schema2).set("z", 4).set("x", "5").build(), emitter);
+    transform.transform(StructuredRecord.builder(schema3).set("x", 6).set("y", 7d).build(), emitter);
+
+    Schema expectedSchema1 = Schema.recordOf("one.projected",
+                                             Schema.Field.of("a", Schema.of(Schema.Type.INT)),
+                                             Schema.Field.of("z", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+    Schema expectedSchema2 = Schema.recordOf("two.projected",
+                                             Schema.Field.of("z", Schema.of(Schema.Type.STRING)),
+                                             Schema.Field.of("a", Schema.of(Schema.Type.STRING)));
+    Assert.assertEquals(StructuredRecord.builder(expectedSchema1).set("a", 1).set("z", "3").build(),
+                        emitter.getEmitted().get(0));
+    Assert.assertEquals(StructuredRecord.builder(expectedSchema2).set("z", "4").set("a", "5").build(),
+                        emitter.getEmitted().get(1));
+    Assert.assertEquals(StructuredRecord.builder(expectedSchema1).set("a", 6).build(),
+                        emitter.getEmitted().get(2));
+  }
+
   @Test
   public void testKeepDropBothNonNull() {
     Schema schema = Schema.recordOf("three",
@@ -17,10 +17,8 @@
 package io.cdap.plugin;
 
 import com.google.common.base.Preconditions;
-import com.google.common.base.Strings;
 import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.data.format.StructuredRecord;
-import io.cdap.cdap.api.data.format.UnexpectedFormatException;
 import io.cdap.cdap.api.data.schema.Schema;
 import org.apache.hadoop.conf.Configurable;
 import org.apache.hadoop.conf.Configuration;
@@ -40,15 +38,7 @@ import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeParseException;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import javax.sql.rowset.serial.SerialBlob;
 
 /**
@@ -71,6 +61,12 @@ public class DBRecord implements Writable, DBWritable, Configurable, DataSizeRep
    */
   private int [] columnTypes;
 
+  /**
+   * Mapping of the {@link ResultSet} this record was last read from, reused as long as rows are read from it.
+   */
+  private ResultSetMapping mapping;
+  private ResultSet mappedResultSet;
+
   /**
    * Used to construct a DBRecord from a StructuredRecord in the ETL Pipeline
    *
@@ -119,117 +115,17 @@ public class DBRecord implements Writable, DBWritable, Configurable, DataSizeRep
    * @param resultSet the {@link ResultSet} to build the {@link StructuredRecord} from
    */
   public void readFields(ResultSet resultSet) throws SQLException {
-    bytesRead = 0;
-    ResultSetMetaData metadata = resultSet.getMetaData();
-    String outputSchemaString = conf.get(DBUtils.OVERRIDE_SCHEMA, null);
-    Schema outputSchema = null;
-
-    if (!Strings.isNullOrEmpty(outputSchemaString)) {
-      try {
-        outputSchema = Schema.parseJson(outputSchemaString);
-      } catch (IOException e) {
-        throw new IllegalArgumentException(String.format("Unable to parse schema string '%s'.", outputSchemaString), e);
-      }
-    }
-
-    List<Schema.Field> originalSchema = DBUtils.getOriginalSchema(resultSet, outputSchema);
-    String patternToReplace = conf.get(DBUtils.PATTERN_TO_REPLACE);
-    String replaceWith = conf.get(DBUtils.REPLACE_WITH);
-
-    // map of new name -> original name
-    Map<String, String> nameMap = new HashMap<>();
-    List<Schema.Field> newSchema = new ArrayList<>();
-    for (Schema.Field field : originalSchema) {
-      String newName = field.getName();
-      if (patternToReplace != null) {
-        newName = newName.replaceAll(patternToReplace, replaceWith == null ? "" : replaceWith);
-      }
-      nameMap.put(newName, field.getName());
-      newSchema.add(Schema.Field.of(newName, field.getSchema()));
-    }
-
-    List<Schema.Field> schemaFields = DBUtils.getSchemaFields(Schema.recordOf("resultSet", newSchema),
-                                                              conf.get(DBUtils.OVERRIDE_SCHEMA));
-    Schema schema = Schema.recordOf("dbRecord", schemaFields);
-    StructuredRecord.Builder recordBuilder = StructuredRecord.builder(schema);
-    for (int i = 0; i < schemaFields.size(); i++) {
-      Schema.Field field = schemaFields.get(i);
-      int sqlType = metadata.getColumnType(i + 1);
-      int sqlPrecision = metadata.getPrecision(i + 1);
-      int sqlScale = metadata.getScale(i + 1);
-
-      Schema outputFieldSchema = field.getSchema();
-      outputFieldSchema = outputFieldSchema.isNullable() ? outputFieldSchema.getNonNullable() : outputFieldSchema;
-      setField(resultSet, recordBuilder, field, sqlType, sqlPrecision, sqlScale, nameMap.getOrDefault(field.getName(),
-                                                                                                      field.getName()),
-               outputFieldSchema);
+    // the record reader reads every row of its result set into the same DBRecord,
+    // so the mapping only has to be computed once per reader
+    if (mapping == null || mappedResultSet != resultSet) {
+      mapping = ResultSetMapping.create(resultSet, conf);
+      mappedResultSet = resultSet;
     }
+    StructuredRecord.Builder recordBuilder = StructuredRecord.builder(mapping.getSchema());
+    bytesRead = mapping.read(resultSet, recordBuilder);
     record = recordBuilder.build();
   }
 
-  private void setField(ResultSet resultSet, StructuredRecord.Builder recordBuilder, Schema.Field field, int sqlType,
-                        int sqlPrecision, int sqlScale, String originalName, Schema outputFieldSchema)
-    throws SQLException {
-    // original name has to be used to get result from result set
-    Object o = DBUtils.transformValue(sqlType, sqlPrecision, sqlScale, resultSet, originalName,
-                                      outputFieldSchema);
-    if (o instanceof Date) {
-      bytesRead += Long.BYTES;
-      recordBuilder.setDate(field.getName(), ((Date) o).toLocalDate());
-    } else if (o instanceof Time) {
-      bytesRead += Integer.BYTES;
-      recordBuilder.setTime(field.getName(), ((Time) o).toLocalTime());
-    } else if (o instanceof Timestamp) {
-      bytesRead += Long.BYTES;
-      Instant instant = ((Timestamp) o).toInstant();
-      recordBuilder.setTimestamp(field.getName(), instant.atZone(ZoneId.ofOffset("UTC", ZoneOffset.UTC)));
-    } else if (o instanceof BigDecimal) {
-      BigDecimal decimal = ((BigDecimal) o);
-      bytesRead += decimal.unscaledValue().bitLength() / Byte.SIZE + Integer.BYTES;
-      recordBuilder.setDecimal(field.getName(), decimal);
-    } else {
-      if (o != null) {
-        Schema schema = field.getSchema();
-        if (schema.isNullable()) {
-          schema = schema.getNonNullable();
-        }
-        switch (schema.getType()) {
-          case INT:
-          case BOOLEAN:
-            bytesRead += Integer.BYTES;
-            break;
-          case LONG:
-            bytesRead += Long.BYTES;
-            break;
-          case DOUBLE:
-            bytesRead += Double.BYTES;
-            break;
-          case FLOAT:
-            bytesRead += Float.BYTES;
-            break;
-          case STRING:
-            String value = (String) o;
-            //make sure value is in the right format for datetime
-            if (schema.getLogicalType() == Schema.LogicalType.DATETIME) {
-              try {
-                LocalDateTime.parse(value);
-              } catch (DateTimeParseException exception) {
-                throw new UnexpectedFormatException(
-                  String.format("Datetime field '%s' with value '%s' is not in ISO-8601 format.", field.getName(),
-                                value), exception);
-              }
-            }
-            bytesRead += value.length();
-            break;
-          case BYTES:
-            bytesRead += ((byte[]) o).length;
-            break;
-        }
-      }
-      recordBuilder.set(field.getName(), o);
-    }
-  }
-
   public void write(DataOutput out) throws IOException {
     Schema recordSchema = record.getSchema();
     List<Schema.Field> schemaFields = recordSchema.getFields();
@@ -418,6 +314,8 @@ public class DBRecord implements Writable, DBWritable, Configurable, DataSizeRep
   @Override
   public void setConf(Configuration conf) {
     this.conf = conf;
+    this.mapping = null;
+    this.mappedResultSet = null;
   }
 
   @Override
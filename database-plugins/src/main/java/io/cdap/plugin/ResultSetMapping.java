@@ -0,0 +1,353 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin;
+
+import com.google.common.base.Strings;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.format.UnexpectedFormatException;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.apache.hadoop.conf.Configuration;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+
+/**
+ * Mapping from the columns of a {@link ResultSet} to the fields of the {@link StructuredRecord} read from it.
+ *
+ * The output schema, the column renames and the way each column is read only depend on the configuration and on the
+ * metadata of the result set, so they are computed once per result set instead of once per row. Every field gets a
+ * {@link ColumnReader} specialized for its sql type and output schema, which reads the column value and sets it on
+ * the record the same way {@link DBUtils#transformValue} followed by a generic conversion would.
+ */
+final class ResultSetMapping {
+  private static final ZoneId UTC = ZoneId.ofOffset("UTC", ZoneOffset.UTC);
+
+  private final Schema schema;
+  private final ColumnReader[] readers;
+
+  private ResultSetMapping(Schema schema, ColumnReader[] readers) {
+    this.schema = schema;
+    this.readers = readers;
+  }
+
+  /**
+   * Computes the mapping for the given result set.
+   *
+   * @param resultSet the result set to read records from
+   * @param conf the configuration holding the override schema and the column rename pattern
+   * @return the mapping for the result set
+   */
+  static ResultSetMapping create(ResultSet resultSet, Configuration conf) throws SQLException {
+    String outputSchemaString = conf.get(DBUtils.OVERRIDE_SCHEMA, null);
+    Schema outputSchema = null;
+    if (!Strings.isNullOrEmpty(outputSchemaString)) {
+      try {
+        outputSchema = Schema.parseJson(outputSchemaString);
+      } catch (IOException e) {
+        throw new IllegalArgumentException(String.format("Unable to parse schema string '%s'.", outputSchemaString), e);
+      }
+    }
+
+    String patternToReplace = conf.get(DBUtils.PATTERN_TO_REPLACE);
+    String replaceWith = conf.get(DBUtils.REPLACE_WITH);
+    Pattern pattern = patternToReplace == null ? null : Pattern.compile(patternToReplace);
+
+    // map of new name -> original name
+    Map<String, String> nameMap = new HashMap<>();
+    List<Schema.Field> newSchema = new ArrayList<>();
+    for (Schema.Field field : DBUtils.getOriginalSchema(resultSet, outputSchema)) {
+      String newName = field.getName();
+      if (pattern != null) {
+        newName = pattern.matcher(newName).replaceAll(replaceWith == null ? "" : replaceWith);
+      }
+      nameMap.put(newName, field.getName());
+      newSchema.add(Schema.Field.of(newName, field.getSchema()));
+    }
+
+    List<Schema.Field> schemaFields = DBUtils.getSchemaFields(Schema.recordOf("resultSet", newSchema),
+                                                              outputSchemaString);
+    ResultSetMetaData metadata = resultSet.getMetaData();
+    // ResultSetMetadata columns are numbered starting with 1. Like ResultSet#getObject(String), the first column
+    // with a given name wins.
+    Map<String, Integer> columnIndexes = new HashMap<>();
+    for (int i = 1; i <= metadata.getColumnCount(); i++) {
+      columnIndexes.putIfAbsent(metadata.getColumnName(i), i);
+    }
+
+    ColumnReader[] readers = new ColumnReader[schemaFields.size()];
+    for (int i = 0; i < schemaFields.size(); i++) {
+      Schema.Field field = schemaFields.get(i);
+      // original name has to be used to get result from result set
+      String originalName = nameMap.getOrDefault(field.getName(), field.getName());
+      Integer columnIndex = columnIndexes.get(originalName);
+      int sqlIndex = columnIndex == null ? i + 1 : columnIndex;
+      Schema fieldSchema = field.getSchema().isNullable() ? field.getSchema().getNonNullable() : field.getSchema();
+      readers[i] = createReader(field.getName(), originalName, fieldSchema, metadata.getColumnType(sqlIndex),
+                                metadata.getPrecision(sqlIndex), metadata.getScale(sqlIndex));
+    }
+    return new ResultSetMapping(Schema.recordOf("dbRecord", schemaFields), readers);
+  }
+
+  /**
+   * @return the schema of the records read from the result set
+   */
+  Schema getSchema() {
+    return schema;
+  }
+
+  /**
+   * Reads the current row of the result set into the given builder.
+   *
+   * @param resultSet the result set, positioned on the row to read
+   * @param builder the builder for a record of the {@link #getSchema() mapped schema}
+   * @return the size of the data read
+   */
+  long read(ResultSet resultSet, StructuredRecord.Builder builder) throws SQLException {
+    long bytesRead = 0;
+    for (ColumnReader reader : readers) {
+      bytesRead += reader.read(resultSet, builder);
+    }
+    return bytesRead;
+  }
+
+  private static ColumnReader createReader(String fieldName, String columnName, Schema fieldSchema, int sqlType,
+                                           int precision, int scale) {
+    switch (sqlType) {
+      case Types.SMALLINT:
+      case Types.TINYINT:
+        return (resultSet, builder) -> {
+          Object value = resultSet.getObject(columnName);
+          builder.set(fieldName, value == null ? null : ((Number) value).intValue());
+          return value == null ? 0 : Integer.BYTES;
+        };
+      case Types.NUMERIC:
+      case Types.DECIMAL:
+        return createNumericReader(fieldName, columnName, fieldSchema, precision, scale);
+      case Types.DATE:
+        return (resultSet, builder) -> {
+          Date value = resultSet.getDate(columnName);
+          if (value == null) {
+            builder.set(fieldName, null);
+            return 0;
+          }
+          builder.setDate(fieldName, value.toLocalDate());
+          return Long.BYTES;
+        };
+      case Types.TIME:
+        return (resultSet, builder) -> {
+          Time value = resultSet.getTime(columnName);
+          if (value == null) {
+            builder.set(fieldName, null);
+            return 0;
+          }
+          builder.setTime(fieldName, value.toLocalTime());
+          return Integer.BYTES;
+        };
+      case Types.TIMESTAMP:
+        return (resultSet, builder) -> {
+          Timestamp value = resultSet.getTimestamp(columnName);
+          if (value == null) {
+            builder.set(fieldName, null);
+            return 0;
+          }
+          builder.setTimestamp(fieldName, value.toInstant().atZone(UTC));
+          return Long.BYTES;
+        };
+      case Types.ROWID:
+        return createStringReader(fieldName, fieldSchema, resultSet -> resultSet.getString(columnName));
+      case Types.BLOB:
+        return (resultSet, builder) -> {
+          Blob blob = (Blob) resultSet.getObject(columnName);
+          if (blob == null) {
+            builder.set(fieldName, null);
+            return 0;
+          }
+          byte[] value;
+          try {
+            value = blob.getBytes(1, (int) blob.length());
+          } finally {
+            blob.free();
+          }
+          builder.set(fieldName, value);
+          return value.length;
+        };
+      case Types.CLOB:
+        return createStringReader(fieldName, fieldSchema, resultSet -> {
+          Clob clob = (Clob) resultSet.getObject(columnName);
+          if (clob == null) {
+            return null;
+          }
+          try {
+            return clob.getSubString(1, (int) clob.length());
+          } finally {
+            clob.free();
+          }
+        });
+      default:
+        return createObjectReader(fieldName, columnName, fieldSchema);
+    }
+  }
+
+  private static ColumnReader createNumericReader(String fieldName, String columnName, Schema fieldSchema,
+                                                  int precision, int scale) {
+    if (Schema.LogicalType.DECIMAL == fieldSchema.getLogicalType()) {
+      return (resultSet, builder) -> {
+        BigDecimal value = (BigDecimal) resultSet.getObject(columnName);
+        if (value == null) {
+          builder.set(fieldName, null);
+          return 0;
+        }
+        builder.setDecimal(fieldName, value);
+        return value.unscaledValue().bitLength() / Byte.SIZE + Integer.BYTES;
+      };
+    }
+    if (scale != 0) {
+      // if there are digits after the point, use double types
+      return (resultSet, builder) -> {
+        BigDecimal value = (BigDecimal) resultSet.getObject(columnName);
+        builder.set(fieldName, value == null ? null : value.doubleValue());
+        return value == null ? 0 : Double.BYTES;
+      };
+    }
+    if (precision > 9) {
+      // with 10 digits we can represent 2^32 and LONG is required
+      return (resultSet, builder) -> {
+        BigDecimal value = (BigDecimal) resultSet.getObject(columnName);
+        builder.set(fieldName, value == null ? null : value.longValue());
+        return value == null ? 0 : Long.BYTES;
+      };
+    }
+    return (resultSet, builder) -> {
+      BigDecimal value = (BigDecimal) resultSet.getObject(columnName);
+      builder.set(fieldName, value == null ? null : value.intValue());
+      return value == null ? 0 : Integer.BYTES;
+    };
+  }
+
+  private static ColumnReader createStringReader(String fieldName, Schema fieldSchema, StringGetter getter) {
+    boolean datetime = fieldSchema.getLogicalType() == Schema.LogicalType.DATETIME;
+    return (resultSet, builder) -> {
+      String value = getter.get(resultSet);
+      if (value != null && datetime) {
+        validateDatetime(fieldName, value);
+      }
+      builder.set(fieldName, value);
+      return value == null ? 0 : value.length();
+    };
+  }
+
+  /**
+   * Reads columns whose sql type does not say what {@link ResultSet#getObject(String)} returns, so the value is
+   * converted based on its class and accounted for based on the output schema.
+   */
+  private static ColumnReader createObjectReader(String fieldName, String columnName, Schema fieldSchema) {
+    Schema.Type type = fieldSchema.getType();
+    boolean datetime = fieldSchema.getLogicalType() == Schema.LogicalType.DATETIME;
+    return (resultSet, builder) -> {
+      Object value = resultSet.getObject(columnName);
+      if (value instanceof Date) {
+        builder.setDate(fieldName, ((Date) value).toLocalDate());
+        return Long.BYTES;
+      }
+      if (value instanceof Time) {
+        builder.setTime(fieldName, ((Time) value).toLocalTime());
+        return Integer.BYTES;
+      }
+      if (value instanceof Timestamp) {
+        builder.setTimestamp(fieldName, ((Timestamp) value).toInstant().atZone(UTC));
+        return Long.BYTES;
+      }
+      if (value instanceof BigDecimal) {
+        BigDecimal decimal = (BigDecimal) value;
+        builder.setDecimal(fieldName, decimal);
+        return decimal.unscaledValue().bitLength() / Byte.SIZE + Integer.BYTES;
+      }
+      builder.set(fieldName, value);
+      if (value == null) {
+        return 0;
+      }
+      switch (type) {
+        case INT:
+        case BOOLEAN:
+          return Integer.BYTES;
+        case LONG:
+          return Long.BYTES;
+        case DOUBLE:
+          return Double.BYTES;
+        case FLOAT:
+          return Float.BYTES;
+        case STRING:
+          String string = (String) value;
+          if (datetime) {
+            validateDatetime(fieldName, string);
+          }
+          return string.length();
+        case BYTES:
+          return ((byte[]) value).length;
+        default:
+          return 0;
+      }
+    };
+  }
+
+  // make sure value is in the right format for datetime
+  private static void validateDatetime(String fieldName, String value) {
+    try {
+      LocalDateTime.parse(value);
+    } catch (DateTimeParseException exception) {
+      throw new UnexpectedFormatException(
+        String.format("Datetime field '%s' with value '%s' is not in ISO-8601 format.", fieldName, value), exception);
+    }
+  }
+
+  /**
+   * Reads one column of the current row of a result set into a record builder.
+   */
+  private interface ColumnReader {
+    /**
+     * @return the size of the data read
+     */
+    long read(ResultSet resultSet, StructuredRecord.Builder builder) throws SQLException;
+  }
+
+  /**
+   * Gets the string value of a column.
+   */
+  private interface StringGetter {
+    @Nullable
+    String get(ResultSet resultSet) throws SQLException;
+  }
+}
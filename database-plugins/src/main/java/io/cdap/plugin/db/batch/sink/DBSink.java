@@ -95,6 +95,7 @@ public class DBSink extends ReferenceBatchSink<StructuredRecord, DBRecord, NullW
     super.configurePipeline(pipelineConfigurer);
     FailureCollector collector = pipelineConfigurer.getStageConfigurer().getFailureCollector();
     dbManager.validateJDBCPluginPipeline(pipelineConfigurer, getJDBCPluginId(), collector);
+    dbSinkConfig.validate(collector);
   }
 
   @Override
@@ -213,6 +214,9 @@ public class DBSink extends ReferenceBatchSink<StructuredRecord, DBRecord, NullW
     public static final String COLUMNS = "columns";
     public static final String TABLE_NAME = "tableName";
     public static final String TRANSACTION_ISOLATION_LEVEL = "transactionIsolationLevel";
+    public static final String BATCH_SIZE = "batchSize";
+    public static final String COMMIT_INTERVAL_ROWS = "commitIntervalRows";
+    public static final String COMMIT_INTERVAL_MB = "commitIntervalMB";
 
     @Name(COLUMNS)
     @Description("Comma-separated list of columns in the specified table to export to.")
@@ -232,6 +236,43 @@ public class DBSink extends ReferenceBatchSink<StructuredRecord, DBRecord, NullW
       "and this setting is set to true. For drivers like that, this should be set to TRANSACTION_NONE.")
     @Macro
     public String transactionIsolationLevel;
+
+    @Nullable
+    @Name(BATCH_SIZE)
+    @Description("Number of rows added to a JDBC batch before the batch is executed, so that the driver does not " +
+      "have to buffer all the rows of a task. Defaults to 1000.")
+    @Macro
+    public Integer batchSize;
+
+    @Nullable
+    @Name(COMMIT_INTERVAL_ROWS)
+    @Description("Number of rows after which the rows written so far are committed. By default, all the rows " +
+      "written by a task are committed in a single transaction when the task ends. Rows that were committed stay " +
+      "in the table if the task fails and is retried.")
+    @Macro
+    public Integer commitIntervalRows;
+
+    @Nullable
+    @Name(COMMIT_INTERVAL_MB)
+    @Description("Estimated size in megabytes of the rows after which the rows written so far are committed. " +
+      "By default, all the rows written by a task are committed in a single transaction when the task ends. " +
+      "Rows that were committed stay in the table if the task fails and is retried.")
+    @Macro
+    public Integer commitIntervalMB;
+
+    void validate(FailureCollector collector) {
+      validatePositive(BATCH_SIZE, batchSize, collector);
+      validatePositive(COMMIT_INTERVAL_ROWS, commitIntervalRows, collector);
+      validatePositive(COMMIT_INTERVAL_MB, commitIntervalMB, collector);
+    }
+
+    private void validatePositive(String property, @Nullable Integer value, FailureCollector collector) {
+      if (!containsMacro(property) && value != null && value <= 0) {
+        collector.addFailure(String.format("Invalid value %d for '%s'.", value, property),
+                             "Please specify a positive number.")
+          .withConfigProperty(property);
+      }
+    }
   }
 
   private static class DBOutputFormatProvider implements OutputFormatProvider {
@@ -244,6 +285,16 @@ public class DBSink extends ReferenceBatchSink<StructuredRecord, DBRecord, NullW
       if (dbSinkConfig.transactionIsolationLevel != null) {
         conf.put(TransactionIsolationLevel.CONF_KEY, dbSinkConfig.transactionIsolationLevel);
       }
+      if (dbSinkConfig.batchSize != null) {
+        conf.put(ETLDBOutputFormat.BATCH_SIZE, String.valueOf(dbSinkConfig.batchSize));
+      }
+      if (dbSinkConfig.commitIntervalRows != null) {
+        conf.put(ETLDBOutputFormat.COMMIT_INTERVAL_ROWS, String.valueOf(dbSinkConfig.commitIntervalRows));
+      }
+      if (dbSinkConfig.commitIntervalMB != null) {
+        conf.put(ETLDBOutputFormat.COMMIT_INTERVAL_BYTES,
+                 String.valueOf(dbSinkConfig.commitIntervalMB * 1024L * 1024L));
+      }
       if (dbSinkConfig.connectionArguments != null) {
         conf.put(DBUtils.CONNECTION_ARGUMENTS, dbSinkConfig.connectionArguments);
       }
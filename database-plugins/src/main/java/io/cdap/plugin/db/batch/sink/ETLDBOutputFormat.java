@@ -42,6 +42,7 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Class that extends {@link DBOutputFormat} to load the database driver class correctly.
@@ -52,6 +53,10 @@ import java.util.Properties;
  */
 public class ETLDBOutputFormat<K extends DBWritable, V>  extends DBOutputFormat<K, V> {
   public static final String AUTO_COMMIT_ENABLED = "io.cdap.hydrator.db.output.autocommit.enabled";
+  public static final String BATCH_SIZE = "io.cdap.hydrator.db.output.batch.size";
+  public static final String COMMIT_INTERVAL_ROWS = "io.cdap.hydrator.db.output.commit.interval.rows";
+  public static final String COMMIT_INTERVAL_BYTES = "io.cdap.hydrator.db.output.commit.interval.bytes";
+  public static final int DEFAULT_BATCH_SIZE = 1000;
 
   private static final Logger LOG = LoggerFactory.getLogger(ETLDBOutputFormat.class);
   private Configuration conf;
@@ -72,60 +77,138 @@ public class ETLDBOutputFormat<K extends DBWritable, V>  extends DBOutputFormat<
     try {
       Connection connection = getConnection(conf);
       PreparedStatement statement = connection.prepareStatement(constructQuery(tableName, fieldNames));
-      return new DBRecordWriter(connection, statement) {
-
-        private boolean emptyData = true;
-        private long bytesWritten = 0;
-
-        //Implementation of the close method below is the exact implementation in DBOutputFormat except that
-        //we check if there is any data to be written and if not, we skip executeBatch call.
-        //There might be reducers that don't receive any data and thus this check is necessary to prevent
-        //empty data to be committed (since some Databases doesn't support that).
-        @Override
-        public void close(TaskAttemptContext context) throws IOException {
-          try {
-            if (!emptyData) {
-              getStatement().executeBatch();
-              getConnection().commit();
-              context.getCounter(FileOutputFormatCounter.BYTES_WRITTEN).increment(bytesWritten);
-            }
-          } catch (SQLException e) {
-            try {
-              getConnection().rollback();
-            } catch (SQLException ex) {
-              LOG.warn(StringUtils.stringifyException(ex));
-            }
-            throw new IOException(e);
-          } finally {
-            try {
-              getStatement().close();
-              getConnection().close();
-            } catch (SQLException ex) {
-              throw new IOException(ex);
-            }
-          }
+      return new BatchingDBRecordWriter(connection, statement, context);
+    } catch (Exception ex) {
+      throw Throwables.propagate(ex);
+    }
+  }
 
-          try {
-            DriverManager.deregisterDriver(driverShim);
-          } catch (SQLException e) {
-            throw new IOException(e);
-          }
+  /**
+   * Counters of the batches executed by the record writer.
+   */
+  public enum Counter {
+    BATCHES_FLUSHED,
+    ROWS_FLUSHED,
+    FLUSH_TIME_MILLIS,
+    COMMITS
+  }
+
+  /**
+   * Record writer that executes the batch of the statement every {@link #BATCH_SIZE} rows, and commits every
+   * {@link #COMMIT_INTERVAL_ROWS} rows or {@link #COMMIT_INTERVAL_BYTES} bytes, instead of buffering all the rows
+   * of the task in the statement and committing them in a single transaction when it is closed.
+   */
+  class BatchingDBRecordWriter extends DBRecordWriter {
+    private final TaskAttemptContext context;
+    private final int batchSize;
+    private final long commitIntervalRows;
+    private final long commitIntervalBytes;
+    private int rowsInBatch;
+    private long rowsSinceCommit;
+    private long bytesSinceCommit;
+    private long batches;
+    private long rows;
+    private long flushTimeMillis;
+
+    BatchingDBRecordWriter(Connection connection, PreparedStatement statement,
+                           TaskAttemptContext context) throws SQLException {
+      super(connection, statement);
+      Configuration conf = context.getConfiguration();
+      this.context = context;
+      this.batchSize = conf.getInt(BATCH_SIZE, DEFAULT_BATCH_SIZE);
+      this.commitIntervalRows = conf.getLong(COMMIT_INTERVAL_ROWS, Long.MAX_VALUE);
+      this.commitIntervalBytes = conf.getLong(COMMIT_INTERVAL_BYTES, Long.MAX_VALUE);
+      Preconditions.checkArgument(batchSize > 0, "Batch size must be positive, but is %s.", batchSize);
+      Preconditions.checkArgument(commitIntervalRows > 0, "Commit interval must be positive, but is %s rows.",
+                                  commitIntervalRows);
+      Preconditions.checkArgument(commitIntervalBytes > 0, "Commit interval must be positive, but is %s bytes.",
+                                  commitIntervalBytes);
+    }
+
+    //Implementation of the close method below is the exact implementation in DBOutputFormat except that
+    //we check if there is any data to be written and if not, we skip executeBatch call.
+    //There might be reducers that don't receive any data and thus this check is necessary to prevent
+    //empty data to be committed (since some Databases doesn't support that).
+    @Override
+    public void close(TaskAttemptContext context) throws IOException {
+      try {
+        if (rowsSinceCommit > 0) {
+          commit();
+        }
+        LOG.debug("Flushed {} rows in {} batches in {} ms.", rows, batches, flushTimeMillis);
+      } catch (SQLException e) {
+        try {
+          getConnection().rollback();
+        } catch (SQLException ex) {
+          LOG.warn(StringUtils.stringifyException(ex));
         }
+        throw new IOException(e);
+      } finally {
+        try {
+          getStatement().close();
+          getConnection().close();
+        } catch (SQLException ex) {
+          throw new IOException(ex);
+        }
+      }
 
-        @Override
-        public void write(K key, V value) throws IOException {
-          super.write(key, value);
-          if (key instanceof DataSizeReporter) {
-            bytesWritten += ((DataSizeReporter) key).getBytesWritten();
-          }
-          if (value instanceof DataSizeReporter) {
-            bytesWritten += ((DataSizeReporter) value).getBytesWritten();
-          }
-          emptyData = false;
+      try {
+        DriverManager.deregisterDriver(driverShim);
+      } catch (SQLException e) {
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    public void write(K key, V value) throws IOException {
+      super.write(key, value);
+      if (key instanceof DataSizeReporter) {
+        bytesSinceCommit += ((DataSizeReporter) key).getBytesWritten();
+      }
+      if (value instanceof DataSizeReporter) {
+        bytesSinceCommit += ((DataSizeReporter) value).getBytesWritten();
+      }
+      rowsInBatch++;
+      rowsSinceCommit++;
+      try {
+        if (rowsSinceCommit >= commitIntervalRows || bytesSinceCommit >= commitIntervalBytes) {
+          commit();
+        } else if (rowsInBatch >= batchSize) {
+          flush();
         }
-      };
-    } catch (Exception ex) {
-      throw Throwables.propagate(ex);
+      } catch (SQLException e) {
+        try {
+          getConnection().rollback();
+        } catch (SQLException ex) {
+          LOG.warn(StringUtils.stringifyException(ex));
+        }
+        throw new IOException(e);
+      }
+    }
+
+    private void flush() throws SQLException {
+      if (rowsInBatch == 0) {
+        return;
+      }
+      long startTime = System.nanoTime();
+      getStatement().executeBatch();
+      long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+      batches++;
+      rows += rowsInBatch;
+      flushTimeMillis += millis;
+      context.getCounter(Counter.BATCHES_FLUSHED).increment(1);
+      context.getCounter(Counter.ROWS_FLUSHED).increment(rowsInBatch);
+      context.getCounter(Counter.FLUSH_TIME_MILLIS).increment(millis);
+      rowsInBatch = 0;
+    }
+
+    private void commit() throws SQLException {
+      flush();
+      getConnection().commit();
+      context.getCounter(Counter.COMMITS).increment(1);
+      context.getCounter(FileOutputFormatCounter.BYTES_WRITTEN).increment(bytesSinceCommit);
+      rowsSinceCommit = 0;
+      bytesSinceCommit = 0;
     }
   }
 
@@ -367,4 +367,47 @@ public class DBRecordTest {
     dbRecord.setConf(configuration);
     dbRecord.readFields(resultSetMock);
   }
+
+  @Test
+  public void testMappingReusedForResultSet() throws SQLException {
+    ResultSetMetaData rsMetaMock = Mockito.mock(ResultSetMetaData.class);
+    Mockito.when(rsMetaMock.getColumnCount()).thenReturn(2);
+    Mockito.when(rsMetaMock.getColumnName(Mockito.eq(1))).thenReturn("user_id");
+    Mockito.when(rsMetaMock.getColumnType(Mockito.eq(1))).thenReturn(Types.INTEGER);
+    Mockito.when(rsMetaMock.isNullable(Mockito.eq(1))).thenReturn(ResultSetMetaData.columnNoNulls);
+    Mockito.when(rsMetaMock.getColumnName(Mockito.eq(2))).thenReturn("user_amount");
+    Mockito.when(rsMetaMock.getColumnType(Mockito.eq(2))).thenReturn(Types.NUMERIC);
+    Mockito.when(rsMetaMock.getPrecision(Mockito.eq(2))).thenReturn(12);
+    Mockito.when(rsMetaMock.getScale(Mockito.eq(2))).thenReturn(0);
+    Mockito.when(rsMetaMock.isNullable(Mockito.eq(2))).thenReturn(ResultSetMetaData.columnNullable);
+
+    ResultSet resultSetMock = Mockito.mock(ResultSet.class);
+    Mockito.when(resultSetMock.getMetaData()).thenReturn(rsMetaMock);
+    Mockito.when(resultSetMock.getObject("user_id")).thenReturn(1).thenReturn(2);
+    Mockito.when(resultSetMock.getObject("user_amount")).thenReturn(new BigDecimal(10000000000L)).thenReturn(null);
+
+    Schema outputSchema = Schema.recordOf("dbRecord",
+                                          Schema.Field.of("id", Schema.of(Schema.Type.INT)),
+                                          Schema.Field.of("amount", Schema.nullableOf(Schema.of(Schema.Type.LONG))));
+    Configuration configuration = new Configuration();
+    configuration.set(DBUtils.OVERRIDE_SCHEMA, outputSchema.toString());
+    configuration.set(DBUtils.PATTERN_TO_REPLACE, "^user_");
+
+    DBRecord dbRecord = new DBRecord();
+    dbRecord.setConf(configuration);
+    dbRecord.readFields(resultSetMock);
+    Assert.assertEquals(outputSchema, dbRecord.getRecord().getSchema());
+    Assert.assertEquals(1, (int) dbRecord.getRecord().get("id"));
+    Assert.assertEquals(10000000000L, (long) dbRecord.getRecord().get("amount"));
+    Assert.assertEquals(Integer.BYTES + Long.BYTES, dbRecord.getBytesRead());
+
+    // the metadata is only read when the first row of the result set is read
+    Mockito.clearInvocations(rsMetaMock);
+
+    dbRecord.readFields(resultSetMock);
+    Assert.assertEquals(2, (int) dbRecord.getRecord().get("id"));
+    Assert.assertNull(dbRecord.getRecord().get("amount"));
+    Assert.assertEquals(Integer.BYTES, dbRecord.getBytesRead());
+    Mockito.verifyZeroInteractions(rsMetaMock);
+  }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.db.batch.sink;
+
+import io.cdap.plugin.DataSizeReporter;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.db.DBWritable;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormatCounter;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Tests for {@link ETLDBOutputFormat}.
+ */
+public class ETLDBOutputFormatTest {
+  private Configuration conf;
+  private Counters counters;
+  private TaskAttemptContext context;
+  private Connection connection;
+  private PreparedStatement statement;
+
+  @Before
+  public void setUp() {
+    conf = new Configuration();
+    counters = new Counters();
+    context = Mockito.mock(TaskAttemptContext.class);
+    Mockito.when(context.getConfiguration()).thenReturn(conf);
+    Mockito.when(context.getCounter(Mockito.any(Enum.class)))
+      .thenAnswer(invocation -> counters.findCounter((Enum<?>) invocation.getArguments()[0]));
+    connection = Mockito.mock(Connection.class);
+    statement = Mockito.mock(PreparedStatement.class);
+  }
+
+  @Test
+  public void testBatchesAndCommits() throws Exception {
+    conf.setInt(ETLDBOutputFormat.BATCH_SIZE, 2);
+    conf.setLong(ETLDBOutputFormat.COMMIT_INTERVAL_ROWS, 5);
+    writeRows(7);
+
+    // batches of 2 rows, a commit after 5 rows and a commit of the remaining rows when closed
+    InOrder inOrder = Mockito.inOrder(connection, statement);
+    inOrder.verify(statement, Mockito.times(3)).executeBatch();
+    inOrder.verify(connection).commit();
+    inOrder.verify(statement).executeBatch();
+    inOrder.verify(connection).commit();
+    inOrder.verify(statement).close();
+    inOrder.verify(connection).close();
+
+    Assert.assertEquals(4, counters.findCounter(ETLDBOutputFormat.Counter.BATCHES_FLUSHED).getValue());
+    Assert.assertEquals(7, counters.findCounter(ETLDBOutputFormat.Counter.ROWS_FLUSHED).getValue());
+    Assert.assertEquals(2, counters.findCounter(ETLDBOutputFormat.Counter.COMMITS).getValue());
+    Assert.assertEquals(7 * Row.SIZE, counters.findCounter(FileOutputFormatCounter.BYTES_WRITTEN).getValue());
+  }
+
+  @Test
+  public void testCommitIntervalBytes() throws Exception {
+    conf.setLong(ETLDBOutputFormat.COMMIT_INTERVAL_BYTES, 3 * Row.SIZE);
+    writeRows(6);
+
+    // the rows are committed every 3 rows, nothing is left to commit when closed
+    Mockito.verify(statement, Mockito.times(2)).executeBatch();
+    Mockito.verify(connection, Mockito.times(2)).commit();
+    Assert.assertEquals(2, counters.findCounter(ETLDBOutputFormat.Counter.COMMITS).getValue());
+  }
+
+  /**
+   * Writes rows with a record writer created from the current configuration, then closes it.
+   */
+  private void writeRows(int count) throws Exception {
+    ETLDBOutputFormat<Row, NullWritable> outputFormat = new ETLDBOutputFormat<>();
+    RecordWriter<Row, NullWritable> writer = outputFormat.new BatchingDBRecordWriter(connection, statement, context);
+    for (int i = 0; i < count; i++) {
+      writer.write(new Row(), null);
+    }
+    writer.close(context);
+  }
+
+  /**
+   * Row that does not write anything and reports a fixed size.
+   */
+  private static class Row implements DBWritable, DataSizeReporter {
+    static final long SIZE = 10;
+
+    @Override
+    public void write(PreparedStatement statement) {
+      // no-op
+    }
+
+    @Override
+    public void readFields(ResultSet resultSet) {
+      // no-op
+    }
+
+    @Override
+    public long getBytesWritten() {
+      return SIZE;
+    }
+
+    @Override
+    public long getBytesRead() {
+      return 0;
+    }
+  }
+}
@@ -31,8 +31,10 @@ import org.apache.hadoop.fs.Path;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -149,6 +151,53 @@ public class PathTrackingConfig extends PluginConfig {
                                                      regexPathFilter));
   }
 
+  /**
+   * Returns up to the given number of files to generate the schema from. If the provided path directs to a file, only
+   * that file is returned. Otherwise the files of the directory matching the regex are sorted by path and files spread
+   * evenly across them are returned, starting with the first one. Asking for a single file returns the same file
+   * as {@link #getFilePathForSchemaGeneration(String, String, Configuration)}.
+   *
+   * @param path path from config
+   * @param regexPathFilter the regex used to filter the files
+   * @param maxFiles maximum number of files to return
+   * @return the files to generate the schema from
+   */
+  public List<Path> getFilePathsForSchemaGeneration(String path, String regexPathFilter, Configuration configuration,
+                                                    int maxFiles) throws IOException {
+    if (maxFiles <= 1) {
+      return Collections.singletonList(getFilePathForSchemaGeneration(path, regexPathFilter, configuration));
+    }
+    Path fsPath = new Path(path);
+    FileSystem fs = FileSystem.get(fsPath.toUri(), configuration);
+    if (fs.exists(fsPath) && fs.isFile(fsPath)) {
+      return Collections.singletonList(fsPath);
+    }
+
+    List<Path> matching = new ArrayList<>();
+    FileStatus[] files = fs.exists(fsPath) ? fs.listStatus(fsPath) : null;
+    if (files != null) {
+      Pattern pattern = Strings.isNullOrEmpty(regexPathFilter) ? null : Pattern.compile(regexPathFilter);
+      for (FileStatus file : files) {
+        if (file.isFile() && (pattern == null || pattern.matcher(file.getPath().toString()).find())) {
+          matching.add(file.getPath());
+        }
+      }
+    }
+    if (matching.isEmpty()) {
+      // reports the missing path, empty directory or unmatched regex the same way as for a single file
+      return Collections.singletonList(getFilePathForSchemaGeneration(path, regexPathFilter, configuration));
+    }
+    Collections.sort(matching);
+    if (matching.size() <= maxFiles) {
+      return matching;
+    }
+    List<Path> selected = new ArrayList<>(maxFiles);
+    for (int i = 0; i < maxFiles; i++) {
+      selected.add(matching.get((int) ((long) i * matching.size() / maxFiles)));
+    }
+    return selected;
+  }
+
   /**
    * Read file system properties from config
    *
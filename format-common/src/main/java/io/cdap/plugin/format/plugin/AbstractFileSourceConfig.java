@@ -109,6 +109,13 @@ public abstract class AbstractFileSourceConfig extends PluginConfig implements F
     "'delimited'. Default value is false.")
   private Boolean skipHeader;
 
+  @Macro
+  @Nullable
+  @Description("Whether to treat content between double quotes as a value, which can then contain the delimiter. " +
+    "Double quotes inside a quoted value are escaped by doubling them. A quoted value cannot span multiple lines. " +
+    "Supported formats are 'csv', 'tsv', 'delimited'. Default value is false.")
+  private Boolean enableQuotedValues;
+
   @Macro
   @Nullable
   @Description("File encoding for the source files. The default encoding is 'UTF-8'")
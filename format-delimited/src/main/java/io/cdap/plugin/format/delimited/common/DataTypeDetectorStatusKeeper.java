@@ -92,6 +92,19 @@ public class DataTypeDetectorStatusKeeper {
     }
   }
 
+  /**
+   * Adds all data types met by another status keeper, for instance one that investigated another data file.
+   *
+   * @param other The status keeper to merge into this one.
+   */
+  public void merge(DataTypeDetectorStatusKeeper other) {
+    for (Map.Entry<String, EnumSet<DataType>> entry : other.dataTypeDetectionStatus.entrySet()) {
+      for (DataType dataType : entry.getValue()) {
+        addDataType(entry.getKey(), dataType);
+      }
+    }
+  }
+
   /**
    * Returns an enum set of all data types met while investigating the given column for data type detection.
    *
@@ -22,21 +22,16 @@ import io.cdap.cdap.api.annotation.Macro;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.api.dataset.lib.KeyValue;
 import io.cdap.cdap.api.plugin.PluginPropertyField;
+import io.cdap.cdap.etl.api.FailureCollector;
 import io.cdap.cdap.etl.api.validation.FormatContext;
 import io.cdap.plugin.common.KeyValueListParser;
 import io.cdap.plugin.common.batch.JobUtils;
-import io.cdap.plugin.format.delimited.common.DataTypeDetectorStatusKeeper;
-import io.cdap.plugin.format.delimited.common.DataTypeDetectorUtils;
 import io.cdap.plugin.format.input.PathTrackingConfig;
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.FSDataInputStream;
-import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapreduce.Job;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -53,16 +48,23 @@ public class DelimitedConfig extends PathTrackingConfig {
   public static final String NAME_FORMAT = "format";
   public static final String NAME_OVERRIDE = "override";
   public static final String NAME_SAMPLE_SIZE = "sampleSize";
+  public static final String NAME_SAMPLE_FILES = "sampleFiles";
+  public static final String NAME_SAMPLING_METHOD = "samplingMethod";
   public static final String NAME_PATH = "path";
   public static final String NAME_REGEX_PATH_FILTER = "fileRegex";
   public static final Map<String, PluginPropertyField> DELIMITED_FIELDS;
 
   // description
   public static final String DESC_SKIP_HEADER = "Whether to skip the first line of each file. Default value is false.";
+  public static final String DESC_ENABLE_QUOTED_VALUES = "Whether to treat content between double quotes as a " +
+    "value, which can then contain the delimiter. Double quotes inside a quoted value are escaped by doubling them. " +
+    "A quoted value cannot span multiple lines. Default value is false.";
 
   static {
     Map<String, PluginPropertyField> fields = new HashMap<>(FIELDS);
     fields.put("skipHeader", new PluginPropertyField("skipHeader", DESC_SKIP_HEADER, "boolean", false, true));
+    fields.put("enableQuotedValues", new PluginPropertyField("enableQuotedValues", DESC_ENABLE_QUOTED_VALUES,
+                                                             "boolean", false, true));
     DELIMITED_FIELDS = Collections.unmodifiableMap(fields);
   }
 
@@ -71,14 +73,67 @@ public class DelimitedConfig extends PathTrackingConfig {
   @Description(DESC_SKIP_HEADER)
   private Boolean skipHeader;
 
+  @Macro
+  @Nullable
+  @Description(DESC_ENABLE_QUOTED_VALUES)
+  private Boolean enableQuotedValues;
+
   public boolean getSkipHeader() {
     return skipHeader == null ? false : skipHeader;
   }
 
+  public boolean getEnableQuotedValues() {
+    return enableQuotedValues == null ? false : enableQuotedValues;
+  }
+
   public Long getSampleSize() {
     return Long.parseLong(getProperties().getProperties().getOrDefault(NAME_SAMPLE_SIZE, "1000"));
   }
 
+  public int getSampleFiles() {
+    return Integer.parseInt(getProperties().getProperties().getOrDefault(NAME_SAMPLE_FILES, "1"));
+  }
+
+  public String getSamplingMethod() {
+    return getProperties().getProperties().getOrDefault(NAME_SAMPLING_METHOD, DelimitedSchemaSampler.FIRST);
+  }
+
+  /**
+   * Validates the properties used for automatic data type detection, which are read as plain properties.
+   *
+   * @param collector failure collector
+   */
+  public void validate(FailureCollector collector) {
+    validatePositive(collector, NAME_SAMPLE_SIZE, "Sample size", Long.MAX_VALUE);
+    validatePositive(collector, NAME_SAMPLE_FILES, "Sample files", Integer.MAX_VALUE);
+    String samplingMethod = getProperties().getProperties().get(NAME_SAMPLING_METHOD);
+    if (!containsMacro(NAME_SAMPLING_METHOD) && samplingMethod != null &&
+      !DelimitedSchemaSampler.FIRST.equals(samplingMethod) && !DelimitedSchemaSampler.RANDOM.equals(samplingMethod)) {
+      collector.addFailure(String.format("Invalid sampling method '%s'.", samplingMethod),
+                           String.format("Supported methods are '%s' and '%s'.", DelimitedSchemaSampler.FIRST,
+                                         DelimitedSchemaSampler.RANDOM))
+        .withConfigProperty(NAME_SAMPLING_METHOD);
+    }
+  }
+
+  private void validatePositive(FailureCollector collector, String name, String label, long max) {
+    String value = getProperties().getProperties().get(name);
+    if (containsMacro(name) || value == null) {
+      return;
+    }
+    try {
+      long number = Long.parseLong(value);
+      if (number > 0 && number <= max) {
+        return;
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    collector.addFailure(String.format("%s '%s' is not a valid positive number.", label, value),
+                         String.format("Must be a number between 1 and %d.", max))
+      .withConfigProperty(name);
+  }
+
   @Nullable
   @Override
   public Schema getSchema() {
@@ -173,33 +228,9 @@ public class DelimitedConfig extends PathTrackingConfig {
     for (Map.Entry<String, String> entry : getFileSystemProperties().entrySet()) {
       configuration.set(entry.getKey(), entry.getValue());
     }
-    Path filePath = getFilePathForSchemaGeneration(path, regexPathFilter, configuration);
-    DataTypeDetectorStatusKeeper dataTypeDetectorStatusKeeper = new DataTypeDetectorStatusKeeper();
-    String line = null;
-    String[] columnNames = null;
-    String[] rowValue = null;
-
-    try (FileSystem fileSystem = FileSystem.get(filePath.toUri(), configuration);
-         FSDataInputStream input = fileSystem.open(filePath);
-         BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(input));
-    ) {
-      for (int rowIndex = 0; rowIndex < getSampleSize() && (line = bufferedReader.readLine()) != null; rowIndex++) {
-        rowValue = line.split(delimiter, -1);
-        if (rowIndex == 0) {
-          columnNames = DataTypeDetectorUtils.setColumnNames(line, skipHeader, delimiter);
-          if (skipHeader) {
-            continue;
-          }
-        }
-        DataTypeDetectorUtils.detectDataTypeOfRowValues(getOverride(), dataTypeDetectorStatusKeeper, columnNames,
-                rowValue);
-      }
-      dataTypeDetectorStatusKeeper.validateDataTypeDetector();
-    } catch (IOException e) {
-      throw new RuntimeException(String.format("Failed to open file at path %s!", path), e);
-    }
-    List<Schema.Field> fields = DataTypeDetectorUtils.detectDataTypeOfEachDatasetColumn(getOverride(), columnNames,
-            dataTypeDetectorStatusKeeper);
-    return Schema.recordOf("text", fields);
+    List<Path> filePaths = getFilePathsForSchemaGeneration(path, regexPathFilter, configuration, getSampleFiles());
+    DelimitedSchemaSampler sampler = new DelimitedSchemaSampler(configuration, delimiter, getSkipHeader(),
+                                                                getSampleSize(), getSamplingMethod(), getOverride());
+    return Schema.recordOf("text", sampler.sample(filePaths));
   }
 }
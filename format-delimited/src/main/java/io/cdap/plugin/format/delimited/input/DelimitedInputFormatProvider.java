@@ -64,8 +64,11 @@ public class DelimitedInputFormatProvider extends PathTrackingInputFormatProvide
 
   @Override
   public void validate(FormatContext context) {
-    Schema schema = super.getSchema(context);
     FailureCollector collector = context.getFailureCollector();
+    conf.validate(collector);
+    // the schema is detected with these properties, so it cannot be detected if they are invalid
+    collector.getOrThrowException();
+    Schema schema = super.getSchema(context);
     if (!conf.containsMacro(PathTrackingConfig.NAME_SCHEMA) && schema == null) {
       collector.addFailure("Delimited format cannot be used without specifying a schema.",
                            "Schema must be specified.").withConfigProperty("schema");
@@ -76,6 +79,8 @@ public class DelimitedInputFormatProvider extends PathTrackingInputFormatProvide
   protected void addFormatProperties(Map<String, String> properties) {
     properties.put(PathTrackingDelimitedInputFormat.DELIMITER, conf.delimiter == null ? "," : conf.delimiter);
     properties.put(PathTrackingDelimitedInputFormat.SKIP_HEADER, String.valueOf(conf.getSkipHeader()));
+    properties.put(PathTrackingDelimitedInputFormat.ENABLE_QUOTED_VALUES,
+                   String.valueOf(conf.getEnableQuotedValues()));
   }
 
   /**
@@ -0,0 +1,299 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.format.delimited.input;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.common.SchemaValidator;
+import org.apache.hadoop.io.Text;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Parses delimited lines into records, working on the UTF-8 bytes of the lines.
+ *
+ * Values are found by matching the UTF-8 bytes of the delimiter, which finds the same values as splitting the decoded
+ * line. Each value is converted by a parser resolved once per field from the schema, so integers, longs and booleans
+ * are parsed without creating a string. Empty values are read as null.
+ *
+ * When quoted values are enabled, a value that starts with a double quote ends at the next double quote that is not
+ * doubled, can contain the delimiter, and has its doubled double quotes read as single ones, as described in
+ * RFC 4180. A quoted value has to end on the line it starts on.
+ */
+final class DelimitedRecordParser {
+  private static final byte QUOTE = '"';
+
+  private final Schema schema;
+  private final List<Schema.Field> fields;
+  private final FieldParser[] parsers;
+  private final byte[] delimiter;
+  private final boolean quotedValues;
+  // content of the current quoted value, without the enclosing and escaping quotes
+  private byte[] unquoted = new byte[256];
+
+  /**
+   * @param schema schema of the records
+   * @param delimiter delimiter between the values of a line
+   * @param quotedValues whether values can be enclosed in double quotes
+   */
+  DelimitedRecordParser(Schema schema, String delimiter, boolean quotedValues) {
+    if (delimiter.isEmpty()) {
+      throw new IllegalArgumentException("The delimiter must not be empty.");
+    }
+    this.schema = schema;
+    this.fields = schema.getFields();
+    this.parsers = new FieldParser[fields.size()];
+    for (int i = 0; i < parsers.length; i++) {
+      parsers[i] = createParser(fields.get(i));
+    }
+    this.delimiter = delimiter.getBytes(StandardCharsets.UTF_8);
+    this.quotedValues = quotedValues;
+  }
+
+  /**
+   * Parses a line into a record builder. Fields without a value in the line are not set.
+   *
+   * @throws IOException if the line has more values than the schema has fields, or has a malformed quoted value
+   */
+  StructuredRecord.Builder parse(Text line) throws IOException {
+    byte[] bytes = line.getBytes();
+    int end = line.getLength();
+    StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+    int start = 0;
+    for (int index = 0; ; index++) {
+      if (index == parsers.length) {
+        throw tooManyValues(index + countValues(bytes, start, end));
+      }
+      int valueEnd;
+      if (quotedValues && start < end && bytes[start] == QUOTE) {
+        valueEnd = closingQuote(bytes, start, end) + 1;
+        int length = unquote(bytes, start + 1, valueEnd - 1);
+        setValue(builder, index, unquoted, 0, length);
+      } else {
+        valueEnd = indexOfDelimiter(bytes, start, end);
+        setValue(builder, index, bytes, start, valueEnd - start);
+      }
+      if (valueEnd == end) {
+        return builder;
+      }
+      start = valueEnd + delimiter.length;
+    }
+  }
+
+  private void setValue(StructuredRecord.Builder builder, int index, byte[] bytes, int offset, int length) {
+    if (length == 0) {
+      builder.set(fields.get(index).getName(), null);
+    } else {
+      parsers[index].set(builder, bytes, offset, length);
+    }
+  }
+
+  private IOException tooManyValues(int numValues) {
+    int numSchemaFields = fields.size();
+    String message = String.format("Found a row with %d fields when the schema only contains %d field%s.",
+                                   numValues, numSchemaFields, numSchemaFields == 1 ? "" : "s");
+    // special error handling for the case when the user most likely set the schema to delimited
+    // when they meant to use 'text'.
+    Schema.Field bodyField = schema.getField("body");
+    if (bodyField != null) {
+      Schema bodySchema = bodyField.getSchema();
+      bodySchema = bodySchema.isNullable() ? bodySchema.getNonNullable() : bodySchema;
+      if (bodySchema.getType() == Schema.Type.STRING) {
+        return new IOException(message + " Did you mean to use the 'text' format?");
+      }
+    }
+    return new IOException(message + " Check that the schema contains the right number of fields.");
+  }
+
+  private int countValues(byte[] bytes, int start, int end) throws IOException {
+    int count = 1;
+    int valueEnd = start;
+    while (true) {
+      if (quotedValues && valueEnd < end && bytes[valueEnd] == QUOTE) {
+        valueEnd = closingQuote(bytes, valueEnd, end) + 1;
+      } else {
+        valueEnd = indexOfDelimiter(bytes, valueEnd, end);
+      }
+      if (valueEnd == end) {
+        return count;
+      }
+      valueEnd += delimiter.length;
+      count++;
+    }
+  }
+
+  /**
+   * @return the position of the delimiter that starts at or after the given position, or the end if there is none
+   */
+  private int indexOfDelimiter(byte[] bytes, int start, int end) {
+    byte first = delimiter[0];
+    int last = end - delimiter.length;
+    for (int i = start; i <= last; i++) {
+      if (bytes[i] == first && matchesDelimiter(bytes, i)) {
+        return i;
+      }
+    }
+    return end;
+  }
+
+  private boolean matchesDelimiter(byte[] bytes, int position) {
+    for (int i = 0; i < delimiter.length; i++) {
+      if (bytes[position + i] != delimiter[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the position of the quote that closes the quoted value starting at the given position
+   */
+  private int closingQuote(byte[] bytes, int start, int end) throws IOException {
+    for (int i = start + 1; i < end; i++) {
+      if (bytes[i] != QUOTE) {
+        continue;
+      }
+      if (i + 1 < end && bytes[i + 1] == QUOTE) {
+        i++;
+        continue;
+      }
+      if (i + 1 < end && (i + 1 + delimiter.length > end || !matchesDelimiter(bytes, i + 1))) {
+        throw new IOException(String.format("Found a quoted value that is not followed by a delimiter in the row '%s'.",
+                                            decode(bytes, 0, end)));
+      }
+      return i;
+    }
+    throw new IOException(String.format("Found a quoted value without a closing quote in the row '%s'.",
+                                        decode(bytes, 0, end)));
+  }
+
+  /**
+   * Copies the content of a quoted value without its escaping quotes.
+   *
+   * @return the length of the content
+   */
+  private int unquote(byte[] bytes, int start, int end) {
+    if (unquoted.length < end - start) {
+      unquoted = new byte[Math.max(end - start, 2 * unquoted.length)];
+    }
+    int length = 0;
+    for (int i = start; i < end; i++) {
+      unquoted[length++] = bytes[i];
+      if (bytes[i] == QUOTE) {
+        // quotes inside the value are doubled
+        i++;
+      }
+    }
+    return length;
+  }
+
+  private static FieldParser createParser(Schema.Field field) {
+    String name = field.getName();
+    Schema fieldSchema = field.getSchema();
+    Schema schema = fieldSchema.isNullable() ? fieldSchema.getNonNullable() : fieldSchema;
+    if (schema.getLogicalType() == null) {
+      // same conversions as StructuredRecord.Builder#convertAndSet, resolved once instead of for every value
+      switch (schema.getType()) {
+        case BOOLEAN:
+          return (builder, bytes, offset, length) -> builder.set(name, parseBoolean(bytes, offset, length));
+        case INT:
+          return (builder, bytes, offset, length) -> builder.set(name, parseInt(bytes, offset, length));
+        case LONG:
+          return (builder, bytes, offset, length) -> builder.set(name, parseLong(bytes, offset, length));
+        case FLOAT:
+          return (builder, bytes, offset, length) -> builder.set(name, Float.parseFloat(decode(bytes, offset, length)));
+        case DOUBLE:
+          return (builder, bytes, offset, length) ->
+            builder.set(name, Double.parseDouble(decode(bytes, offset, length)));
+        case STRING:
+          return (builder, bytes, offset, length) -> builder.set(name, decode(bytes, offset, length));
+        default:
+          // other types are converted by the builder
+          break;
+      }
+    }
+    return (builder, bytes, offset, length) -> {
+      String value = decode(bytes, offset, length);
+      //Ensure if date time field, value is in correct format
+      SchemaValidator.validateDateTimeField(fieldSchema, name, value);
+      builder.convertAndSet(name, value);
+    };
+  }
+
+  private static String decode(byte[] bytes, int offset, int length) {
+    return new String(bytes, offset, length, StandardCharsets.UTF_8);
+  }
+
+  private static boolean parseBoolean(byte[] bytes, int offset, int length) {
+    // same as Boolean.parseBoolean, no other characters are equal to the ones of 'true' ignoring case
+    return length == 4 && (bytes[offset] | 0x20) == 't' && (bytes[offset + 1] | 0x20) == 'r'
+      && (bytes[offset + 2] | 0x20) == 'u' && (bytes[offset + 3] | 0x20) == 'e';
+  }
+
+  // values that are not simple ASCII integers are left to Integer.parseInt, to keep its behavior and errors
+  private static int parseInt(byte[] bytes, int offset, int length) {
+    long value = parseDigits(bytes, offset, length);
+    if (value != Long.MIN_VALUE && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+      return (int) value;
+    }
+    return Integer.parseInt(decode(bytes, offset, length));
+  }
+
+  // values that are not simple ASCII integers are left to Long.parseLong, to keep its behavior and errors
+  private static long parseLong(byte[] bytes, int offset, int length) {
+    long value = parseDigits(bytes, offset, length);
+    if (value != Long.MIN_VALUE) {
+      return value;
+    }
+    return Long.parseLong(decode(bytes, offset, length));
+  }
+
+  /**
+   * Parses an optional sign followed by at most 18 ASCII digits, which cannot overflow a long.
+   *
+   * @return the value, or Long.MIN_VALUE if the bytes are anything else
+   */
+  private static long parseDigits(byte[] bytes, int offset, int length) {
+    int i = offset;
+    int end = offset + length;
+    boolean negative = bytes[i] == '-';
+    if (negative || bytes[i] == '+') {
+      i++;
+    }
+    if (i == end || end - i > 18) {
+      return Long.MIN_VALUE;
+    }
+    long value = 0;
+    for (; i < end; i++) {
+      int digit = bytes[i] - '0';
+      if (digit < 0 || digit > 9) {
+        return Long.MIN_VALUE;
+      }
+      value = value * 10 + digit;
+    }
+    return negative ? -value : value;
+  }
+
+  /**
+   * Sets the value of a field from its bytes.
+   */
+  private interface FieldParser {
+    void set(StructuredRecord.Builder builder, byte[] bytes, int offset, int length);
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.format.delimited.input;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.format.delimited.common.DataTypeDetectorStatusKeeper;
+import io.cdap.plugin.format.delimited.common.DataTypeDetectorUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.util.LineReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+
+/**
+ * Samples the rows of delimited files to detect the data types of their columns.
+ *
+ * Files are sampled in parallel, each one into its own {@link DataTypeDetectorStatusKeeper}, and the keepers are
+ * merged once all files were read. The column names are read from the first line of the first file. With the
+ * {@link #FIRST} method, the first rows of each file are investigated. With the {@link #RANDOM} method, rows are read
+ * from several byte ranges spread across each file and a uniform sample of them is kept with reservoir sampling, so
+ * that files sorted or grouped by some column are better represented. The sample only depends on the file paths and
+ * contents, so the same schema is detected every time.
+ */
+final class DelimitedSchemaSampler {
+  static final String FIRST = "first";
+  static final String RANDOM = "random";
+
+  // number of byte ranges read from each file with the random method
+  private static final int RANGES_PER_FILE = 8;
+  private static final int MAX_THREADS = 8;
+
+  private final Configuration configuration;
+  private final Pattern delimiter;
+  private final String delimiterRegex;
+  private final boolean skipHeader;
+  private final long sampleSize;
+  private final boolean random;
+  private final Map<String, Schema> override;
+
+  /**
+   * @param configuration configuration used to access the files
+   * @param delimiter regular expression splitting the values of a line, as for {@link String#split(String)}
+   * @param skipHeader whether the first line of each file is a header
+   * @param sampleSize maximum number of rows investigated per file
+   * @param method sampling method, either {@link #FIRST} or {@link #RANDOM}
+   * @param override columns with manually specified data types, parsed once for all rows
+   */
+  DelimitedSchemaSampler(Configuration configuration, String delimiter, boolean skipHeader, long sampleSize,
+                         String method, Map<String, Schema> override) {
+    if (sampleSize <= 0) {
+      throw new IllegalArgumentException(String.format("Sample size must be positive, but is %d.", sampleSize));
+    }
+    if (!FIRST.equals(method) && !RANDOM.equals(method)) {
+      throw new IllegalArgumentException(String.format("Invalid sampling method '%s'. Supported methods are '%s' " +
+                                                         "and '%s'.", method, FIRST, RANDOM));
+    }
+    this.configuration = configuration;
+    this.delimiter = Pattern.compile(delimiter);
+    this.delimiterRegex = delimiter;
+    this.skipHeader = skipHeader;
+    this.sampleSize = sampleSize;
+    this.random = RANDOM.equals(method);
+    this.override = override;
+  }
+
+  /**
+   * Samples the given files and detects the data type of each column.
+   *
+   * @param files files to sample, the column names are read from the first one
+   * @return the detected fields
+   */
+  List<Schema.Field> sample(List<Path> files) {
+    DataTypeDetectorStatusKeeper keeper = new DataTypeDetectorStatusKeeper();
+    String[] columnNames = readColumnNames(files.get(0));
+    if (columnNames != null) {
+      if (files.size() == 1) {
+        keeper = sampleFile(files.get(0), columnNames);
+      } else {
+        sampleFiles(files, columnNames, keeper);
+      }
+    }
+    keeper.validateDataTypeDetector();
+    return DataTypeDetectorUtils.detectDataTypeOfEachDatasetColumn(override, columnNames, keeper);
+  }
+
+  private void sampleFiles(List<Path> files, String[] columnNames, DataTypeDetectorStatusKeeper keeper) {
+    ExecutorService executor = Executors.newFixedThreadPool(
+      Math.min(files.size(), MAX_THREADS),
+      new ThreadFactoryBuilder().setNameFormat("delimited-schema-sampler-%d").setDaemon(true).build());
+    try {
+      List<Future<DataTypeDetectorStatusKeeper>> futures = new ArrayList<>(files.size());
+      for (Path file : files) {
+        futures.add(executor.submit(() -> sampleFile(file, columnNames)));
+      }
+      for (Future<DataTypeDetectorStatusKeeper> future : futures) {
+        keeper.merge(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while sampling the files for automated data type detection.", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Nullable
+  private String[] readColumnNames(Path file) {
+    try (BufferedReader reader = open(file)) {
+      String line = reader.readLine();
+      return line == null ? null : DataTypeDetectorUtils.setColumnNames(line, skipHeader, delimiterRegex);
+    } catch (IOException e) {
+      throw new RuntimeException(String.format("Failed to open file at path %s!", file), e);
+    }
+  }
+
+  private DataTypeDetectorStatusKeeper sampleFile(Path file, String[] columnNames) {
+    DataTypeDetectorStatusKeeper keeper = new DataTypeDetectorStatusKeeper();
+    try {
+      if (random) {
+        for (String line : sampleRandomLines(file)) {
+          detect(keeper, columnNames, line);
+        }
+      } else {
+        try (BufferedReader reader = open(file)) {
+          String line;
+          for (long rowIndex = 0; rowIndex < sampleSize && (line = reader.readLine()) != null; rowIndex++) {
+            if (rowIndex > 0 || !skipHeader) {
+              detect(keeper, columnNames, line);
+            }
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(String.format("Failed to open file at path %s!", file), e);
+    }
+    return keeper;
+  }
+
+  /**
+   * Reads up to the sample size of lines from each of the byte ranges of the file, and keeps a uniform sample of
+   * the sample size of them. As for input splits, a line belongs to the range it starts in.
+   */
+  private List<String> sampleRandomLines(Path file) throws IOException {
+    List<String> reservoir = new ArrayList<>();
+    Random rnd = new Random(file.toString().hashCode());
+    long seen = 0;
+    FileSystem fileSystem = file.getFileSystem(configuration);
+    long length = fileSystem.getFileStatus(file).getLen();
+    int ranges = (int) Math.max(1, Math.min(RANGES_PER_FILE, length / 2));
+    Text text = new Text();
+    try (FSDataInputStream input = fileSystem.open(file)) {
+      for (int range = 0; range < ranges; range++) {
+        long start = length * range / ranges;
+        long end = length * (range + 1) / ranges;
+        input.seek(start);
+        LineReader reader = new LineReader(input, configuration);
+        long pos = start;
+        if (start > 0 || skipHeader) {
+          // the partial line belongs to the previous range, the first line of the file is the header
+          pos += reader.readLine(text);
+        }
+        for (long lines = 0; lines < sampleSize && pos <= end; lines++) {
+          int read = reader.readLine(text);
+          if (read == 0) {
+            break;
+          }
+          pos += read;
+          seen++;
+          String line = new String(text.getBytes(), 0, text.getLength(), Charset.defaultCharset());
+          if (reservoir.size() < sampleSize) {
+            reservoir.add(line);
+          } else {
+            long index = (long) (rnd.nextDouble() * seen);
+            if (index < sampleSize) {
+              reservoir.set((int) index, line);
+            }
+          }
+        }
+      }
+    }
+    return reservoir;
+  }
+
+  private void detect(DataTypeDetectorStatusKeeper keeper, String[] columnNames, String line) {
+    DataTypeDetectorUtils.detectDataTypeOfRowValues(override, keeper, columnNames, delimiter.split(line, -1));
+  }
+
+  private BufferedReader open(Path file) throws IOException {
+    FileSystem fileSystem = file.getFileSystem(configuration);
+    return new BufferedReader(new InputStreamReader(fileSystem.open(file)));
+  }
+}
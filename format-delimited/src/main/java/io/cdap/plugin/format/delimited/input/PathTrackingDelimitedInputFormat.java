@@ -16,10 +16,8 @@
 
 package io.cdap.plugin.format.delimited.input;
 
-import com.google.common.base.Splitter;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
-import io.cdap.plugin.common.SchemaValidator;
 import io.cdap.plugin.format.input.PathTrackingInputFormat;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
@@ -30,7 +28,6 @@ import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.lib.input.FileSplit;
 
 import java.io.IOException;
-import java.util.Iterator;
 import javax.annotation.Nullable;
 
 /**
@@ -39,6 +36,7 @@ import javax.annotation.Nullable;
 public class PathTrackingDelimitedInputFormat extends PathTrackingInputFormat {
   static final String DELIMITER = "delimiter";
   static final String SKIP_HEADER = "skip_header";
+  static final String ENABLE_QUOTED_VALUES = "enable_quoted_values";
 
   @Override
   protected RecordReader<NullWritable, StructuredRecord.Builder> createRecordReader(FileSplit split,
@@ -49,6 +47,8 @@ public class PathTrackingDelimitedInputFormat extends PathTrackingInputFormat {
     RecordReader<LongWritable, Text> delegate = getDefaultRecordReaderDelegate(split, context);
     String delimiter = context.getConfiguration().get(DELIMITER);
     boolean skipHeader = context.getConfiguration().getBoolean(SKIP_HEADER, false);
+    boolean quotedValues = context.getConfiguration().getBoolean(ENABLE_QUOTED_VALUES, false);
+    DelimitedRecordParser parser = new DelimitedRecordParser(schema, delimiter, quotedValues);
 
     return new RecordReader<NullWritable, StructuredRecord.Builder>() {
 
@@ -76,41 +76,7 @@ public class PathTrackingDelimitedInputFormat extends PathTrackingInputFormat {
 
       @Override
       public StructuredRecord.Builder getCurrentValue() throws IOException, InterruptedException {
-        String delimitedString = delegate.getCurrentValue().toString();
-
-        StructuredRecord.Builder builder = StructuredRecord.builder(schema);
-        Iterator<Schema.Field> fields = schema.getFields().iterator();
-
-        for (String part : Splitter.on(delimiter).split(delimitedString)) {
-          if (!fields.hasNext()) {
-            int numDataFields = delimitedString.split(delimiter).length;
-            int numSchemaFields = schema.getFields().size();
-            String message = String.format("Found a row with %d fields when the schema only contains %d field%s.",
-                                           numDataFields, numSchemaFields, numSchemaFields == 1 ? "" : "s");
-            // special error handling for the case when the user most likely set the schema to delimited
-            // when they meant to use 'text'.
-            Schema.Field bodyField = schema.getField("body");
-            if (bodyField != null) {
-              Schema bodySchema = bodyField.getSchema();
-              bodySchema = bodySchema.isNullable() ? bodySchema.getNonNullable() : bodySchema;
-              if (bodySchema.getType() == Schema.Type.STRING) {
-                throw new IOException(message + " Did you mean to use the 'text' format?");
-              }
-            }
-            throw new IOException(message + " Check that the schema contains the right number of fields.");
-          }
-
-          Schema.Field nextField = fields.next();
-          if (part.isEmpty()) {
-            builder.set(nextField.getName(), null);
-          } else {
-            String fieldName = nextField.getName();
-            //Ensure if date time field, value is in correct format
-            SchemaValidator.validateDateTimeField(nextField.getSchema(), fieldName, part);
-            builder.convertAndSet(fieldName, part);
-          }
-        }
-        return builder;
+        return parser.parse(delegate.getCurrentValue());
       }
 
       @Override
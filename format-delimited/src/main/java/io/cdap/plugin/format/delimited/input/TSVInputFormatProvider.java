@@ -62,8 +62,11 @@ public class TSVInputFormatProvider extends PathTrackingInputFormatProvider<Deli
 
   @Override
   public void validate(FormatContext context) {
-    Schema schema = super.getSchema(context);
     FailureCollector collector = context.getFailureCollector();
+    conf.validate(collector);
+    // the schema is detected with these properties, so it cannot be detected if they are invalid
+    collector.getOrThrowException();
+    Schema schema = super.getSchema(context);
     if (!conf.containsMacro(PathTrackingConfig.NAME_SCHEMA) && schema == null) {
       collector.addFailure("TSV format cannot be used without specifying a schema.", "Schema must be specified.")
         .withConfigProperty("schema");
@@ -74,5 +77,7 @@ public class TSVInputFormatProvider extends PathTrackingInputFormatProvider<Deli
   protected void addFormatProperties(Map<String, String> properties) {
     properties.put(PathTrackingDelimitedInputFormat.DELIMITER, "\t");
     properties.put(PathTrackingDelimitedInputFormat.SKIP_HEADER, String.valueOf(conf.getSkipHeader()));
+    properties.put(PathTrackingDelimitedInputFormat.ENABLE_QUOTED_VALUES,
+                   String.valueOf(conf.getEnableQuotedValues()));
   }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.format.delimited.input;
+
+import com.google.common.base.Splitter;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.apache.hadoop.io.Text;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Tests for {@link DelimitedRecordParser}.
+ */
+public class DelimitedRecordParserTest {
+  private static final Schema SCHEMA = Schema.recordOf(
+    "record",
+    Schema.Field.of("boolean", Schema.nullableOf(Schema.of(Schema.Type.BOOLEAN))),
+    Schema.Field.of("int", Schema.nullableOf(Schema.of(Schema.Type.INT))),
+    Schema.Field.of("long", Schema.nullableOf(Schema.of(Schema.Type.LONG))),
+    Schema.Field.of("double", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))),
+    Schema.Field.of("string", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("float", Schema.nullableOf(Schema.of(Schema.Type.FLOAT))));
+
+  @Test
+  public void testSameValuesAsSplitting() throws Exception {
+    String[] lines = {
+      "true,1,2,3.5,a,1.25",
+      "TRUE,+10,-9223372036854775808,1e3,x \"b\",",
+      "yes,2147483647,9223372036854775807,-0.0,,",
+      ",-2147483648,0012,NaN,\"c;d\"",
+      "",
+      "false,١٢"
+    };
+    for (String delimiter : new String[] { ",", "::", "é" }) {
+      DelimitedRecordParser parser = new DelimitedRecordParser(SCHEMA, delimiter, false);
+      for (String line : lines) {
+        line = line.replace(",", delimiter);
+        Assert.assertEquals(line, split(line, delimiter), parser.parse(new Text(line)).build());
+      }
+    }
+  }
+
+  @Test
+  public void testQuotedValues() throws Exception {
+    DelimitedRecordParser parser = new DelimitedRecordParser(SCHEMA, ",", true);
+    StructuredRecord record = parser.parse(new Text("\"true\",1,\"2\",,\"a, \"\"b\"\",\nc\",\"\"")).build();
+    Assert.assertTrue(record.<Boolean>get("boolean"));
+    Assert.assertEquals(1, record.<Integer>get("int").intValue());
+    Assert.assertEquals(2L, record.<Long>get("long").longValue());
+    Assert.assertNull(record.get("double"));
+    Assert.assertEquals("a, \"b\",\nc", record.get("string"));
+    Assert.assertNull(record.get("float"));
+
+    // quotes that do not start a value are part of it
+    parser = new DelimitedRecordParser(SCHEMA, "::", true);
+    record = parser.parse(new Text("::::::::a \"b\"::\"1.5\"")).build();
+    Assert.assertEquals("a \"b\"", record.get("string"));
+    Assert.assertEquals(1.5f, record.<Float>get("float"), 0f);
+  }
+
+  @Test
+  public void testUnclosedQuotedValue() {
+    DelimitedRecordParser parser = new DelimitedRecordParser(SCHEMA, ",", true);
+    for (String line : new String[] { "true,1,2,3,\"a", "true,1,2,3,\"a\"b\"", "true,1,2,3,\"a\"\"" }) {
+      try {
+        parser.parse(new Text(line));
+        Assert.fail("Expected the quoted value of '" + line + "' to be rejected.");
+      } catch (IOException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testTooManyValues() {
+    DelimitedRecordParser parser = new DelimitedRecordParser(SCHEMA, "|", true);
+    try {
+      parser.parse(new Text("true|1|2|3|a|1|\"b|c\"|d|"));
+      Assert.fail("Expected too many values to be rejected.");
+    } catch (IOException e) {
+      Assert.assertEquals("Found a row with 9 fields when the schema only contains 6 fields. " +
+                            "Check that the schema contains the right number of fields.", e.getMessage());
+    }
+  }
+
+  // how lines used to be read, splitting the decoded line and converting every value with the builder
+  private static StructuredRecord split(String line, String delimiter) {
+    StructuredRecord.Builder builder = StructuredRecord.builder(SCHEMA);
+    Iterator<Schema.Field> fields = SCHEMA.getFields().iterator();
+    for (String part : Splitter.on(delimiter).split(line)) {
+      String name = fields.next().getName();
+      if (part.isEmpty()) {
+        builder.set(name, null);
+      } else {
+        builder.convertAndSet(name, part);
+      }
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.format.delimited.input;
+
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for {@link DelimitedSchemaSampler}.
+ */
+public class DelimitedSchemaSamplerTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testFirstRows() throws Exception {
+    Path file = write("id,name,score", "1,a,1.5", "2,b,", "x,c,2.5");
+    Assert.assertEquals(Arrays.asList(Schema.Field.of("id", Schema.of(Schema.Type.INT)),
+                                      Schema.Field.of("name", Schema.of(Schema.Type.STRING)),
+                                      Schema.Field.of("score", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE)))),
+                        sample(true, 3, DelimitedSchemaSampler.FIRST, Collections.emptyMap(), file));
+  }
+
+  @Test
+  public void testMergedFiles() throws Exception {
+    Path first = write("1,true", "2,false");
+    Path second = write("3.5,true", "4,");
+    Assert.assertEquals(Arrays.asList(Schema.Field.of("body_0", Schema.of(Schema.Type.DOUBLE)),
+                                      Schema.Field.of("body_1", Schema.nullableOf(Schema.of(Schema.Type.BOOLEAN)))),
+                        sample(false, 10, DelimitedSchemaSampler.FIRST, Collections.emptyMap(), first, second));
+  }
+
+  @Test
+  public void testOverride() throws Exception {
+    Path first = write("id,name", "1,a");
+    Path second = write("id,name", "2,b");
+    Map<String, Schema> override = ImmutableMap.of("id", Schema.of(Schema.Type.STRING));
+    Assert.assertEquals(Arrays.asList(Schema.Field.of("id", Schema.of(Schema.Type.STRING)),
+                                      Schema.Field.of("name", Schema.of(Schema.Type.STRING))),
+                        sample(true, 10, DelimitedSchemaSampler.FIRST, override, first, second));
+  }
+
+  @Test
+  public void testRandomRows() throws Exception {
+    // a file sorted so that the last rows are the only ones with a string value, which the first rows never reach
+    List<String> lines = new ArrayList<>();
+    lines.add("id,value");
+    for (int i = 0; i < 1100; i++) {
+      lines.add(i + "," + (i < 1000 ? String.valueOf(i) : "text" + i));
+    }
+    Path file = write(lines.toArray(new String[0]));
+
+    Assert.assertEquals(Schema.Field.of("value", Schema.of(Schema.Type.INT)),
+                        sample(true, 150, DelimitedSchemaSampler.FIRST, Collections.emptyMap(), file).get(1));
+    List<Schema.Field> fields = sample(true, 150, DelimitedSchemaSampler.RANDOM, Collections.emptyMap(), file);
+    Assert.assertEquals(Schema.Field.of("id", Schema.of(Schema.Type.INT)), fields.get(0));
+    Assert.assertEquals(Schema.Field.of("value", Schema.of(Schema.Type.STRING)), fields.get(1));
+    // the sample only depends on the file
+    Assert.assertEquals(fields, sample(true, 150, DelimitedSchemaSampler.RANDOM, Collections.emptyMap(), file));
+  }
+
+  @Test
+  public void testRandomRowsSkipHeader() throws Exception {
+    Path file = write("id", "1", "2", "3");
+    Assert.assertEquals(Collections.singletonList(Schema.Field.of("id", Schema.of(Schema.Type.INT))),
+                        sample(true, 10, DelimitedSchemaSampler.RANDOM, Collections.emptyMap(), file));
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testEmptyFile() throws Exception {
+    sample(false, 10, DelimitedSchemaSampler.FIRST, Collections.emptyMap(), write());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidMethod() {
+    new DelimitedSchemaSampler(new Configuration(), ",", false, 10, "last", Collections.emptyMap());
+  }
+
+  private static List<Schema.Field> sample(boolean skipHeader, long sampleSize, String method,
+                                           Map<String, Schema> override, Path... files) {
+    return new DelimitedSchemaSampler(new Configuration(), ",", skipHeader, sampleSize, method, override)
+      .sample(Arrays.asList(files));
+  }
+
+  private static Path write(String... lines) throws IOException {
+    File file = TEMP_FOLDER.newFile();
+    Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+    return new Path(file.toURI());
+  }
+}
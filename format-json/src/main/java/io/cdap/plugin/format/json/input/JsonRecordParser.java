@@ -0,0 +1,312 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.format.json.input;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.format.StructuredRecordStringConverter;
+import io.cdap.plugin.common.SchemaValidator;
+import org.apache.hadoop.io.Text;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.MalformedInputException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Parses lines that contain a JSON object into records.
+ *
+ * When every field of the schema has a simple type, the tokens of a line are read from its UTF-8 bytes straight into
+ * the record builder, through a table of the fields resolved once from the schema. Properties that are not fields of
+ * the schema are skipped without being decoded. A line is decoded into an intermediate record with
+ * {@link StructuredRecordStringConverter} instead when the schema has other types, and when a line has a value that
+ * does not match the type of its field, misses a non-nullable field or is not strict JSON, so that such lines are
+ * read, or fail, exactly as they always have.
+ */
+final class JsonRecordParser {
+  // returned when a value has to be decoded by the converter
+  private static final Object UNSUPPORTED = new Object();
+
+  private final Schema schema;
+  private final Schema decodingSchema;
+  private final List<Schema.Field> fields;
+  private final String pathField;
+  // fields by name, null if the schema has types that are not read from the tokens directly
+  private final Map<String, FieldReader> fieldReaders;
+  private final boolean[] found;
+  private final Utf8Reader utf8Reader = new Utf8Reader();
+
+  /**
+   * @param schema schema of the records
+   * @param pathField field that is set to the path of the file after parsing, null if there is none
+   */
+  JsonRecordParser(Schema schema, @Nullable String pathField) {
+    this.schema = schema;
+    this.decodingSchema = getModifiedSchema(schema, pathField);
+    this.fields = schema.getFields();
+    this.pathField = pathField;
+    this.found = new boolean[fields.size()];
+    this.fieldReaders = createFieldReaders(fields);
+  }
+
+  /**
+   * Parses a line into a record builder.
+   */
+  StructuredRecord.Builder parse(Text line) throws IOException {
+    if (fieldReaders != null) {
+      StructuredRecord.Builder builder = read(line);
+      if (builder != null) {
+        return builder;
+      }
+    }
+    StructuredRecord record = StructuredRecordStringConverter.fromJsonString(line.toString(), decodingSchema);
+    StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+    for (Schema.Field field : fields) {
+      Object value = record.get(field.getName());
+      SchemaValidator.validateDateTimeField(field.getSchema(), field.getName(), value);
+      builder.set(field.getName(), value);
+    }
+    return builder;
+  }
+
+  /**
+   * Reads the tokens of a line into a builder.
+   *
+   * @return the builder, or null if the line has to be decoded by the converter
+   */
+  @Nullable
+  private StructuredRecord.Builder read(Text line) {
+    Arrays.fill(found, false);
+    utf8Reader.reset(line.getBytes(), line.getLength());
+    StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+    try (JsonReader reader = new JsonReader(utf8Reader)) {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        FieldReader fieldReader = fieldReaders.get(reader.nextName());
+        if (fieldReader == null) {
+          reader.skipValue();
+          continue;
+        }
+        Object value = fieldReader.read(reader);
+        if (value == UNSUPPORTED) {
+          return null;
+        }
+        if (value != null && fieldReader.dateTime) {
+          SchemaValidator.validateDateTimeField(fieldReader.field.getSchema(), fieldReader.field.getName(), value);
+        }
+        builder.set(fieldReader.field.getName(), value);
+        found[fieldReader.index] = true;
+      }
+      reader.endObject();
+      if (reader.peek() != JsonToken.END_DOCUMENT) {
+        return null;
+      }
+    } catch (IOException | IllegalStateException | NumberFormatException e) {
+      // let the converter report the error
+      return null;
+    }
+    for (int i = 0; i < found.length; i++) {
+      Schema.Field field = fields.get(i);
+      if (!found[i] && !field.getSchema().isNullable() && !field.getName().equals(pathField)) {
+        return null;
+      }
+    }
+    return builder;
+  }
+
+  @Nullable
+  private static Map<String, FieldReader> createFieldReaders(List<Schema.Field> fields) {
+    Map<String, FieldReader> fieldReaders = new HashMap<>();
+    for (int i = 0; i < fields.size(); i++) {
+      Schema.Field field = fields.get(i);
+      Schema fieldSchema = field.getSchema().isNullable() ? field.getSchema().getNonNullable() : field.getSchema();
+      switch (fieldSchema.getType()) {
+        case BOOLEAN:
+        case INT:
+        case LONG:
+        case FLOAT:
+        case DOUBLE:
+        case STRING:
+          fieldReaders.put(field.getName(), new FieldReader(i, field, fieldSchema));
+          break;
+        default:
+          return null;
+      }
+    }
+    return fieldReaders;
+  }
+
+  private static Schema getModifiedSchema(Schema schema, @Nullable String pathField) {
+    // if the path field is set, it might not be nullable
+    // if it's not nullable, decoding a string into a StructuredRecord will fail because a non-nullable
+    // field will have a null value.
+    // so in these cases, a modified schema is used where the path field is nullable
+    if (pathField == null) {
+      return schema;
+    }
+    List<Schema.Field> fieldCopies = new ArrayList<>(schema.getFields().size());
+    for (Schema.Field field : schema.getFields()) {
+      if (field.getName().equals(pathField) && !field.getSchema().isNullable()) {
+        fieldCopies.add(Schema.Field.of(field.getName(), Schema.nullableOf(field.getSchema())));
+      } else {
+        fieldCopies.add(field);
+      }
+    }
+    return Schema.recordOf(schema.getRecordName(), fieldCopies);
+  }
+
+  /**
+   * Reads the value of a field of a simple type, the same way as the converter does for the tokens it expects.
+   */
+  private static final class FieldReader {
+    private final int index;
+    private final Schema.Field field;
+    private final Schema.Type type;
+    private final boolean nullable;
+    private final boolean dateTime;
+
+    private FieldReader(int index, Schema.Field field, Schema nonNullableSchema) {
+      this.index = index;
+      this.field = field;
+      this.type = nonNullableSchema.getType();
+      this.nullable = field.getSchema().isNullable();
+      this.dateTime = nonNullableSchema.getLogicalType() == Schema.LogicalType.DATETIME;
+    }
+
+    @Nullable
+    private Object read(JsonReader reader) throws IOException {
+      JsonToken token = reader.peek();
+      if (token == JsonToken.NULL) {
+        if (!nullable) {
+          return UNSUPPORTED;
+        }
+        reader.nextNull();
+        return null;
+      }
+      switch (type) {
+        case BOOLEAN:
+          return token == JsonToken.BOOLEAN ? reader.nextBoolean() : UNSUPPORTED;
+        case INT:
+          return token == JsonToken.NUMBER ? reader.nextInt() : UNSUPPORTED;
+        case LONG:
+          return token == JsonToken.NUMBER ? reader.nextLong() : UNSUPPORTED;
+        case FLOAT:
+          return token == JsonToken.NUMBER ? (float) reader.nextDouble() : UNSUPPORTED;
+        case DOUBLE:
+          return token == JsonToken.NUMBER ? reader.nextDouble() : UNSUPPORTED;
+        case STRING:
+          return token == JsonToken.STRING ? reader.nextString() : UNSUPPORTED;
+        default:
+          return UNSUPPORTED;
+      }
+    }
+  }
+
+  /**
+   * Reads the characters of UTF-8 bytes, without copying them. Malformed bytes fail the read, so that the line is
+   * decoded by the converter, which replaces them.
+   */
+  private static final class Utf8Reader extends Reader {
+    private byte[] bytes;
+    private int length;
+    private int position;
+    // second half of a surrogate pair that did not fit in the last read, 0 if there is none
+    private char pending;
+
+    void reset(byte[] bytes, int length) {
+      this.bytes = bytes;
+      this.length = length;
+      this.position = 0;
+      this.pending = 0;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int count) throws IOException {
+      if (count == 0) {
+        return 0;
+      }
+      if (pending == 0 && position >= length) {
+        return -1;
+      }
+      int end = offset + count;
+      int i = offset;
+      if (pending != 0) {
+        buffer[i++] = pending;
+        pending = 0;
+      }
+      while (i < end && position < length) {
+        int b = bytes[position];
+        if (b >= 0) {
+          buffer[i++] = (char) b;
+          position++;
+        } else if ((b & 0xE0) == 0xC0) {
+          int c = ((b & 0x1F) << 6) | continuation(1);
+          if (c < 0x80) {
+            throw malformed();
+          }
+          buffer[i++] = (char) c;
+          position += 2;
+        } else if ((b & 0xF0) == 0xE0) {
+          int c = ((b & 0x0F) << 12) | (continuation(1) << 6) | continuation(2);
+          if (c < 0x800 || Character.isSurrogate((char) c)) {
+            throw malformed();
+          }
+          buffer[i++] = (char) c;
+          position += 3;
+        } else if ((b & 0xF8) == 0xF0) {
+          int c = ((b & 0x07) << 18) | (continuation(1) << 12) | (continuation(2) << 6) | continuation(3);
+          if (c < 0x10000 || c > Character.MAX_CODE_POINT) {
+            throw malformed();
+          }
+          buffer[i++] = Character.highSurrogate(c);
+          if (i < end) {
+            buffer[i++] = Character.lowSurrogate(c);
+          } else {
+            pending = Character.lowSurrogate(c);
+          }
+          position += 4;
+        } else {
+          throw malformed();
+        }
+      }
+      return i - offset;
+    }
+
+    private int continuation(int index) throws MalformedInputException {
+      if (position + index >= length || (bytes[position + index] & 0xC0) != 0x80) {
+        throw malformed();
+      }
+      return bytes[position + index] & 0x3F;
+    }
+
+    private MalformedInputException malformed() {
+      return new MalformedInputException(1);
+    }
+
+    @Override
+    public void close() {
+      // nothing to release, the bytes belong to the line
+    }
+  }
+}
@@ -18,8 +18,6 @@ package io.cdap.plugin.format.json.input;
 
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
-import io.cdap.cdap.format.StructuredRecordStringConverter;
-import io.cdap.plugin.common.SchemaValidator;
 import io.cdap.plugin.format.input.PathTrackingInputFormat;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
@@ -30,8 +28,6 @@ import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.lib.input.FileSplit;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 import javax.annotation.Nullable;
 
 /**
@@ -39,34 +35,13 @@ import javax.annotation.Nullable;
  */
 public class PathTrackingJsonInputFormat extends PathTrackingInputFormat {
 
-
-  private Schema getModifiedSchema(Schema schema, @Nullable String pathField) {
-    // if the path field is set, it might not be nullable
-    // if it's not nullable, decoding a string into a StructuredRecord will fail because a non-nullable
-    // field will have a null value.
-    // so in these cases, a modified schema is used where the path field is nullable
-    if (pathField == null) {
-      return schema;
-    }
-    List<Schema.Field> fieldCopies = new ArrayList<>(schema.getFields().size());
-    for (Schema.Field field : schema.getFields()) {
-      if (field.getName().equals(pathField) && !field.getSchema().isNullable()) {
-        fieldCopies.add(Schema.Field.of(field.getName(), Schema.nullableOf(field.getSchema())));
-      } else {
-        fieldCopies.add(field);
-      }
-    }
-    return Schema.recordOf(schema.getRecordName(), fieldCopies);
-  }
-
-
   @Override
   protected RecordReader<NullWritable, StructuredRecord.Builder> createRecordReader(FileSplit split,
                                                                                     TaskAttemptContext context,
                                                                                     @Nullable String pathField,
                                                                                     @Nullable Schema schema) {
     RecordReader<LongWritable, Text> delegate = getDefaultRecordReaderDelegate(split, context);
-    Schema modifiedSchema = getModifiedSchema(schema, pathField);
+    JsonRecordParser parser = new JsonRecordParser(schema, pathField);
 
     return new RecordReader<NullWritable, StructuredRecord.Builder>() {
 
@@ -87,15 +62,7 @@ public class PathTrackingJsonInputFormat extends PathTrackingInputFormat {
 
       @Override
       public StructuredRecord.Builder getCurrentValue() throws IOException, InterruptedException {
-        String json = delegate.getCurrentValue().toString();
-        StructuredRecord record = StructuredRecordStringConverter.fromJsonString(json, modifiedSchema);
-        StructuredRecord.Builder builder = StructuredRecord.builder(schema);
-        for (Schema.Field field : schema.getFields()) {
-          Object value = record.get(field.getName());
-          SchemaValidator.validateDateTimeField(field.getSchema(), field.getName(), value);
-          builder.set(field.getName(), value);
-        }
-        return builder;
+        return parser.parse(delegate.getCurrentValue());
       }
 
       @Override
@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.format.json.input;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.format.UnexpectedFormatException;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.apache.hadoop.io.Text;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Tests for {@link JsonRecordParser}.
+ */
+public class JsonRecordParserTest {
+  private static final Schema SCHEMA = Schema.recordOf(
+    "event",
+    Schema.Field.of("id", Schema.of(Schema.Type.LONG)),
+    Schema.Field.of("name", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("count", Schema.nullableOf(Schema.of(Schema.Type.INT))),
+    Schema.Field.of("score", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))),
+    Schema.Field.of("valid", Schema.nullableOf(Schema.of(Schema.Type.BOOLEAN))),
+    Schema.Field.of("time", Schema.nullableOf(Schema.of(Schema.LogicalType.DATETIME))),
+    Schema.Field.of("path", Schema.of(Schema.Type.STRING)));
+
+  @Test
+  public void testSimpleSchema() throws Exception {
+    JsonRecordParser parser = new JsonRecordParser(SCHEMA, "path");
+    String line = "{\"id\": 1, \"name\": \"é \\\"😀\\\"\", \"unknown\": {\"nested\": [1, {\"a\": null}]}, " +
+      "\"count\": 2, \"score\": 1.5, \"valid\": true, \"time\": \"2021-01-01T10:00:00\"}";
+    StructuredRecord expected = StructuredRecord.builder(SCHEMA)
+      .set("id", 1L)
+      .set("name", "é \"😀\"")
+      .set("count", 2)
+      .set("score", 1.5d)
+      .set("valid", true)
+      .set("time", "2021-01-01T10:00:00")
+      .set("path", "file")
+      .build();
+    Assert.assertEquals(expected, parser.parse(new Text(line)).set("path", "file").build());
+
+    // missing and null nullable fields, the last duplicate wins
+    expected = StructuredRecord.builder(SCHEMA).set("id", 3L).set("path", "file").build();
+    Assert.assertEquals(expected, parser.parse(new Text("{\"id\": 2, \"name\": null, \"id\": 3}"))
+      .set("path", "file").build());
+  }
+
+  @Test
+  public void testComplexSchema() throws Exception {
+    Schema schema = Schema.recordOf("event",
+                                    Schema.Field.of("id", Schema.of(Schema.Type.LONG)),
+                                    Schema.Field.of("tags", Schema.arrayOf(Schema.of(Schema.Type.STRING))));
+    JsonRecordParser parser = new JsonRecordParser(schema, null);
+    StructuredRecord record = parser.parse(new Text("{\"id\": 1, \"tags\": [\"a\", \"b\"], \"other\": 2}")).build();
+    Assert.assertEquals(1L, record.<Long>get("id").longValue());
+    Assert.assertEquals(Arrays.asList("a", "b"), record.get("tags"));
+  }
+
+  @Test(expected = UnexpectedFormatException.class)
+  public void testInvalidDateTime() throws Exception {
+    new JsonRecordParser(SCHEMA, "path").parse(new Text("{\"id\": 1, \"time\": \"yesterday\"}"));
+  }
+}
@@ -16,14 +16,23 @@
 
 package io.cdap.plugin.common.http;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
 import io.cdap.cdap.api.annotation.Description;
+import io.cdap.cdap.api.annotation.Macro;
 import io.cdap.cdap.api.annotation.Name;
 import io.cdap.cdap.etl.api.FailureCollector;
 import io.cdap.plugin.common.Constants;
 
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.nio.charset.Charset;
 import java.nio.charset.UnsupportedCharsetException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import javax.annotation.Nullable;
 
 /**
@@ -33,6 +42,12 @@ public class HTTPPollConfig extends HTTPConfig {
   private static final String NAME_INTERVAL = "interval";
   private static final String NAME_READ_TIMEOUT = "readTimeout";
   private static final String NAME_CHARSET = "charset";
+  private static final String NAME_ADDITIONAL_URLS = "additionalUrls";
+  private static final String NAME_MAX_CONCURRENT_REQUESTS = "maxConcurrentRequests";
+  private static final String NAME_CONDITIONAL_REQUESTS = "conditionalRequests";
+  private static final String NAME_MAX_BODY_SIZE = "maxBodySize";
+  private static final String URL_DELIMITER = "\n";
+  private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 10;
 
   @Name(Constants.Reference.REFERENCE_NAME)
   @Description(Constants.Reference.REFERENCE_NAME_DESCRIPTION)
@@ -52,6 +67,30 @@ public class HTTPPollConfig extends HTTPConfig {
   @Nullable
   private Integer readTimeout;
 
+  @Name(NAME_ADDITIONAL_URLS)
+  @Description("Additional URLs to fetch data from, one per line. Every URL is polled on its own at the same " +
+    "interval and with the same settings as the main URL.")
+  @Nullable
+  @Macro
+  private String additionalUrls;
+
+  @Name(NAME_MAX_CONCURRENT_REQUESTS)
+  @Description("The maximum number of URLs that are requested at the same time. Defaults to 10.")
+  @Nullable
+  private Integer maxConcurrentRequests;
+
+  @Name(NAME_CONDITIONAL_REQUESTS)
+  @Description("Whether to send the ETag and Last-Modified headers of the previous response of a URL with the " +
+    "next request, so that responses that did not change since are not emitted again. Defaults to false.")
+  @Nullable
+  private Boolean conditionalRequests;
+
+  @Name(NAME_MAX_BODY_SIZE)
+  @Description("The maximum size of a response body in bytes. Larger responses are not emitted and logged as " +
+    "errors instead. No limit by default.")
+  @Nullable
+  private Long maxBodySize;
+
   public HTTPPollConfig() {
     this("", null, 60);
   }
@@ -68,6 +107,17 @@ public class HTTPPollConfig extends HTTPConfig {
     this.referenceName = referenceName;
   }
 
+  @VisibleForTesting
+  HTTPPollConfig(String referenceName, String url, long interval, @Nullable String additionalUrls,
+                 @Nullable Integer maxConcurrentRequests, @Nullable Boolean conditionalRequests,
+                 @Nullable Long maxBodySize) {
+    this(referenceName, url, interval);
+    this.additionalUrls = additionalUrls;
+    this.maxConcurrentRequests = maxConcurrentRequests;
+    this.conditionalRequests = conditionalRequests;
+    this.maxBodySize = maxBodySize;
+  }
+
   public long getInterval() {
     return interval;
   }
@@ -80,6 +130,40 @@ public class HTTPPollConfig extends HTTPConfig {
     return readTimeout;
   }
 
+  /**
+   * @return the URL and the additional URLs to poll, without duplicates
+   */
+  public List<String> getUrls() {
+    Set<String> urls = new LinkedHashSet<>();
+    urls.add(getUrl());
+    urls.addAll(getAdditionalUrls());
+    return new ArrayList<>(urls);
+  }
+
+  private List<String> getAdditionalUrls() {
+    List<String> urls = new ArrayList<>();
+    if (!Strings.isNullOrEmpty(additionalUrls)) {
+      for (String url : additionalUrls.split(URL_DELIMITER)) {
+        if (!url.trim().isEmpty()) {
+          urls.add(url.trim());
+        }
+      }
+    }
+    return urls;
+  }
+
+  public int getMaxConcurrentRequests() {
+    return maxConcurrentRequests == null ? DEFAULT_MAX_CONCURRENT_REQUESTS : maxConcurrentRequests;
+  }
+
+  public boolean shouldUseConditionalRequests() {
+    return conditionalRequests != null && conditionalRequests;
+  }
+
+  public long getMaxBodySize() {
+    return maxBodySize == null ? Long.MAX_VALUE : maxBodySize;
+  }
+
   @SuppressWarnings("ConstantConditions")
   public void validate() {
     super.validate();
@@ -96,6 +180,14 @@ public class HTTPPollConfig extends HTTPConfig {
     } catch (UnsupportedCharsetException e) {
       throw new IllegalArgumentException(String.format("Invalid charset %s.", charset));
     }
+    if (maxConcurrentRequests != null && maxConcurrentRequests <= 0) {
+      throw new IllegalArgumentException(String.format(
+        "Invalid maxConcurrentRequests %d. It must be greater than 0.", maxConcurrentRequests));
+    }
+    if (maxBodySize != null && maxBodySize <= 0) {
+      throw new IllegalArgumentException(String.format(
+        "Invalid maxBodySize %d. It must be greater than 0.", maxBodySize));
+    }
   }
 
   public void validate(FailureCollector collector) {
@@ -116,5 +208,27 @@ public class HTTPPollConfig extends HTTPConfig {
                            "Supported character sets are : ISO-8859-1, US-ASCII, UTF-8, UTF-16, UTF-16BE, UTF-16LE")
         .withConfigProperty(NAME_CHARSET);
     }
+
+    if (!containsMacro(NAME_ADDITIONAL_URLS)) {
+      for (String url : getAdditionalUrls()) {
+        try {
+          new URL(url);
+        } catch (MalformedURLException e) {
+          collector.addFailure(String.format("URL '%s' is malformed: %s", url, e.getMessage()), "Specify a valid url.")
+            .withConfigElement(NAME_ADDITIONAL_URLS, url);
+        }
+      }
+    }
+
+    if (maxConcurrentRequests != null && maxConcurrentRequests <= 0) {
+      collector.addFailure(String.format("Invalid maxConcurrentRequests '%d'.", maxConcurrentRequests),
+                           "Maximum concurrent requests must be greater than 0.")
+        .withConfigProperty(NAME_MAX_CONCURRENT_REQUESTS);
+    }
+
+    if (maxBodySize != null && maxBodySize <= 0) {
+      collector.addFailure(String.format("Invalid maxBodySize '%d'.", maxBodySize),
+                           "Maximum body size must be greater than 0.").withConfigProperty(NAME_MAX_BODY_SIZE);
+    }
   }
 }
@@ -16,23 +16,28 @@
 
 package io.cdap.plugin.common.http;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
-import com.google.common.io.CharStreams;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * Utility code for performing a get request and formatting it as a StructuredRecord.
+ *
+ * Connections are not closed after a response was read, so that the JVM can keep them alive and reuse them for
+ * the next requests to the same host. The validators of the last successful response are kept for conditional
+ * requests, so an instance should only be used by one thread at a time.
  */
 public class HTTPRequestor {
   public static final Schema SCHEMA = Schema.recordOf(
@@ -43,16 +48,46 @@ public class HTTPRequestor {
     Schema.Field.of("headers", Schema.mapOf(Schema.of(Schema.Type.STRING), Schema.of(Schema.Type.STRING))),
     Schema.Field.of("body", Schema.of(Schema.Type.STRING))
   );
+  private static final int BUFFER_SIZE = 8192;
+  // the Content-Length header is only trusted up to this size, larger bodies grow the buffer as they are read
+  private static final int MAX_INITIAL_CAPACITY = 1024 * 1024;
+
   private final HTTPPollConfig config;
+  private final String url;
+  private String etag;
+  private String lastModified;
 
   public HTTPRequestor(HTTPPollConfig config) {
+    this(config, config.getUrl());
+  }
+
+  public HTTPRequestor(HTTPPollConfig config, String url) {
     this.config = config;
+    this.url = url;
+  }
+
+  public String getUrl() {
+    return url;
   }
 
   public StructuredRecord get() throws IOException {
-    URL url = new URL(config.getUrl());
-    String response = "";
-    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    return request(false);
+  }
+
+  /**
+   * Performs a get request that is conditional on the ETag and Last-Modified headers of the previous successful
+   * response, if it had any.
+   *
+   * @return the response, or null if the server responded that it did not change since the previous response
+   */
+  @Nullable
+  public StructuredRecord getIfModified() throws IOException {
+    return request(true);
+  }
+
+  @Nullable
+  private StructuredRecord request(boolean conditional) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
     connection.setRequestMethod("GET");
     connection.setConnectTimeout(config.getConnectTimeout());
     connection.setReadTimeout(config.getReadTimeout());
@@ -61,19 +96,36 @@ public class HTTPRequestor {
     for (Map.Entry<String, String> requestHeader : config.getRequestHeadersMap().entrySet()) {
       connection.setRequestProperty(requestHeader.getKey(), requestHeader.getValue());
     }
-    int responseCode = connection.getResponseCode();
+    if (conditional && etag != null) {
+      connection.setRequestProperty("If-None-Match", etag);
+    }
+    if (conditional && lastModified != null) {
+      connection.setRequestProperty("If-Modified-Since", lastModified);
+    }
+
+    int responseCode;
+    String response = "";
     try {
-      if (connection.getErrorStream() != null) {
-        try (Reader reader = new InputStreamReader(connection.getErrorStream(), config.getCharset())) {
-          response = CharStreams.toString(reader);
-        }
-      } else if (connection.getInputStream() != null) {
-        try (Reader reader = new InputStreamReader(connection.getInputStream(), config.getCharset())) {
-          response = CharStreams.toString(reader);
+      responseCode = connection.getResponseCode();
+      InputStream body = connection.getErrorStream() != null ? connection.getErrorStream() :
+        connection.getInputStream();
+      if (body != null) {
+        // reading the body to the end and closing the stream lets the connection be reused
+        try (InputStream input = body) {
+          response = new String(readBody(input, connection.getContentLengthLong()), config.getCharset());
         }
       }
-    } finally {
+    } catch (IOException e) {
       connection.disconnect();
+      throw e;
+    }
+
+    if (conditional && responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+      return null;
+    }
+    if (responseCode >= 200 && responseCode < 300) {
+      etag = connection.getHeaderField("ETag");
+      lastModified = connection.getHeaderField("Last-Modified");
     }
 
     Map<String, List<String>> headers = connection.getHeaderFields();
@@ -87,13 +139,36 @@ public class HTTPRequestor {
     return createStructuredRecord(response, flattenedHeaders, responseCode);
   }
 
+  @VisibleForTesting
+  byte[] readBody(InputStream input, long contentLength) throws IOException {
+    long maxBodySize = config.getMaxBodySize();
+    if (contentLength > maxBodySize) {
+      throw new IOException(String.format("Response of %d bytes from %s exceeds the maximum body size of %d bytes.",
+                                          contentLength, url, maxBodySize));
+    }
+    ByteArrayOutputStream output = new ByteArrayOutputStream(
+      contentLength > 0 ? (int) Math.min(contentLength, MAX_INITIAL_CAPACITY) : BUFFER_SIZE);
+    byte[] buffer = new byte[BUFFER_SIZE];
+    long size = 0;
+    int length;
+    while ((length = input.read(buffer)) != -1) {
+      size += length;
+      if (size > maxBodySize) {
+        throw new IOException(String.format("Response from %s exceeds the maximum body size of %d bytes.",
+                                            url, maxBodySize));
+      }
+      output.write(buffer, 0, length);
+    }
+    return output.toByteArray();
+  }
+
   private StructuredRecord createStructuredRecord(String response,
                                                   Map<String, String> headerFields,
                                                   int responseCode) {
     StructuredRecord.Builder recordBuilder = StructuredRecord.builder(SCHEMA);
     recordBuilder
       .set("ts", System.currentTimeMillis())
-      .set("url", config.getUrl())
+      .set("url", url)
       .set("responseCode", responseCode)
       .set("headers", headerFields)
       .set("body", response);
@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.common.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tests for {@link HTTPRequestor}, against an embedded http server.
+ */
+public class HTTPRequestorTest {
+  private static final String ETAG = "\"v1\"";
+  private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+  private HttpServer server;
+  private String base;
+  private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+  @Before
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/etag", exchange -> {
+      exchange.getResponseHeaders().add("ETag", ETAG);
+      respond(exchange, ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match")), "etag body");
+    });
+    server.createContext("/modified", exchange -> {
+      exchange.getResponseHeaders().add("Last-Modified", LAST_MODIFIED);
+      respond(exchange, LAST_MODIFIED.equals(exchange.getRequestHeaders().getFirst("If-Modified-Since")),
+              "modified body");
+    });
+    server.createContext("/plain", exchange -> respond(exchange, false, "plain body"));
+    server.start();
+    base = "http://localhost:" + server.getAddress().getPort();
+  }
+
+  @After
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  public void testConditionalRequestWithETag() throws IOException {
+    HTTPRequestor requestor = new HTTPRequestor(config(null, null), base + "/etag");
+    StructuredRecord record = requestor.getIfModified();
+    Assert.assertNotNull(record);
+    Assert.assertEquals("etag body", record.get("body"));
+    Assert.assertEquals(base + "/etag", record.get("url"));
+    Assert.assertNull(requestor.getIfModified());
+    // unconditional requests always return the response
+    Assert.assertEquals("etag body", requestor.get().get("body"));
+  }
+
+  @Test
+  public void testConditionalRequestWithLastModified() throws IOException {
+    HTTPRequestor requestor = new HTTPRequestor(config(null, null), base + "/modified");
+    Assert.assertEquals("modified body", requestor.getIfModified().get("body"));
+    Assert.assertNull(requestor.getIfModified());
+  }
+
+  @Test
+  public void testConnectionReuse() throws IOException {
+    HTTPRequestor requestor = new HTTPRequestor(config(null, null), base + "/plain");
+    for (int i = 0; i < 5; i++) {
+      StructuredRecord record = requestor.get();
+      Assert.assertEquals(200, (int) record.get("responseCode"));
+      Assert.assertEquals("plain body", record.get("body"));
+    }
+    Assert.assertEquals(1, clientPorts.size());
+  }
+
+  @Test
+  public void testMaxBodySize() throws IOException {
+    Assert.assertEquals("plain body", new HTTPRequestor(config(null, 10L), base + "/plain").get().get("body"));
+    try {
+      new HTTPRequestor(config(null, 9L), base + "/plain").get();
+      Assert.fail("Response larger than the maximum body size should fail.");
+    } catch (IOException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("maximum body size"));
+    }
+  }
+
+  @Test
+  public void testReadBodyWithLargeContentLength() throws IOException {
+    HTTPRequestor requestor = new HTTPRequestor(config(null, null), base + "/plain");
+    byte[] body = "short body".getBytes(StandardCharsets.UTF_8);
+    // the declared length is neither allocated up front nor cast to a negative size
+    Assert.assertArrayEquals(body, requestor.readBody(new ByteArrayInputStream(body), 3L * Integer.MAX_VALUE));
+    Assert.assertArrayEquals(body, requestor.readBody(new ByteArrayInputStream(body), -1));
+  }
+
+  @Test
+  public void testUrls() {
+    HTTPPollConfig config = config(base + "/etag\n\n " + base + "/plain \n" + base + "/etag", null);
+    Assert.assertEquals(Arrays.asList(base + "/plain", base + "/etag"), config.getUrls());
+    Assert.assertEquals(Collections.singletonList(base + "/plain"), config(null, null).getUrls());
+  }
+
+  private HTTPPollConfig config(String additionalUrls, Long maxBodySize) {
+    return new HTTPPollConfig("ref", base + "/plain", 1, additionalUrls, null, null, maxBodySize);
+  }
+
+  private void respond(HttpExchange exchange, boolean notModified, String body) throws IOException {
+    clientPorts.add(exchange.getRemoteAddress().getPort());
+    if (notModified) {
+      exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED, -1);
+      exchange.close();
+      return;
+    }
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, bytes.length);
+    try (OutputStream output = exchange.getResponseBody()) {
+      output.write(bytes);
+    }
+  }
+}
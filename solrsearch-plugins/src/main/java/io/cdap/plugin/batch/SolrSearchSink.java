@@ -75,6 +75,7 @@ public class SolrSearchSink extends BatchSink<StructuredRecord, Text, Text> {
       batchConfig.validateInputFieldsDataType(inputSchema);
     }
     batchConfig.validateOutputFieldMappings();
+    batchConfig.validateSenderSettings();
   }
 
   @Override
@@ -119,6 +120,12 @@ public class SolrSearchSink extends BatchSink<StructuredRecord, Text, Text> {
       } else {
         conf.put(SolrRecordWriter.FIELD_MAPPINGS, batchConfig.getOutputFieldMappings());
       }
+      if (batchConfig.getSenderThreads() != null) {
+        conf.put(SolrRecordWriter.SENDER_THREADS, batchConfig.getSenderThreads());
+      }
+      if (batchConfig.getCommitWithin() != null) {
+        conf.put(SolrRecordWriter.COMMIT_WITHIN, batchConfig.getCommitWithin());
+      }
     }
 
     @Override
@@ -136,16 +143,42 @@ public class SolrSearchSink extends BatchSink<StructuredRecord, Text, Text> {
    * Config class for Batch SolrSearch sink.
    */
   public static class BatchSolrSearchConfig extends SolrSearchSinkConfig {
+    private static final String SENDER_THREADS = "senderThreads";
+    private static final String COMMIT_WITHIN = "commitWithin";
+
     @Description("Number of documents to create a batch and send it to Solr for indexing. After each batch, " +
-      "commit will be triggered. Default batch size is 10000. (Macro-enabled)")
+      "commit will be triggered unless commit within is set. Default batch size is 10000. (Macro-enabled)")
     @Nullable
     @Macro
     private final String batchSize;
 
+    @Name(SENDER_THREADS)
+    @Description("Number of threads sending batches to Solr concurrently in each task. If not set, batches are " +
+      "sent one after the other by the task itself. (Macro-enabled)")
+    @Nullable
+    @Macro
+    private final String senderThreads;
+
+    @Name(COMMIT_WITHIN)
+    @Description("Time in milliseconds within which Solr should commit the documents of a batch. If set, batches " +
+      "are not committed one by one and a single commit is made once all batches of a task were sent. If not set, " +
+      "each batch is committed after it is sent. (Macro-enabled)")
+    @Nullable
+    @Macro
+    private final String commitWithin;
+
     public BatchSolrSearchConfig(String referenceName, String solrMode, String solrHost, String collectionName,
                                  String keyField, @Nullable String outputFieldMappings, @Nullable String batchSize) {
+      this(referenceName, solrMode, solrHost, collectionName, keyField, outputFieldMappings, batchSize, null, null);
+    }
+
+    public BatchSolrSearchConfig(String referenceName, String solrMode, String solrHost, String collectionName,
+                                 String keyField, @Nullable String outputFieldMappings, @Nullable String batchSize,
+                                 @Nullable String senderThreads, @Nullable String commitWithin) {
       super(referenceName, solrMode, solrHost, collectionName, keyField, outputFieldMappings);
       this.batchSize = batchSize;
+      this.senderThreads = senderThreads;
+      this.commitWithin = commitWithin;
     }
 
     /**
@@ -157,5 +190,40 @@ public class SolrSearchSink extends BatchSink<StructuredRecord, Text, Text> {
     public String getBatchSize() {
       return batchSize;
     }
+
+    @Nullable
+    public String getSenderThreads() {
+      return senderThreads;
+    }
+
+    @Nullable
+    public String getCommitWithin() {
+      return commitWithin;
+    }
+
+    /**
+     * Validates that the number of sender threads and the commit within time are non-negative integers.
+     */
+    public void validateSenderSettings() {
+      validateNonNegative(SENDER_THREADS, senderThreads);
+      validateNonNegative(COMMIT_WITHIN, commitWithin);
+    }
+
+    private void validateNonNegative(String name, @Nullable String value) {
+      if (value == null || containsMacro(name)) {
+        return;
+      }
+      int parsed;
+      try {
+        parsed = Integer.parseInt(value);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException(String.format("Invalid value '%s' for '%s', it must be an integer.",
+                                                         value, name), e);
+      }
+      if (parsed < 0) {
+        throw new IllegalArgumentException(String.format("Invalid value '%s' for '%s', it must not be negative.",
+                                                         value, name));
+      }
+    }
   }
 }
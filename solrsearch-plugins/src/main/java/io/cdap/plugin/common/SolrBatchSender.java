@@ -0,0 +1,227 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.common;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.common.SolrInputDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sends batches of documents to Solr.
+ *
+ * Without sender threads, each batch is sent by the caller. With sender threads, batches are handed over to the
+ * threads through a queue holding as many batches as there are threads. Once the queue is full, sending blocks until
+ * a batch is done, which bounds the memory used by pending batches. A failed batch fails the next call.
+ *
+ * Without commit within, every batch is committed after it is added, as it always was. With commit within, Solr is
+ * asked to commit the added documents within that time, which lets it group commits, and a single commit is made
+ * once all batches were sent.
+ */
+final class SolrBatchSender {
+  private static final Logger LOG = LoggerFactory.getLogger(SolrBatchSender.class);
+  // how long closing waits for batches that are being sent to stop
+  private static final long CLOSE_TIMEOUT_SECONDS = 30;
+  static final String INDEXING_ERROR = "Exception while indexing the documents to Solr. For more details, Please " +
+    "check the logs.";
+
+  private final SolrClient client;
+  private final int commitWithinMs;
+  private final ExecutorService executor;
+  private final Semaphore permits;
+  private final AtomicReference<Exception> failure = new AtomicReference<>();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxQueued = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+  private final AtomicLong batches = new AtomicLong();
+  private final AtomicLong documents = new AtomicLong();
+  private final AtomicLong latencyMillis = new AtomicLong();
+  private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+  /**
+   * @param client client to send the documents with, which must be thread safe when there are sender threads
+   * @param threads number of sender threads, 0 to send batches from the caller
+   * @param commitWithinMs time within which Solr should commit added documents, 0 or less to commit every batch
+   */
+  SolrBatchSender(SolrClient client, int threads, int commitWithinMs) {
+    if (threads < 0) {
+      throw new IllegalArgumentException(String.format("Number of sender threads must not be negative, but is %d.",
+                                                       threads));
+    }
+    this.client = client;
+    this.commitWithinMs = commitWithinMs;
+    this.executor = threads == 0 ? null : Executors.newFixedThreadPool(
+      threads, new ThreadFactoryBuilder().setNameFormat("solr-sender-%d").setDaemon(true).build());
+    // batches being sent plus batches waiting in the queue
+    this.permits = new Semaphore(2 * threads);
+  }
+
+  /**
+   * Sends a batch of documents. The list must not be modified afterwards.
+   */
+  void send(List<SolrInputDocument> batch) throws IOException {
+    checkFailure();
+    if (executor == null) {
+      try {
+        index(batch);
+      } catch (Exception e) {
+        throw propagate(e);
+      }
+      return;
+    }
+
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to send documents to Solr.");
+    }
+    updateMax(maxQueued, queued.incrementAndGet());
+    executor.execute(() -> {
+      queued.decrementAndGet();
+      updateMax(maxInFlight, inFlight.incrementAndGet());
+      try {
+        // once a batch failed, the remaining ones are dropped since the task is going to fail anyway
+        if (failure.get() == null) {
+          index(batch);
+        }
+      } catch (Exception e) {
+        failure.compareAndSet(null, e);
+      } finally {
+        inFlight.decrementAndGet();
+        permits.release();
+      }
+    });
+  }
+
+  /**
+   * Waits for all batches to be sent, then commits them if they were sent with commit within.
+   */
+  void flush() throws IOException {
+    try {
+      if (executor != null) {
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      }
+      checkFailure();
+      if (commitWithinMs > 0 && batches.get() > 0) {
+        client.commit();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for documents to be sent to Solr.");
+    } catch (Exception e) {
+      throw propagate(e);
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Stops the sender threads, dropping the batches that were not sent yet, and waits for the batches that are being
+   * sent to stop, so that the client can be shut down afterwards. It must always be called once the sender is not
+   * used anymore, since {@link #flush()} is not reached when sending fails.
+   */
+  void close() {
+    if (executor == null) {
+      return;
+    }
+    executor.shutdownNow();
+    try {
+      if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        LOG.warn("Solr sender threads did not stop within {} seconds.", CLOSE_TIMEOUT_SECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  long getBatches() {
+    return batches.get();
+  }
+
+  long getDocuments() {
+    return documents.get();
+  }
+
+  long getLatencyMillis() {
+    return latencyMillis.get();
+  }
+
+  long getMaxLatencyMillis() {
+    return maxLatencyMillis.get();
+  }
+
+  int getMaxQueuedBatches() {
+    return maxQueued.get();
+  }
+
+  int getMaxInFlightBatches() {
+    return maxInFlight.get();
+  }
+
+  private void index(List<SolrInputDocument> batch) throws Exception {
+    long start = System.nanoTime();
+    if (commitWithinMs > 0) {
+      client.add(batch, commitWithinMs);
+    } else {
+      client.add(batch);
+      client.commit();
+    }
+    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    batches.incrementAndGet();
+    documents.addAndGet(batch.size());
+    latencyMillis.addAndGet(millis);
+    maxLatencyMillis.accumulateAndGet(millis, Math::max);
+  }
+
+  private void checkFailure() throws IOException {
+    Exception e = failure.get();
+    if (e != null) {
+      throw propagate(e);
+    }
+  }
+
+  private static void updateMax(AtomicInteger max, int value) {
+    max.accumulateAndGet(value, Math::max);
+  }
+
+  private static IOException propagate(Exception e) {
+    if (e instanceof IOException) {
+      return new IOException(INDEXING_ERROR, e);
+    }
+    if (e instanceof RuntimeException) {
+      throw (RuntimeException) e;
+    }
+    throw new IllegalArgumentException(INDEXING_ERROR, e);
+  }
+}
@@ -22,11 +22,13 @@ import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.format.StructuredRecordStringConverter;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.solr.client.solrj.SolrClient;
-import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.common.SolrInputDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
@@ -44,10 +46,15 @@ public class SolrRecordWriter extends RecordWriter<Text, Text> {
   public static final String KEY_FIELD = "solr.server.keyfield";
   public static final String FIELD_MAPPINGS = "solr.output.field.mappings";
   public static final String BATCH_SIZE = "solr.batch.size";
+  public static final String SENDER_THREADS = "solr.sender.threads";
+  public static final String COMMIT_WITHIN = "solr.commit.within";
+  private static final Logger LOG = LoggerFactory.getLogger(SolrRecordWriter.class);
+  private static final String COUNTER_GROUP = "SolrSearch";
   private static final Gson GSON = new Gson();
   private static final Type SCHEMA_TYPE = new TypeToken<Schema>() { }.getType();
   private final SolrSearchSinkConfig config;
-  private final List<SolrInputDocument> documentList = new ArrayList<SolrInputDocument>();
+  private final SolrBatchSender sender;
+  private List<SolrInputDocument> documentList = new ArrayList<SolrInputDocument>();
   private SolrClient solrClient;
   private Configuration conf;
   private int batchSize;
@@ -59,6 +66,7 @@ public class SolrRecordWriter extends RecordWriter<Text, Text> {
                                       conf.get(KEY_FIELD), conf.get(FIELD_MAPPINGS));
     solrClient = config.getSolrConnection();
     batchSize = Integer.parseInt(conf.get(BATCH_SIZE));
+    sender = new SolrBatchSender(solrClient, conf.getInt(SENDER_THREADS, 0), conf.getInt(COMMIT_WITHIN, 0));
     if (outputFieldMap == null) {
       outputFieldMap = config.createOutputFieldMap();
     }
@@ -81,15 +89,10 @@ public class SolrRecordWriter extends RecordWriter<Text, Text> {
       }
     }
     documentList.add(document);
-    try {
-      if (documentList.size() == batchSize) {
-        solrClient.add(documentList);
-        solrClient.commit();
-        documentList.clear();
-      }
-    } catch (SolrServerException e) {
-      throw new IllegalArgumentException("Exception while indexing the documents to Solr. For more details, Please " +
-                                           "check the logs.", e);
+    if (documentList.size() == batchSize) {
+      // the batch may still be sent by a sender thread, so it is handed over rather than cleared
+      sender.send(documentList);
+      documentList = new ArrayList<SolrInputDocument>(batchSize);
     }
   }
 
@@ -97,15 +100,37 @@ public class SolrRecordWriter extends RecordWriter<Text, Text> {
   public void close(TaskAttemptContext context) throws IOException, InterruptedException {
     try {
       if (!documentList.isEmpty()) {
-        solrClient.add(documentList);
-        solrClient.commit();
+        sender.send(documentList);
       }
-    } catch (SolrServerException e) {
-      throw new IllegalArgumentException("Exception while indexing the documents to Solr. For more details, Please " +
-                                           "check the logs.", e);
+      sender.flush();
     } finally {
-      documentList.clear();
-      solrClient.shutdown();
+      documentList = new ArrayList<SolrInputDocument>();
+      // sender threads may still be using the client when sending failed, so they are stopped first
+      try {
+        sender.close();
+      } finally {
+        solrClient.shutdown();
+        recordMetrics(context);
+      }
+    }
+  }
+
+  private void recordMetrics(TaskAttemptContext context) {
+    increment(context, "documents", sender.getDocuments());
+    increment(context, "batches", sender.getBatches());
+    increment(context, "batchLatencyMillis", sender.getLatencyMillis());
+    LOG.info("Indexed {} documents to Solr in {} batches. Batches took {} ms on average and {} ms at most. " +
+                "At most {} batches were queued and {} were being sent at the same time.",
+              sender.getDocuments(), sender.getBatches(),
+              sender.getBatches() == 0 ? 0 : sender.getLatencyMillis() / sender.getBatches(),
+              sender.getMaxLatencyMillis(), sender.getMaxQueuedBatches(), sender.getMaxInFlightBatches());
+  }
+
+  private static void increment(TaskAttemptContext context, String name, long value) {
+    // contexts that are not backed by a task, like in tests, may not have counters
+    Counter counter = context.getCounter(COUNTER_GROUP, name);
+    if (counter != null) {
+      counter.increment(value);
     }
   }
 }
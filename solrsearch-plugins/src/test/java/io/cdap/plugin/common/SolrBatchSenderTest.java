@@ -0,0 +1,199 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.common;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for {@link SolrBatchSender}, with a mocked client standing in for Solr.
+ */
+public class SolrBatchSenderTest {
+
+  @Test
+  public void testSynchronousBatchesAreCommitted() throws Exception {
+    SolrClient client = Mockito.mock(SolrClient.class);
+    SolrBatchSender sender = new SolrBatchSender(client, 0, 0);
+    sender.send(batch(0, 2));
+    sender.send(batch(2, 1));
+    sender.flush();
+
+    Mockito.verify(client, Mockito.times(2)).add(Mockito.<Collection<SolrInputDocument>>any());
+    Mockito.verify(client, Mockito.times(2)).commit();
+    Assert.assertEquals(2, sender.getBatches());
+    Assert.assertEquals(3, sender.getDocuments());
+  }
+
+  @Test
+  public void testConcurrentBatchesWithCommitWithin() throws Exception {
+    List<String> indexed = Collections.synchronizedList(new ArrayList<>());
+    SolrClient client = Mockito.mock(SolrClient.class);
+    Mockito.doAnswer(invocation -> {
+      for (SolrInputDocument document : invocation.<Collection<SolrInputDocument>>getArgument(0)) {
+        indexed.add((String) document.getFieldValue("id"));
+      }
+      return null;
+    }).when(client).add(Mockito.<Collection<SolrInputDocument>>any(), Mockito.eq(1000));
+
+    SolrBatchSender sender = new SolrBatchSender(client, 4, 1000);
+    for (int i = 0; i < 50; i++) {
+      sender.send(batch(i * 10, 10));
+    }
+    sender.flush();
+
+    Assert.assertEquals(500, indexed.size());
+    Assert.assertEquals(500, indexed.stream().distinct().count());
+    Assert.assertEquals(50, sender.getBatches());
+    Assert.assertTrue(sender.getMaxInFlightBatches() <= 4);
+    Assert.assertTrue(sender.getMaxQueuedBatches() <= 8);
+    // only the final commit
+    Mockito.verify(client, Mockito.times(1)).commit();
+    Mockito.verify(client, Mockito.never()).add(Mockito.<Collection<SolrInputDocument>>any());
+  }
+
+  @Test
+  public void testQueueIsBounded() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    SolrClient client = Mockito.mock(SolrClient.class);
+    Mockito.doAnswer(invocation -> {
+      release.await();
+      return null;
+    }).when(client).add(Mockito.<Collection<SolrInputDocument>>any(), Mockito.anyInt());
+
+    SolrBatchSender sender = new SolrBatchSender(client, 1, 1000);
+    // one batch being sent and one waiting in the queue
+    sender.send(batch(0, 1));
+    sender.send(batch(1, 1));
+    CountDownLatch sent = new CountDownLatch(1);
+    Thread thread = new Thread(() -> {
+      try {
+        sender.send(batch(2, 1));
+        sent.countDown();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    thread.start();
+    Assert.assertFalse(sent.await(200, TimeUnit.MILLISECONDS));
+    release.countDown();
+    Assert.assertTrue(sent.await(10, TimeUnit.SECONDS));
+    sender.flush();
+    Assert.assertEquals(3, sender.getBatches());
+  }
+
+  @Test
+  public void testFailureIsReported() throws Exception {
+    SolrClient client = Mockito.mock(SolrClient.class);
+    Mockito.doThrow(new SolrServerException("unavailable"))
+      .when(client).add(Mockito.<Collection<SolrInputDocument>>any(), Mockito.anyInt());
+
+    SolrBatchSender sender = new SolrBatchSender(client, 2, 1000);
+    sender.send(batch(0, 1));
+    try {
+      sender.flush();
+      Assert.fail("A failed batch should fail the flush.");
+    } catch (IllegalArgumentException e) {
+      Assert.assertEquals(SolrBatchSender.INDEXING_ERROR, e.getMessage());
+      Assert.assertTrue(e.getCause() instanceof SolrServerException);
+    }
+    Mockito.verify(client, Mockito.never()).commit();
+  }
+
+  @Test
+  public void testCloseAfterFailedSend() throws Exception {
+    SolrClient client = Mockito.mock(SolrClient.class);
+    Mockito.doThrow(new SolrServerException("unavailable"))
+      .when(client).add(Mockito.<Collection<SolrInputDocument>>any(), Mockito.anyInt());
+
+    SolrBatchSender sender = new SolrBatchSender(client, 2, 1000);
+    Assert.assertTrue(sendUntilFailure(sender));
+    Assert.assertTrue(senderThreads() > 0);
+    // flush is never reached when sending fails, so closing has to stop the threads
+    sender.close();
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+    while (senderThreads() > 0 && System.currentTimeMillis() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+    Assert.assertEquals(0, senderThreads());
+  }
+
+  @Test
+  public void testCloseWaitsForBatchesBeingSent() throws Exception {
+    SolrClient client = Mockito.mock(SolrClient.class);
+    CountDownLatch sending = new CountDownLatch(1);
+    AtomicInteger active = new AtomicInteger();
+    Mockito.when(client.add(Mockito.<Collection<SolrInputDocument>>any(), Mockito.anyInt())).thenAnswer(invocation -> {
+      active.incrementAndGet();
+      try {
+        sending.countDown();
+        // interrupted when the sender is closed
+        TimeUnit.SECONDS.sleep(60);
+        return null;
+      } finally {
+        active.decrementAndGet();
+      }
+    });
+
+    SolrBatchSender sender = new SolrBatchSender(client, 1, 1000);
+    sender.send(batch(0, 1));
+    Assert.assertTrue(sending.await(10, TimeUnit.SECONDS));
+    sender.close();
+    // the client can be shut down once the sender is closed
+    Assert.assertEquals(0, active.get());
+  }
+
+  private static boolean sendUntilFailure(SolrBatchSender sender) throws Exception {
+    for (int i = 0; i < 1000; i++) {
+      try {
+        sender.send(batch(i, 1));
+      } catch (IllegalArgumentException e) {
+        return true;
+      }
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+    return false;
+  }
+
+  private static long senderThreads() {
+    return Thread.getAllStackTraces().keySet().stream()
+      .filter(thread -> thread.isAlive() && thread.getName().startsWith("solr-sender-"))
+      .count();
+  }
+
+  private static List<SolrInputDocument> batch(int start, int size) {
+    List<SolrInputDocument> batch = new ArrayList<>();
+    for (int i = start; i < start + size; i++) {
+      SolrInputDocument document = new SolrInputDocument();
+      document.addField("id", String.valueOf(i));
+      batch.add(document);
+    }
+    return batch;
+  }
+}
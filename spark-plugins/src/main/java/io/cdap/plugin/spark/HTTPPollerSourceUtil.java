@@ -16,6 +16,7 @@
 
 package io.cdap.plugin.spark;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.etl.api.streaming.StreamingContext;
 import io.cdap.plugin.common.http.HTTPPollConfig;
@@ -27,6 +28,9 @@ import org.apache.spark.streaming.receiver.Receiver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -45,10 +49,14 @@ class HTTPPollerSourceUtil {
   /**
    * Gets {@link JavaReceiverInputDStream} for {@link HTTPPollerSource}.
    *
+   * Every url is polled by its own task, scheduled with the configured interval between the end of a request and
+   * the start of the next one. The tasks share a pool of at most the configured number of concurrent requests.
+   *
    * @param conf {@link HTTPPollConfig} config
    */
   private static Receiver<StructuredRecord> getReceiver(HTTPPollConfig conf) {
     return new Receiver<StructuredRecord>(StorageLevel.MEMORY_ONLY()) {
+      private transient ScheduledExecutorService executor;
 
       @Override
       public StorageLevel storageLevel() {
@@ -57,35 +65,38 @@ class HTTPPollerSourceUtil {
 
       @Override
       public void onStart() {
-        new Thread() {
-          @Override
-          public void run() {
-            HTTPRequestor httpRequestor = new HTTPRequestor(conf);
-            while (!isStopped()) {
-              try {
-                store(httpRequestor.get());
-              } catch (Exception e) {
-                LOG.error("Error getting content from {}.", conf.getUrl(), e);
-              }
-
-              try {
-                TimeUnit.SECONDS.sleep(conf.getInterval());
-              } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-              }
-            }
-          }
+        List<String> urls = conf.getUrls();
+        executor = Executors.newScheduledThreadPool(
+          Math.min(conf.getMaxConcurrentRequests(), urls.size()),
+          new ThreadFactoryBuilder().setNameFormat("http-poller-%d").setDaemon(true).build());
+        long intervalMillis = TimeUnit.SECONDS.toMillis(conf.getInterval());
+        for (int i = 0; i < urls.size(); i++) {
+          HTTPRequestor httpRequestor = new HTTPRequestor(conf, urls.get(i));
+          // spread the first requests over the interval, so that the urls are not all requested at once
+          long initialDelay = intervalMillis * i / urls.size();
+          executor.scheduleWithFixedDelay(() -> poll(httpRequestor), initialDelay, intervalMillis,
+                                          TimeUnit.MILLISECONDS);
+        }
+      }
 
-          @Override
-          public void interrupt() {
-            super.interrupt();
+      private void poll(HTTPRequestor httpRequestor) {
+        try {
+          StructuredRecord record = conf.shouldUseConditionalRequests() ?
+            httpRequestor.getIfModified() : httpRequestor.get();
+          if (record != null) {
+            store(record);
           }
-        }.start();
+        } catch (Exception e) {
+          // the task must not throw, it would not be scheduled again
+          LOG.error("Error getting content from {}.", httpRequestor.getUrl(), e);
+        }
       }
 
       @Override
       public void onStop() {
-        // no-op
+        if (executor != null) {
+          executor.shutdownNow();
+        }
       }
     };
   }
@@ -23,6 +23,7 @@ import com.google.common.collect.ImmutableSet;
 import io.cdap.cdap.api.annotation.Description;
 import io.cdap.cdap.api.annotation.Name;
 import io.cdap.cdap.api.annotation.Plugin;
+import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.api.data.schema.Schema.Field;
@@ -38,12 +39,12 @@ import io.cdap.cdap.etl.api.TransformContext;
 import io.cdap.cdap.etl.api.lineage.field.FieldOperation;
 import io.cdap.cdap.etl.api.lineage.field.FieldTransformOperation;
 import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVRecord;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
@@ -84,6 +85,16 @@ public final class CSVParser extends Transform<StructuredRecord, StructuredRecor
   // Format of CSV.
   private CSVFormat csvFormat = CSVFormat.DEFAULT;
 
+  // Tokenizer for the format, reused for every input record.
+  private CSVTokenizer tokenizer;
+
+  // Converters from the parsed string to the value of each field, null for types only the record builder converts.
+  private List<Function<String, Object>> converters;
+
+  // Input schema of the last record and, for each field, whether it is present in that schema.
+  private Schema lastInputSchema;
+  private boolean[] inputFields;
+
   // Format of PDL.
   public static final CSVFormat PDL;
 
@@ -187,6 +198,36 @@ public final class CSVParser extends Transform<StructuredRecord, StructuredRecor
     } catch (IOException e) {
       throw new IllegalArgumentException("Format of schema specified is invalid. Please check the format.");
     }
+    tokenizer = new CSVTokenizer(csvFormat);
+    converters = fields.stream().map(field -> createConverter(field.getSchema())).collect(Collectors.toList());
+    lastInputSchema = null;
+  }
+
+  @Nullable
+  private static Function<String, Object> createConverter(Schema schema) {
+    Schema nonNullableSchema = schema.isNullable() ? schema.getNonNullable() : schema;
+    if (nonNullableSchema.getLogicalType() != null) {
+      return null;
+    }
+    // same conversions as StructuredRecord.Builder#convertAndSet, resolved once instead of for every value
+    switch (nonNullableSchema.getType()) {
+      case BOOLEAN:
+        return Boolean::parseBoolean;
+      case INT:
+        return Integer::parseInt;
+      case LONG:
+        return Long::parseLong;
+      case FLOAT:
+        return Float::parseFloat;
+      case DOUBLE:
+        return Double::parseDouble;
+      case BYTES:
+        return Bytes::toBytesBinary;
+      case STRING:
+        return value -> value;
+      default:
+        return null;
+    }
   }
 
   @Override
@@ -199,10 +240,10 @@ public final class CSVParser extends Transform<StructuredRecord, StructuredRecor
       if (body == null) {
         emitter.emit(createStructuredRecord(null, in));
       } else {
-        org.apache.commons.csv.CSVParser parser = org.apache.commons.csv.CSVParser.parse(body, csvFormat);
-        List<CSVRecord> records = parser.getRecords();
-        for (CSVRecord record : records) {
-          emitter.emit(createStructuredRecord(record, in));
+        // records are parsed and emitted one at a time, so a body with many lines is never fully materialized
+        tokenizer.reset(body);
+        while (tokenizer.nextRecord()) {
+          emitter.emit(createStructuredRecord(tokenizer, in));
         }
       }
     } catch (IOException e) {
@@ -210,38 +251,47 @@ public final class CSVParser extends Transform<StructuredRecord, StructuredRecor
     }
   }
 
-  private StructuredRecord createStructuredRecord(@Nullable CSVRecord record, StructuredRecord in) {
+  private StructuredRecord createStructuredRecord(@Nullable CSVTokenizer record, StructuredRecord in) {
+    boolean[] inputFields = getInputFields(in.getSchema());
     StructuredRecord.Builder builder = StructuredRecord.builder(outSchema);
     int i = 0;
-    for (Field field : fields) {
+    for (int f = 0; f < fields.size(); f++) {
+      Field field = fields.get(f);
       String name = field.getName();
       // If the field specified in the output field is present in the input, then
       // it's directly copied into the output, else field is parsed in from the CSV parser.
       // If the input record is null, propagate all supplied input fields and null other fields
       // assumed to be CSV-parsed fields
-      if (in.get(name) != null) {
-        builder.set(name, in.get(name));
+      Object inputValue = inputFields[f] ? in.get(name) : null;
+      if (inputValue != null) {
+        builder.set(name, inputValue);
       } else if (record == null) {
         builder.set(name, null);
       } else {
         String val = record.get(i);
         Schema fieldSchema = field.getSchema();
+        Function<String, Object> converter = converters.get(f);
 
-        if (val.isEmpty()) {
+        if (val == null) {
+          // the value matched the null string of the format
+          builder.set(name, null);
+        } else if (val.isEmpty()) {
           boolean isNullable = fieldSchema.isNullable();
           Schema.Type fieldType = isNullable ? fieldSchema.getNonNullable().getType() : fieldSchema.getType();
           // if the field is a string or a nullable string, set the value to the empty string
           if (fieldType == Schema.Type.STRING) {
-            builder.set(field.getName(), "");
+            builder.set(name, "");
           } else if (!isNullable) {
             // otherwise, error out
             throw new IllegalArgumentException(String.format(
               "Field #%d (named '%s') is of non-nullable type '%s', " +
                 "but was parsed as an empty string for CSV record '%s'",
-              i, field.getName(), field.getSchema().getType(), record));
+              i, name, field.getSchema().getType(), record));
           }
+        } else if (converter == null) {
+          builder.convertAndSet(name, val);
         } else {
-          builder.convertAndSet(field.getName(), val);
+          builder.set(name, converter.apply(val));
         }
         ++i;
       }
@@ -249,6 +299,21 @@ public final class CSVParser extends Transform<StructuredRecord, StructuredRecor
     return builder.build();
   }
 
+  /**
+   * @return for each field, whether the given input schema has a field with the same name
+   */
+  private boolean[] getInputFields(Schema inputSchema) {
+    // records usually share the same schema object
+    if (inputSchema != lastInputSchema) {
+      inputFields = new boolean[fields.size()];
+      for (int f = 0; f < fields.size(); f++) {
+        inputFields[f] = inputSchema.getField(fields.get(f).getName()) != null;
+      }
+      lastInputSchema = inputSchema;
+    }
+    return inputFields;
+  }
+
   @VisibleForTesting
   void validateInputSchema(@Nullable Schema inputSchema, FailureCollector collector) {
     if (inputSchema != null) {
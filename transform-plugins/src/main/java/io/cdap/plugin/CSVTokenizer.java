@@ -0,0 +1,336 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin;
+
+import org.apache.commons.csv.CSVFormat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Reusable tokenizer that splits a string into CSV records, one record at a time.
+ *
+ * It follows the rules of the commons-csv lexer for the delimiter, quote, escape, surrounding spaces, empty lines
+ * and null string settings of a {@link CSVFormat}, so records are split exactly like
+ * {@link org.apache.commons.csv.CSVParser} would. Unlike a commons-csv parser, which has to be created for every
+ * string and buffers its input, a tokenizer is created once and reads directly from the string it is
+ * {@link #reset(String) reset} to, reusing the same value list and token buffer for every record.
+ *
+ * A tokenizer is not thread safe.
+ */
+final class CSVTokenizer {
+  private static final int END_OF_STREAM = -1;
+  private static final int UNDEFINED = -2;
+  private static final int DISABLED = '\ufffe';
+  private static final char CR = '\r';
+  private static final char LF = '\n';
+  private static final char TAB = '\t';
+  private static final char BACKSPACE = '\b';
+  private static final char FF = '\f';
+
+  private final char delimiter;
+  private final int quote;
+  private final int escape;
+  private final boolean ignoreSurroundingSpaces;
+  private final boolean ignoreEmptyLines;
+  private final String nullString;
+  private final List<String> values = new ArrayList<>();
+  private final StringBuilder token = new StringBuilder();
+
+  private String input;
+  private int position;
+  private int lastChar;
+  private long lineNumber;
+
+  /**
+   * @param format the format of the records. Comments and headers are not supported.
+   */
+  CSVTokenizer(CSVFormat format) {
+    if (format.isCommentMarkerSet() || format.getHeader() != null) {
+      throw new IllegalArgumentException("CSV formats with comments or headers are not supported.");
+    }
+    this.delimiter = format.getDelimiter();
+    this.quote = format.isQuoteCharacterSet() ? format.getQuoteCharacter() : DISABLED;
+    this.escape = format.isEscapeCharacterSet() ? format.getEscapeCharacter() : DISABLED;
+    this.ignoreSurroundingSpaces = format.getIgnoreSurroundingSpaces();
+    this.ignoreEmptyLines = format.getIgnoreEmptyLines();
+    this.nullString = format.getNullString();
+  }
+
+  /**
+   * Starts tokenizing the given string, discarding the rest of the previous one.
+   */
+  void reset(String input) {
+    this.input = input;
+    this.position = 0;
+    this.lastChar = UNDEFINED;
+    this.lineNumber = 0;
+    this.values.clear();
+  }
+
+  /**
+   * Reads the next record of the string.
+   *
+   * @return whether there was a record. If so, its values are available through {@link #size()} and
+   *   {@link #get(int)} until the next call.
+   * @throws IOException if the string is not valid CSV
+   */
+  boolean nextRecord() throws IOException {
+    values.clear();
+    TokenType type;
+    do {
+      token.setLength(0);
+      type = nextToken();
+      if (type == TokenType.TOKEN || type == TokenType.END_OF_RECORD || type == TokenType.END_OF_DATA) {
+        addValue();
+      }
+    } while (type == TokenType.TOKEN);
+    return !values.isEmpty();
+  }
+
+  /**
+   * @return the number of values of the current record
+   */
+  int size() {
+    return values.size();
+  }
+
+  /**
+   * @return the value at the given position of the current record, or null if it matched the null string
+   */
+  @Nullable
+  String get(int i) {
+    return values.get(i);
+  }
+
+  @Override
+  public String toString() {
+    return values.toString();
+  }
+
+  private void addValue() {
+    String value = token.toString();
+    values.add(nullString != null && value.equalsIgnoreCase(nullString) ? null : value);
+  }
+
+  /**
+   * Reads the next token into {@link #token}.
+   *
+   * @return the type of token read, null if there is no more data
+   */
+  @Nullable
+  private TokenType nextToken() throws IOException {
+    // the last read char is required for empty line detection
+    int previous = lastChar;
+    int c = read();
+    // swallows LF if c is CR, both are equivalent here
+    boolean eol = readEndOfLine(c);
+
+    if (ignoreEmptyLines) {
+      while (eol && isStartOfLine(previous)) {
+        previous = c;
+        c = read();
+        eol = readEndOfLine(c);
+        // reached the end without any content
+        if (c == END_OF_STREAM) {
+          return null;
+        }
+      }
+    }
+
+    if (previous == END_OF_STREAM || (previous != delimiter && c == END_OF_STREAM)) {
+      return null;
+    }
+
+    if (ignoreSurroundingSpaces) {
+      while (isWhitespace(c) && !eol) {
+        c = read();
+        eol = readEndOfLine(c);
+      }
+    }
+
+    if (c == delimiter) {
+      return TokenType.TOKEN;
+    }
+    if (eol) {
+      return TokenType.END_OF_RECORD;
+    }
+    if (c == quote) {
+      return parseEncapsulatedToken();
+    }
+    if (c == END_OF_STREAM) {
+      // empty value at the end of the data
+      return TokenType.END_OF_DATA;
+    }
+    return parseSimpleToken(c);
+  }
+
+  private TokenType parseSimpleToken(int c) throws IOException {
+    TokenType type;
+    while (true) {
+      if (readEndOfLine(c)) {
+        type = TokenType.END_OF_RECORD;
+        break;
+      } else if (c == END_OF_STREAM) {
+        type = TokenType.END_OF_DATA;
+        break;
+      } else if (c == delimiter) {
+        type = TokenType.TOKEN;
+        break;
+      } else if (c == escape) {
+        appendEscaped(c);
+        c = read();
+      } else {
+        token.append((char) c);
+        c = read();
+      }
+    }
+    if (ignoreSurroundingSpaces) {
+      int length = token.length();
+      while (length > 0 && Character.isWhitespace(token.charAt(length - 1))) {
+        length--;
+      }
+      token.setLength(length);
+    }
+    return type;
+  }
+
+  private TokenType parseEncapsulatedToken() throws IOException {
+    long startLineNumber = getLineNumber();
+    while (true) {
+      int c = read();
+      if (c == escape) {
+        appendEscaped(c);
+      } else if (c == quote) {
+        if (lookAhead() == quote) {
+          // double encapsulator, add a single one to the token
+          token.append((char) read());
+        } else {
+          // end of the encapsulated token, only whitespace may come before the delimiter
+          while (true) {
+            c = read();
+            if (c == delimiter) {
+              return TokenType.TOKEN;
+            } else if (c == END_OF_STREAM) {
+              return TokenType.END_OF_DATA;
+            } else if (readEndOfLine(c)) {
+              return TokenType.END_OF_RECORD;
+            } else if (!isWhitespace(c)) {
+              throw new IOException("(line " + getLineNumber() +
+                                      ") invalid char between encapsulated token and delimiter");
+            }
+          }
+        }
+      } else if (c == END_OF_STREAM) {
+        throw new IOException("(startline " + startLineNumber +
+                                ") EOF reached before encapsulated token finished");
+      } else {
+        token.append((char) c);
+      }
+    }
+  }
+
+  /**
+   * Appends the character escaped by the escape character that was just read.
+   */
+  private void appendEscaped(int escapeChar) throws IOException {
+    int c = read();
+    switch (c) {
+      case 'r':
+        token.append(CR);
+        break;
+      case 'n':
+        token.append(LF);
+        break;
+      case 't':
+        token.append(TAB);
+        break;
+      case 'b':
+        token.append(BACKSPACE);
+        break;
+      case 'f':
+        token.append(FF);
+        break;
+      case CR:
+      case LF:
+      case FF:
+      case TAB:
+      case BACKSPACE:
+        token.append((char) c);
+        break;
+      case END_OF_STREAM:
+        throw new IOException("EOF whilst processing escape sequence");
+      default:
+        if (c == delimiter || c == escape || c == quote) {
+          token.append((char) c);
+        } else {
+          // not an escape sequence, keep both characters
+          token.append((char) escapeChar).append((char) c);
+        }
+    }
+  }
+
+  private boolean readEndOfLine(int c) {
+    if (c == CR && lookAhead() == LF) {
+      c = read();
+    }
+    return c == LF || c == CR;
+  }
+
+  private boolean isWhitespace(int c) {
+    return c != delimiter && c != END_OF_STREAM && Character.isWhitespace((char) c);
+  }
+
+  private static boolean isStartOfLine(int c) {
+    return c == LF || c == CR || c == UNDEFINED;
+  }
+
+  private int read() {
+    int c = position < input.length() ? input.charAt(position++) : END_OF_STREAM;
+    if (c == CR || (c == LF && lastChar != CR)) {
+      lineNumber++;
+    }
+    lastChar = c;
+    return c;
+  }
+
+  private long getLineNumber() {
+    // line breaks are only counted once they are read
+    if (isStartOfLine(lastChar) || lastChar == END_OF_STREAM) {
+      return lineNumber;
+    }
+    return lineNumber + 1;
+  }
+
+  private int lookAhead() {
+    return position < input.length() ? input.charAt(position) : END_OF_STREAM;
+  }
+
+  /**
+   * Types of tokens, depending on what ended them.
+   */
+  private enum TokenType {
+    // ended by a delimiter, more values follow in the record
+    TOKEN,
+    // ended by a line break
+    END_OF_RECORD,
+    // ended by the end of the data
+    END_OF_DATA
+  }
+}
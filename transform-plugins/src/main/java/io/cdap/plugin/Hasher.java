@@ -16,6 +16,8 @@
 
 package io.cdap.plugin;
 
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 import io.cdap.cdap.api.annotation.Description;
 import io.cdap.cdap.api.annotation.Name;
 import io.cdap.cdap.api.annotation.Plugin;
@@ -31,13 +33,17 @@ import io.cdap.cdap.etl.api.Transform;
 import io.cdap.cdap.etl.api.TransformContext;
 import io.cdap.cdap.etl.api.lineage.field.FieldOperation;
 import io.cdap.plugin.common.TransformLineageRecorderUtils;
-import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.codec.binary.Hex;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
@@ -47,10 +53,17 @@ import javax.annotation.Nullable;
 @Plugin(type = "transform")
 @Name("Hasher")
 @Description("Encodes field values using one of the digest algorithms. MD2, MD5, SHA1, SHA256, " +
-  "SHA384 and SHA512 are the supported message digest algorithms.")
+  "SHA384 and SHA512 are the supported message digest algorithms. XXHASH64 and MURMUR3_128 are faster, " +
+  "non-cryptographic hash functions.")
 public final class Hasher extends Transform<StructuredRecord, StructuredRecord> {
   private final Config config;
   private Set<String> fieldSet = new HashSet<>();
+  // resolved once per task. Message digests are reused, which is fine since a transform is only used by one thread.
+  private Function<byte[], String> hashFunction;
+  // output schema and hashed fields of the last input schema. Records usually share the same schema object.
+  private Schema lastInputSchema;
+  private Schema lastOutputSchema;
+  private boolean[] lastHashedFields;
 
   // For testing purpose only.
   public Hasher(Config config) {
@@ -62,7 +75,8 @@ public final class Hasher extends Transform<StructuredRecord, StructuredRecord>
     StageConfigurer stageConfigurer = pipelineConfigurer.getStageConfigurer();
     config.validate(stageConfigurer.getInputSchema(), stageConfigurer.getFailureCollector());
     stageConfigurer.getFailureCollector().getOrThrowException();
-    stageConfigurer.setOutputSchema(stageConfigurer.getInputSchema());
+    Schema inputSchema = stageConfigurer.getInputSchema();
+    stageConfigurer.setOutputSchema(inputSchema == null ? null : getOutputSchema(inputSchema, config.getFields()));
   }
 
   @Override
@@ -74,11 +88,11 @@ public final class Hasher extends Transform<StructuredRecord, StructuredRecord>
       return;
     }
 
-    // Set a list of operations only for the fields in inputSchema and with type string, and identity for
-    // the non-string ones present in the output.
+    // Set a list of operations only for the fields in inputSchema and with a type that can be hashed, and identity
+    // for the other ones present in the output.
+    Set<String> fields = config.getFields();
     List<String> hashedFields = context.getInputSchema().getFields().stream()
-      .filter(field -> config.getFields()
-        .contains(field.getName()) && field.getSchema().getType() == Schema.Type.STRING)
+      .filter(field -> fields.contains(field.getName()) && isHashable(field.getSchema()))
       .map(Schema.Field::getName).collect(Collectors.toList());
 
     List<String> identityFields = TransformLineageRecorderUtils.getFields(context.getInputSchema());
@@ -95,46 +109,148 @@ public final class Hasher extends Transform<StructuredRecord, StructuredRecord>
   @Override
   public void initialize(TransformContext context) throws Exception {
     fieldSet = config.getFields();
+    Algorithm algorithm = config.getAlgorithm();
+    if (algorithm == null) {
+      throw new IllegalArgumentException(String.format("Invalid hasher '%s' specified.", config.hash));
+    }
+    hashFunction = algorithm.newHashFunction();
   }
 
   @Override
   public void transform(StructuredRecord in, Emitter<StructuredRecord> emitter) throws Exception {
-    StructuredRecord.Builder builder = StructuredRecord.builder(in.getSchema());
-    
-    List<Schema.Field> fields = in.getSchema().getFields();
-    for (Schema.Field field : fields) {
-      String name = field.getName();
-      if (fieldSet.contains(name) && field.getSchema().getType() == Schema.Type.STRING) {
-        String value = in.get(name);
-        String digest = value;
-        switch(config.hash.toLowerCase()) {
-          case "md2":
-            digest = DigestUtils.md2Hex(value);
-            break;
-          case "md5":
-            digest = DigestUtils.md5Hex(value);
-            break;
-          case "sha1":
-            digest = DigestUtils.sha1Hex(value);
-            break;
-          case "sha256":
-            digest = DigestUtils.sha256Hex(value);
-            break;
-          case "sha384":
-            digest = DigestUtils.sha384Hex(value);
-            break;
-          case "sha512":
-            digest = DigestUtils.sha512Hex(value);
-            break;
-        }
-        builder.set(name, digest);
+    Schema inputSchema = in.getSchema();
+    if (inputSchema != lastInputSchema) {
+      List<Schema.Field> fields = inputSchema.getFields();
+      lastHashedFields = new boolean[fields.size()];
+      for (int i = 0; i < lastHashedFields.length; i++) {
+        lastHashedFields[i] = fieldSet.contains(fields.get(i).getName()) && isHashable(fields.get(i).getSchema());
+      }
+      lastOutputSchema = getOutputSchema(inputSchema, fieldSet);
+      lastInputSchema = inputSchema;
+    }
+
+    StructuredRecord.Builder builder = StructuredRecord.builder(lastOutputSchema);
+    List<Schema.Field> fields = inputSchema.getFields();
+    for (int i = 0; i < lastHashedFields.length; i++) {
+      String name = fields.get(i).getName();
+      Object value = in.get(name);
+      if (lastHashedFields[i] && value != null) {
+        builder.set(name, hashFunction.apply(toBytes(value)));
       } else {
-        builder.set(name, in.get(name));
+        builder.set(name, value);
       }
     }
     emitter.emit(builder.build());
   }
 
+  /**
+   * Returns the input schema with the hashed fields turned into strings, or the input schema itself if all the
+   * hashed fields already are strings.
+   */
+  private static Schema getOutputSchema(Schema inputSchema, Set<String> hashedFields) {
+    List<Schema.Field> fields = inputSchema.getFields();
+    List<Schema.Field> outputFields = new ArrayList<>(fields.size());
+    boolean changed = false;
+    for (Schema.Field field : fields) {
+      Schema schema = field.getSchema();
+      Schema nonNullable = schema.isNullable() ? schema.getNonNullable() : schema;
+      if (hashedFields.contains(field.getName()) && isHashable(schema) && nonNullable.getType() != Schema.Type.STRING) {
+        Schema stringSchema = Schema.of(Schema.Type.STRING);
+        outputFields.add(Schema.Field.of(field.getName(),
+                                         schema.isNullable() ? Schema.nullableOf(stringSchema) : stringSchema));
+        changed = true;
+      } else {
+        outputFields.add(field);
+      }
+    }
+    return changed ? Schema.recordOf(inputSchema.getRecordName(), outputFields) : inputSchema;
+  }
+
+  private static boolean isHashable(Schema schema) {
+    Schema nonNullable = schema.isNullable() ? schema.getNonNullable() : schema;
+    if (nonNullable.getLogicalType() != null) {
+      return false;
+    }
+    switch (nonNullable.getType()) {
+      case STRING:
+      case BYTES:
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Strings are hashed as their UTF-8 bytes and numbers as the UTF-8 bytes of their string representation, so a
+   * number hashes the same way as the same number stored as a string.
+   */
+  private static byte[] toBytes(Object value) {
+    if (value instanceof byte[]) {
+      return (byte[]) value;
+    }
+    if (value instanceof ByteBuffer) {
+      ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      return bytes;
+    }
+    return value.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Supported hash algorithms.
+   */
+  enum Algorithm {
+    MD2("MD2"),
+    MD5("MD5"),
+    SHA1("SHA-1"),
+    SHA256("SHA-256"),
+    SHA384("SHA-384"),
+    SHA512("SHA-512"),
+    XXHASH64(null),
+    MURMUR3_128(null);
+
+    // name of the message digest algorithm, null for the non-cryptographic hash functions
+    private final String digestName;
+
+    Algorithm(@Nullable String digestName) {
+      this.digestName = digestName;
+    }
+
+    /**
+     * @return a function returning the hash of bytes as a lower case hex string. It may only be used by one thread.
+     */
+    Function<byte[], String> newHashFunction() throws Exception {
+      switch (this) {
+        case XXHASH64:
+          return bytes -> {
+            String hex = Long.toHexString(XxHash64.hash(bytes, 0));
+            return hex.length() == 16 ? hex : "0000000000000000".substring(hex.length()) + hex;
+          };
+        case MURMUR3_128:
+          HashFunction murmur = Hashing.murmur3_128();
+          return bytes -> murmur.hashBytes(bytes).toString();
+        default:
+          MessageDigest digest = MessageDigest.getInstance(digestName);
+          return bytes -> Hex.encodeHexString(digest.digest(bytes));
+      }
+    }
+
+    @Nullable
+    static Algorithm fromName(String name) {
+      for (Algorithm algorithm : values()) {
+        if (algorithm.name().equalsIgnoreCase(name)) {
+          return algorithm;
+        }
+      }
+      return null;
+    }
+  }
+
   /**
    * Hasher Plugin Config.
    */
@@ -143,12 +259,13 @@ public final class Hasher extends Transform<StructuredRecord, StructuredRecord>
     private static final String FIELDS = "fields";
 
     @Name(HASH)
-    @Description("Specifies the Hash method for hashing fields.")
+    @Description("Specifies the Hash method for hashing fields. Defaults to MD5.")
     @Nullable
     private final String hash;
     
     @Name(FIELDS)
-    @Description("List of fields to hash. Only string fields are allowed")
+    @Description("List of fields to hash. String, bytes and numeric fields are allowed. Hashed fields that are not " +
+      "strings are output as strings.")
     private final String fields;
     
     public Config(String hash, String fields) {
@@ -158,11 +275,10 @@ public final class Hasher extends Transform<StructuredRecord, StructuredRecord>
 
     private void validate(@Nullable Schema inputSchema, FailureCollector failureCollector) {
       // Checks if hash specified is one of the supported types.
-      if (hash != null && !hash.equalsIgnoreCase("md2") && !hash.equalsIgnoreCase("md5") &&
-        !hash.equalsIgnoreCase("sha1") && !hash.equalsIgnoreCase("sha256") &&
-        !hash.equalsIgnoreCase("sha384") && !hash.equalsIgnoreCase("sha512")) {
+      if (getAlgorithm() == null) {
         failureCollector.addFailure(String.format("Invalid hasher '%s' specified.", hash),
-                                    "Allowed hashers are md2, md5, sha1, sha256, sha384 and sha512");
+                                    "Allowed hashers are md2, md5, sha1, sha256, sha384, sha512, xxhash64 and " +
+                                      "murmur3_128");
       }
 
       if (inputSchema == null) {
@@ -174,20 +290,24 @@ public final class Hasher extends Transform<StructuredRecord, StructuredRecord>
         if (inputField == null) {
           continue;
         }
-        Schema inputFieldSchema = inputField.getSchema();
-        inputFieldSchema = inputFieldSchema.isNullable() ? inputFieldSchema.getNonNullable() : inputFieldSchema;
-        if (inputFieldSchema.getType() != Schema.Type.STRING) {
+        if (!isHashable(inputField.getSchema())) {
+          Schema inputFieldSchema = inputField.getSchema();
+          inputFieldSchema = inputFieldSchema.isNullable() ? inputFieldSchema.getNonNullable() : inputFieldSchema;
           failureCollector.addFailure(
             String.format("Field '%s' is of unsupported type '%s'.", field, inputFieldSchema.getDisplayName()),
-            "Ensure all fields to hash are strings.")
+            "Ensure all fields to hash are strings, bytes, ints, longs, floats or doubles.")
             .withConfigElement(FIELDS, field);
         }
       }
     }
 
+    @Nullable
+    private Algorithm getAlgorithm() {
+      return hash == null ? Algorithm.MD5 : Algorithm.fromName(hash);
+    }
+
     private Set<String> getFields() {
       return Arrays.stream(fields.split(",")).map(String::trim).collect(Collectors.toSet());
     }
   }
 }
-
@@ -19,6 +19,7 @@ package io.cdap.plugin;
 import com.google.common.base.Strings;
 import com.google.common.collect.Maps;
 import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.PathNotFoundException;
 import io.cdap.cdap.api.annotation.Description;
@@ -54,6 +55,8 @@ import javax.annotation.Nullable;
 @Description("Parses JSON Object into a Structured Record.")
 public final class JSONParser extends Transform<StructuredRecord, StructuredRecord> {
   private static final Logger LOG = LoggerFactory.getLogger(JSONParser.class);
+  // value read for a path that does not exist in the document
+  private static final Object MISSING = new Object();
 
   private final Config config;
 
@@ -68,6 +71,14 @@ public final class JSONParser extends Transform<StructuredRecord, StructuredReco
   // Specifies whether mapping is simple or complex.
   private boolean isSimple = true;
 
+  private Configuration jsonPathConfiguration;
+
+  // Compiled JSON path of each output field, null for the fields that are not mapped.
+  private JsonPath[] paths;
+
+  // Evaluates the paths without building the document tree, null if not enabled or if a path is not supported.
+  private StreamingJsonPathEvaluator streamingEvaluator;
+
   // Mainly used for testing.
   public JSONParser(Config config) {
     this.config = config;
@@ -90,6 +101,14 @@ public final class JSONParser extends Transform<StructuredRecord, StructuredReco
       collector.addFailure(String.format("Field '%s' must be present in the input schema.", config.field), null)
         .withConfigProperty(Config.FIELD);
     }
+    if (!Strings.isNullOrEmpty(config.pathEvaluation)
+      && !Config.TREE_EVALUATION.equalsIgnoreCase(config.pathEvaluation)
+      && !Config.STREAMING_EVALUATION.equalsIgnoreCase(config.pathEvaluation)) {
+      collector.addFailure(String.format("Invalid JSON path evaluation '%s'.", config.pathEvaluation),
+                           String.format("Set it to '%s' or '%s'.", Config.TREE_EVALUATION,
+                                         Config.STREAMING_EVALUATION))
+        .withConfigProperty(Config.PATH_EVALUATION);
+    }
     extractMappings(collector);
   }
 
@@ -136,8 +155,16 @@ public final class JSONParser extends Transform<StructuredRecord, StructuredReco
         if (mapParts.length != 2 || Strings.isNullOrEmpty(mapParts[0]) || Strings.isNullOrEmpty(mapParts[1])) {
           collector.addFailure("Both field name and JSON expression map must be provided.", null)
             .withConfigElement(Config.MAPPING, pathMap);
-        } else {
+          continue;
+        }
+        try {
+          JsonPath.compile(mapParts[1]);
           mapping.put(mapParts[0], mapParts[1]);
+        } catch (InvalidPathException e) {
+          collector.addFailure(String.format("Invalid JSON path '%s' for field '%s': %s",
+                                             mapParts[1], mapParts[0], e.getMessage()),
+                               "Specify a valid JSON path expression, such as '$.employee.name.first'.")
+            .withConfigElement(Config.MAPPING, pathMap);
         }
       }
     }
@@ -156,6 +183,29 @@ public final class JSONParser extends Transform<StructuredRecord, StructuredReco
     }
     extractMappings(collector);
     collector.getOrThrowException();
+    if (isSimple) {
+      return;
+    }
+
+    jsonPathConfiguration = Configuration.defaultConfiguration();
+    paths = new JsonPath[fields.size()];
+    List<String> streamingPaths = new ArrayList<>(fields.size());
+    boolean streamingSupported = config.isStreamingEvaluation();
+    for (int i = 0; i < fields.size(); i++) {
+      String path = mapping.get(fields.get(i).getName());
+      if (path != null) {
+        paths[i] = JsonPath.compile(path);
+        if (streamingSupported && !StreamingJsonPathEvaluator.isSupported(path)) {
+          LOG.info("JSON path '{}' is not supported by streaming evaluation, evaluating all paths on the document " +
+                     "tree instead.", path);
+          streamingSupported = false;
+        }
+      }
+      streamingPaths.add(path);
+    }
+    if (streamingSupported) {
+      streamingEvaluator = new StreamingJsonPathEvaluator(streamingPaths);
+    }
   }
 
   @Override
@@ -168,26 +218,29 @@ public final class JSONParser extends Transform<StructuredRecord, StructuredReco
     }
 
     // When it's not a simple Json to be parsed, we use the Json path to map the input Json fields into the
-    // output schema. In order to optimize for reading multiple paths from the Json we create a document that
-    // allows the Json to be parsed only once. We then iterate through the output fields and apply the
-    // path to extract the fields.
-    Object document = Configuration.defaultConfiguration().jsonProvider().parse((String) input.get(config.field));
+    // output schema. The streaming evaluator reads all paths in a single pass over the Json. Otherwise, or when a
+    // path selects an object or an array, we create a document that allows the Json to be parsed only once and
+    // apply the compiled path of every output field to it.
+    String json = input.get(config.field);
+    boolean streamed = streamingEvaluator != null && streamingEvaluator.evaluate(json);
+    Object document = streamed ? null : jsonPathConfiguration.jsonProvider().parse(json);
     StructuredRecord.Builder builder = StructuredRecord.builder(outSchema);
-    for (Schema.Field field : fields) {
+    for (int i = 0; i < fields.size(); i++) {
+      Schema.Field field = fields.get(i);
       String name = field.getName();
-      if (mapping.containsKey(name)) {
-        String path = mapping.get(name);
-        try {
-          Object value = JsonPath.read(document, path);
-          builder.set(field.getName(), value);
-        } catch (PathNotFoundException e) {
-          if (field.getSchema().isNullable()) {
-            builder.set(field.getName(), null);
-          } else {
-            LOG.error("Json path '" + path + "' specified for the field '" + name + "' doesn't exist. " +
-                        "Dropping the error record: " + StructuredRecordStringConverter.toJsonString(input));
-            return;
+      if (paths[i] != null) {
+        Object value = streamed ? getStreamedValue(i) : getDocumentValue(i, document);
+        if (value != MISSING) {
+          builder.set(name, value);
+        } else if (field.getSchema().isNullable()) {
+          builder.set(name, null);
+        } else {
+          LOG.error("Json path '{}' specified for the field '{}' doesn't exist. Dropping the error record.",
+                    mapping.get(name), name);
+          if (LOG.isDebugEnabled()) {
+            LOG.debug("Dropped record: {}", StructuredRecordStringConverter.toJsonString(input));
           }
+          return;
         }
       } else {
         // We didn't find the field name in the mapping, we will not attempt to see if the field is present
@@ -201,12 +254,27 @@ public final class JSONParser extends Transform<StructuredRecord, StructuredReco
     emitter.emit(builder.build());
   }
 
+  private Object getStreamedValue(int index) {
+    return streamingEvaluator.isFound(index) ? streamingEvaluator.getValue(index) : MISSING;
+  }
+
+  private Object getDocumentValue(int index, Object document) {
+    try {
+      return paths[index].read(document, jsonPathConfiguration);
+    } catch (PathNotFoundException e) {
+      return MISSING;
+    }
+  }
+
   /**
    * JSONParser Plugin Config.
    */
   public static class Config extends PluginConfig {
     public static final String FIELD = "field";
     public static final String MAPPING = "mapping";
+    public static final String PATH_EVALUATION = "pathEvaluation";
+    public static final String TREE_EVALUATION = "tree";
+    public static final String STREAMING_EVALUATION = "streaming";
 
     @Name("field")
     @Description("Input field to be parsed as JSON")
@@ -223,10 +291,28 @@ public final class JSONParser extends Transform<StructuredRecord, StructuredReco
     @Description("Output schema")
     private String schema;
 
+    @Name(PATH_EVALUATION)
+    @Description("How the JSON path expressions of the mapping are evaluated. 'tree' parses each record into a " +
+      "document tree and supports all expressions. 'streaming' reads all paths in a single pass over the record " +
+      "without building a tree, which is faster but only supports paths of property names and array indexes, " +
+      "like '$.store.book[0].title'. If another expression is mapped, or a path selects an object or an array, " +
+      "the tree is used. Defaults to 'tree'.")
+    @Nullable
+    private String pathEvaluation;
+
     public Config(String field, @Nullable String mapping, String schema) {
+      this(field, mapping, schema, TREE_EVALUATION);
+    }
+
+    public Config(String field, @Nullable String mapping, String schema, @Nullable String pathEvaluation) {
       this.field = field;
       this.mapping = mapping;
       this.schema = schema;
+      this.pathEvaluation = pathEvaluation;
+    }
+
+    boolean isStreamingEvaluation() {
+      return STREAMING_EVALUATION.equalsIgnoreCase(pathEvaluation);
     }
 
   }
@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Extracts the child elements of the elements selected by an XPath with a streaming parser, without building a DOM.
+ * Values are handed over as soon as the end of a selected element is read, so memory does not depend on the size
+ * of the document.
+ *
+ * Only absolute paths of element names are supported, like {@code /rss/channel/item}. Like
+ * {@link StreamingXPathEvaluator}, path steps are matched against the local part of element names. Child elements are
+ * matched against the field names by their qualified name, which is the node name of a DOM built without namespace
+ * awareness. The value of a child element is its text content. If a selected element has several child elements
+ * with the same name, the last one is used.
+ *
+ * An extractor keeps state between documents and is not thread safe.
+ */
+final class StreamingElementExtractor {
+  private final XMLInputFactory factory;
+  private final String[] steps;
+  private final Map<String, Integer> fieldIndexes = new HashMap<>();
+  // values of the child elements of the current selected element, by field index. Null for missing elements.
+  private final String[] values;
+  private final StringBuilder text = new StringBuilder();
+
+  /**
+   * @return whether the given XPath can be evaluated by a streaming extractor
+   */
+  static boolean isSupported(String xpath) {
+    return StreamingXPathEvaluator.isSupported(xpath) && !xpath.contains("@");
+  }
+
+  /**
+   * @param factory factory for the streaming readers of the documents
+   * @param xpath path of the elements to extract, which must be {@link #isSupported(String) supported}
+   * @param fieldNames names of the child elements to extract
+   */
+  StreamingElementExtractor(XMLInputFactory factory, String xpath, List<String> fieldNames) {
+    if (!isSupported(xpath)) {
+      throw new IllegalArgumentException(String.format("XPath '%s' is not supported by the streaming extractor. " +
+                                                         "Only absolute paths of element names are supported.",
+                                                       xpath));
+    }
+    this.factory = factory;
+    this.steps = xpath.trim().substring(1).split("/");
+    for (int i = 0; i < fieldNames.size(); i++) {
+      fieldIndexes.put(fieldNames.get(i), i);
+    }
+    this.values = new String[fieldNames.size()];
+  }
+
+  /**
+   * Reads the given document and calls the consumer with the values of the child elements of every selected element,
+   * in document order. The array passed to the consumer is reused for the next element.
+   *
+   * @param xml the document
+   * @param consumer consumer of the values of each selected element, by field index
+   * @throws XMLStreamException if the document is not valid XML. Elements before the error were already consumed.
+   */
+  void extract(String xml, Consumer<String[]> consumer) throws XMLStreamException {
+    XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(xml));
+    try {
+      int depth = 0;
+      // number of leading steps matched by the current element and its ancestors
+      int matched = 0;
+      // index of the field whose element text is being read, or -1
+      int field = -1;
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            depth++;
+            if (matched == depth - 1 && depth <= steps.length && steps[depth - 1].equals(reader.getLocalName())) {
+              matched = depth;
+              if (depth == steps.length) {
+                Arrays.fill(values, null);
+              }
+            } else if (matched == steps.length && depth == matched + 1) {
+              Integer index = fieldIndexes.get(getQualifiedName(reader));
+              if (index != null) {
+                field = index;
+                text.setLength(0);
+              }
+            }
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+          case XMLStreamConstants.SPACE:
+            if (field >= 0) {
+              text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            if (field >= 0 && depth == steps.length + 1) {
+              values[field] = text.toString();
+              field = -1;
+            } else if (matched == depth) {
+              if (depth == steps.length) {
+                consumer.accept(values);
+              }
+              matched = depth - 1;
+            }
+            depth--;
+            break;
+          default:
+            break;
+        }
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static String getQualifiedName(XMLStreamReader reader) {
+    String prefix = reader.getPrefix();
+    return prefix == null || prefix.isEmpty() ? reader.getLocalName() : prefix + ":" + reader.getLocalName();
+  }
+}
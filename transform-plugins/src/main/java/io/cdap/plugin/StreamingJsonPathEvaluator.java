@@ -0,0 +1,218 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+
+/**
+ * Evaluates definite JSON paths made of property names and array indexes, like '$.store.book[0].title' or
+ * '$['store']['bicycle']', in a single pass over the tokens of a document, without building the document tree.
+ *
+ * Values are the ones the default json-smart provider of JsonPath returns for the same paths: strings, booleans,
+ * integers as the first of Integer, Long and BigInteger they fit in, and decimals as Double, or as BigDecimal when
+ * written with more than 18 characters. Like in the document tree, a later value of a duplicate property replaces an
+ * earlier one. When a path selects an object or an array, or the document is not strict JSON,
+ * {@link #evaluate(String)} returns false and the document has to be evaluated as a tree instead.
+ */
+final class StreamingJsonPathEvaluator {
+  private static final String SEGMENT = "\\.([A-Za-z_][\\w\\-]*)|\\['([^',\\\\]+)'\\]|\\[(\\d+)\\]";
+  private static final Pattern SEGMENT_PATTERN = Pattern.compile(SEGMENT);
+  private static final Pattern SUPPORTED_PATH = Pattern.compile("\\$(?:" + SEGMENT + ")+");
+
+  private final Node root = new Node();
+  private final Object[] values;
+  private final boolean[] found;
+
+  /**
+   * @param paths paths to evaluate, null for the indexes that have no path
+   */
+  StreamingJsonPathEvaluator(List<String> paths) {
+    values = new Object[paths.size()];
+    found = new boolean[paths.size()];
+    for (int i = 0; i < paths.size(); i++) {
+      String path = paths.get(i);
+      if (path == null) {
+        continue;
+      }
+      if (!isSupported(path)) {
+        throw new IllegalArgumentException(String.format("JSON path '%s' is not supported by streaming evaluation.",
+                                                         path));
+      }
+      Node node = root;
+      node.subtree.add(i);
+      Matcher matcher = SEGMENT_PATTERN.matcher(path);
+      int start = 1;
+      while (start < path.length() && matcher.find(start)) {
+        if (matcher.group(3) != null) {
+          node = node.indexes.computeIfAbsent(Integer.parseInt(matcher.group(3)), index -> new Node());
+        } else {
+          String name = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+          node = node.properties.computeIfAbsent(name, key -> new Node());
+        }
+        node.subtree.add(i);
+        start = matcher.end();
+      }
+      node.paths.add(i);
+    }
+  }
+
+  /**
+   * @return whether the given path is supported by streaming evaluation
+   */
+  static boolean isSupported(String path) {
+    return SUPPORTED_PATH.matcher(path).matches();
+  }
+
+  /**
+   * Evaluates all paths over the given document.
+   *
+   * @return false if a path selects an object or an array, or if the document is not strict JSON
+   */
+  boolean evaluate(String json) {
+    Arrays.fill(values, null);
+    Arrays.fill(found, false);
+    try (JsonReader reader = new JsonReader(new StringReader(json))) {
+      return readValue(reader, root) && reader.peek() == JsonToken.END_DOCUMENT;
+    } catch (IOException | IllegalStateException | NumberFormatException e) {
+      // the document tree is more permissive, and reports the error if the document cannot be parsed at all
+      return false;
+    }
+  }
+
+  /**
+   * @return whether the path at the given index exists in the last evaluated document
+   */
+  boolean isFound(int index) {
+    return found[index];
+  }
+
+  /**
+   * @return the value of the path at the given index in the last evaluated document
+   */
+  @Nullable
+  Object getValue(int index) {
+    return values[index];
+  }
+
+  private boolean readValue(JsonReader reader, @Nullable Node node) throws IOException {
+    if (node == null) {
+      reader.skipValue();
+      return true;
+    }
+    // forget what an earlier duplicate of this value selected
+    for (int path : node.subtree) {
+      values[path] = null;
+      found[path] = false;
+    }
+    JsonToken token = reader.peek();
+    switch (token) {
+      case BEGIN_OBJECT:
+        if (!node.paths.isEmpty()) {
+          return false;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+          if (!readValue(reader, node.properties.get(reader.nextName()))) {
+            return false;
+          }
+        }
+        reader.endObject();
+        return true;
+      case BEGIN_ARRAY:
+        if (!node.paths.isEmpty()) {
+          return false;
+        }
+        reader.beginArray();
+        for (int index = 0; reader.hasNext(); index++) {
+          if (!readValue(reader, node.indexes.get(index))) {
+            return false;
+          }
+        }
+        reader.endArray();
+        return true;
+      default:
+        Object value = readScalar(reader, token);
+        for (int path : node.paths) {
+          values[path] = value;
+          found[path] = true;
+        }
+        return true;
+    }
+  }
+
+  @Nullable
+  private static Object readScalar(JsonReader reader, JsonToken token) throws IOException {
+    switch (token) {
+      case STRING:
+        return reader.nextString();
+      case NUMBER:
+        return toNumber(reader.nextString());
+      case BOOLEAN:
+        return reader.nextBoolean();
+      case NULL:
+        reader.nextNull();
+        return null;
+      default:
+        throw new IllegalStateException("Unexpected JSON token " + token);
+    }
+  }
+
+  private static Number toNumber(String literal) {
+    if (literal.indexOf('.') >= 0 || literal.indexOf('e') >= 0 || literal.indexOf('E') >= 0) {
+      if (literal.length() > 18) {
+        return new BigDecimal(literal);
+      }
+      return Double.parseDouble(literal);
+    }
+    long value;
+    try {
+      value = Long.parseLong(literal);
+    } catch (NumberFormatException e) {
+      return new BigInteger(literal);
+    }
+    if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+      return (int) value;
+    }
+    return value;
+  }
+
+  /**
+   * A property or array element on the way to one or more paths.
+   */
+  private static final class Node {
+    private final Map<String, Node> properties = new HashMap<>();
+    private final Map<Integer, Node> indexes = new HashMap<>();
+    // paths that select this node
+    private final List<Integer> paths = new ArrayList<>();
+    // paths that select this node or a node below it
+    private final List<Integer> subtree = new ArrayList<>();
+  }
+}
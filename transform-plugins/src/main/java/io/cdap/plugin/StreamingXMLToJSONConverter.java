@@ -0,0 +1,424 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.XML;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Converts XML documents to JSON strings with the same output as {@code XML.toJSONObject(xml).toString()}, without
+ * building a {@link JSONObject} tree.
+ *
+ * The document is read with a streaming parser. Every attribute and text value is written to a buffer that is reused
+ * across documents as soon as it is complete, using {@link XML#stringToValue(String)} and
+ * {@link JSONObject#valueToString(Object)} so that values are converted and written exactly like they are by the
+ * library. Since repeated elements are grouped into arrays, the members of an element can only be written once the
+ * element ends. Until then, only the positions of their values in the buffer are kept, grouped by key in a
+ * {@link HashMap} like the one of a {@link JSONObject}, so that keys come out in the same order. When an element
+ * ends, it is written in place of its values, which copies them once more for every enclosing element. To keep deep
+ * documents from being copied once per level, elements with child elements that are larger than a few kilobytes,
+ * or that contain such elements, are not written but kept as their members, and written with the whole document.
+ *
+ * Documents that the streaming parser handles differently from the library are converted by the library. These are
+ * documents with character references, carriage returns, tabs or line feeds in attribute values, which XML
+ * normalizes to spaces, DTD entities or several root elements.
+ *
+ * A converter keeps state between documents and is not thread safe.
+ */
+final class StreamingXMLToJSONConverter {
+  private static final String CONTENT = "content";
+  private static final String REPORT_CDATA_EVENT = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+  private static final int MAX_QUOTED_KEYS = 10000;
+  // size of the values of an element with child elements, above which it is not written when it ends
+  private static final int MAX_WRITTEN_LENGTH = 8192;
+  private static final String COMMENT_START = "<!--";
+  private static final String COMMENT_END = "-->";
+  private static final String CDATA_START = "<![CDATA[";
+  private static final String CDATA_END = "]]>";
+  private static final int NONE = 0;
+  private static final int TEXT = 1;
+  private static final int CDATA = 2;
+
+  private final XMLInputFactory factory;
+  // JSON of the attribute and text values of the document
+  private final StringBuilder out = new StringBuilder();
+  private final StringBuilder json = new StringBuilder();
+  private final StringBuilder scratch = new StringBuilder();
+  private final StringBuilder text = new StringBuilder();
+  private char[] chars = new char[1024];
+  // open elements by depth, reused across elements. The document itself is at depth 0.
+  private final List<Element> elements = new ArrayList<>();
+  private final Map<String, String> quotedKeys = new HashMap<>();
+
+  StreamingXMLToJSONConverter() {
+    factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    // CDATA sections are not converted like text, so they must not be reported as text
+    if (factory.isPropertySupported(REPORT_CDATA_EVENT)) {
+      factory.setProperty(REPORT_CDATA_EVENT, true);
+    }
+  }
+
+  /**
+   * @param xml the XML document
+   * @return the document as a JSON string
+   * @throws JSONException if the document cannot be converted
+   */
+  String convert(String xml) throws JSONException {
+    // the library does not resolve character references nor normalize line endings or attribute values
+    if (xml.indexOf("&#") >= 0 || xml.indexOf('\r') >= 0 || hasWhitespaceInAttributeValue(xml)) {
+      return XML.toJSONObject(xml).toString();
+    }
+    try {
+      return convertStreaming(xml);
+    } catch (XMLStreamException e) {
+      // the library is more lenient, it either converts the document or fails with a JSONException
+      return XML.toJSONObject(xml).toString();
+    }
+  }
+
+  private String convertStreaming(String xml) throws XMLStreamException {
+    out.setLength(0);
+    text.setLength(0);
+    int depth = 0;
+    getElement(depth).reset(null, 0);
+    XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(xml));
+    try {
+      // kind of the text being collected. Like the library, text is split by anything that is not text.
+      int pending = NONE;
+      while (reader.hasNext()) {
+        int event = reader.next();
+        int kind = getKind(event);
+        if (pending != NONE && kind != pending) {
+          addText(getElement(depth), pending);
+          pending = NONE;
+        }
+        switch (event) {
+          case XMLStreamConstants.START_ELEMENT:
+            depth++;
+            startElement(reader, getElement(depth));
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.SPACE:
+          case XMLStreamConstants.CDATA:
+            // text outside of the root element is ignored
+            if (depth > 0) {
+              text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+              pending = kind;
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            endElement(getElement(depth), getElement(depth - 1));
+            depth--;
+            break;
+          case XMLStreamConstants.ENTITY_REFERENCE:
+            throw new XMLStreamException("Unresolved entity reference " + reader.getLocalName());
+          default:
+            break;
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    json.setLength(0);
+    writeObject(getElement(0).members, json);
+    return json.toString();
+  }
+
+  /**
+   * @return whether a tab or a line feed appears in an attribute value, or possibly in one
+   */
+  private static boolean hasWhitespaceInAttributeValue(String xml) {
+    if (xml.indexOf('\t') < 0 && xml.indexOf('\n') < 0) {
+      return false;
+    }
+    int length = xml.length();
+    int i = xml.indexOf('<');
+    while (i >= 0) {
+      // comments and CDATA sections are not markup, quotes in them do not start attribute values
+      if (xml.startsWith(COMMENT_START, i)) {
+        i = skip(xml, i + COMMENT_START.length(), COMMENT_END);
+        continue;
+      }
+      if (xml.startsWith(CDATA_START, i)) {
+        i = skip(xml, i + CDATA_START.length(), CDATA_END);
+        continue;
+      }
+      char quote = 0;
+      int j = i + 1;
+      for (; j < length; j++) {
+        char c = xml.charAt(j);
+        if (quote != 0) {
+          if (c == quote) {
+            quote = 0;
+          } else if (c == '\t' || c == '\n') {
+            return true;
+          }
+        } else if (c == '"' || c == '\'') {
+          quote = c;
+        } else if (c == '>') {
+          break;
+        }
+      }
+      i = j < length ? xml.indexOf('<', j) : -1;
+    }
+    return false;
+  }
+
+  /**
+   * @return the position of the first tag after the given end marker, or -1
+   */
+  private static int skip(String xml, int from, String end) {
+    int index = xml.indexOf(end, from);
+    return index < 0 ? -1 : xml.indexOf('<', index + end.length());
+  }
+
+  private static int getKind(int event) {
+    switch (event) {
+      case XMLStreamConstants.CHARACTERS:
+      case XMLStreamConstants.SPACE:
+        return TEXT;
+      case XMLStreamConstants.CDATA:
+        return CDATA;
+      default:
+        return NONE;
+    }
+  }
+
+  private Element getElement(int depth) {
+    while (elements.size() <= depth) {
+      elements.add(new Element());
+    }
+    return elements.get(depth);
+  }
+
+  private void startElement(XMLStreamReader reader, Element element) {
+    element.reset(getName(reader.getPrefix(), reader.getLocalName()), out.length());
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String name = getName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+      addValue(element, name, XML.stringToValue(reader.getAttributeValue(i)));
+    }
+  }
+
+  private void addText(Element element, int kind) {
+    String value;
+    if (kind == CDATA) {
+      value = text.toString();
+    } else {
+      // like the library, leading whitespace is skipped before the text is trimmed
+      int start = 0;
+      while (start < text.length() && Character.isWhitespace(text.charAt(start))) {
+        start++;
+      }
+      value = text.substring(start).trim();
+    }
+    text.setLength(0);
+    if (!value.isEmpty()) {
+      addValue(element, CONTENT, kind == CDATA ? value : XML.stringToValue(value));
+    }
+  }
+
+  private void addValue(Element element, String key, Object value) {
+    int start = out.length();
+    out.append(JSONObject.valueToString(value));
+    element.add(key, start, out.length(), null, false);
+  }
+
+  private void endElement(Element element, Element parent) {
+    Map<String, Values> members = element.members;
+    // an element with only text is replaced by its text, which may be an array of several pieces of text
+    boolean array = members.size() == 1 && members.containsKey(CONTENT) && members.get(CONTENT).isArray();
+    parent.hasChildElements = true;
+    if (element.hasChildElements &&
+      (element.hasKeptChildElements || out.length() - element.start > MAX_WRITTEN_LENGTH)) {
+      parent.add(element.name, 0, 0, members, array);
+      parent.hasKeptChildElements = true;
+      return;
+    }
+    // the values of the element are the last ones in the buffer, they are replaced by the element
+    scratch.setLength(0);
+    writeElement(members, scratch);
+    out.setLength(element.start);
+    out.append(scratch);
+    parent.add(element.name, element.start, out.length(), null, array);
+  }
+
+  private void writeElement(Map<String, Values> members, StringBuilder builder) {
+    if (members.isEmpty()) {
+      builder.append("\"\"");
+    } else if (members.size() == 1 && members.containsKey(CONTENT)) {
+      writeValues(members.get(CONTENT), builder);
+    } else {
+      writeObject(members, builder);
+    }
+  }
+
+  private void writeObject(Map<String, Values> members, StringBuilder builder) {
+    builder.append('{');
+    boolean first = true;
+    for (Map.Entry<String, Values> member : members.entrySet()) {
+      if (!first) {
+        builder.append(',');
+      }
+      first = false;
+      builder.append(quoteKey(member.getKey())).append(':');
+      writeValues(member.getValue(), builder);
+    }
+    builder.append('}');
+  }
+
+  private void writeValues(Values values, StringBuilder builder) {
+    if (!values.isArray()) {
+      writeValue(values, 0, builder);
+      return;
+    }
+    builder.append('[');
+    for (int i = 0; i < values.size; i++) {
+      if (i > 0) {
+        builder.append(',');
+      }
+      writeValue(values, i, builder);
+    }
+    builder.append(']');
+  }
+
+  private void writeValue(Values values, int index, StringBuilder builder) {
+    Map<String, Values> element = values.elements == null ? null : values.elements[index];
+    if (element == null) {
+      copy(values.starts[index], values.ends[index], builder);
+    } else {
+      writeElement(element, builder);
+    }
+  }
+
+  /**
+   * Appends a range of the buffer to the given builder, in bulk rather than one char at a time.
+   */
+  private void copy(int start, int end, StringBuilder builder) {
+    int length = end - start;
+    if (chars.length < length) {
+      chars = new char[Math.max(length, chars.length * 2)];
+    }
+    out.getChars(start, end, chars, 0);
+    builder.append(chars, 0, length);
+  }
+
+  private String quoteKey(String key) {
+    String quoted = quotedKeys.get(key);
+    if (quoted == null) {
+      if (quotedKeys.size() >= MAX_QUOTED_KEYS) {
+        quotedKeys.clear();
+      }
+      quoted = JSONObject.quote(key);
+      quotedKeys.put(key, quoted);
+    }
+    return quoted;
+  }
+
+  private static String getName(String prefix, String localName) {
+    return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+  }
+
+  /**
+   * An open element.
+   */
+  private static final class Element {
+    private String name;
+    // position in the buffer where the values of the members start
+    private int start;
+    private boolean hasChildElements;
+    // whether a child element was kept as its members rather than written
+    private boolean hasKeptChildElements;
+    // members in the order of the HashMap of a JSONObject with the same keys added in the same order. The map is
+    // kept as the value of the element if the element is not written when it ends.
+    private Map<String, Values> members;
+
+    private void reset(String name, int start) {
+      this.name = name;
+      this.start = start;
+      this.hasChildElements = false;
+      this.hasKeptChildElements = false;
+      // a new map rather than a cleared one, since the previous one may still be referenced by the parent element
+      this.members = new HashMap<>();
+    }
+
+    private void add(String key, int start, int end, @Nullable Map<String, Values> element, boolean array) {
+      Values values = members.get(key);
+      if (values == null) {
+        values = new Values();
+        members.put(key, values);
+      }
+      values.add(start, end, element, array);
+    }
+  }
+
+  /**
+   * Values of a member, either positions of values in the buffer or members of child elements that were kept.
+   */
+  private static final class Values {
+    private int[] starts = new int[1];
+    private int[] ends = new int[1];
+    // members of the child elements that were kept rather than written, only allocated once there is one
+    private Map<String, Values>[] elements;
+    private int size;
+    // whether the first value is an array. Like JSONObject.accumulate(), such a value is wrapped into an array.
+    private boolean firstArray;
+
+    @SuppressWarnings("unchecked")
+    private void add(int start, int end, @Nullable Map<String, Values> element, boolean array) {
+      if (size == starts.length) {
+        starts = Arrays.copyOf(starts, size * 2);
+        ends = Arrays.copyOf(ends, size * 2);
+        if (elements != null) {
+          elements = Arrays.copyOf(elements, size * 2);
+        }
+      }
+      if (element != null && elements == null) {
+        elements = (Map<String, Values>[]) new Map[starts.length];
+      }
+      if (size == 0) {
+        firstArray = array;
+      }
+      starts[size] = start;
+      ends[size] = end;
+      if (elements != null) {
+        elements[size] = element;
+      }
+      size++;
+    }
+
+    private boolean isArray() {
+      return size > 1 || firstArray;
+    }
+  }
+}
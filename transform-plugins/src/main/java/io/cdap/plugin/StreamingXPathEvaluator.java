@@ -0,0 +1,213 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Evaluates simple XPaths over an XML document with a streaming parser, without building a DOM.
+ *
+ * Only absolute paths of element names are supported, optionally ending with an attribute, like
+ * {@code /Envelope/Body/order/id} or {@code /book/@category}. Like XPaths evaluated over a document built without
+ * namespace awareness, names are matched against the local part of element and attribute names, so
+ * {@code /Envelope} selects a {@code soap:Envelope} root element. The value of a path is the text of the first
+ * element it selects, or the value of the first attribute. Elements with child elements are not evaluated, since
+ * their value is the element written back as XML.
+ *
+ * An evaluator keeps state between documents and is not thread safe.
+ */
+final class StreamingXPathEvaluator {
+  private static final String NAME = "[A-Za-z_][\\w.\\-]*";
+  private static final Pattern SUPPORTED_PATH = Pattern.compile("(?:/" + NAME + ")+(?:/@" + NAME + ")?");
+
+  private final XMLInputFactory factory;
+  // element names of each path
+  private final String[][] steps;
+  // attribute name of each path, null for paths that select elements
+  private final String[] attributes;
+  // number of leading steps of each path matched by the current element and its ancestors
+  private final int[] matched;
+  // depth of the element whose text is being read for each path, or -1
+  private final int[] textDepths;
+  private final StringBuilder[] texts;
+  private final String[] values;
+  private final int[] counts;
+
+  /**
+   * @return whether the given XPath can be evaluated by a streaming evaluator
+   */
+  static boolean isSupported(String xpath) {
+    return SUPPORTED_PATH.matcher(xpath.trim()).matches();
+  }
+
+  /**
+   * @param factory factory for the streaming readers of the documents
+   * @param xpaths paths to evaluate, which must all be {@link #isSupported(String) supported}
+   */
+  StreamingXPathEvaluator(XMLInputFactory factory, List<String> xpaths) {
+    this.factory = factory;
+    int size = xpaths.size();
+    this.steps = new String[size][];
+    this.attributes = new String[size];
+    for (int i = 0; i < size; i++) {
+      String xpath = xpaths.get(i).trim();
+      if (!isSupported(xpath)) {
+        throw new IllegalArgumentException(String.format("XPath '%s' is not supported by the streaming evaluator. " +
+                                                           "Only absolute paths of element names, optionally " +
+                                                           "ending with an attribute, are supported.", xpath));
+      }
+      String[] parts = xpath.substring(1).split("/");
+      String last = parts[parts.length - 1];
+      if (last.startsWith("@")) {
+        attributes[i] = last.substring(1);
+        parts = Arrays.copyOf(parts, parts.length - 1);
+      }
+      steps[i] = parts;
+    }
+    this.matched = new int[size];
+    this.textDepths = new int[size];
+    this.texts = new StringBuilder[size];
+    for (int i = 0; i < size; i++) {
+      texts[i] = new StringBuilder();
+    }
+    this.values = new String[size];
+    this.counts = new int[size];
+  }
+
+  /**
+   * Evaluates the paths over the given document. Once evaluated, the results are available through
+   * {@link #getValue(int)} and {@link #getCount(int)} until the next document is evaluated.
+   *
+   * @param xml the document
+   * @return true if all paths were evaluated, false if a path selected an element with child elements
+   * @throws XMLStreamException if the document is not valid XML
+   */
+  boolean evaluate(String xml) throws XMLStreamException {
+    Arrays.fill(matched, 0);
+    Arrays.fill(textDepths, -1);
+    Arrays.fill(values, null);
+    Arrays.fill(counts, 0);
+
+    XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(xml));
+    try {
+      int depth = 0;
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            for (int textDepth : textDepths) {
+              if (textDepth >= 0) {
+                return false;
+              }
+            }
+            depth++;
+            startElement(reader, depth);
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+          case XMLStreamConstants.SPACE:
+            for (int i = 0; i < textDepths.length; i++) {
+              if (textDepths[i] >= 0) {
+                texts[i].append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+              }
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            for (int i = 0; i < matched.length; i++) {
+              if (textDepths[i] == depth) {
+                values[i] = texts[i].toString();
+                textDepths[i] = -1;
+              }
+              if (matched[i] == depth) {
+                matched[i] = depth - 1;
+              }
+            }
+            depth--;
+            break;
+          default:
+            break;
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    return true;
+  }
+
+  /**
+   * @return the value selected by the path at the given position, or null if it did not select anything
+   */
+  @Nullable
+  String getValue(int i) {
+    return values[i];
+  }
+
+  /**
+   * @return the number of elements or attributes selected by the path at the given position
+   */
+  int getCount(int i) {
+    return counts[i];
+  }
+
+  private void startElement(XMLStreamReader reader, int depth) {
+    String name = null;
+    for (int i = 0; i < steps.length; i++) {
+      String[] path = steps[i];
+      if (matched[i] != depth - 1 || depth > path.length) {
+        continue;
+      }
+      if (name == null) {
+        name = reader.getLocalName();
+      }
+      if (!path[depth - 1].equals(name)) {
+        continue;
+      }
+      matched[i] = depth;
+      if (depth < path.length) {
+        continue;
+      }
+      if (attributes[i] == null) {
+        if (counts[i]++ == 0) {
+          textDepths[i] = depth;
+          texts[i].setLength(0);
+        }
+      } else {
+        String value = getAttribute(reader, attributes[i]);
+        if (value != null && counts[i]++ == 0) {
+          values[i] = value;
+        }
+      }
+    }
+  }
+
+  @Nullable
+  private static String getAttribute(XMLStreamReader reader, String attribute) {
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      if (attribute.equals(reader.getAttributeLocalName(i))) {
+        return reader.getAttributeValue(i);
+      }
+    }
+    return null;
+  }
+}
@@ -34,6 +34,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
@@ -49,6 +50,9 @@ import javax.annotation.Nullable;
   "bool, int, long, float, double, or string).")
 public class UnionSplitter extends SplitterTransform<StructuredRecord, StructuredRecord> {
   private final Conf conf;
+  // branches of the last input schema. Records usually share the same schema object.
+  private Schema lastInputSchema;
+  private UnionBranches lastBranches;
 
   public UnionSplitter(Conf conf) {
     this.conf = conf;
@@ -73,20 +77,53 @@ public class UnionSplitter extends SplitterTransform<StructuredRecord, Structure
       return;
     }
 
-    Schema.Field schemaField = record.getSchema().getField(conf.unionField);
-    if (schemaField == null) {
+    Schema inputSchema = record.getSchema();
+    if (inputSchema != lastInputSchema) {
+      lastBranches = new UnionBranches(inputSchema, conf.unionField, conf.modifySchema);
+      lastInputSchema = inputSchema;
+    }
+    UnionBranches branches = lastBranches;
+
+    if (branches.unionSchema == null) {
       emitter.emitError(new InvalidEntry<>(100, String.format("Field '%s' does not exist.", conf.unionField), record));
       return;
     }
 
-    Schema fieldSchema = schemaField.getSchema();
-    if (fieldSchema.getType() != Schema.Type.UNION) {
+    if (branches.unionSchema.getType() != Schema.Type.UNION) {
       emitter.emitError(new InvalidEntry<>(200, String.format("Field '%s' is not of type union, but is of type '%s'.",
-                                                              conf.unionField, fieldSchema.getType()), record));
+                                                              conf.unionField, branches.unionSchema.getType()),
+                                           record));
       return;
     }
 
     Object val = record.get(conf.unionField);
+    Branch branch = branches.lookup(val);
+    if (branch == null) {
+      branch = resolveBranch(record, val, branches, emitter);
+      if (branch == null) {
+        return;
+      }
+    }
+
+    if (!conf.modifySchema) {
+      // the record already has the output schema, there is nothing to copy
+      emitter.emit(branch.port, record);
+      return;
+    }
+    StructuredRecord.Builder builder = StructuredRecord.builder(branch.outputSchema);
+    for (String fieldName : branches.fieldNames) {
+      builder.set(fieldName, record.get(fieldName));
+    }
+    emitter.emit(branch.port, builder.build());
+  }
+
+  /**
+   * Determines the schema of a value that is not in the lookup tables yet and finds its branch, emitting an error
+   * if the value is not supported or its schema is not in the union.
+   */
+  @Nullable
+  private Branch resolveBranch(StructuredRecord record, Object val, UnionBranches branches,
+                               MultiOutputEmitter<StructuredRecord> emitter) {
     Schema valSchema;
     if (val == null) {
       valSchema = Schema.of(Schema.Type.NULL);
@@ -110,60 +147,32 @@ public class UnionSplitter extends SplitterTransform<StructuredRecord, Structure
       emitter.emitError(
         new InvalidEntry<>(300, String.format("Field '%s' is an Enum, which is not supported.", conf.unionField),
                            record));
-      return;
+      return null;
     } else if (val instanceof Map) {
       emitter.emitError(
         new InvalidEntry<>(301, String.format("Field '%s' is a Map, which is not supported.", conf.unionField),
                            record));
-      return;
+      return null;
     } else if (val instanceof Collection) {
       emitter.emitError(
         new InvalidEntry<>(302, String.format("Field '%s' is an array, which is not supported.", conf.unionField),
                            record));
-      return;
+      return null;
     } else {
       emitter.emitError(
         new InvalidEntry<>(303, String.format("Could not determine type for field '%s' with value of class '%s'.",
                                               conf.unionField, val.getClass().getName()),
                            record));
-      return;
+      return null;
     }
 
-    boolean foundSchema = false;
-    for (Schema unionSchema : fieldSchema.getUnionSchemas()) {
-      // if the schema in the union matches the value's schema
-      if (unionSchema.equals(valSchema)) {
-        foundSchema = true;
-      }
-    }
-    if (!foundSchema) {
+    Branch branch = branches.find(val, valSchema);
+    if (branch == null) {
       emitter.emitError(
         new InvalidEntry<>(400, String.format("Field '%s' has schema '%s', which is not in its union schema.",
                                               conf.unionField, valSchema), record));
-      return;
-    }
-
-    Schema inputSchema = record.getSchema();
-    List<Schema.Field> fields = new ArrayList<>(inputSchema.getFields().size());
-    for (Schema.Field inputSchemaField : inputSchema.getFields()) {
-      String fieldName = inputSchemaField.getName();
-      if (fieldName.equals(conf.unionField)) {
-        fields.add(Schema.Field.of(fieldName, valSchema));
-      } else {
-        fields.add(inputSchemaField);
-      }
-    }
-
-    Schema.Type valType = valSchema.getType();
-    String port = valType == Schema.Type.RECORD ? valSchema.getRecordName() : valType.name().toLowerCase();
-    Schema outputSchema = conf.modifySchema ?
-      Schema.recordOf(inputSchema.getRecordName() + "." + port, fields) : inputSchema;
-    StructuredRecord.Builder builder = StructuredRecord.builder(outputSchema);
-    for (Schema.Field inputSchemaField : inputSchema.getFields()) {
-      String fieldName = inputSchemaField.getName();
-      builder.set(fieldName, record.get(fieldName));
     }
-    emitter.emit(port, builder.build());
+    return branch;
   }
 
   @VisibleForTesting
@@ -220,6 +229,99 @@ public class UnionSplitter extends SplitterTransform<StructuredRecord, Structure
     return outputPortSchemas;
   }
 
+  /**
+   * Port and output schema of a schema in the union.
+   */
+  private static final class Branch {
+    private final String port;
+    private final Schema outputSchema;
+
+    private Branch(String port, Schema outputSchema) {
+      this.port = port;
+      this.outputSchema = outputSchema;
+    }
+  }
+
+  /**
+   * Branches of the union field of an input schema, with lookup tables from the class of simple values and from
+   * the schema of record values to their branch, so that most values are resolved with a single lookup.
+   */
+  private static final class UnionBranches {
+    // record schemas are usually shared by the values, but if they are not, the table should not grow forever
+    private static final int MAX_RECORD_SCHEMAS = 1000;
+
+    private final Schema unionSchema;
+    private final String[] fieldNames;
+    private final Map<Schema, Branch> branches = new HashMap<>();
+    private final Map<Class<?>, Branch> classBranches = new HashMap<>();
+    private final Map<Schema, Branch> recordBranches = new IdentityHashMap<>();
+    private final Branch nullBranch;
+
+    private UnionBranches(Schema inputSchema, String unionField, boolean modifySchema) {
+      List<Schema.Field> inputFields = inputSchema.getFields();
+      fieldNames = new String[inputFields.size()];
+      for (int i = 0; i < fieldNames.length; i++) {
+        fieldNames[i] = inputFields.get(i).getName();
+      }
+      Schema.Field unionSchemaField = inputSchema.getField(unionField);
+      unionSchema = unionSchemaField == null ? null : unionSchemaField.getSchema();
+      if (unionSchema == null || unionSchema.getType() != Schema.Type.UNION) {
+        nullBranch = null;
+        return;
+      }
+
+      for (Schema schema : unionSchema.getUnionSchemas()) {
+        Schema.Type type = schema.getType();
+        String port = type == Schema.Type.RECORD ? schema.getRecordName() : type.name().toLowerCase();
+        Schema outputSchema = inputSchema;
+        if (modifySchema) {
+          List<Schema.Field> fields = new ArrayList<>(inputFields.size());
+          for (Schema.Field inputField : inputFields) {
+            fields.add(inputField.getName().equals(unionField) ? Schema.Field.of(unionField, schema) : inputField);
+          }
+          outputSchema = Schema.recordOf(inputSchema.getRecordName() + "." + port, fields);
+        }
+        branches.put(schema, new Branch(port, outputSchema));
+      }
+      nullBranch = branches.get(Schema.of(Schema.Type.NULL));
+    }
+
+    /**
+     * Returns the branch of a value whose class or record schema was already resolved, or null otherwise.
+     */
+    @Nullable
+    private Branch lookup(@Nullable Object val) {
+      if (val == null) {
+        return nullBranch;
+      }
+      if (val instanceof StructuredRecord) {
+        return recordBranches.get(((StructuredRecord) val).getSchema());
+      }
+      return classBranches.get(val.getClass());
+    }
+
+    /**
+     * Returns the branch of a value with the given schema, or null if the schema is not in the union. The branch is
+     * added to the lookup tables.
+     */
+    @Nullable
+    private Branch find(@Nullable Object val, Schema valSchema) {
+      Branch branch = branches.get(valSchema);
+      if (branch == null || val == null) {
+        return branch;
+      }
+      if (val instanceof StructuredRecord) {
+        if (recordBranches.size() >= MAX_RECORD_SCHEMAS) {
+          recordBranches.clear();
+        }
+        recordBranches.put(valSchema, branch);
+      } else {
+        classBranches.put(val.getClass(), branch);
+      }
+      return branch;
+    }
+  }
+
   /**
    * Plugin conf
    */
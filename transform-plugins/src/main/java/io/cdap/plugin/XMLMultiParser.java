@@ -17,6 +17,7 @@
 package io.cdap.plugin;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
 import io.cdap.cdap.api.annotation.Description;
 import io.cdap.cdap.api.annotation.Macro;
 import io.cdap.cdap.api.annotation.Name;
@@ -43,12 +44,16 @@ import org.xml.sax.SAXException;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import javax.annotation.Nullable;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
@@ -65,12 +70,18 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
 
   private static final String FIELD = "field";
   private static final String XPATH = "xPath";
+  private static final String XPATH_EVALUATION = "xPathEvaluation";
+  private static final String DOM_EVALUATION = "dom";
+  private static final String STREAMING_EVALUATION = "streaming";
 
   private final Config config;
   private final DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
   private Schema schema;
   private XPathExpression xPathExpression;
   private Set<String> fieldNames;
+  // extracts the records without building a document, null unless streaming evaluation is configured
+  private StreamingElementExtractor streamingExtractor;
+  private String[] streamingFieldNames;
 
   public XMLMultiParser(Config config) {
     this.config = config;
@@ -113,6 +124,19 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
     for (Schema.Field field : schema.getFields()) {
       fieldNames.add(field.getName());
     }
+
+    if (config.isStreamingEvaluation()) {
+      XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+      inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, !config.shouldDisallowDocTypeDTD());
+      inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+                               config.shouldEnableExternalGeneralEntities());
+      List<String> names = new ArrayList<>(fieldNames.size());
+      for (Schema.Field field : schema.getFields()) {
+        names.add(field.getName());
+      }
+      streamingFieldNames = names.toArray(new String[0]);
+      streamingExtractor = new StreamingElementExtractor(inputFactory, config.xPath, names);
+    }
   }
 
   @Override
@@ -123,6 +147,11 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
       return;
     }
 
+    if (streamingExtractor != null) {
+      transformStreaming(input, xmlStr, emitter);
+      return;
+    }
+
     try (Reader reader = new StringReader((String) input.get(config.field))) {
       InputSource source = new InputSource(reader);
       source.setEncoding(config.encoding);
@@ -175,6 +204,30 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
     }
   }
 
+  private void transformStreaming(StructuredRecord input, String xml, Emitter<StructuredRecord> emitter) {
+    try {
+      streamingExtractor.extract(xml, values -> {
+        try {
+          StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+          for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+              builder.convertAndSet(streamingFieldNames[i], values[i]);
+            }
+          }
+          emitter.emit(builder.build());
+        } catch (Exception e) {
+          LOG.error("Unable to create a record from the xpath element. This record will be dropped.", e);
+          emitter.emitError(new InvalidEntry<>(31, "Unable to create a record from the xpath element. This record " +
+            "will be dropped.", input));
+        }
+      });
+    } catch (XMLStreamException e) {
+      LOG.error("Unable to parse the xml document. The rest of this record will be dropped.", e);
+      emitter.emitError(new InvalidEntry<>(31, "Unable to parse the xml document. The rest of this record will be " +
+        "dropped.", input));
+    }
+  }
+
   /**
    * Configuration for the XMLParser transform..
    */
@@ -219,12 +272,28 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
             " 'http://apache.org/xml/features/disallow-doctype-decl'")
     private final Boolean disallowDocTypeDTD;
 
+    @Nullable
+    @Name(XPATH_EVALUATION)
+    @Description("How the XPath is evaluated. 'dom' builds a document for each input record and supports XPath 1.0. " +
+      "'streaming' reads the input record with a streaming parser and outputs a record as soon as the end of each " +
+      "selected element is read, so memory does not depend on the size of the document. It only supports " +
+      "absolute paths of element names, like '/rss/channel/item'. Defaults to 'dom'.")
+    @Macro
+    private final String xPathEvaluation;
+
     public Config(String field, String encoding, String xPath, String schema) {
       this(field, encoding, xPath, schema, false, false, false, false);
     }
 
     public Config(String field, String encoding, String xPath, String schema, Boolean enableExternalGeneralEntities,
                   Boolean enableExternalParameterEntities, Boolean loadExternalDTD, Boolean disallowDocTypeDTD) {
+      this(field, encoding, xPath, schema, enableExternalGeneralEntities, enableExternalParameterEntities,
+           loadExternalDTD, disallowDocTypeDTD, DOM_EVALUATION);
+    }
+
+    public Config(String field, String encoding, String xPath, String schema, Boolean enableExternalGeneralEntities,
+                  Boolean enableExternalParameterEntities, Boolean loadExternalDTD, Boolean disallowDocTypeDTD,
+                  @Nullable String xPathEvaluation) {
       this.field = field;
       this.encoding = encoding;
       this.xPath = xPath;
@@ -233,6 +302,7 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
       this.enableExternalParameterEntities = enableExternalParameterEntities;
       this.loadExternalDTD = loadExternalDTD;
       this.disallowDocTypeDTD = disallowDocTypeDTD;
+      this.xPathEvaluation = xPathEvaluation;
     }
 
     public void validate(@Nullable Schema inputSchema, FailureCollector collector) {
@@ -248,6 +318,19 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
         getXPathExpression(collector);
       }
 
+      if (!containsMacro(XPATH_EVALUATION) && !Strings.isNullOrEmpty(xPathEvaluation)
+        && !DOM_EVALUATION.equalsIgnoreCase(xPathEvaluation) && !isStreamingEvaluation()) {
+        collector.addFailure(String.format("Invalid XPath evaluation '%s'.", xPathEvaluation),
+                             String.format("Set it to '%s' or '%s'.", DOM_EVALUATION, STREAMING_EVALUATION))
+          .withConfigProperty(XPATH_EVALUATION);
+      } else if (!containsMacro(XPATH) && !containsMacro(XPATH_EVALUATION) && isStreamingEvaluation()
+        && !StreamingElementExtractor.isSupported(xPath)) {
+        collector.addFailure(String.format("XPath '%s' is not supported by streaming evaluation.", xPath),
+                             "Use an absolute path of element names, like '/rss/channel/item', or use DOM " +
+                               "evaluation.")
+          .withConfigProperty(XPATH).withConfigProperty(XPATH_EVALUATION);
+      }
+
       for (Schema.Field field : getSchema(collector).getFields()) {
         Schema fieldSchema = field.getSchema();
         Schema.Type type = fieldSchema.isNullable() ? fieldSchema.getNonNullable().getType() : fieldSchema.getType();
@@ -270,6 +353,10 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
       }
     }
 
+    private boolean isStreamingEvaluation() {
+      return STREAMING_EVALUATION.equalsIgnoreCase(xPathEvaluation);
+    }
+
     public boolean shouldEnableExternalGeneralEntities() {
       return enableExternalGeneralEntities == null ? false : enableExternalGeneralEntities;
     }
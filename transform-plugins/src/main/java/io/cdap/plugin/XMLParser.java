@@ -49,6 +49,8 @@ import java.util.Map;
 import javax.annotation.Nullable;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
@@ -57,6 +59,8 @@ import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
 /**
@@ -73,6 +77,12 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
   private final Config config;
   private Schema outSchema;
   private Map<String, String> xPathMapping = new HashMap<>();
+  // parsing machinery created once per task, with the XPath of each output field compiled in field order
+  private DocumentBuilder documentBuilder;
+  private XPathExpression[] expressions;
+  private Transformer transformer;
+  // evaluates the XPaths without building a document, null unless streaming evaluation is configured
+  private StreamingXPathEvaluator streamingEvaluator;
 
   // Required only for testing.
   public XMLParser(Config config) {
@@ -113,8 +123,39 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
     super.initialize(context);
     FailureCollector collector = getContext().getFailureCollector();
     outSchema = config.getOutputSchema(collector);
-    xPathMapping = getXPathMapping(collector);
+    validateXpathAndSchema(collector);
     collector.getOrThrowException();
+
+    DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
+    builderFactory.setFeature("http://xml.org/sax/features/external-general-entities",
+                              Boolean.TRUE.equals(config.enableExternalGeneralEntities));
+    builderFactory.setFeature("http://xml.org/sax/features/external-parameter-entities",
+                              Boolean.TRUE.equals(config.enableExternalParameterEntities));
+    builderFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd",
+                              Boolean.TRUE.equals(config.loadExternalDTD));
+    builderFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl",
+                              Boolean.TRUE.equals(config.disallowDocTypeDTD));
+    builderFactory.setXIncludeAware(false);
+    builderFactory.setExpandEntityReferences(false);
+    documentBuilder = builderFactory.newDocumentBuilder();
+
+    XPath xpath = XPathFactory.newInstance().newXPath();
+    List<Schema.Field> fields = outSchema.getFields();
+    expressions = new XPathExpression[fields.size()];
+    List<String> paths = new ArrayList<>();
+    for (int i = 0; i < fields.size(); i++) {
+      String path = xPathMapping.get(fields.get(i).getName());
+      expressions[i] = xpath.compile(path);
+      paths.add(path);
+    }
+
+    if (config.isStreamingEvaluation()) {
+      XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+      inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, !Boolean.TRUE.equals(config.disallowDocTypeDTD));
+      inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+                               Boolean.TRUE.equals(config.enableExternalGeneralEntities));
+      streamingEvaluator = new StreamingXPathEvaluator(inputFactory, paths);
+    }
   }
 
   /**
@@ -139,6 +180,37 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
         }
       }
     }
+
+    if (!config.containsMacro(Config.XPATH_EVALUATION) && !Strings.isNullOrEmpty(config.xPathEvaluation)
+      && !Config.DOM_EVALUATION.equalsIgnoreCase(config.xPathEvaluation)
+      && !Config.STREAMING_EVALUATION.equalsIgnoreCase(config.xPathEvaluation)) {
+      collector.addFailure(String.format("Invalid XPath evaluation '%s'.", config.xPathEvaluation),
+                           String.format("Set it to '%s' or '%s'.", Config.DOM_EVALUATION,
+                                         Config.STREAMING_EVALUATION))
+        .withConfigProperty(Config.XPATH_EVALUATION);
+    }
+
+    XPath xpath = XPathFactory.newInstance().newXPath();
+    for (Map.Entry<String, String> mapping : xPathMapping.entrySet()) {
+      String path = mapping.getValue();
+      try {
+        xpath.compile(path);
+      } catch (XPathExpressionException e) {
+        collector.addFailure(String.format("Invalid XPath '%s' for field '%s'.", path, mapping.getKey()),
+                             "Specify a valid XPath 1.0 expression.")
+          .withConfigElement(XPATH_MAPPINGS, String.format("%s:%s", mapping.getKey(), path));
+        continue;
+      }
+      if (!config.containsMacro(Config.XPATH_EVALUATION) && config.isStreamingEvaluation()
+        && !StreamingXPathEvaluator.isSupported(path)) {
+        collector.addFailure(
+          String.format("XPath '%s' for field '%s' is not supported by streaming evaluation.", path, mapping.getKey()),
+          "Use an absolute path of element names, optionally ending with an attribute, like '/book/title' or " +
+            "'/book/@category', or use DOM evaluation.")
+          .withConfigElement(XPATH_MAPPINGS, String.format("%s:%s", mapping.getKey(), path))
+          .withConfigProperty(Config.XPATH_EVALUATION);
+      }
+    }
   }
 
   private Map<String, String> getXPathMapping(FailureCollector collector) {
@@ -174,43 +246,11 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
   @Override
   public void transform(StructuredRecord input, Emitter<StructuredRecord> emitter) {
     try {
-      InputSource source = new InputSource(new StringReader((String) input.get(config.inputField)));
-      source.setEncoding(config.encoding);
-      DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
-      builderFactory.setFeature("http://xml.org/sax/features/external-general-entities",
-              config.enableExternalGeneralEntities);
-      builderFactory.setFeature("http://xml.org/sax/features/external-parameter-entities",
-              config.enableExternalParameterEntities);
-      builderFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd",
-              config.loadExternalDTD);
-      builderFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl",
-              config.disallowDocTypeDTD);
-      builderFactory.setXIncludeAware(false);
-      builderFactory.setExpandEntityReferences(false);
-      DocumentBuilder documentBuilder = builderFactory.newDocumentBuilder();
-      Document document = documentBuilder.parse(source);
-      XPathFactory xpathFactory = XPathFactory.newInstance();
-      XPath xpath = xpathFactory.newXPath();
+      String xml = input.get(config.inputField);
       StructuredRecord.Builder builder = StructuredRecord.builder(outSchema);
-      for (Schema.Field field : outSchema.getFields()) {
-        String fieldName = field.getName();
-        //To evaluate a node, the type(Nodelist or Node) should be known before hand.
-        //Since, the type is not specified from user inputs, taking everything as NodeList and then evaluating.
-        NodeList nodeList = (NodeList) xpath.compile(xPathMapping.get(fieldName)).evaluate(document,
-                                                                                           XPathConstants.NODESET);
-        if (config.failOnArray && nodeList.getLength() > 1) {
-          throw new IllegalArgumentException("Field " + fieldName + " is an array. " +
-                                               "Cannot specify an XPath that is an array unless failOnArray is false.");
-        }
-        Node node = nodeList.item(0);
-        //Since all columns have nullable schema extracting not nullable type.
-        Schema.Type type = field.getSchema().getNonNullable().getType();
-        String value = getValue(node, type, fieldName);
-        if (value == null) {
-          builder.set(fieldName, null);
-        } else {
-          builder.convertAndSet(fieldName, value);
-        }
+      // the streaming evaluator does not write elements with child elements back as XML, only the DOM does
+      if (streamingEvaluator == null || !evaluateStreaming(xml, builder)) {
+        evaluateDocument(xml, builder);
       }
       emitter.emit(builder.build());
     } catch (Exception e) {
@@ -227,6 +267,53 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
     }
   }
 
+  private boolean evaluateStreaming(String xml, StructuredRecord.Builder builder) throws XMLStreamException {
+    if (!streamingEvaluator.evaluate(xml)) {
+      return false;
+    }
+    List<Schema.Field> fields = outSchema.getFields();
+    for (int i = 0; i < fields.size(); i++) {
+      String fieldName = fields.get(i).getName();
+      checkArray(fieldName, streamingEvaluator.getCount(i));
+      setValue(builder, fieldName, streamingEvaluator.getValue(i));
+    }
+    return true;
+  }
+
+  private void evaluateDocument(String xml, StructuredRecord.Builder builder) throws Exception {
+    InputSource source = new InputSource(new StringReader(xml));
+    source.setEncoding(config.encoding);
+    Document document = documentBuilder.parse(source);
+    List<Schema.Field> fields = outSchema.getFields();
+    for (int i = 0; i < fields.size(); i++) {
+      Schema.Field field = fields.get(i);
+      String fieldName = field.getName();
+      //To evaluate a node, the type(Nodelist or Node) should be known before hand.
+      //Since, the type is not specified from user inputs, taking everything as NodeList and then evaluating.
+      NodeList nodeList = (NodeList) expressions[i].evaluate(document, XPathConstants.NODESET);
+      checkArray(fieldName, nodeList.getLength());
+      Node node = nodeList.item(0);
+      //Since all columns have nullable schema extracting not nullable type.
+      Schema.Type type = field.getSchema().getNonNullable().getType();
+      setValue(builder, fieldName, getValue(node, type, fieldName));
+    }
+  }
+
+  private void checkArray(String fieldName, int count) {
+    if (config.failOnArray && count > 1) {
+      throw new IllegalArgumentException("Field " + fieldName + " is an array. " +
+                                           "Cannot specify an XPath that is an array unless failOnArray is false.");
+    }
+  }
+
+  private static void setValue(StructuredRecord.Builder builder, String fieldName, @Nullable String value) {
+    if (value == null) {
+      builder.set(fieldName, null);
+    } else {
+      builder.convertAndSet(fieldName, value);
+    }
+  }
+
   /**
    * Get the node value to be parsed into the required format by parseValues().
    *
@@ -264,9 +351,11 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
   private String nodeToString(Node node) {
     StringWriter stringWriter = new StringWriter();
     try {
-      Transformer transformer = TransformerFactory.newInstance().newTransformer();
-      transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-      transformer.setOutputProperty(OutputKeys.INDENT, "no");
+      if (transformer == null) {
+        transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        transformer.setOutputProperty(OutputKeys.INDENT, "no");
+      }
       transformer.transform(new DOMSource(node), new StreamResult(stringWriter));
     } catch (TransformerException e) {
       throw new IllegalArgumentException("Cannot convert node to string. Transformer exception ", e);
@@ -280,6 +369,9 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
   public static class Config extends PluginConfig {
     public static final String FIELD_TYPE_MAPPING = "fieldTypeMapping";
     public static final String INPUT = "input";
+    public static final String XPATH_EVALUATION = "xPathEvaluation";
+    public static final String DOM_EVALUATION = "dom";
+    public static final String STREAMING_EVALUATION = "streaming";
 
     @Name("input")
     @Description("The field in the input record that is the source of the XML event or record.")
@@ -333,6 +425,16 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
             " 'http://apache.org/xml/features/disallow-doctype-decl'")
     private final Boolean disallowDocTypeDTD;
 
+    @Nullable
+    @Name(XPATH_EVALUATION)
+    @Description("How the XPaths are evaluated. 'dom' builds a document for each record and supports XPath 1.0. " +
+      "'streaming' reads the record with a streaming parser without building a document, which is faster but only " +
+      "supports absolute paths of element names, optionally ending with an attribute, like '/book/title' or " +
+      "'/book/@category'. Records for which such a path selects an element with child elements are evaluated " +
+      "with a document. Defaults to 'dom'.")
+    @Macro
+    private final String xPathEvaluation;
+
     public Config() {
       this("", "", "", "", "", false, false, false, false);
     }
@@ -345,6 +447,15 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
                   String processOnError,
                   Boolean enableExternalGeneralEntities,
                   Boolean enableExternalParameterEntities, Boolean loadExternalDTD, Boolean disallowDocTypeDTD) {
+      this(inputField, encoding, xPathFieldMapping, fieldTypeMapping, processOnError, enableExternalGeneralEntities,
+           enableExternalParameterEntities, loadExternalDTD, disallowDocTypeDTD, DOM_EVALUATION);
+    }
+
+    public Config(String inputField, String encoding, String xPathFieldMapping, String fieldTypeMapping,
+                  String processOnError,
+                  Boolean enableExternalGeneralEntities,
+                  Boolean enableExternalParameterEntities, Boolean loadExternalDTD, Boolean disallowDocTypeDTD,
+                  @Nullable String xPathEvaluation) {
       this.inputField = inputField;
       this.encoding = encoding;
       this.xPathFieldMapping = xPathFieldMapping;
@@ -355,6 +466,11 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
       this.enableExternalParameterEntities = enableExternalParameterEntities;
       this.loadExternalDTD = loadExternalDTD;
       this.disallowDocTypeDTD = disallowDocTypeDTD;
+      this.xPathEvaluation = xPathEvaluation;
+    }
+
+    private boolean isStreamingEvaluation() {
+      return STREAMING_EVALUATION.equalsIgnoreCase(xPathEvaluation);
     }
 
     /**
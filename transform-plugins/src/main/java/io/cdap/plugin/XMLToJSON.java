@@ -32,8 +32,6 @@ import io.cdap.cdap.etl.api.TransformContext;
 import io.cdap.cdap.etl.api.lineage.field.FieldOperation;
 import io.cdap.plugin.common.TransformLineageRecorderUtils;
 import org.json.JSONException;
-import org.json.JSONObject;
-import org.json.XML;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -55,7 +53,12 @@ public final class XMLToJSON extends Transform<StructuredRecord, StructuredRecor
     Schema.Field.of("json_str", Schema.of(Schema.Type.STRING))
   );
   private Schema outputSchema;
-
+  private StreamingXMLToJSONConverter converter;
+  // input fields copied to the output and the name of the JSON field, for the last input schema. Records usually
+  // share the same schema object.
+  private Schema lastInputSchema;
+  private String[] passthroughFields;
+  private String jsonField;
 
   // Used only for testing.
   public XMLToJSON(Config config) {
@@ -92,6 +95,7 @@ public final class XMLToJSON extends Transform<StructuredRecord, StructuredRecor
   public void initialize(TransformContext context) throws Exception {
     super.initialize(context);
     generateOutputSchema();
+    converter = new StreamingXMLToJSONConverter();
   }
 
   private void generateOutputSchema() {
@@ -134,31 +138,35 @@ public final class XMLToJSON extends Transform<StructuredRecord, StructuredRecor
   
   @Override
   public void transform(StructuredRecord input, Emitter<StructuredRecord> emitter) throws Exception {
-    JSONObject jsonBody;
+    String xml = input.get(config.inputField);
+    String json;
     try {
-      jsonBody = XML.toJSONObject((String) input.get(config.inputField));
+      json = converter.convert(xml);
     } catch (JSONException e) {
-      throw new Exception(String.format("Failed to convert XML to JSON. XML In: '%s'",
-                                        (String) input.get(config.inputField)), e);
+      throw new Exception(String.format("Failed to convert XML to JSON. XML In: '%s'", xml), e);
     }
-    StructuredRecord.Builder builder = StructuredRecord.builder(outputSchema);
-
-    Schema inSchema = input.getSchema();
-    List<Schema.Field> inFields = inSchema.getFields();
-
-    for (Schema.Field field : inFields) {
-      String name = field.getName();
 
-      if (outputSchema.getField(name) != null) {
-        if (name.equals(config.inputField)) {
-          // skip the input field containing the xml string
-          continue;
+    Schema inputSchema = input.getSchema();
+    if (inputSchema != lastInputSchema) {
+      List<String> fields = new ArrayList<>();
+      for (Schema.Field field : inputSchema.getFields()) {
+        String name = field.getName();
+        // skip the input field containing the xml string
+        if (outputSchema.getField(name) != null && !name.equals(config.inputField)) {
+          fields.add(name);
         }
-        builder.set(name, input.get(name));
       }
+      passthroughFields = fields.toArray(new String[0]);
+      jsonField = outputSchema.getField(config.outputField).getName();
+      lastInputSchema = inputSchema;
+    }
+
+    StructuredRecord.Builder builder = StructuredRecord.builder(outputSchema);
+    for (String name : passthroughFields) {
+      builder.set(name, input.get(name));
     }
     // Finally add the transformed JSON string
-    builder.set(outputSchema.getField(config.outputField).getName(), jsonBody.toString());
+    builder.set(jsonField, json);
     emitter.emit(builder.build());
   }
 
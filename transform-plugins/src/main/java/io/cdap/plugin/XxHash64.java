@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin;
+
+/**
+ * The xxHash64 non-cryptographic hash function. It is much faster than message digests and distributes values well,
+ * which makes it suitable for partitioning and pseudonymization, but it must not be used where collisions could be
+ * forged on purpose.
+ */
+final class XxHash64 {
+  private static final long PRIME1 = 0x9E3779B185EBCA87L;
+  private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long PRIME3 = 0x165667B19E3779F9L;
+  private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+  private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+  private XxHash64() {
+  }
+
+  /**
+   * @return the hash of the given bytes with the given seed
+   */
+  static long hash(byte[] input, long seed) {
+    int length = input.length;
+    int offset = 0;
+    long hash;
+    if (length >= 32) {
+      long v1 = seed + PRIME1 + PRIME2;
+      long v2 = seed + PRIME2;
+      long v3 = seed;
+      long v4 = seed - PRIME1;
+      int limit = length - 32;
+      do {
+        v1 = round(v1, getLong(input, offset));
+        v2 = round(v2, getLong(input, offset + 8));
+        v3 = round(v3, getLong(input, offset + 16));
+        v4 = round(v4, getLong(input, offset + 24));
+        offset += 32;
+      } while (offset <= limit);
+      hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+      hash = mergeRound(hash, v1);
+      hash = mergeRound(hash, v2);
+      hash = mergeRound(hash, v3);
+      hash = mergeRound(hash, v4);
+    } else {
+      hash = seed + PRIME5;
+    }
+    hash += length;
+
+    for (; offset + 8 <= length; offset += 8) {
+      hash ^= round(0, getLong(input, offset));
+      hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+    }
+    if (offset + 4 <= length) {
+      hash ^= (getInt(input, offset) & 0xFFFFFFFFL) * PRIME1;
+      hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+      offset += 4;
+    }
+    for (; offset < length; offset++) {
+      hash ^= (input[offset] & 0xFFL) * PRIME5;
+      hash = Long.rotateLeft(hash, 11) * PRIME1;
+    }
+
+    hash ^= hash >>> 33;
+    hash *= PRIME2;
+    hash ^= hash >>> 29;
+    hash *= PRIME3;
+    hash ^= hash >>> 32;
+    return hash;
+  }
+
+  private static long round(long acc, long input) {
+    acc += input * PRIME2;
+    acc = Long.rotateLeft(acc, 31);
+    return acc * PRIME1;
+  }
+
+  private static long mergeRound(long acc, long value) {
+    acc ^= round(0, value);
+    return acc * PRIME1 + PRIME4;
+  }
+
+  // values are read little-endian, as the reference implementation does
+  private static long getLong(byte[] input, int offset) {
+    return (input[offset] & 0xFFL)
+      | (input[offset + 1] & 0xFFL) << 8
+      | (input[offset + 2] & 0xFFL) << 16
+      | (input[offset + 3] & 0xFFL) << 24
+      | (input[offset + 4] & 0xFFL) << 32
+      | (input[offset + 5] & 0xFFL) << 40
+      | (input[offset + 6] & 0xFFL) << 48
+      | (input[offset + 7] & 0xFFL) << 56;
+  }
+
+  private static int getInt(byte[] input, int offset) {
+    return (input[offset] & 0xFF)
+      | (input[offset + 1] & 0xFF) << 8
+      | (input[offset + 2] & 0xFF) << 16
+      | (input[offset + 3] & 0xFF) << 24;
+  }
+}
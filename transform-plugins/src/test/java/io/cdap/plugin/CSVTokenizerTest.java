@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests {@link CSVTokenizer}.
+ */
+public class CSVTokenizerTest {
+  private static final List<CSVFormat> FORMATS = ImmutableList.of(
+    CSVFormat.DEFAULT, CSVFormat.EXCEL, CSVFormat.MYSQL, CSVFormat.RFC4180, CSVFormat.TDF, CSVParser.PDL,
+    CSVFormat.DEFAULT.withDelimiter(';').withEscape('\\').withIgnoreEmptyLines(false)
+      .withAllowMissingColumnNames().withQuote(null).withRecordSeparator('\n').withIgnoreSurroundingSpaces());
+
+  private static final List<String> INPUTS = ImmutableList.of(
+    "", "a", "a,b,c", "a,b,", ",", "a;b;c", "a\tb\tc", "a|b|c", " a , b ,c ", " a\t b \tc ",
+    "a,\"b,c\",d", "a,\"b\"\"c\"", "a,\"b\" ,c", "\"a\nb\",c", "a\nb\n", "a\r\nb\r\n", "a\rb",
+    "\n\na,b\n\nc\n", "a\n\n", "a\\,b", "a\\|b|c", "a\\tb\tc", "a\\nb", "a\\xb", "a\t\\N\tc", "\\N",
+    "a,\"b\"x", "a,\"b", "a\\");
+
+  @Test
+  public void testSameRecordsAsCommonsCSV() throws Exception {
+    for (CSVFormat format : FORMATS) {
+      CSVTokenizer tokenizer = new CSVTokenizer(format);
+      for (String input : INPUTS) {
+        String message = String.format("Input '%s' with format %s", input, format);
+        Assert.assertEquals(message, parse(format, input), tokenize(tokenizer, input));
+      }
+    }
+  }
+
+  @Test
+  public void testReset() throws Exception {
+    CSVTokenizer tokenizer = new CSVTokenizer(CSVFormat.DEFAULT);
+    tokenizer.reset("a,b\nc,d");
+    Assert.assertTrue(tokenizer.nextRecord());
+    tokenizer.reset("\"e\nf\",g");
+    Assert.assertTrue(tokenizer.nextRecord());
+    Assert.assertEquals(2, tokenizer.size());
+    Assert.assertEquals("e\nf", tokenizer.get(0));
+    Assert.assertEquals("g", tokenizer.get(1));
+    Assert.assertFalse(tokenizer.nextRecord());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testHeaderUnsupported() {
+    new CSVTokenizer(CSVFormat.DEFAULT.withHeader("a", "b"));
+  }
+
+  /**
+   * @return the records parsed by commons-csv, or the message of the parse error
+   */
+  private static Object parse(CSVFormat format, String input) {
+    List<List<String>> records = new ArrayList<>();
+    try {
+      for (CSVRecord record : org.apache.commons.csv.CSVParser.parse(input, format)) {
+        List<String> values = new ArrayList<>();
+        record.forEach(values::add);
+        records.add(values);
+      }
+    } catch (IOException | RuntimeException e) {
+      // commons-csv wraps errors that happen while iterating
+      return e.getCause() instanceof IOException ? e.getCause().getMessage() : e.getMessage();
+    }
+    return records;
+  }
+
+  /**
+   * @return the records read by the tokenizer, or the message of the parse error
+   */
+  private static Object tokenize(CSVTokenizer tokenizer, String input) {
+    List<List<String>> records = new ArrayList<>();
+    tokenizer.reset(input);
+    try {
+      while (tokenizer.nextRecord()) {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < tokenizer.size(); i++) {
+          values.add(tokenizer.get(i));
+        }
+        records.add(values);
+      }
+    } catch (IOException e) {
+      return e.getMessage();
+    }
+    return records;
+  }
+}
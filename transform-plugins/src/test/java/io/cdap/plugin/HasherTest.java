@@ -16,15 +16,21 @@
 
 package io.cdap.plugin;
 
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.etl.api.Transform;
+import io.cdap.cdap.etl.api.validation.ValidationException;
 import io.cdap.cdap.etl.mock.common.MockEmitter;
 import io.cdap.cdap.etl.mock.common.MockPipelineConfigurer;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+
 /**
  * Tests {@link Hasher}
  */
@@ -174,6 +180,105 @@ public class HasherTest {
     Assert.assertEquals(DigestUtils.sha512Hex("Field E"), emitter.getEmitted().get(0).get("e"));
   }
 
+  @Test
+  public void testHasherXxHash64() throws Exception {
+    Transform<StructuredRecord, StructuredRecord> transform =
+      new Hasher(new Hasher.Config("XXHASH64", "a,b,e"));
+    transform.initialize(null);
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(StructuredRecord.builder(INPUT)
+                          .set("a", "")
+                          .set("b", "abc")
+                          .set("c", "Field C")
+                          .set("d", 4)
+                          .set("e", "Nobody inspects the spammish repetition").build(), emitter);
+
+    // reference values of the xxHash64 implementation
+    Assert.assertEquals("ef46db3751d8e999", emitter.getEmitted().get(0).get("a"));
+    Assert.assertEquals("44bc2cf5ad770999", emitter.getEmitted().get(0).get("b"));
+    Assert.assertEquals("Field C", emitter.getEmitted().get(0).get("c"));
+    Assert.assertEquals("fbcea83c8a378bf1", emitter.getEmitted().get(0).get("e"));
+  }
+
+  @Test
+  public void testHasherMurmur3() throws Exception {
+    Transform<StructuredRecord, StructuredRecord> transform =
+      new Hasher(new Hasher.Config("murmur3_128", "a,b,e"));
+    transform.initialize(null);
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(StructuredRecord.builder(INPUT)
+                          .set("a", "Field A")
+                          .set("b", "Field B")
+                          .set("c", "Field C")
+                          .set("d", 4)
+                          .set("e", "Field E").build(), emitter);
+
+    HashFunction murmur = Hashing.murmur3_128();
+    Assert.assertEquals(murmur.hashString("Field A", Charsets.UTF_8).toString(), emitter.getEmitted().get(0).get("a"));
+    Assert.assertEquals(murmur.hashString("Field B", Charsets.UTF_8).toString(), emitter.getEmitted().get(0).get("b"));
+    Assert.assertEquals("Field C", emitter.getEmitted().get(0).get("c"));
+    Assert.assertEquals(murmur.hashString("Field E", Charsets.UTF_8).toString(), emitter.getEmitted().get(0).get("e"));
+  }
+
+  @Test
+  public void testHasherNonStringFields() throws Exception {
+    Schema input = Schema.recordOf("input",
+                                   Schema.Field.of("a", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                   Schema.Field.of("b", Schema.of(Schema.Type.BYTES)),
+                                   Schema.Field.of("c", Schema.of(Schema.Type.INT)),
+                                   Schema.Field.of("d", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))),
+                                   Schema.Field.of("e", Schema.of(Schema.Type.LONG)));
+    Schema output = Schema.recordOf("input",
+                                    Schema.Field.of("a", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                    Schema.Field.of("b", Schema.of(Schema.Type.STRING)),
+                                    Schema.Field.of("c", Schema.of(Schema.Type.STRING)),
+                                    Schema.Field.of("d", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                    Schema.Field.of("e", Schema.of(Schema.Type.LONG)));
+    Transform<StructuredRecord, StructuredRecord> transform = new Hasher(new Hasher.Config("SHA256", "a,b,c,d"));
+    MockPipelineConfigurer mockPipelineConfigurer = new MockPipelineConfigurer(input);
+    transform.configurePipeline(mockPipelineConfigurer);
+    Assert.assertEquals(output, mockPipelineConfigurer.getOutputSchema());
+
+    transform.initialize(null);
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    for (int i = 0; i < 2; i++) {
+      transform.transform(StructuredRecord.builder(input)
+                            .set("a", i == 0 ? "Field A" : null)
+                            .set("b", i == 0 ? new byte[] { 1, 2 } : ByteBuffer.wrap(new byte[] { 1, 2 }))
+                            .set("c", 4)
+                            .set("d", i == 0 ? 2.5d : null)
+                            .set("e", 5L).build(), emitter);
+    }
+
+    StructuredRecord record = emitter.getEmitted().get(0);
+    Assert.assertEquals(output, record.getSchema());
+    Assert.assertEquals(DigestUtils.sha256Hex("Field A"), record.get("a"));
+    Assert.assertEquals(DigestUtils.sha256Hex(new byte[] { 1, 2 }), record.get("b"));
+    Assert.assertEquals(DigestUtils.sha256Hex("4"), record.get("c"));
+    Assert.assertEquals(DigestUtils.sha256Hex("2.5"), record.get("d"));
+    Assert.assertEquals(5L, record.<Long>get("e").longValue());
+
+    record = emitter.getEmitted().get(1);
+    Assert.assertNull(record.get("a"));
+    Assert.assertEquals(DigestUtils.sha256Hex(new byte[] { 1, 2 }), record.get("b"));
+    Assert.assertNull(record.get("d"));
+  }
+
+  @Test
+  public void testUnsupportedField() throws Exception {
+    Schema input = Schema.recordOf("input", Schema.Field.of("a", Schema.of(Schema.Type.BOOLEAN)));
+    Transform<StructuredRecord, StructuredRecord> transform = new Hasher(new Hasher.Config("MD5", "a"));
+    MockPipelineConfigurer mockPipelineConfigurer = new MockPipelineConfigurer(input);
+    try {
+      transform.configurePipeline(mockPipelineConfigurer);
+      Assert.fail("Hashing a boolean field should fail validation.");
+    } catch (ValidationException e) {
+      Assert.assertEquals(1, e.getFailures().size());
+    }
+  }
+
   @Test
   public void testSchemaValidation() throws Exception {
     Transform<StructuredRecord, StructuredRecord> transform =
@@ -30,6 +30,8 @@ import io.cdap.cdap.etl.mock.transform.MockTransformContext;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.List;
+
 /**
  * Tests {@link JSONParser}
  */
@@ -270,4 +272,75 @@ public class JSONParserTest {
     Assert.assertEquals(19.95d, emitter.getEmitted().get(0).get("bicycle_price"), 0.0001d);
     Assert.assertEquals(null, emitter.getEmitted().get(0).get("window"));
   }
+
+  @Test
+  public void testStreamingEvaluation() throws Exception {
+    Schema output = Schema.recordOf("output",
+                                    Schema.Field.of("expensive", Schema.of(Schema.Type.INT)),
+                                    Schema.Field.of("bicycle_color", Schema.of(Schema.Type.STRING)),
+                                    Schema.Field.of("bicycle_price", Schema.of(Schema.Type.DOUBLE)),
+                                    Schema.Field.of("isbn", Schema.of(Schema.Type.STRING)),
+                                    Schema.Field.of("window", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                    Schema.Field.of("body", Schema.of(Schema.Type.STRING)));
+    String[] jsonPaths = {
+      "expensive:$.expensive",
+      "bicycle_color:$['store']['bicycle']['color']",
+      "bicycle_price:$.store.bicycle.price",
+      "isbn:$.store.book[2].isbn",
+      "window:$.store.window"
+    };
+    String[] bodies = {
+      json,
+      // duplicate properties replace earlier ones, so the isbn is missing and the record is dropped
+      "{\"store\": {\"book\": [{}, {}, {\"isbn\": \"1\"}], \"bicycle\": {\"color\": \"blue\", \"price\": 1}}, " +
+        "\"store\": {\"book\": [{}, {}, {}]}, \"expensive\": 1}",
+      // the window is an object, so the record is evaluated on the tree
+      "{\"store\": {\"book\": [{}, {}, {\"isbn\": \"2\"}], \"bicycle\": {\"color\": \"blue\", \"price\": 1.5}, " +
+        "\"window\": {\"color\": \"red\"}}, \"expensive\": 1234}",
+      // not strict JSON, so the record is evaluated on the tree
+      "{'store': {'book': [{}, {}, {'isbn': '3'}], 'bicycle': {'color': 'green', 'price': 1e2}}, 'expensive': 5}"
+    };
+
+    List<StructuredRecord> expected = parse(new JSONParser.Config("body", Joiner.on(",").join(jsonPaths),
+                                                                  output.toString()), bodies);
+    List<StructuredRecord> actual = parse(new JSONParser.Config("body", Joiner.on(",").join(jsonPaths),
+                                                                output.toString(),
+                                                                JSONParser.Config.STREAMING_EVALUATION), bodies);
+    Assert.assertEquals(3, expected.size());
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals("0-553-21311-3", actual.get(0).get("isbn"));
+    Assert.assertEquals(json, actual.get(0).get("body"));
+
+    // a path that is not supported by streaming evaluation makes all records evaluated on the tree
+    String mapping = Joiner.on(",").join(jsonPaths) + ",title:$.store.book[?(@.price > 20)].title";
+    output = Schema.recordOf("output", Schema.Field.of("isbn", Schema.of(Schema.Type.STRING)),
+                             Schema.Field.of("title", Schema.of(Schema.Type.STRING)));
+    Assert.assertEquals(parse(new JSONParser.Config("body", mapping, output.toString()), json),
+                        parse(new JSONParser.Config("body", mapping, output.toString(),
+                                                    JSONParser.Config.STREAMING_EVALUATION), json));
+  }
+
+  @Test
+  public void testInvalidJsonPath() throws Exception {
+    JSONParser.Config config = new JSONParser.Config("body", "expensive:$.expensive,title:$.store.book[?(@.price",
+                                                     OUTPUT3.toString());
+    MockPipelineConfigurer mockPipelineConfigurer = new MockPipelineConfigurer(INPUT1);
+    new JSONParser(config).configurePipeline(mockPipelineConfigurer);
+    FailureCollector collector = mockPipelineConfigurer.getStageConfigurer().getFailureCollector();
+    Assert.assertEquals(1, collector.getValidationFailures().size());
+    ValidationFailure.Cause expectedCause = new ValidationFailure.Cause();
+    expectedCause.addAttribute(CauseAttributes.STAGE_CONFIG, JSONParser.Config.MAPPING);
+    expectedCause.addAttribute(CauseAttributes.CONFIG_ELEMENT, "title:$.store.book[?(@.price");
+    Assert.assertEquals(expectedCause, collector.getValidationFailures().get(0).getCauses().get(0));
+  }
+
+  private static List<StructuredRecord> parse(JSONParser.Config config, String... bodies) throws Exception {
+    Transform<StructuredRecord, StructuredRecord> transform = new JSONParser(config);
+    transform.initialize(new MockTransformContext());
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    for (String body : bodies) {
+      transform.transform(StructuredRecord.builder(INPUT1).set("body", body).build(), emitter);
+    }
+    return emitter.getEmitted();
+  }
 }
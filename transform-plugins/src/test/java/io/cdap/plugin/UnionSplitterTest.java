@@ -301,4 +301,64 @@ public class UnionSplitterTest {
     Assert.assertEquals(expected, actual);
     Assert.assertEquals(0, context.getFailureCollector().getValidationFailures().size());
   }
+
+  @Test
+  public void testRepeatedBranches() throws Exception {
+    Schema recSchema = Schema.recordOf("rec", Schema.Field.of("x", Schema.of(Schema.Type.INT)));
+    // an equal schema that is a different object, like the schema of records deserialized separately
+    Schema sameRecSchema = Schema.parseJson(recSchema.toString());
+    Schema inputSchema = Schema.recordOf(
+      "union",
+      Schema.Field.of("a", Schema.of(Schema.Type.LONG)),
+      Schema.Field.of("b", Schema.unionOf(Schema.of(Schema.Type.NULL), Schema.of(Schema.Type.INT), recSchema)));
+    Schema intSchema = Schema.recordOf("union.int",
+                                       Schema.Field.of("a", Schema.of(Schema.Type.LONG)),
+                                       Schema.Field.of("b", Schema.of(Schema.Type.INT)));
+    Schema withRecSchema = Schema.recordOf("union.rec",
+                                           Schema.Field.of("a", Schema.of(Schema.Type.LONG)),
+                                           Schema.Field.of("b", recSchema));
+    StructuredRecord rec = StructuredRecord.builder(recSchema).set("x", 1).build();
+    StructuredRecord sameRec = StructuredRecord.builder(sameRecSchema).set("x", 1).build();
+
+    UnionSplitter unionSplitter = new UnionSplitter(new UnionSplitter.Conf("b", true));
+    unionSplitter.initialize(new MockTransformContext());
+    MockMultiOutputEmitter<StructuredRecord> mockEmitter = new MockMultiOutputEmitter<>();
+    for (Object value : new Object[] { 1, rec, 2, sameRec, "not in union", null, 3 }) {
+      unionSplitter.transform(StructuredRecord.builder(inputSchema).set("a", 0L).set("b", value).build(), mockEmitter);
+    }
+
+    Map<String, List<Object>> actual = mockEmitter.getEmitted();
+    Assert.assertEquals(ImmutableList.of(StructuredRecord.builder(intSchema).set("a", 0L).set("b", 1).build(),
+                                         StructuredRecord.builder(intSchema).set("a", 0L).set("b", 2).build(),
+                                         StructuredRecord.builder(intSchema).set("a", 0L).set("b", 3).build()),
+                        actual.get("int"));
+    StructuredRecord withRec = StructuredRecord.builder(withRecSchema).set("a", 0L).set("b", rec).build();
+    Assert.assertEquals(ImmutableList.of(withRec, withRec), actual.get("rec"));
+    Assert.assertEquals(1, actual.get("null").size());
+    Assert.assertFalse(actual.containsKey("string"));
+    // records of the same branch share the output schema
+    Assert.assertSame(((StructuredRecord) actual.get("int").get(0)).getSchema(),
+                      ((StructuredRecord) actual.get("int").get(2)).getSchema());
+  }
+
+  @Test
+  public void testSplitWithoutSchemaModification() throws Exception {
+    Schema inputSchema = Schema.recordOf(
+      "union",
+      Schema.Field.of("a", Schema.of(Schema.Type.LONG)),
+      Schema.Field.of("b", Schema.unionOf(Schema.of(Schema.Type.INT), Schema.of(Schema.Type.STRING))));
+    StructuredRecord intRecord = StructuredRecord.builder(inputSchema).set("a", 0L).set("b", 5).build();
+    StructuredRecord stringRecord = StructuredRecord.builder(inputSchema).set("a", 0L).set("b", "5").build();
+
+    UnionSplitter unionSplitter = new UnionSplitter(new UnionSplitter.Conf("b", false));
+    unionSplitter.initialize(new MockTransformContext());
+    MockMultiOutputEmitter<StructuredRecord> mockEmitter = new MockMultiOutputEmitter<>();
+    unionSplitter.transform(intRecord, mockEmitter);
+    unionSplitter.transform(stringRecord, mockEmitter);
+
+    Map<String, List<Object>> expected = new HashMap<>();
+    expected.put("int", ImmutableList.of(intRecord));
+    expected.put("string", ImmutableList.of(stringRecord));
+    Assert.assertEquals(expected, mockEmitter.getEmitted());
+  }
 }
@@ -19,8 +19,12 @@ package io.cdap.plugin;
 import com.google.common.collect.ImmutableList;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.etl.api.FailureCollector;
 import io.cdap.cdap.etl.api.InvalidEntry;
+import io.cdap.cdap.etl.api.validation.CauseAttributes;
+import io.cdap.cdap.etl.api.validation.ValidationFailure.Cause;
 import io.cdap.cdap.etl.mock.common.MockEmitter;
+import io.cdap.cdap.etl.mock.common.MockPipelineConfigurer;
 import io.cdap.cdap.etl.mock.transform.MockTransformContext;
 import org.junit.Assert;
 import org.junit.Test;
@@ -96,4 +100,85 @@ public class XMLMultiParserTest {
     Assert.assertEquals(31, invalidEntry.getErrorCode());
     Assert.assertEquals(input, invalidEntry.getInvalidRecord());
   }
+
+  @Test
+  public void testStreamingEvaluation() throws Exception {
+    Schema schema = Schema.recordOf("record",
+                                    Schema.Field.of("id", Schema.of(Schema.Type.LONG)),
+                                    Schema.Field.of("name", Schema.of(Schema.Type.STRING)),
+                                    Schema.Field.of("price", Schema.of(Schema.Type.DOUBLE)),
+                                    Schema.Field.of("desc", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+    XMLMultiParser.Config config = new XMLMultiParser.Config("body", "UTF-8", "/items/item", schema.toString(),
+                                                             false, false, false, false, "streaming");
+    Schema inputSchema = Schema.recordOf("input", Schema.Field.of("body", Schema.of(Schema.Type.STRING)));
+    MockPipelineConfigurer configurer = new MockPipelineConfigurer(inputSchema);
+    new XMLMultiParser(config).configurePipeline(configurer);
+    Assert.assertEquals(0, configurer.getStageConfigurer().getFailureCollector().getValidationFailures().size());
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    StructuredRecord input = StructuredRecord.builder(inputSchema)
+      .set("body",
+           "<items>" +
+             "<item><id>0</id><name>Burrito <![CDATA[&]]> <b>Beans</b></name><price>7.77</price>" +
+             "<desc>delicious</desc><unknown>x</unknown></item>" +
+             "<other><item><id>50</id><name>Not selected</name><price>1.00</price></item></other>" +
+             "<item><id>100</id><name>Tortilla Chips</name><price>0.99</price></item>" +
+             "<item><id>not a number</id><name>Salsa</name><price>1.99</price></item>" +
+             "<item><id>200</id><name>Water</name><price>2.99</price></item>" +
+             "</items>")
+      .build();
+
+    XMLMultiParser parser = new XMLMultiParser(config);
+    parser.initialize(new MockTransformContext("stage"));
+    parser.transform(input, emitter);
+
+    List<StructuredRecord> expected = ImmutableList.of(
+      StructuredRecord.builder(schema)
+        .set("id", 0L).set("name", "Burrito & Beans").set("price", 7.77d).set("desc", "delicious").build(),
+      StructuredRecord.builder(schema).set("id", 100L).set("name", "Tortilla Chips").set("price", 0.99d).build(),
+      StructuredRecord.builder(schema).set("id", 200L).set("name", "Water").set("price", 2.99d).build()
+    );
+    Assert.assertEquals(expected, emitter.getEmitted());
+    Assert.assertEquals(1, emitter.getErrors().size());
+    Assert.assertEquals(input, emitter.getErrors().get(0).getInvalidRecord());
+  }
+
+  @Test
+  public void testStreamingEvaluationInvalidXml() throws Exception {
+    Schema schema = Schema.recordOf("record", Schema.Field.of("id", Schema.of(Schema.Type.LONG)));
+    XMLMultiParser.Config config = new XMLMultiParser.Config("body", "UTF-8", "/items/item", schema.toString(),
+                                                             false, false, false, false, "streaming");
+    Schema inputSchema = Schema.recordOf("input", Schema.Field.of("body", Schema.of(Schema.Type.STRING)));
+    StructuredRecord input = StructuredRecord.builder(inputSchema)
+      .set("body", "<items><item><id>0</id></item><item><id>100</id></items>")
+      .build();
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    XMLMultiParser parser = new XMLMultiParser(config);
+    parser.initialize(new MockTransformContext("stage"));
+    parser.transform(input, emitter);
+
+    // elements before the error are already emitted
+    Assert.assertEquals(ImmutableList.of(StructuredRecord.builder(schema).set("id", 0L).build()),
+                        emitter.getEmitted());
+    Assert.assertEquals(1, emitter.getErrors().size());
+    InvalidEntry<StructuredRecord> invalidEntry = emitter.getErrors().get(0);
+    Assert.assertEquals(31, invalidEntry.getErrorCode());
+    Assert.assertEquals(input, invalidEntry.getInvalidRecord());
+  }
+
+  @Test
+  public void testStreamingEvaluationUnsupportedXPath() {
+    Schema schema = Schema.recordOf("record", Schema.Field.of("id", Schema.of(Schema.Type.LONG)));
+    XMLMultiParser.Config config = new XMLMultiParser.Config("body", "UTF-8", "//item[price>1]", schema.toString(),
+                                                             false, false, false, false, "streaming");
+    MockPipelineConfigurer configurer = new MockPipelineConfigurer(
+      Schema.recordOf("input", Schema.Field.of("body", Schema.of(Schema.Type.STRING))));
+    new XMLMultiParser(config).configurePipeline(configurer);
+    FailureCollector collector = configurer.getStageConfigurer().getFailureCollector();
+    Assert.assertEquals(1, collector.getValidationFailures().size());
+    Cause expectedCause = new Cause();
+    expectedCause.addAttribute(CauseAttributes.STAGE_CONFIG, "xPath");
+    Assert.assertEquals(expectedCause, collector.getValidationFailures().get(0).getCauses().get(0));
+  }
 }
@@ -280,4 +280,74 @@ public class XMLParserTest {
     expectedCause.addAttribute(CauseAttributes.STAGE_CONFIG, XMLParser.Config.INPUT);
     Assert.assertEquals(expectedCause, collector.getValidationFailures().get(0).getCauses().get(0));
   }
+
+  @Test
+  public void testStreamingEvaluation() throws Exception {
+    Schema schema = Schema.recordOf("record",
+                                    Schema.Field.of("category", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                    Schema.Field.of("title", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                    Schema.Field.of("price", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))),
+                                    Schema.Field.of("subcategory", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                    Schema.Field.of("isbn", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+
+    XMLParser.Config config = new XMLParser.Config(
+      "body", "UTF-8",
+      "category:/bookstore/book/@category,title:/bookstore/book/title,price:/bookstore/book/price," +
+        "subcategory:/bookstore/book/subcategory,isbn:/bookstore/book/isbn",
+      "category:string,title:string,price:double,subcategory:string,isbn:string",
+      "Write to error dataset", false, false, false, false, XMLParser.Config.STREAMING_EVALUATION);
+    MockPipelineConfigurer configurer = new MockPipelineConfigurer(INPUT);
+    new XMLParser(config).configurePipeline(configurer);
+    Assert.assertEquals(0, configurer.getStageConfigurer().getFailureCollector().getValidationFailures().size());
+
+    Transform<StructuredRecord, StructuredRecord> transform = new XMLParser(config);
+    transform.initialize(new MockTransformContext());
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+
+    transform.transform(StructuredRecord.builder(INPUT)
+                          .set("offset", 1)
+                          .set("body", "<bookstore><book category=\"cooking\"><title lang=\"en\">Everyday " +
+                            "<![CDATA[Italian]]> &amp; more</title><subcategory>Continental</subcategory>" +
+                            "<price>30.00</price></book><book category=\"web\"><title>Learning XML</title>" +
+                            "</book></bookstore>").build(), emitter);
+    // the subcategory element has child elements, so it is written back as XML
+    transform.transform(StructuredRecord.builder(INPUT)
+                          .set("offset", 2)
+                          .set("body", "<bookstore><book category=\"children\"><title>Harry Potter</title>" +
+                            "<subcategory><type>Series</type></subcategory><price>49.99</price></book>" +
+                            "</bookstore>").build(), emitter);
+    transform.transform(StructuredRecord.builder(INPUT)
+                          .set("offset", 3)
+                          .set("body", "<bookstore><book>").build(), emitter);
+
+    List<StructuredRecord> expected = ImmutableList.of(
+      StructuredRecord.builder(schema)
+        .set("category", "cooking")
+        .set("title", "Everyday Italian & more")
+        .set("price", 30d)
+        .set("subcategory", "Continental").build(),
+      StructuredRecord.builder(schema)
+        .set("category", "children")
+        .set("title", "Harry Potter")
+        .set("price", 49.99d)
+        .set("subcategory", "<subcategory><type>Series</type></subcategory>").build());
+    Assert.assertEquals(expected, emitter.getEmitted());
+    Assert.assertEquals(1, emitter.getErrors().size());
+    Assert.assertEquals(3, emitter.getErrors().get(0).getInvalidRecord().<Integer>get("offset").intValue());
+  }
+
+  @Test
+  public void testStreamingEvaluationUnsupportedXPath() {
+    XMLParser.Config config = new XMLParser.Config(
+      "body", "UTF-8", "title:/book/title,year:/bookstore/book[price>35.00]/year", "title:string,year:int",
+      "Exit on error", false, false, false, false, XMLParser.Config.STREAMING_EVALUATION);
+    MockPipelineConfigurer configurer = new MockPipelineConfigurer(INPUT);
+    new XMLParser(config).configurePipeline(configurer);
+    FailureCollector collector = configurer.getStageConfigurer().getFailureCollector();
+    Assert.assertEquals(1, collector.getValidationFailures().size());
+    Cause expectedCause = new Cause();
+    expectedCause.addAttribute(CauseAttributes.STAGE_CONFIG, "xPathMappings");
+    expectedCause.addAttribute(CauseAttributes.CONFIG_ELEMENT, "year:/bookstore/book[price>35.00]/year");
+    Assert.assertEquals(expectedCause, collector.getValidationFailures().get(0).getCauses().get(0));
+  }
 }
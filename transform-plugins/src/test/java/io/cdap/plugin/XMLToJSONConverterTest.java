@@ -16,6 +16,7 @@
 
 package io.cdap.plugin;
 
+import com.google.common.collect.ImmutableList;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.etl.api.FailureCollector;
@@ -25,9 +26,12 @@ import io.cdap.cdap.etl.api.validation.CauseAttributes;
 import io.cdap.cdap.etl.api.validation.ValidationFailure.Cause;
 import io.cdap.cdap.etl.mock.common.MockEmitter;
 import io.cdap.cdap.etl.mock.common.MockPipelineConfigurer;
+import org.json.XML;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.List;
+
 /**
  * Tests {@link XMLToJSON}
  */
@@ -122,4 +126,77 @@ public class XMLToJSONConverterTest {
     Assert.assertEquals(1, collector.getValidationFailures().size());
     Assert.assertEquals(2, collector.getValidationFailures().get(0).getCauses().size());
   }
+
+  @Test
+  public void testPassthroughFields() throws Exception {
+    Schema input = Schema.recordOf("input2",
+                                   Schema.Field.of("id", Schema.of(Schema.Type.INT)),
+                                   Schema.Field.of("body", Schema.of(Schema.Type.STRING)),
+                                   Schema.Field.of("dropped", Schema.of(Schema.Type.STRING)));
+    Schema output = Schema.recordOf("output2",
+                                    Schema.Field.of("id", Schema.of(Schema.Type.INT)),
+                                    Schema.Field.of("jsonevent", Schema.of(Schema.Type.STRING)));
+    XMLToJSON.Config config = new XMLToJSON.Config("body", "jsonevent", output.toString());
+    Transform<StructuredRecord, StructuredRecord> transform = new XMLToJSON(config);
+    transform.initialize(null);
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    for (int i = 0; i < 2; i++) {
+      transform.transform(StructuredRecord.builder(input)
+                            .set("id", i)
+                            .set("body", "<a><b>" + i + "</b></a>")
+                            .set("dropped", "x")
+                            .build(), emitter);
+    }
+    Assert.assertEquals(ImmutableList.of(
+      StructuredRecord.builder(output).set("id", 0).set("jsonevent", "{\"a\":{\"b\":0}}").build(),
+      StructuredRecord.builder(output).set("id", 1).set("jsonevent", "{\"a\":{\"b\":1}}").build()),
+                        emitter.getEmitted());
+  }
+
+  @Test
+  public void testStreamingConversionMatchesLibrary() {
+    List<String> documents = ImmutableList.of(
+      "<r><a>x<!--c-->y</a><a>z</a><b/><b x='1'/><c>1.50</c><c>007</c><d>true</d><d>null</d><e>-5</e>" +
+        "<e>12345678901</e><f> </f></r>",
+      "<r a='1' b='two' content='x'><![CDATA[ raw <b> ]]>text &amp; more &lt;/i&gt;<i>1</i>tail</r>",
+      "<s:Envelope xmlns:s='u' xmlns='d'><s:Body s:id='3'><m>a</m><n>b</n><m>c</m></s:Body></s:Envelope>",
+      "<?xml version=\"1.0\"?><!-- comment --><r><x><y><z>1</z><z>2</z></y><y/><w>q</w></x><x>only</x></r>",
+      "<r>\u00e9\u2003<a>tab\there \"quoted\" back\\slash</a>\n</r>",
+      "<r>\n  <a b='x y' c=\"q'\">v\n w</a>\n  <a>t</a>\n</r>",
+      "<r><a>x<b/>y</a><a>z</a><c>p<!--k-->q</c></r>",
+      // converted by the library
+      "<r>a&#65;</r>", "<a/><b/>", "", "<r>\r\n</r>", "<r a='tab\there'><b c=\"line\nfeed\">x</b></r>",
+      "<r>\n  <!-- it's -->\n  <a b='x\ny'>v</a>\n</r>", "<r>\n  <![CDATA[ ' ]]>\n  <a b='x\ty'>v</a>\n</r>");
+    StreamingXMLToJSONConverter converter = new StreamingXMLToJSONConverter();
+    for (String document : documents) {
+      Assert.assertEquals(XML.toJSONObject(document).toString(), converter.convert(document));
+    }
+
+    StringBuilder wide = new StringBuilder("<r>");
+    for (int i = 0; i < 100; i++) {
+      wide.append("<field").append(i).append(" n='").append(i).append("'>").append(i % 7 == 0 ? "" : "v" + i)
+        .append("</field").append(i).append(">");
+    }
+    String document = wide.append("</r>").toString();
+    Assert.assertEquals(XML.toJSONObject(document).toString(), converter.convert(document));
+
+    // large enough for elements with child elements to be kept rather than written when they end
+    StringBuilder deep = new StringBuilder();
+    for (int i = 0; i < 400; i++) {
+      deep.append("<n").append(i % 3).append(" d='").append(i).append("'>t").append(i);
+    }
+    for (int i = 399; i >= 0; i--) {
+      deep.append("</n").append(i % 3).append(">");
+    }
+    document = deep.toString();
+    Assert.assertEquals(XML.toJSONObject(document).toString(), converter.convert(document));
+
+    StringBuilder items = new StringBuilder("<rss><channel>");
+    for (int i = 0; i < 500; i++) {
+      items.append("<item id='").append(i).append("'><title>t ").append(i)
+        .append("</title><tag>a</tag><tag>b</tag><desc><p>x</p><p>y</p></desc></item>");
+    }
+    document = items.append("<title>last</title></channel></rss>").toString();
+    Assert.assertEquals(XML.toJSONObject(document).toString(), converter.convert(document));
+  }
 }